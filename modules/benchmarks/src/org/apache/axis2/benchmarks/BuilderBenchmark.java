@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.TransportUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing of incoming messages the way the transports do it: the builder is
+ * selected by {@link org.apache.axis2.builder.BuilderUtil#getBuilderFromSelector} from the
+ * content type and the resulting envelope is fully built. The {@link PayloadCorpus#MTOM} entry
+ * is serialized as an MTOM multipart message, so it goes through MIMEBuilder and MTOMBuilder;
+ * the other entries go through SOAPBuilder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuilderBenchmark {
+
+    @Param({PayloadCorpus.SMALL, PayloadCorpus.DOCUMENT_100K, PayloadCorpus.MTOM})
+    public String payload;
+
+    private ConfigurationContext configContext;
+    private byte[] message;
+    private String contentType;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createConfigurationContextFromFileSystem(null);
+
+        SOAPEnvelope envelope = PayloadCorpus.createEnvelope(payload);
+        OMOutputFormat format = new OMOutputFormat();
+        format.setSOAP11(true);
+        format.setDoOptimize(PayloadCorpus.MTOM.equals(payload));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        envelope.serialize(out, format);
+        message = out.toByteArray();
+        contentType = format.getContentType();
+        if (!format.isOptimized()) {
+            contentType = contentType + "; charset=" + format.getCharSetEncoding();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        configContext.terminate();
+    }
+
+    @Benchmark
+    public SOAPEnvelope build() throws Exception {
+        MessageContext msgContext = configContext.createMessageContext();
+        msgContext.setServerSide(true);
+        msgContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING,
+                               MessageContext.DEFAULT_CHAR_SET_ENCODING);
+        SOAPEnvelope envelope = TransportUtils.createSOAPMessage(
+                msgContext, new ByteArrayInputStream(message), contentType);
+        envelope.build();
+        return envelope;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.dispatchers.AddressingBasedDispatcher;
+import org.apache.axis2.dispatchers.RequestURIBasedDispatcher;
+import org.apache.axis2.dispatchers.SOAPActionBasedDispatcher;
+import org.apache.axis2.dispatchers.SOAPMessageBodyBasedDispatcher;
+import org.apache.axis2.engine.AbstractDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the individual dispatchers from <code>org.apache.axis2.dispatchers</code> and the
+ * sequence in which the default Dispatch phase runs them. Every dispatcher is given a message
+ * that it is able to resolve on its own, so each benchmark measures a successful lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatcherBenchmark {
+
+    private LocalEchoServer server;
+    private MessageContext msgContext;
+    private AxisService service;
+
+    private final RequestURIBasedDispatcher requestURIDispatcher = new RequestURIBasedDispatcher();
+    private final SOAPActionBasedDispatcher soapActionDispatcher = new SOAPActionBasedDispatcher();
+    private final AddressingBasedDispatcher addressingDispatcher = new AddressingBasedDispatcher();
+    private final SOAPMessageBodyBasedDispatcher bodyDispatcher =
+            new SOAPMessageBodyBasedDispatcher();
+    private AbstractDispatcher[] dispatchChain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new LocalEchoServer();
+        service = server.getService();
+
+        requestURIDispatcher.initDispatcher();
+        soapActionDispatcher.initDispatcher();
+        addressingDispatcher.initDispatcher();
+        bodyDispatcher.initDispatcher();
+        dispatchChain = new AbstractDispatcher[] {
+                requestURIDispatcher, soapActionDispatcher, addressingDispatcher, bodyDispatcher
+        };
+
+        msgContext = server.getServerContext().createMessageContext();
+        msgContext.setServerSide(true);
+        msgContext.setTo(new EndpointReference(server.getServiceAddress()));
+        msgContext.setSoapAction(LocalEchoServer.ECHO_ACTION);
+        msgContext.setWSAAction(LocalEchoServer.ECHO_ACTION);
+        msgContext.setEnvelope(PayloadCorpus.createEnvelope(PayloadCorpus.SMALL));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Benchmark
+    public AxisService requestURIFindService() throws AxisFault {
+        return requestURIDispatcher.findService(msgContext);
+    }
+
+    @Benchmark
+    public AxisOperation soapActionFindOperation() throws AxisFault {
+        return soapActionDispatcher.findOperation(service, msgContext);
+    }
+
+    @Benchmark
+    public AxisOperation addressingFindOperation() throws AxisFault {
+        return addressingDispatcher.findOperation(service, msgContext);
+    }
+
+    @Benchmark
+    public AxisService soapBodyFindService() throws AxisFault {
+        return bodyDispatcher.findService(msgContext);
+    }
+
+    @Benchmark
+    public AxisOperation soapBodyFindOperation() throws AxisFault {
+        return bodyDispatcher.findOperation(service, msgContext);
+    }
+
+    /**
+     * Runs the dispatchers in the order configured for the Dispatch phase in the default
+     * axis2.xml, starting from an undispatched message each time.
+     */
+    @Benchmark
+    public AxisOperation dispatchChain() throws AxisFault {
+        msgContext.setAxisService(null);
+        msgContext.setAxisOperation(null);
+        for (int i = 0; i < dispatchChain.length; i++) {
+            dispatchChain[i].invoke(msgContext);
+        }
+        return msgContext.getAxisOperation();
+    }
+}
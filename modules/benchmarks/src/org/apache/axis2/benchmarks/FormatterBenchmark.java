@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.http.SOAPMessageFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SOAPMessageFormatter} output for the payload corpus. The envelope is
+ * serialized with <code>preserve=true</code> so the same in-memory tree can be written on
+ * every invocation. The {@link PayloadCorpus#MTOM} entry is written as an MTOM multipart
+ * message with the binary content as a separate MIME part.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+
+    @Param({PayloadCorpus.SMALL, PayloadCorpus.DOCUMENT_100K, PayloadCorpus.MTOM})
+    public String payload;
+
+    private ConfigurationContext configContext;
+    private MessageContext msgContext;
+    private SOAPMessageFormatter formatter;
+    private OMOutputFormat format;
+    private ByteArrayOutputStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createConfigurationContextFromFileSystem(null);
+        msgContext = configContext.createMessageContext();
+        msgContext.setEnvelope(PayloadCorpus.createEnvelope(payload));
+        msgContext.setDoingMTOM(PayloadCorpus.MTOM.equals(payload));
+
+        formatter = new SOAPMessageFormatter();
+        format = new OMOutputFormat();
+        format.setSOAP11(true);
+        format.setDoOptimize(msgContext.isDoingMTOM());
+        out = new ByteArrayOutputStream(256 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        configContext.terminate();
+    }
+
+    @Benchmark
+    public int writeTo() throws Exception {
+        out.reset();
+        formatter.writeTo(msgContext, format, out, true);
+        return out.size();
+    }
+
+    @Benchmark
+    public String getContentType() {
+        return formatter.getContentType(msgContext, format, LocalEchoServer.ECHO_ACTION);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axiom.soap.SOAP11Constants;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.TransportSender;
+import org.apache.axis2.transport.local.InVMTransportSender;
+import org.apache.axis2.transport.local.LocalTransportReceiver;
+import org.apache.axis2.transport.local.LocalTransportSender;
+import org.apache.axis2.util.Utils;
+
+import javax.xml.namespace.QName;
+
+/**
+ * An in-process server and client pair wired together through the local transport, with the
+ * {@link EchoService} deployed. This mirrors the setup used by the local transport integration
+ * tests, so the benchmarks exercise the same code paths as a real deployment: the client side
+ * out flow, LocalTransportSender, LocalTransportReceiver, the server side in flow with all
+ * dispatchers, the message receiver and the server side out flow through LocalResponder.
+ */
+public class LocalEchoServer {
+
+    public static final String SERVICE_NAME = "EchoService";
+    public static final String ECHO_ACTION = "urn:echo";
+
+    private final ConfigurationContext serverContext;
+    private final ConfigurationContext clientContext;
+    private final AxisService service;
+
+    public LocalEchoServer() throws AxisFault {
+        serverContext = ConfigurationContextFactory.createConfigurationContextFromFileSystem(null);
+        AxisConfiguration serverConfig = serverContext.getAxisConfiguration();
+        serverContext.setServicePath("services");
+        serverContext.setContextRoot("local:/");
+        LocalTransportReceiver.CONFIG_CONTEXT = serverContext;
+
+        TransportOutDescription tOut = new TransportOutDescription(Constants.TRANSPORT_LOCAL);
+        tOut.setSender(new LocalTransportSender());
+        serverConfig.addTransportOut(tOut);
+
+        QName opName = new QName(PayloadCorpus.NAMESPACE, PayloadCorpus.ECHO_OPERATION);
+        service = Utils.createSimpleService(new QName(SERVICE_NAME),
+                                            EchoService.class.getName(), opName);
+        AxisOperation operation = service.getOperation(opName);
+        operation.setSoapAction(ECHO_ACTION);
+        service.mapActionToOperation(ECHO_ACTION, operation);
+        service.addMessageElementQNameToOperationMapping(opName, operation);
+        serverContext.deployService(service);
+
+        clientContext = ConfigurationContextFactory.createConfigurationContextFromFileSystem(null);
+    }
+
+    /**
+     * @return the address of the echo service, in the form used by the local transport
+     */
+    public String getServiceAddress() {
+        return serverContext.getServiceContextPath() + "/" + SERVICE_NAME;
+    }
+
+    /**
+     * Create a client that talks to the echo service over the local transport.
+     *
+     * @param enableMTOM whether the client should optimize binary content
+     * @return a configured ServiceClient
+     * @throws AxisFault if the client cannot be created
+     */
+    public ServiceClient createClient(boolean enableMTOM) throws AxisFault {
+        return createClient(enableMTOM, new LocalTransportSender());
+    }
+
+    /**
+     * Create a client that talks to the echo service through the given sender of the local
+     * transport, such as an {@link InVMTransportSender}.
+     *
+     * @param enableMTOM whether the client should optimize binary content
+     * @param sender     the transport sender used by the client
+     * @return a configured ServiceClient
+     * @throws AxisFault if the client cannot be created
+     */
+    public ServiceClient createClient(boolean enableMTOM, TransportSender sender)
+            throws AxisFault {
+        TransportOutDescription td = new TransportOutDescription(Constants.TRANSPORT_LOCAL);
+        td.setSender(sender);
+
+        Options options = new Options();
+        options.setTo(new EndpointReference(getServiceAddress()));
+        options.setAction(ECHO_ACTION);
+        options.setTransportOut(td);
+        options.setSoapVersionURI(SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI);
+        options.setCallTransportCleanup(true);
+        if (enableMTOM) {
+            options.setProperty(Constants.Configuration.ENABLE_MTOM, Constants.VALUE_TRUE);
+        }
+
+        ServiceClient client = new ServiceClient(clientContext, null);
+        client.setOptions(options);
+        return client;
+    }
+
+    public ConfigurationContext getServerContext() {
+        return serverContext;
+    }
+
+    public ConfigurationContext getClientContext() {
+        return clientContext;
+    }
+
+    public AxisService getService() {
+        return service;
+    }
+
+    public void stop() throws AxisFault {
+        clientContext.terminate();
+        serverContext.terminate();
+    }
+}
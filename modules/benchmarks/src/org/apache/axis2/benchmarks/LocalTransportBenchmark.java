@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.transport.local.InVMTransportSender;
+import org.apache.axis2.transport.local.LocalTransportReceiver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmarks of the full request path through the local transport.
+ * <p/>
+ * {@link #roundTrip()} measures a complete client invocation: ServiceClient and
+ * OutInAxisOperationClient, AxisEngine.send on the client, LocalTransportSender,
+ * LocalTransportReceiver, AxisEngine.receive on the server with the whole dispatch chain,
+ * RawXMLINOutMessageReceiver, AxisEngine.send of the response and the client side parsing of
+ * the reply.
+ * <p/>
+ * {@link #inVMRoundTrip()} makes the same call through InVMTransportSender, which hands the
+ * envelopes over instead of serializing and parsing them.
+ * <p/>
+ * {@link #serverReceive()} measures the server half only: a pre-serialized request is handed to
+ * LocalTransportReceiver, which parses it and drives AxisEngine.receive and AxisEngine.send.
+ * <p/>
+ * The local transport carries plain XML, so the {@link PayloadCorpus#MTOM} entry is sent with
+ * the binary content inlined as base64; the MIME packaging path is covered by
+ * {@link BuilderBenchmark} and {@link FormatterBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalTransportBenchmark {
+
+    @Param({PayloadCorpus.SMALL, PayloadCorpus.DOCUMENT_100K, PayloadCorpus.MTOM})
+    public String payload;
+
+    private LocalEchoServer server;
+    private ServiceClient client;
+    private ServiceClient inVMClient;
+    private OMElement request;
+    private byte[] serializedRequest;
+    private EndpointReference to;
+    private LocalTransportReceiver receiver;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new LocalEchoServer();
+        client = server.createClient(false);
+        inVMClient = server.createClient(false, new InVMTransportSender());
+        request = PayloadCorpus.createPayload(payload, OMAbstractFactory.getOMFactory());
+
+        SOAPEnvelope envelope = PayloadCorpus.createEnvelope(payload);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        envelope.serialize(out, new OMOutputFormat());
+        serializedRequest = out.toByteArray();
+        to = new EndpointReference(server.getServiceAddress());
+        receiver = new LocalTransportReceiver(server.getServerContext());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.cleanup();
+        inVMClient.cleanup();
+        server.stop();
+    }
+
+    @Benchmark
+    public OMElement roundTrip() throws Exception {
+        OMElement response = client.sendReceive(request);
+        response.build();
+        client.cleanupTransport();
+        return response;
+    }
+
+    @Benchmark
+    public OMElement inVMRoundTrip() throws Exception {
+        OMElement response = inVMClient.sendReceive(request);
+        response.build();
+        inVMClient.cleanupTransport();
+        return response;
+    }
+
+    @Benchmark
+    public int serverReceive() throws Exception {
+        ByteArrayOutputStream response = new ByteArrayOutputStream(serializedRequest.length + 512);
+        receiver.processMessage(new ByteArrayInputStream(serializedRequest), to,
+                                LocalEchoServer.ECHO_ACTION, response);
+        return response.size();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axiom.attachments.ByteArrayDataSource;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMText;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+
+import javax.activation.DataHandler;
+
+/**
+ * Fixed payload corpora shared by all benchmarks. The payloads are generated deterministically
+ * so that two runs of the same benchmark always push exactly the same bytes through the engine.
+ * <ul>
+ * <li>{@link #SMALL} - a single short echo element, the typical "ping" sized request</li>
+ * <li>{@link #DOCUMENT_100K} - a document/literal payload of roughly 100 KB made of repeated
+ * order lines</li>
+ * <li>{@link #MTOM} - a small wrapper element carrying a 64 KB binary attachment that is
+ * optimized when MTOM is enabled</li>
+ * </ul>
+ */
+public final class PayloadCorpus {
+
+    public static final String SMALL = "small";
+    public static final String DOCUMENT_100K = "document100k";
+    public static final String MTOM = "mtom";
+
+    public static final String NAMESPACE = "http://axis.apache.org/axis2/benchmarks";
+    public static final String ECHO_OPERATION = "echo";
+
+    private static final int DOCUMENT_SIZE = 100 * 1024;
+    private static final int ATTACHMENT_SIZE = 64 * 1024;
+
+    private PayloadCorpus() {
+    }
+
+    /**
+     * Create a fresh payload element for the named corpus entry.
+     *
+     * @param name one of {@link #SMALL}, {@link #DOCUMENT_100K} or {@link #MTOM}
+     * @param factory the factory used to create the element
+     * @return a new, fully built element
+     */
+    public static OMElement createPayload(String name, OMFactory factory) {
+        OMNamespace ns = factory.createOMNamespace(NAMESPACE, "b");
+        OMElement echo = factory.createOMElement(ECHO_OPERATION, ns);
+        if (SMALL.equals(name)) {
+            OMElement text = factory.createOMElement("text", ns, echo);
+            text.setText("Hello Axis2");
+        } else if (DOCUMENT_100K.equals(name)) {
+            OMElement order = factory.createOMElement("order", ns, echo);
+            int line = 0;
+            int size = 0;
+            while (size < DOCUMENT_SIZE) {
+                OMElement item = factory.createOMElement("line", ns, order);
+                item.addAttribute("number", Integer.toString(line), null);
+                OMElement sku = factory.createOMElement("sku", ns, item);
+                sku.setText("SKU-" + (100000 + line));
+                OMElement description = factory.createOMElement("description", ns, item);
+                description.setText("Replacement part number " + line + " for the benchmark order");
+                OMElement quantity = factory.createOMElement("quantity", ns, item);
+                quantity.setText(Integer.toString(line % 17 + 1));
+                // approximate serialized size of one line
+                size += 190;
+                line++;
+            }
+        } else if (MTOM.equals(name)) {
+            OMElement data = factory.createOMElement("data", ns, echo);
+            OMText binary = factory.createOMText(new DataHandler(
+                    new ByteArrayDataSource(createAttachment(), "application/octet-stream")), true);
+            data.addChild(binary);
+        } else {
+            throw new IllegalArgumentException("Unknown payload: " + name);
+        }
+        return echo;
+    }
+
+    /**
+     * Create a SOAP envelope with the named payload as the first child of the body.
+     *
+     * @param name the corpus entry
+     * @param soapFactory a SOAP 1.1 or SOAP 1.2 factory
+     * @return the envelope
+     */
+    public static SOAPEnvelope createEnvelope(String name, SOAPFactory soapFactory) {
+        SOAPEnvelope envelope = soapFactory.getDefaultEnvelope();
+        envelope.getBody().addChild(createPayload(name, soapFactory));
+        return envelope;
+    }
+
+    /**
+     * Create a SOAP 1.1 envelope with the named payload.
+     *
+     * @param name the corpus entry
+     * @return the envelope
+     */
+    public static SOAPEnvelope createEnvelope(String name) {
+        return createEnvelope(name, OMAbstractFactory.getSOAP11Factory());
+    }
+
+    private static byte[] createAttachment() {
+        byte[] bytes = new byte[ATTACHMENT_SIZE];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return bytes;
+    }
+}
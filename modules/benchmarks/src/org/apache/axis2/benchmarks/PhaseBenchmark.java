@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.benchmarks;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.engine.Handler.InvocationResponse;
+import org.apache.axis2.engine.Phase;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the fixed cost of {@link Phase#invoke(MessageContext)} and
+ * {@link Phase#flowComplete(MessageContext)} for phases holding a varying number of handlers
+ * that do no work themselves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int handlerCount;
+
+    private Phase phase;
+    private MessageContext msgContext;
+
+    @Setup
+    public void setUp() {
+        phase = new Phase("BenchmarkPhase");
+        for (int i = 0; i < handlerCount; i++) {
+            phase.addHandler(new NoOpHandler("NoOpHandler" + i));
+        }
+        msgContext = new MessageContext();
+    }
+
+    @Benchmark
+    public InvocationResponse invoke() throws AxisFault {
+        return phase.invoke(msgContext);
+    }
+
+    @Benchmark
+    public void flowComplete() {
+        phase.flowComplete(msgContext);
+    }
+
+    /**
+     * A handler that returns immediately, so that only the phase bookkeeping is measured.
+     */
+    static class NoOpHandler extends AbstractHandler {
+
+        NoOpHandler(String name) {
+            init(new HandlerDescription(name));
+        }
+
+        public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+            return InvocationResponse.CONTINUE;
+        }
+    }
+}
@@ -60,9 +60,11 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SchemaGenerator implements CorbaConstants {
-    private static int prefixCount = 1;
+    // shared by the generators, which may run concurrently during deployment
+    private static final AtomicInteger prefixCount = new AtomicInteger(1);
     protected Map targetNamespacePrefixMap = new Hashtable();
     protected Map schemaMap = new Hashtable();
     protected XmlSchemaCollection xmlSchemaCollection = new XmlSchemaCollection();
@@ -602,7 +604,7 @@ public class SchemaGenerator implements CorbaConstants {
     }
 
     private String generatePrefix() {
-        return NAME_SPACE_PREFIX + prefixCount++;
+        return NAME_SPACE_PREFIX + prefixCount.getAndIncrement();
     }
 
     public void setExcludeMethods(ArrayList excludeMethods) {
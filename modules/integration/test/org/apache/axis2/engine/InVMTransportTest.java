@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.engine;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.integration.LocalTestCase;
+import org.apache.axis2.integration.TestingUtils;
+import org.apache.axis2.transport.local.InVMTransportSender;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class InVMTransportTest extends LocalTestCase {
+
+    private static final String SINK_SERVICE_NAME = "SinkService";
+
+    private InVMTransportSender inVMSender = new InVMTransportSender();
+
+    public static class Sink {
+        static CountDownLatch received;
+        static volatile Thread thread;
+
+        public void receive(OMElement element) {
+            thread = Thread.currentThread();
+            received.countDown();
+        }
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        deployClassAsService(Echo.SERVICE_NAME, Echo.class);
+        deployClassAsService(SINK_SERVICE_NAME, Sink.class);
+        Sink.received = new CountDownLatch(1);
+        Sink.thread = null;
+    }
+
+    protected Options getOptions() {
+        Options opts = super.getOptions();
+        opts.getTransportOut().setSender(inVMSender);
+        return opts;
+    }
+
+    public void testEnvelopeIsHandedOver() throws Exception {
+        ServiceClient sender = getClient(Echo.SERVICE_NAME, Echo.ECHO_OM_ELEMENT_OP_NAME);
+        OMElement payload = TestingUtils.createDummyOMElement();
+        OMElement result = sender.sendReceive(payload);
+        TestingUtils.compareWithCreatedOMElement(result);
+        // Echo returns the element it received, which is the one that was sent
+        assertSame(payload, result);
+    }
+
+    public void testEnvelopeIsCopied() throws Exception {
+        inVMSender.setCopyEnvelope(true);
+        ServiceClient sender = getClient(Echo.SERVICE_NAME, Echo.ECHO_OM_ELEMENT_OP_NAME);
+        OMElement payload = TestingUtils.createDummyOMElement();
+        OMElement result = sender.sendReceive(payload);
+        TestingUtils.compareWithCreatedOMElement(result);
+        assertNotSame(payload, result);
+        // the service renamed its copy only
+        assertEquals("echoOM", payload.getLocalName());
+    }
+
+    public void testFault() throws Exception {
+        try {
+            ServiceClient sender =
+                    getClient(Echo.SERVICE_NAME + "-fail", Echo.ECHO_OM_ELEMENT_OP_NAME);
+            sender.sendReceive(TestingUtils.createDummyOMElement());
+            fail("The test must fail due to wrong service Name");
+        } catch (AxisFault e) {
+            assertTrue(e.getMessage().indexOf("The service cannot be found for the") >= 0);
+        }
+    }
+
+    public void testOneWay() throws Exception {
+        ServiceClient sender = getClient(SINK_SERVICE_NAME, "receive");
+        sender.fireAndForget(TestingUtils.createDummyOMElement());
+        assertEquals(0, Sink.received.getCount());
+        assertSame(Thread.currentThread(), Sink.thread);
+    }
+
+    public void testAsynchronousOneWay() throws Exception {
+        inVMSender.setAsynchronous(true);
+        ServiceClient sender = getClient(SINK_SERVICE_NAME, "receive");
+        sender.fireAndForget(TestingUtils.createDummyOMElement());
+        assertTrue(Sink.received.await(10, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), Sink.thread);
+
+        // a response is still waited for on the calling thread
+        sender = getClient(Echo.SERVICE_NAME, Echo.ECHO_OM_ELEMENT_OP_NAME);
+        TestingUtils.compareWithCreatedOMElement(
+                sender.sendReceive(TestingUtils.createDummyOMElement()));
+    }
+}
@@ -64,7 +64,9 @@ public class MessageContextChangeTest extends TestCase {
             new FieldDescription("boolean", "newThreadRequired"),
             new FieldDescription("boolean", "isSOAP11"),
             new FieldDescription("java.util.ArrayList", "executionChain"),
-            new FieldDescription("java.util.LinkedList", "executedPhases"),
+            new FieldDescription("org.apache.axis2.engine.ExecutionPlan", "executionPlan"),
+            new FieldDescription("[Lorg.apache.axis2.engine.Handler;", "executedPhases"),
+            new FieldDescription("int", "executedPhaseCount"),
             new FieldDescription("boolean", "doingREST"),
             new FieldDescription("boolean", "doingMTOM"),
             new FieldDescription("boolean", "doingSwA"),
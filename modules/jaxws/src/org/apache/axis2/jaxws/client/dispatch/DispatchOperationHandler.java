@@ -21,14 +21,12 @@ package org.apache.axis2.jaxws.client.dispatch;
 
 import javax.xml.namespace.QName;
 
-import org.apache.axiom.om.OMElement;
-import org.apache.axiom.soap.SOAPBody;
-import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.client.ServiceClient;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
+import org.apache.axis2.util.Utils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -49,20 +47,9 @@ public class DispatchOperationHandler extends org.apache.axis2.handlers.Abstract
                 ServiceClient.ANON_OUT_ONLY_OP.equals(op.getName()));
     }
     
-    private QName getFirstBodyElement(SOAPEnvelope envelope) {
-        SOAPBody body = envelope.getBody();
-        if (body != null) {
-            OMElement firstElement = body.getFirstElement();
-            if (firstElement != null) {
-                return firstElement.getQName();
-            }
-        }
-        return null;
-    }
-    
     private AxisOperation findRealOperationAction(MessageContext msgContext) {
         AxisOperation axisOperation = null;
-        QName firstBodyElement = getFirstBodyElement(msgContext.getEnvelope());
+        QName firstBodyElement = Utils.getSOAPBodyFirstElementQName(msgContext.getEnvelope());
         if (firstBodyElement != null) {
             AxisService service = msgContext.getAxisService();
             axisOperation = service.getOperationByMessageElementQName(firstBodyElement);
@@ -115,6 +115,11 @@ public class Constants extends org.apache.axis2.namespace.Constants {
     public static final String TRANSPORT_HTTP = "http";
     public static final String TRANSPORT_HTTPS = "https";
 
+    /**
+     * Field TRANSPORT_H2C: HTTP/2 over cleartext TCP
+     */
+    public static final String TRANSPORT_H2C = "h2c";
+
     //Parameter name of Service impl class
     public static final String SERVICE_CLASS = "ServiceClass";
     public static final String SERVICE_OBJECT_SUPPLIER = "ServiceObjectSupplier";
@@ -435,5 +440,57 @@ public class Constants extends org.apache.axis2.namespace.Constants {
 
         public static final String ENABLE_CHILD_FIRST_CLASS_LOADING="EnableChildFirstClassLoading";
 
+        /**
+         * Set this to true to record the latency of each phase and handler, see
+         * org.apache.axis2.monitoring.HandlerMetrics
+         */
+        public static final String HANDLER_METRICS = "handlerMetrics";
+
+        /**
+         * Record only one in this many phase invocations when handler metrics are enabled.
+         * Defaults to 1, i.e. every invocation is recorded.
+         */
+        public static final String HANDLER_METRICS_SAMPLE_RATE = "handlerMetricsSampleRate";
+
+        /**
+         * Thread pool profile used for asynchronous work: "bounded" (the default), "legacy"
+         * (unbounded, as in earlier releases) or "virtual" (a virtual thread per task, where the
+         * JVM supports it). The threadPool* parameters below override the profile's settings.
+         */
+        public static final String THREAD_POOL_PROFILE = "threadPoolProfile";
+
+        public static final String THREAD_POOL_CORE_SIZE = "threadPoolCoreSize";
+
+        public static final String THREAD_POOL_MAX_SIZE = "threadPoolMaxSize";
+
+        /**
+         * Capacity of the thread pool queue; 0 hands tasks directly to a thread and a negative
+         * value makes the queue unbounded.
+         */
+        public static final String THREAD_POOL_QUEUE_CAPACITY = "threadPoolQueueCapacity";
+
+        public static final String THREAD_POOL_KEEP_ALIVE_SECONDS = "threadPoolKeepAliveSeconds";
+
+        public static final String THREAD_POOL_ALLOW_CORE_THREAD_TIMEOUT =
+                "threadPoolAllowCoreThreadTimeOut";
+
+        /**
+         * What to do with a task when the thread pool is saturated: "abort" (the default),
+         * "block", "callerRuns" or "discard".
+         */
+        public static final String THREAD_POOL_REJECTION_POLICY = "threadPoolRejectionPolicy";
+
+        /**
+         * Maximum number of client callbacks that may wait for a response on a separate channel
+         * at the same time; further asynchronous calls fail until responses arrive or time out.
+         */
+        public static final String CALLBACK_RECEIVER_MAX_PENDING = "callbackReceiverMaxPending";
+
+        /**
+         * Maximum number of request URI and action combinations whose dispatch decision is
+         * remembered; 0 disables the dispatch cache.
+         */
+        public static final String DISPATCH_CACHE_SIZE = "dispatchCacheSize";
+
     }
 }
@@ -52,8 +52,8 @@ import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.Parameter;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.java.security.AccessController;
+import org.apache.axis2.transport.MediaTypeRegistry;
 import org.apache.axis2.transport.http.HTTPConstants;
-import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.MultipleEntryHashMap;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
@@ -716,14 +716,9 @@ public class BuilderUtil {
      */
     public static Builder getBuilderFromSelector(String type, MessageContext msgContext)
             throws AxisFault {
-    	boolean useFallbackBuilder = false;
-        AxisConfiguration configuration =
-                msgContext.getConfigurationContext().getAxisConfiguration();
-        Parameter useFallbackParameter = configuration.getParameter(Constants.Configuration.USE_DEFAULT_FALLBACK_BUILDER);
-        if (useFallbackParameter !=null){
-        	useFallbackBuilder = JavaUtils.isTrueExplicitly(useFallbackParameter.getValue(),useFallbackBuilder);
-        }
-        Builder builder = configuration.getMessageBuilder(type,useFallbackBuilder);
+        MediaTypeRegistry registry =
+                msgContext.getConfigurationContext().getAxisConfiguration().getMediaTypeRegistry();
+        Builder builder = registry.getBuilder(type);
         if (builder != null) {
             // Check whether the request has a Accept header if so use that as the response
             // message type.
@@ -731,29 +726,14 @@ public class BuilderUtil {
             // Setting the received content-type as the messageType to make
             // sure that we respond using the received message serialization format.
 
-            Object contentNegotiation = configuration
-                    .getParameterValue(Constants.Configuration.ENABLE_HTTP_CONTENT_NEGOTIATION);
-            if (JavaUtils.isTrueExplicitly(contentNegotiation)) {
+            if (registry.isContentNegotiationEnabled()) {
                 Map transportHeaders =
                         (Map)msgContext.getProperty(MessageContext.TRANSPORT_HEADERS);
                 if (transportHeaders != null) {
-                    String acceptHeader = (String)transportHeaders.get(HTTPConstants.HEADER_ACCEPT);
-                    if (acceptHeader != null) {
-                        int index = acceptHeader.indexOf(";");
-                        if (index > 0) {
-                            acceptHeader = acceptHeader.substring(0, index);
-                        }
-                        String[] strings = acceptHeader.split(",");
-                        for (String string : strings) {
-                            String accept = string.trim();
-                            // We dont want dynamic content negotoatin to work on text.xml as its
-                            // ambiguos as to whether the user requests SOAP 1.1 or POX response
-                            if (!HTTPConstants.MEDIA_TYPE_TEXT_XML.equals(accept) &&
-                                configuration.getMessageFormatter(accept) != null) {
-                                type = string;
-                                break;
-                            }
-                        }
+                    String acceptType = registry.getNegotiatedMessageType(
+                            (String)transportHeaders.get(HTTPConstants.HEADER_ACCEPT));
+                    if (acceptType != null) {
+                        type = acceptType;
                     }
                 }
             }
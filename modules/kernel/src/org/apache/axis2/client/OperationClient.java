@@ -24,6 +24,7 @@ import org.apache.axiom.om.util.UUIDGenerator;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.client.async.AxisFuture;
 import org.apache.axis2.client.async.Callback;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
@@ -69,7 +70,7 @@ public abstract class OperationClient {
     * indicates whether the MEP execution has completed (and hence ready for
     * resetting)
     */
-    protected boolean completed;
+    protected volatile boolean completed;
 
     protected OperationClient(AxisOperation axisOp, ServiceContext sc, Options options) {
         this.axisOp = axisOp;
@@ -181,6 +182,35 @@ public abstract class OperationClient {
      */
     public abstract void executeImpl(boolean block) throws AxisFault;
 
+    /**
+     * Execute the MEP without blocking, returning a future for the incoming message. Like
+     * {@link #execute(boolean)}, this sets the lastOperationContext on the ServiceContext and
+     * then calls executeAsyncImpl(), which does the actual work.
+     * <p/>
+     * The future fails with an AxisFault if the exchange fails or no response arrives within
+     * the timeout set in the options. Any callback set on this client is not used.
+     *
+     * @return a future for the incoming MessageContext
+     * @throws AxisFault if the exchange can not be started, or if this operation client does
+     *                   not support asynchronous execution
+     */
+    public final AxisFuture<MessageContext> executeAsync() throws AxisFault {
+        sc.setLastOperationContext(oc);
+        return executeAsyncImpl();
+    }
+
+    /**
+     * Execute the MEP without blocking. Operation clients whose MEP has an incoming message
+     * should override this; the default implementation throws an AxisFault.
+     *
+     * @return a future for the incoming MessageContext
+     * @throws AxisFault if the exchange can not be started
+     */
+    protected AxisFuture<MessageContext> executeAsyncImpl() throws AxisFault {
+        throw new AxisFault(Messages.getMessage("asyncExecutionNotSupported",
+                axisOp.getMessageExchangePattern()));
+    }
+
     /**
      * Reset the operation client to a clean status after the MEP has completed.
      * This is how you can reuse an operation client. NOTE: this does not reset
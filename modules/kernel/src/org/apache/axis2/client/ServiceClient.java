@@ -29,6 +29,7 @@ import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.client.async.AxisFuture;
 import org.apache.axis2.client.async.Callback;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ConfigurationContextFactory;
@@ -547,6 +548,68 @@ public class ServiceClient {
         return response.getEnvelope().getBody().getFirstElement();
     }
 
+    /**
+     * Directly invoke an anonymous operation with an In-Out MEP without waiting for a response.
+     * This method sends your supplied XML and returns a future for the response. For more
+     * control, you can instead create a client for the operation and use its
+     * {@link OperationClient#executeAsync()} method.
+     *
+     * @param elem the data to send (becomes the content of SOAP body)
+     * @return a future for the response
+     * @throws AxisFault if the request can not be sent
+     * @see #sendReceiveAsync(QName, OMElement)
+     */
+    public AxisFuture<OMElement> sendReceiveAsync(OMElement elem) throws AxisFault {
+        return sendReceiveAsync(ANON_OUT_IN_OP, elem);
+    }
+
+    /**
+     * Directly invoke a named operation with an In-Out MEP without waiting for a response. This
+     * method sends your supplied XML and returns a future for the response, which is completed
+     * without keeping a thread waiting where the transport supports that. A SOAP fault, a
+     * transport error or a timeout (see {@link Options#setTimeOutInMilliSeconds(long)}) fails
+     * the future with an AxisFault.
+     *
+     * @param operationQName name of operation to be invoked (non-<code>null</code>)
+     * @param xmlPayload     the data to send (becomes the content of SOAP body)
+     * @return a future for the response
+     * @throws AxisFault if the request can not be sent
+     */
+    public AxisFuture<OMElement> sendReceiveAsync(QName operationQName, OMElement xmlPayload)
+            throws AxisFault {
+        MessageContext messageContext = new MessageContext();
+        fillSOAPEnvelope(messageContext, xmlPayload);
+        final OperationClient operationClient = createClient(operationQName);
+        operationClient.addMessageContext(messageContext);
+        final AxisFuture<MessageContext> response = operationClient.executeAsync();
+        final AxisFuture<OMElement> result = new AxisFuture<OMElement>();
+        response.addListener(new Runnable() {
+            public void run() {
+                try {
+                    MessageContext responseMessageContext = response.getResult();
+                    OMElement element =
+                            responseMessageContext.getEnvelope().getBody().getFirstElement();
+                    if (options.isCallTransportCleanup()) {
+                        responseMessageContext.getEnvelope().build();
+                        operationClient.complete(operationClient.getMessageContext(
+                                WSDLConstants.MESSAGE_LABEL_OUT_VALUE));
+                    }
+                    result.complete(element);
+                } catch (Throwable t) {
+                    result.fail(t);
+                }
+            }
+        }, null);
+        result.addListener(new Runnable() {
+            public void run() {
+                if (result.isCancelled()) {
+                    response.cancel(false);
+                }
+            }
+        }, null);
+        return result;
+    }
+
     /**
      * Directly invoke an anonymous operation with an In-Out MEP without waiting for a response.
      * This method sends your supplied XML with response notification to your callback handler. For
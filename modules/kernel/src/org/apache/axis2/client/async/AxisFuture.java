@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client.async;
+
+import org.apache.axis2.AxisFault;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending result of a non-blocking invocation, as returned by
+ * {@link org.apache.axis2.client.ServiceClient#sendReceiveAsync(org.apache.axiom.om.OMElement)}
+ * and {@link org.apache.axis2.client.OperationClient#executeAsync()}.
+ * <p/>
+ * Besides the usual blocking {@link #get()}, listeners can be registered to be notified when the
+ * invocation completes, so that no thread has to wait for the response. A failed invocation
+ * completes with an {@link AxisFault}; <code>get()</code> throws it wrapped in an
+ * {@link ExecutionException} and {@link #getResult()} throws it directly.
+ *
+ * @param <V> the type of the result
+ */
+public class AxisFuture<V> implements Future<V> {
+
+    private static final Log log = LogFactory.getLog(AxisFuture.class);
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private int state = PENDING;
+
+    private V result;
+
+    private Throwable error;
+
+    private List<Listener> listeners;
+
+    /**
+     * Complete the future successfully. This is called by the engine and the transports.
+     *
+     * @param result the result
+     * @return true if the future was completed by this call, false if it was already done
+     */
+    public boolean complete(V result) {
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+            this.result = result;
+            state = SUCCEEDED;
+            notifyAll();
+        }
+        fireListeners();
+        return true;
+    }
+
+    /**
+     * Complete the future with an error. This is called by the engine and the transports.
+     *
+     * @param error the cause of the failure
+     * @return true if the future was completed by this call, false if it was already done
+     */
+    public boolean fail(Throwable error) {
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+            this.error = error;
+            state = FAILED;
+            notifyAll();
+        }
+        fireListeners();
+        return true;
+    }
+
+    /**
+     * Cancel the invocation. The request may already have been sent; cancelling only means that
+     * the response, if one arrives, is ignored.
+     *
+     * @param mayInterruptIfRunning ignored
+     */
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+            state = CANCELLED;
+            notifyAll();
+        }
+        fireListeners();
+        return true;
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    public synchronized boolean isDone() {
+        return state != PENDING;
+    }
+
+    public synchronized V get() throws InterruptedException, ExecutionException {
+        while (state == PENDING) {
+            wait();
+        }
+        return report();
+    }
+
+    public synchronized V get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (state == PENDING) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return report();
+    }
+
+    private V report() throws ExecutionException {
+        if (state == CANCELLED) {
+            throw new CancellationException();
+        } else if (state == FAILED) {
+            throw new ExecutionException(error);
+        }
+        return result;
+    }
+
+    /**
+     * Wait for the result, reporting a failure as an AxisFault.
+     *
+     * @return the result
+     * @throws AxisFault if the invocation failed, was cancelled or the wait was interrupted
+     */
+    public V getResult() throws AxisFault {
+        try {
+            return get();
+        } catch (ExecutionException e) {
+            throw AxisFault.makeFault(e.getCause());
+        } catch (CancellationException e) {
+            throw AxisFault.makeFault(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AxisFault.makeFault(e);
+        }
+    }
+
+    /**
+     * @return the cause of the failure, or null if the future has not failed
+     */
+    public synchronized Throwable getError() {
+        return error;
+    }
+
+    /**
+     * Register a listener to run when the future completes, fails or is cancelled. If the
+     * future is already done, the listener runs immediately.
+     *
+     * @param listener the listener
+     * @param executor the executor to run the listener with, or null to run it in the thread
+     *                 that completes the future. That may be a transport I/O thread or the
+     *                 timeout thread, so only short listeners should do this.
+     */
+    public void addListener(Runnable listener, Executor executor) {
+        Listener l = new Listener(listener, executor);
+        synchronized (this) {
+            if (state == PENDING) {
+                if (listeners == null) {
+                    listeners = new ArrayList<Listener>(2);
+                }
+                listeners.add(l);
+                return;
+            }
+        }
+        l.fire();
+    }
+
+    private void fireListeners() {
+        List<Listener> toFire;
+        synchronized (this) {
+            toFire = listeners;
+            listeners = null;
+        }
+        if (toFire != null) {
+            for (int i = 0; i < toFire.size(); i++) {
+                toFire.get(i).fire();
+            }
+        }
+    }
+
+    private static class Listener {
+        private final Runnable runnable;
+        private final Executor executor;
+
+        Listener(Runnable runnable, Executor executor) {
+            this.runnable = runnable;
+            this.executor = executor;
+        }
+
+        void fire() {
+            try {
+                if (executor == null) {
+                    runnable.run();
+                } else {
+                    executor.execute(runnable);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Future listener " + runnable + " failed", e);
+            }
+        }
+    }
+}
@@ -49,7 +49,7 @@ public abstract class AbstractContext {
      */
     public static final String COPY_PROPERTIES = "CopyProperties";
 
-    protected long lastTouchedTime;
+    protected volatile long lastTouchedTime;
 
     protected transient AbstractContext parent;
     protected transient Map<String, Object> properties;
@@ -106,12 +106,15 @@ public abstract class AbstractContext {
     public Iterator<String> getPropertyNames() {
         initPropertiesMap();
         HashSet<String> copyKeySet = null;
+        if (!(properties instanceof ContextProperties)) {
+            return new HashSet<String>(properties.keySet()).iterator();
+        }
         // Lock the table in a try/catch so it will always be unlocked in the finally block
         try {
-            ((HashMapUpdateLockable<String, Object>) properties).lockForUpdate();
+            ((ContextProperties) properties).lockForUpdate();
             copyKeySet = new HashSet<String>(properties.keySet());
         } finally {
-            ((HashMapUpdateLockable<String, Object>) properties).unlockForUpdate();
+            ((ContextProperties) properties).unlockForUpdate();
         }
         return (copyKeySet != null) ? copyKeySet.iterator() : null;
     }
@@ -331,7 +334,7 @@ public abstract class AbstractContext {
                 // The Map we got argument is probably NOT an instance of the Concurrent 
                 // map we use to store properties, so create a new one using the values from the
                 // argument map.
-                this.properties = new HashMapUpdateLockable<String, Object>(properties);
+                this.properties = new ContextProperties(properties);
             }
         }
     }
@@ -367,7 +370,12 @@ public abstract class AbstractContext {
      * it will go and update operationCOntext -> serviceContext -> serviceGroupContext.
      */
     protected void touch() {
-        lastTouchedTime = System.currentTimeMillis();
+        long now = System.currentTimeMillis();
+        // contexts such as the ConfigurationContext are touched by every request; skip the
+        // write if the time has not moved on, so they don't become a contended cache line
+        if (lastTouchedTime != now) {
+            lastTouchedTime = now;
+        }
         if (parent != null) {
             parent.touch();
         }
@@ -424,10 +432,10 @@ public abstract class AbstractContext {
      */
     private void initPropertiesMap() {
         if (properties == null) {
-            // This needs to be a concurrent collection to prevent ConcurrentModificationExcpetions
-            // for async-on-the-wire.  It was originally: 
-//            properties = new HashMap(DEFAULT_MAP_SIZE);
-            properties = new HashMapUpdateLockable<String, Object>(DEFAULT_MAP_SIZE);
+            // This needs to be a lockable collection to prevent ConcurrentModificationExcpetions
+            // for async-on-the-wire.  It was originally a HashMap, then a HashMapUpdateLockable;
+            // ContextProperties gives the well-known keys fixed slots.
+            properties = new ContextProperties();
         }
     }
 }
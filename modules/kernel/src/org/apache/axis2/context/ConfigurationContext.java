@@ -37,14 +37,15 @@ import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.java.security.AccessController;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.OnDemandLogger;
+import org.apache.axis2.util.TimeoutWheel;
 import org.apache.axis2.util.threadpool.ThreadFactory;
 import org.apache.axis2.util.threadpool.ThreadPool;
+import org.apache.axis2.util.threadpool.ThreadPoolProfile;
 
 import java.io.File;
 import java.net.URL;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -68,7 +69,11 @@ public class ConfigurationContext extends AbstractContext {
     private static final OnDemandLogger log = new OnDemandLogger(ConfigurationContext.class);
     /** Map containing <code>MessageID</code> to <code>OperationContext</code> mapping. */
     private final ConcurrentHashMap<String, OperationContext> operationContextMap = new ConcurrentHashMap<String, OperationContext>();
-    private final Hashtable<String, ServiceGroupContext> serviceGroupContextMap = new Hashtable<String, ServiceGroupContext>();
+    /** The SOAP session table; expiry is handled by the serviceGroupContextReaper */
+    private final ConcurrentHashMap<String, ServiceGroupContext> serviceGroupContextMap = new ConcurrentHashMap<String, ServiceGroupContext>();
+    private final ServiceGroupContextReaper serviceGroupContextReaper = new ServiceGroupContextReaper(this);
+    /** Deadlines of in-flight non-blocking client invocations */
+    private final TimeoutWheel timeoutWheel = new TimeoutWheel("Axis2 timeout wheel");
     private Hashtable<String, ServiceGroupContext> applicationSessionServiceGroupContexts = new Hashtable<String, ServiceGroupContext>();
     private AxisConfiguration axisConfiguration;
     private ThreadFactory threadPool;
@@ -241,8 +246,6 @@ public class ConfigurationContext extends AbstractContext {
                 messageContext
                         .setServiceContext(serviceGroupContext.getServiceContext(axisService));
             } else if (Constants.SCOPE_SOAP_SESSION.equals(scope)) {
-                //cleaning the session
-                cleanupServiceGroupContexts();
                 String serviceGroupContextId = messageContext.getServiceGroupContextId();
                 if (serviceGroupContextId != null) {
                     serviceGroupContext =
@@ -368,11 +371,10 @@ public class ConfigurationContext extends AbstractContext {
     public void addServiceGroupContextIntoSoapSessionTable(
             ServiceGroupContext serviceGroupContext) {
         String id = serviceGroupContext.getId();
-        serviceGroupContextMap.put(id, serviceGroupContext);
         serviceGroupContext.touch();
         serviceGroupContext.setParent(this);
-        // this is the best time to clean up the SGCtxts since are not being used anymore
-        cleanupServiceGroupContexts();
+        serviceGroupContextMap.put(id, serviceGroupContext);
+        serviceGroupContextReaper.schedule(serviceGroupContext);
     }
 
     /**
@@ -533,6 +535,12 @@ public class ConfigurationContext extends AbstractContext {
         ServiceGroupContext serviceGroupContext =
                 (ServiceGroupContext)serviceGroupContextMap.get(serviceGroupContextId);
 
+        // the reaper may not have caught up with a context that has just timed out
+        if (serviceGroupContext != null && isExpired(serviceGroupContext)) {
+            expireServiceGroupContext(serviceGroupContext);
+            serviceGroupContext = null;
+        }
+
         if (serviceGroupContext != null) {
             serviceGroupContext.touch();
             return serviceGroupContext;
@@ -599,11 +607,28 @@ public class ConfigurationContext extends AbstractContext {
     }
 
     /**
-     * @return The ServiceGroupContexts
+     * @return A copy of the SOAP session ServiceGroupContexts; changes to the returned table
+     *         are not reflected in this ConfigurationContext
      * @deprecated Use {@link #getServiceGroupContextIDs} & {@link #getServiceGroupContext(String)}
      */
     public Hashtable<String, ServiceGroupContext> getServiceGroupContexts() {
-        return serviceGroupContextMap;
+        return new Hashtable<String, ServiceGroupContext>(serviceGroupContextMap);
+    }
+
+    /**
+     * @return the reaper that expires SOAP session ServiceGroupContexts, which exposes expiry
+     *         statistics
+     */
+    public ServiceGroupContextReaper getServiceGroupContextReaper() {
+        return serviceGroupContextReaper;
+    }
+
+    /**
+     * @return the timing wheel that enforces the timeouts of non-blocking invocations. Its
+     *         thread is started on first use and stopped by {@link #terminate()}.
+     */
+    public TimeoutWheel getTimeoutWheel() {
+        return timeoutWheel;
     }
 
     /**
@@ -613,7 +638,7 @@ public class ConfigurationContext extends AbstractContext {
      */
     public ThreadFactory getThreadPool() {
         if (threadPool == null) {
-            threadPool = new ThreadPool();
+            threadPool = new ThreadPool(ThreadPoolProfile.fromConfiguration(axisConfiguration));
         }
 
         return threadPool;
@@ -657,26 +682,25 @@ public class ConfigurationContext extends AbstractContext {
         cleanupServiceContexts(serviceGroupContext);
     }
 
-    private void cleanupServiceGroupContexts() {
-        if (serviceGroupContextMap == null) {
-            return;
-        }
-        long currentTime = new Date().getTime();
+    private boolean isExpired(ServiceGroupContext serviceGroupContext) {
+        return (System.currentTimeMillis() - serviceGroupContext.getLastTouchedTime()) >
+               getServiceGroupContextTimeoutInterval();
+    }
 
-        synchronized (serviceGroupContextMap) {
-            for (Iterator<String> sgCtxtMapKeyIter = serviceGroupContextMap.keySet().iterator();
-                 sgCtxtMapKeyIter.hasNext();) {
-                String sgCtxtId = (String)sgCtxtMapKeyIter.next();
-                ServiceGroupContext serviceGroupContext =
-                        (ServiceGroupContext)serviceGroupContextMap.get(sgCtxtId);
-                if ((currentTime - serviceGroupContext.getLastTouchedTime()) >
-                    getServiceGroupContextTimeoutInterval()) {
-                    sgCtxtMapKeyIter.remove();
-                    cleanupServiceContexts(serviceGroupContext);
-                    contextRemoved(serviceGroupContext);
-                }
-            }
+    /**
+     * Remove a timed out ServiceGroupContext from the SOAP session table.
+     *
+     * @param serviceGroupContext the context to remove
+     * @return true if the context was still in the table and has been removed
+     */
+    boolean expireServiceGroupContext(ServiceGroupContext serviceGroupContext) {
+        // only remove this very context, not a newer one that has taken over its id
+        if (!serviceGroupContextMap.remove(serviceGroupContext.getId(), serviceGroupContext)) {
+            return false;
         }
+        cleanupServiceContexts(serviceGroupContext);
+        contextRemoved(serviceGroupContext);
+        return true;
     }
 
     /**
@@ -736,6 +760,7 @@ public class ConfigurationContext extends AbstractContext {
             }
             serviceGroupContextMap.clear();
         }
+        serviceGroupContextReaper.shutdown();
     }
 
     /**
@@ -744,6 +769,8 @@ public class ConfigurationContext extends AbstractContext {
      * @throws AxisFault
      */
     public void terminate() throws AxisFault {
+        serviceGroupContextReaper.shutdown();
+        timeoutWheel.shutdown();
         if (listenerManager != null) {
             listenerManager.stop();
         }
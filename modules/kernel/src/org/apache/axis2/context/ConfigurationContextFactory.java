@@ -90,6 +90,7 @@ public class ConfigurationContextFactory {
         }
         //To override context path
         setContextPaths(axisConfig, configContext);
+        axisConfig.getHandlerMetrics().configure(axisConfig);
         init(configContext);
         axisConfigurator.engageGlobalModules();
         axisConfigurator.loadServices();
@@ -0,0 +1,498 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.AddressingConstants;
+import org.apache.axis2.monitoring.HandlerMetrics;
+import org.apache.axis2.transport.RequestResponseTransport;
+import org.apache.axis2.transport.http.HTTPConstants;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The property store of an {@link AbstractContext}. Well-known keys that are looked up for
+ * nearly every message have a fixed slot in an array; any other key goes into a small
+ * open-addressing table. Neither needs an entry object per property, so setting a property does
+ * not allocate once the arrays exist.
+ * <p/>
+ * Like the HashMapUpdateLockable it replaces, the store permits null keys and values, and
+ * methods that update it block while it is locked for update (see {@link #lockForUpdate()}).
+ * Methods that only read do not block.
+ */
+class ContextProperties extends AbstractMap<String, Object> {
+
+    /** Keys with a fixed slot */
+    private static final String[] SLOT_KEYS;
+
+    /** Open-addressing index from key hash to slot number + 1 */
+    private static final int[] SLOT_INDEX;
+
+    static {
+        String[] candidates = {
+                MessageContext.TRANSPORT_HEADERS,
+                MessageContext.TRANSPORT_IN,
+                MessageContext.TRANSPORT_OUT,
+                MessageContext.CHARACTER_SET_ENCODING,
+                MessageContext.REMOTE_ADDR,
+                MessageContext.TRANSPORT_ADDR,
+                Constants.Configuration.MESSAGE_TYPE,
+                Constants.Configuration.CONTENT_TYPE,
+                Constants.Configuration.HTTP_METHOD,
+                Constants.Configuration.CHARACTER_SET_ENCODING,
+                Constants.Configuration.TRANSPORT_URL,
+                Constants.Configuration.ENABLE_MTOM,
+                Constants.Configuration.ENABLE_SWA,
+                Constants.OUT_TRANSPORT_INFO,
+                Constants.DETACHABLE_INPUT_STREAM,
+                Constants.HTTP_RESPONSE_STATE,
+                Constants.RESPONSE_WRITTEN,
+                Constants.AXIS_BINDING_OPERATION,
+                Constants.AXIS_BINDING_MESSAGE,
+                RequestResponseTransport.TRANSPORT_CONTROL,
+                RequestResponseTransport.HOLD_RESPONSE,
+                AddressingConstants.WS_ADDRESSING_VERSION,
+                AddressingConstants.IS_ADDR_INFO_ALREADY_PROCESSED,
+                AddressingConstants.DISABLE_ADDRESSING_FOR_OUT_MESSAGES,
+                HTTPConstants.HTTP_HEADERS,
+                HTTPConstants.HTTP_METHOD,
+                HTTPConstants.CHUNKED,
+                HTTPConstants.HTTP_PROTOCOL_VERSION,
+                HTTPConstants.RESPONSE_HEADERS,
+                HTTPConstants.MC_HTTP_SERVLETREQUEST,
+                HTTPConstants.MC_HTTP_SERVLETRESPONSE,
+                HTTPConstants.MC_HTTP_STATUS_CODE,
+                HTTPConstants.MC_GZIP_RESPONSE,
+                HandlerMetrics.SAMPLED,
+        };
+        // several constants share a value, e.g. the two CHARACTER_SET_ENCODING keys
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i] != null && !keys.contains(candidates[i])) {
+                keys.add(candidates[i]);
+            }
+        }
+        SLOT_KEYS = keys.toArray(new String[keys.size()]);
+
+        int capacity = 1;
+        while (capacity < SLOT_KEYS.length * 4) {
+            capacity <<= 1;
+        }
+        SLOT_INDEX = new int[capacity];
+        for (int slot = 0; slot < SLOT_KEYS.length; slot++) {
+            int i = hash(SLOT_KEYS[slot]) & (capacity - 1);
+            while (SLOT_INDEX[i] != 0) {
+                i = (i + 1) & (capacity - 1);
+            }
+            SLOT_INDEX[i] = slot + 1;
+        }
+    }
+
+    /** Stands in for a null key or value, so that a null array element always means absent */
+    private static final Object NULL = new Object();
+
+    private static final int INITIAL_TABLE_CAPACITY = 8;
+
+    /** Values of the keys with a fixed slot, allocated on first use */
+    private Object[] slots;
+
+    /** Other entries, key at 2i and value at 2i + 1, allocated on first use */
+    private Object[] table;
+
+    private int tableSize;
+
+    private int size;
+
+    private volatile boolean updateLocked;
+
+    private final Object updateLock = new Object();
+
+    private transient Set<Map.Entry<String, Object>> entries;
+
+    ContextProperties() {
+    }
+
+    ContextProperties(Map<String, Object> map) {
+        putAll(map);
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the fixed slot of the given key, or -1 if it has none
+     */
+    static int slotOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        int mask = SLOT_INDEX.length - 1;
+        int i = hash(key) & mask;
+        int slot;
+        while ((slot = SLOT_INDEX[i]) != 0) {
+            String slotKey = SLOT_KEYS[slot - 1];
+            if (slotKey == key || slotKey.equals(key)) {
+                return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static Object mask(Object o) {
+        return o == null ? NULL : o;
+    }
+
+    private static Object unmask(Object o) {
+        return o == NULL ? null : o;
+    }
+
+    /**
+     * @return the index of the key in the table, or -1 if it is not there
+     */
+    private int indexOf(Object key) {
+        if (table == null) {
+            return -1;
+        }
+        Object k = mask(key);
+        int mask = (table.length >> 1) - 1;
+        int i = (k == NULL ? 0 : hash(k)) & mask;
+        Object candidate;
+        while ((candidate = table[i << 1]) != null) {
+            if (candidate == k || candidate.equals(k)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return slots != null && slots[slot] != null;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    public Object get(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return slots == null ? null : unmask(slots[slot]);
+        }
+        int i = indexOf(key);
+        return i < 0 ? null : unmask(table[(i << 1) + 1]);
+    }
+
+    /**
+     * Similar to the Map method but will block if the store is locked.
+     */
+    public Object put(String key, Object value) {
+        checkUpdateLock(true);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (slots == null) {
+                slots = new Object[SLOT_KEYS.length];
+            }
+            Object old = slots[slot];
+            slots[slot] = mask(value);
+            if (old == null) {
+                size++;
+            }
+            return unmask(old);
+        }
+        int i = indexOf(key);
+        if (i >= 0) {
+            Object old = table[(i << 1) + 1];
+            table[(i << 1) + 1] = mask(value);
+            return unmask(old);
+        }
+        if (table == null) {
+            table = new Object[INITIAL_TABLE_CAPACITY << 1];
+        } else if ((tableSize + 1) * 4 > (table.length >> 1) * 3) {
+            resize();
+        }
+        insert(mask(key), mask(value));
+        tableSize++;
+        size++;
+        return null;
+    }
+
+    private void insert(Object key, Object value) {
+        int mask = (table.length >> 1) - 1;
+        int i = (key == NULL ? 0 : hash(key)) & mask;
+        while (table[i << 1] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i << 1] = key;
+        table[(i << 1) + 1] = value;
+    }
+
+    private void resize() {
+        Object[] old = table;
+        table = new Object[old.length << 1];
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != null) {
+                insert(old[i], old[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Similar to the Map method but will block if the store is locked.
+     */
+    public void putAll(Map<? extends String, ? extends Object> map) {
+        checkUpdateLock(true);
+        for (Iterator<? extends Map.Entry<? extends String, ? extends Object>> it =
+                map.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<? extends String, ? extends Object> entry = it.next();
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Similar to the Map method but will block if the store is locked.
+     */
+    public Object remove(Object key) {
+        checkUpdateLock(true);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (slots == null || slots[slot] == null) {
+                return null;
+            }
+            Object old = slots[slot];
+            slots[slot] = null;
+            size--;
+            return unmask(old);
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        Object old = table[(i << 1) + 1];
+        deleteAt(i);
+        tableSize--;
+        size--;
+        return unmask(old);
+    }
+
+    /**
+     * Remove the entry at index i and shift back the entries that follow it in the same run,
+     * so that lookups never stop early at the hole.
+     */
+    private void deleteAt(int i) {
+        int mask = (table.length >> 1) - 1;
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            Object key = table[j << 1];
+            if (key == null) {
+                break;
+            }
+            int home = (key == NULL ? 0 : hash(key)) & mask;
+            // move the entry into the hole unless its home lies cyclically in (hole, j]
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!stays) {
+                table[hole << 1] = key;
+                table[(hole << 1) + 1] = table[(j << 1) + 1];
+                hole = j;
+            }
+        }
+        table[hole << 1] = null;
+        table[(hole << 1) + 1] = null;
+    }
+
+    /**
+     * Similar to the Map method but will block if the store is locked.
+     */
+    public void clear() {
+        checkUpdateLock(true);
+        slots = null;
+        table = null;
+        tableSize = 0;
+        size = 0;
+    }
+
+    /**
+     * The entry set is a view of the store. Its iterators work on a copy of the keys taken when
+     * they are created, so the store may be modified while iterating.
+     */
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (entries == null) {
+            entries = new AbstractSet<Map.Entry<String, Object>>() {
+                public int size() {
+                    return size;
+                }
+
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator(keys());
+                }
+            };
+        }
+        return entries;
+    }
+
+    private String[] keys() {
+        String[] keys = new String[size];
+        int n = 0;
+        if (slots != null) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != null) {
+                    keys[n++] = SLOT_KEYS[i];
+                }
+            }
+        }
+        if (table != null) {
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != null) {
+                    keys[n++] = (String) unmask(table[i]);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private final String[] keys;
+        private int next;
+        private String current;
+        private boolean hasCurrent;
+
+        EntryIterator(String[] keys) {
+            this.keys = keys;
+        }
+
+        public boolean hasNext() {
+            return next < keys.length;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (next >= keys.length) {
+                throw new NoSuchElementException();
+            }
+            current = keys[next++];
+            hasCurrent = true;
+            final String key = current;
+            return new Map.Entry<String, Object>() {
+                public String getKey() {
+                    return key;
+                }
+
+                public Object getValue() {
+                    return get(key);
+                }
+
+                public Object setValue(Object value) {
+                    return put(key, value);
+                }
+
+                public boolean equals(Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+                    Map.Entry e = (Map.Entry) o;
+                    Object value = getValue();
+                    return (key == null ? e.getKey() == null : key.equals(e.getKey())) &&
+                            (value == null ? e.getValue() == null : value.equals(e.getValue()));
+                }
+
+                public int hashCode() {
+                    Object value = getValue();
+                    return (key == null ? 0 : key.hashCode()) ^
+                            (value == null ? 0 : value.hashCode());
+                }
+
+                public String toString() {
+                    return key + "=" + getValue();
+                }
+            };
+        }
+
+        public void remove() {
+            if (!hasCurrent) {
+                throw new IllegalStateException();
+            }
+            ContextProperties.this.remove(current);
+            hasCurrent = false;
+        }
+    }
+
+    /**
+     * Lock the store for update.  NOTE: This should be called inside a try block and the
+     * unlock method should be called inside a finally block to ensure the lock is always
+     * released!  If the store is locked, methods that directly update it will
+     * block until released by the unlock.
+     * @see #unlockForUpdate()
+     */
+    void lockForUpdate() {
+        synchronized (updateLock) {
+            updateLocked = true;
+        }
+    }
+
+    /**
+     * Unlock the store for update.
+     * @see #lockForUpdate()
+     */
+    void unlockForUpdate() {
+        synchronized (updateLock) {
+            updateLocked = false;
+            updateLock.notifyAll();
+        }
+    }
+
+    /**
+     * Check if the update lock is currently held.  Optionally block until the lock is released.
+     * @param wait If true, will block until the lock is released
+     * @return true if the store is currently locked for update, false if it is not.
+     */
+    boolean checkUpdateLock(boolean wait) {
+        if (!updateLocked) {
+            // uncontended case: no monitor needed
+            return false;
+        }
+        synchronized (updateLock) {
+            if (wait) {
+                while (updateLocked) {
+                    try {
+                        updateLock.wait();
+                    } catch (InterruptedException e) {
+                        // Ignore the interrupt; recheck the lock and wait if appropriate.
+                    }
+                }
+            }
+            return updateLocked;
+        }
+    }
+}
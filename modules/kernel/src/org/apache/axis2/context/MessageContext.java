@@ -54,6 +54,7 @@ import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.engine.AxisError;
+import org.apache.axis2.engine.ExecutionPlan;
 import org.apache.axis2.engine.Handler;
 import org.apache.axis2.engine.Phase;
 import org.apache.axis2.util.JavaUtils;
@@ -82,6 +83,7 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * <p>Axis2 states are held in two information models, called description hierarchy
@@ -279,9 +281,20 @@ public class MessageContext extends AbstractContext
     private ArrayList<Handler> executionChain;
 
     /**
-     * @serial The chain of executed Handlers/Phases from processing
+     * The shared, immutable chain of Handlers/Phases for processing this message.
+     * Only one of executionPlan and executionChain is in use at a time; the plan is
+     * copied into executionChain when a modifiable chain is asked for.
      */
-    private LinkedList<Handler> executedPhases;
+    private transient ExecutionPlan executionPlan;
+
+    /**
+     * @serial The chain of executed Handlers/Phases from processing, kept as an
+     * array based LIFO stack with the most recently executed entry on top
+     */
+    private Handler[] executedPhases;
+
+    /** Number of entries in use in executedPhases */
+    private int executedPhaseCount;
 
     /**
      * @serial Flag to indicate if we are doing REST
@@ -621,13 +634,41 @@ public class MessageContext extends AbstractContext
         return envelope;
     }
 
+    /**
+     * Get the execution chain of this message. If the message is running on a shared
+     * ExecutionPlan, a private copy of the plan is made so that the returned list
+     * can be modified without affecting other messages.
+     *
+     * @return the execution chain
+     */
     public ArrayList<Handler> getExecutionChain() {
         if (LoggingControl.debugLoggingAllowed) {
             checkActivateWarning("getExecutionChain");
         }
+        materializeExecutionChain();
         return executionChain;
     }
 
+    /**
+     * Get the shared execution plan of this message.
+     *
+     * @return the ExecutionPlan, or null if the message is running on a private
+     *         execution chain
+     */
+    public ExecutionPlan getExecutionPlan() {
+        return executionPlan;
+    }
+
+    /**
+     * Copy the shared execution plan (if any) into a private execution chain.
+     */
+    private void materializeExecutionChain() {
+        if (executionPlan != null) {
+            executionChain = executionPlan.toList();
+            executionPlan = null;
+        }
+    }
+
     /**
      * Add a Phase to the collection of executed phases for the path.
      * Phases will be inserted in a LIFO data structure.
@@ -636,17 +677,24 @@ public class MessageContext extends AbstractContext
      */
     public void addExecutedPhase(Handler phase) {
         if (executedPhases == null) {
-            executedPhases = new LinkedList<Handler>();
+            // room for the current chain; a message going through a second chain grows it once
+            int size = executionPlan != null ? executionPlan.size()
+                    : executionChain != null ? executionChain.size() : 0;
+            executedPhases = new Handler[Math.max(size, 4)];
+        } else if (executedPhaseCount == executedPhases.length) {
+            Handler[] grown = new Handler[executedPhaseCount * 2];
+            System.arraycopy(executedPhases, 0, grown, 0, executedPhaseCount);
+            executedPhases = grown;
         }
-        executedPhases.addFirst(phase);
+        executedPhases[executedPhaseCount++] = phase;
     }
 
     /**
      * Remove the first Phase in the collection of executed phases
      */
     public void removeFirstExecutedPhase() {
-        if (executedPhases != null) {
-            executedPhases.removeFirst();
+        if (executedPhaseCount > 0) {
+            executedPhases[--executedPhaseCount] = null;
         }
     }
 
@@ -659,10 +707,26 @@ public class MessageContext extends AbstractContext
         if (LoggingControl.debugLoggingAllowed) {
             checkActivateWarning("getExecutedPhases");
         }
-        if (executedPhases == null) {
-            executedPhases = new LinkedList<Handler>();
-        }
-        return executedPhases.iterator();
+        final Handler[] phases = executedPhases;
+        final int count = executedPhaseCount;
+        return new Iterator<Handler>() {
+            private int next = count - 1;
+
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            public Handler next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                return phases[next--];
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
     }
 
     /**
@@ -673,7 +737,36 @@ public class MessageContext extends AbstractContext
      */
     public void resetExecutedPhases() {
         executedPhasesReset = true;
-        executedPhases = new LinkedList<Handler>();
+        // a new array rather than clearing, since an iterator over the old one may still be in use
+        executedPhases = null;
+        executedPhaseCount = 0;
+    }
+
+    /**
+     * @return a copy of the executed phases in LIFO order, or null if there are none
+     */
+    private LinkedList<Handler> getExecutedPhaseList() {
+        if (executedPhaseCount == 0) {
+            return null;
+        }
+        LinkedList<Handler> list = new LinkedList<Handler>();
+        for (int i = executedPhaseCount - 1; i >= 0; i--) {
+            list.add(executedPhases[i]);
+        }
+        return list;
+    }
+
+    /**
+     * @param list the executed phases in LIFO order, may be null
+     */
+    private void setExecutedPhaseList(List<Handler> list) {
+        executedPhases = null;
+        executedPhaseCount = 0;
+        if (list != null) {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                addExecutedPhase(list.get(i));
+            }
+        }
     }
 
     /**
@@ -1327,6 +1420,21 @@ public class MessageContext extends AbstractContext
      */
     public void setExecutionChain(ArrayList<Handler> executionChain) {
         this.executionChain = executionChain;
+        this.executionPlan = null;
+        currentHandlerIndex = -1;
+        currentPhaseIndex = 0;
+    }
+
+    /**
+     * Set a shared execution plan as the execution chain of this MessageContext. Like
+     * {@link #setExecutionChain(ArrayList)}, this resets the current handler/phase indexes.
+     * The plan is not copied unless {@link #getExecutionChain()} is called.
+     *
+     * @param executionPlan the ExecutionPlan
+     */
+    public void setExecutionPlan(ExecutionPlan executionPlan) {
+        this.executionPlan = executionPlan;
+        this.executionChain = null;
         currentHandlerIndex = -1;
         currentPhaseIndex = 0;
     }
@@ -1970,6 +2078,7 @@ public class MessageContext extends AbstractContext
      */
     private void serializeSelfManagedData(ObjectOutput out) {
         selfManagedDataHandlerCount = 0;
+        materializeExecutionChain();
 
         try {
             if ((selfManagedDataMap == null)
@@ -2311,6 +2420,7 @@ public class MessageContext extends AbstractContext
         //    UTF          - description string
         //    boolean      - empty flag
         //---------------------------------------------------------
+        materializeExecutionChain();
         out.writeUTF("executionChain");
         if (executionChain != null && executionChain.size() > 0) {
             // start writing data to the output stream
@@ -2421,17 +2531,17 @@ public class MessageContext extends AbstractContext
         //    boolean      - empty flag
         //---------------------------------------------------------
         out.writeUTF("executedPhases");
-        if (executedPhases != null && executedPhases.size() > 0) {
+        if (executedPhaseCount > 0) {
         
             // start writing data to the output stream
             out.writeBoolean(ExternalizeConstants.ACTIVE_OBJECT);
-            out.writeInt(executedPhases.size());
+            out.writeInt(executedPhaseCount);
 
             // put the metadata on each member of the list into a buffer
 
             int execNextIndex = 0;
 
-            Iterator<Handler> iterator = executedPhases.iterator();
+            Iterator<Handler> iterator = getExecutedPhaseList().iterator();
 
             while (iterator.hasNext()) {
                 Object obj = iterator.next();
@@ -3027,6 +3137,7 @@ public class MessageContext extends AbstractContext
         // the local chain is not enabled until the
         // list has been reconstituted
         executedPhases = null;
+        executedPhaseCount = 0;
         metaExecuted = null;
 
         marker = in.readUTF();
@@ -3362,7 +3473,7 @@ public class MessageContext extends AbstractContext
             log.trace(getLogIDString() + 
                       ": readExternal(): About to read properties, marker is: " + marker);
         }
-        properties = in.readMap(new HashMapUpdateLockable());
+        properties = in.readMap(new ContextProperties());
 
 
         //---------------------------------------------------------
@@ -3632,15 +3743,11 @@ public class MessageContext extends AbstractContext
             }
 
             if (!(executedPhasesReset)) {
-                executedPhases =
-                        restoreExecutedList(executedPhases, metaExecuted);
+                setExecutedPhaseList(
+                        restoreExecutedList(getExecutedPhaseList(), metaExecuted));
             }
         }
 
-        if (executedPhases == null) {
-            executedPhases = new LinkedList<Handler>();
-        }
-
 
         //-------------------------------------------------------
         // finish up remaining links
@@ -3860,15 +3967,11 @@ public class MessageContext extends AbstractContext
             }
 
             if (!(executedPhasesReset)) {
-                executedPhases =
-                        restoreExecutedList(executedPhases, metaExecuted);
+                setExecutedPhaseList(
+                        restoreExecutedList(getExecutedPhaseList(), metaExecuted));
             }
         }
 
-        if (executedPhases == null) {
-            executedPhases = new LinkedList<Handler>();
-        }
-
         //-------------------------------------------------------
         // done, reset the flag
         //-------------------------------------------------------
@@ -4098,7 +4201,11 @@ public class MessageContext extends AbstractContext
         // ArrayList executionChain
         //     handler and phase related data
         //---------------------------------------------------------
-        copy.setExecutionChain(executionChain);
+        if (executionPlan != null) {
+            copy.setExecutionPlan(executionPlan);
+        } else {
+            copy.setExecutionChain(executionChain);
+        }
 
         // the setting of the execution chain is actually a reset
         // so copy the indices after putting in the execution chain
@@ -4108,7 +4215,7 @@ public class MessageContext extends AbstractContext
         //---------------------------------------------------------
         // LinkedList executedPhases
         //---------------------------------------------------------
-        copy.setExecutedPhasesExplicit(executedPhases);
+        copy.setExecutedPhasesExplicit(getExecutedPhaseList());
 
         //---------------------------------------------------------
         // options
@@ -4205,7 +4312,7 @@ public class MessageContext extends AbstractContext
     }
 
     public void setExecutedPhasesExplicit(LinkedList<Handler> inb) {
-        executedPhases = inb;
+        setExecutedPhaseList(inb);
     }
 
     public void setSelfManagedDataMapExplicit(LinkedHashMap<String, Object> map) {
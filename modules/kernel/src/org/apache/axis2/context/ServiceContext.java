@@ -434,7 +434,7 @@ public class ServiceContext extends AbstractContext
         //---------------------------------------------------------
         // properties
         //---------------------------------------------------------
-        properties = in.readMap(new HashMapUpdateLockable());
+        properties = in.readMap(new ContextProperties());
 
         //---------------------------------------------------------
         // AxisService
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import org.apache.axis2.util.OnDemandLogger;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Expires the SOAP session ServiceGroupContexts of a ConfigurationContext in the background.
+ * <p/>
+ * Each context gets one entry in a deadline-ordered queue when it is added to the SOAP session
+ * table. Touching a context only updates its last touched time; when an entry falls due the
+ * reaper thread compares the deadline against that time and either removes the context or puts
+ * the entry back with the new deadline. Requests therefore never scan or lock the session table.
+ * The reaper thread is a daemon that is started with the first SOAP session and stopped by
+ * {@link ConfigurationContext#terminate()}.
+ */
+public class ServiceGroupContextReaper implements Runnable {
+
+    private static final OnDemandLogger log = new OnDemandLogger(ServiceGroupContextReaper.class);
+
+    private final ConfigurationContext configContext;
+
+    private final DelayQueue<Expiry> queue = new DelayQueue<Expiry>();
+
+    private Thread thread;
+
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    private final AtomicLong rescheduledCount = new AtomicLong();
+
+    private volatile long lastExpiryTime;
+
+    ServiceGroupContextReaper(ConfigurationContext configContext) {
+        this.configContext = configContext;
+    }
+
+    /**
+     * Start tracking the expiry of a ServiceGroupContext.
+     *
+     * @param serviceGroupContext a context in the SOAP session table
+     */
+    void schedule(ServiceGroupContext serviceGroupContext) {
+        queue.add(new Expiry(serviceGroupContext, serviceGroupContext.getLastTouchedTime() +
+                configContext.getServiceGroupContextTimeoutInterval()));
+        start();
+    }
+
+    private synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this, "Axis2 ServiceGroupContext reaper");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop the reaper thread and forget all pending expiries.
+     */
+    synchronized void shutdown() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        queue.clear();
+    }
+
+    private synchronized boolean isCurrentThread() {
+        return thread == Thread.currentThread();
+    }
+
+    public void run() {
+        while (isCurrentThread()) {
+            Expiry expiry;
+            try {
+                expiry = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                process(expiry);
+            } catch (Throwable t) {
+                log.error("Unable to expire ServiceGroupContext " + expiry.context.getId(), t);
+            }
+        }
+    }
+
+    /**
+     * Handle an expiry that has fallen due.
+     */
+    void process(Expiry expiry) {
+        ServiceGroupContext serviceGroupContext = expiry.context;
+        long deadline = serviceGroupContext.getLastTouchedTime() +
+                configContext.getServiceGroupContextTimeoutInterval();
+        long now = System.currentTimeMillis();
+        if (now <= deadline) {
+            // touched since the entry was queued
+            expiry.deadline = deadline;
+            queue.add(expiry);
+            rescheduledCount.incrementAndGet();
+        } else if (configContext.expireServiceGroupContext(serviceGroupContext)) {
+            expiredCount.incrementAndGet();
+            lastExpiryTime = now;
+        }
+    }
+
+    /**
+     * @return the number of ServiceGroupContexts expired by this reaper
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return the number of times a due context had been touched and was put back in the queue
+     */
+    public long getRescheduledCount() {
+        return rescheduledCount.get();
+    }
+
+    /**
+     * @return the number of contexts waiting to expire
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return the time (in milliseconds) of the last expiry, or 0 if nothing has expired yet
+     */
+    public long getLastExpiryTime() {
+        return lastExpiryTime;
+    }
+
+    static class Expiry implements Delayed {
+        final ServiceGroupContext context;
+        long deadline;
+
+        Expiry(ServiceGroupContext context, long deadline) {
+            this.context = context;
+            this.deadline = deadline;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            long otherDeadline = ((Expiry) other).deadline;
+            return deadline < otherDeadline ? -1 : (deadline == otherDeadline ? 0 : 1);
+        }
+    }
+}
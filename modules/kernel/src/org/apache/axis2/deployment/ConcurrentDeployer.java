@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment;
+
+import org.apache.axis2.deployment.repository.util.DeploymentFileData;
+
+/**
+ * A Deployer whose artifacts can be built concurrently. When parallel deployment is enabled,
+ * the DeploymentEngine calls {@link #prepare} for a batch of files on a pool of threads, and then
+ * {@link #commit} for each of them one at a time, on the deploying thread and in the order the
+ * files were found. Files are deployed exactly as by {@link #deploy}, which should simply
+ * commit what it prepares.
+ *
+ * @param <T> the artifact built by prepare and added to the AxisConfiguration by commit
+ */
+public interface ConcurrentDeployer<T> extends Deployer {
+
+    /**
+     * Builds what deploying the given file adds to the AxisConfiguration, without changing the
+     * AxisConfiguration. This may be called for several files at the same time.
+     *
+     * @param deploymentFileData the file to deploy
+     * @return the artifact to commit, or null if there is nothing to commit
+     * @throws DeploymentException if the file can't be deployed
+     */
+    T prepare(DeploymentFileData deploymentFileData) throws DeploymentException;
+
+    /**
+     * Adds an artifact built by {@link #prepare} to the AxisConfiguration, engaging the modules
+     * it refers to.
+     *
+     * @param deploymentFileData the file the artifact was built from
+     * @param artifact           the artifact returned by prepare
+     * @throws DeploymentException if the artifact can't be added
+     */
+    void commit(DeploymentFileData deploymentFileData, T artifact) throws DeploymentException;
+}
@@ -19,11 +19,10 @@
 
 package org.apache.axis2.deployment;
 
-import org.apache.axiom.attachments.utils.IOUtils;
-
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
@@ -31,10 +30,8 @@ import java.net.URLStreamHandler;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 public class DeploymentClassLoader extends URLClassLoader {
     // List of URL's
@@ -45,6 +42,9 @@ public class DeploymentClassLoader extends URLClassLoader {
 
     private boolean isChildFirstClassLoading;
 
+    // entries of the embedded jars, built on the first lookup
+    private EmbeddedJarIndex embeddedJarIndex;
+
     /**
      * DeploymentClassLoader is extended from URLClassLoader. The constructor
      * does not override the super constructor, but takes in an addition list of
@@ -106,26 +106,14 @@ public class DeploymentClassLoader extends URLClassLoader {
      */
     public URL findResource(String resource) {
         URL url = super.findResource(resource);
-        if (url == null) {
-            for (int i = 0; embedded_jars != null && i < embedded_jars.size(); i++) {
-                String libjar_name = (String) embedded_jars.get(i);
-                try {
-                    InputStream in = getJarAsStream(libjar_name);
-                    ZipInputStream zin = new ZipInputStream(in);
-                    ZipEntry entry;
-                    String entryName;
-                    while ((entry = zin.getNextEntry()) != null) {
-                        entryName = entry.getName();
-                        if (entryName != null &&
-                                entryName.endsWith(resource)) {
-                            byte[] raw = IOUtils.getStreamAsByteArray(zin);
-                            return new URL("jar", "", -1, urls[0] + "!/" + libjar_name + "!/" + entryName,
-                                    new ByteUrlStreamHandler(raw));
-                        }
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+        if (url == null && embedded_jars != null && !embedded_jars.isEmpty()) {
+            try {
+                EmbeddedJarIndex.Entry entry = getEmbeddedJarIndex().find(resource);
+                if (entry != null) {
+                    return toURL(entry);
                 }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
             }
         }
         return url;
@@ -145,21 +133,11 @@ public class DeploymentClassLoader extends URLClassLoader {
         while (e.hasMoreElements()) {
             resources.add(e.nextElement());
         }
-        for (int i = 0; embedded_jars != null && i < embedded_jars.size(); i++) {
-            String libjar_name = (String) embedded_jars.get(i);
+        if (embedded_jars != null && !embedded_jars.isEmpty()) {
             try {
-            InputStream in = getJarAsStream(libjar_name);
-            ZipInputStream zin = new ZipInputStream(in);
-            ZipEntry entry;
-            String entryName;
-                while ((entry = zin.getNextEntry()) != null) {
-                    entryName = entry.getName();
-                    if (entryName != null &&
-                            entryName.endsWith(resource)) {
-                        byte[] raw = IOUtils.getStreamAsByteArray(zin);
-                        resources.add(new URL("jar", "", -1, urls[0] + "!/" + libjar_name + "!/" + entryName,
-                                new ByteUrlStreamHandler(raw)));
-                    }
+                Iterator entries = getEmbeddedJarIndex().findAll(resource).iterator();
+                while (entries.hasNext()) {
+                    resources.add(toURL((EmbeddedJarIndex.Entry) entries.next()));
                 }
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -169,59 +147,62 @@ public class DeploymentClassLoader extends URLClassLoader {
     }
 
     /**
-     * Access the jars file (/lib) one by one , then for each one create a <code>ZipInputStream</code>
-     * and check to see whether there is any entry eith given name. if it is found then
-     * return the byte array for that
+     * Looks up the given file in the jars of the /lib directory, and returns its content.
      *
      * @param resource <code>String</code>  Name of the file to be found
-     * @return byte[]
+     * @return byte[], or <code>null</code> if none of the jars has the file
      * @throws java.io.IOException <code>Exception</code>
      */
     private byte[] getBytes(String resource) throws Exception {
-        for (int i = 0; embedded_jars != null && i < embedded_jars.size(); i++) {
-            String libjar_name = (String) embedded_jars.get(i);
-            InputStream in = getJarAsStream(libjar_name);
-            byte[] bytes = getBytes(in, resource);
-            if(bytes != null) {
-                return bytes;
-            }
+        if (embedded_jars == null || embedded_jars.isEmpty()) {
+            return null;
         }
-        return null;
+        EmbeddedJarIndex index = getEmbeddedJarIndex();
+        EmbeddedJarIndex.Entry entry = index.find(resource);
+        return entry == null ? null : index.read(entry);
     }
 
     /**
-     * Get a specific entry's content as a byte array
-     * 
-     * @param in
-     * @param resource
-     * @return
-     * @throws Exception
+     * Get the index of the jars of the /lib directory, reading the archive the first time
+     * round.
+     *
+     * @return the index
+     * @throws IOException if the archive can't be read
      */
-    private byte[] getBytes(InputStream in, String resource) throws Exception {
-        ZipInputStream zin = new ZipInputStream(in);
-        ZipEntry entry;
-        String entryName;
-        while ((entry = zin.getNextEntry()) != null) {
-            entryName = entry.getName();
-            if (entryName != null &&
-                    entryName.endsWith(resource)) {
-                byte[] raw = IOUtils.getStreamAsByteArray(zin);
-                zin.close();
-                return raw;
-            }
+    synchronized EmbeddedJarIndex getEmbeddedJarIndex() throws IOException {
+        if (embeddedJarIndex == null) {
+            embeddedJarIndex = new EmbeddedJarIndex(urls[0], embedded_jars);
+        }
+        return embeddedJarIndex;
+    }
+
+    /**
+     * Drops the bytes of the jars of the /lib directory that are kept in memory. Called once
+     * the archive has been deployed; classes and resources can still be loaded afterwards,
+     * at the cost of reading the archive again.
+     */
+    public synchronized void releaseEmbeddedJars() {
+        if (embeddedJarIndex != null) {
+            embeddedJarIndex.release();
         }
-        return null;
     }
 
     /**
-     * Get the specified embedded jar from the main jar 
+     * Creates the URL of an embedded jar entry. The content is only read when the URL is
+     * opened.
      *
-     * @param libjar_name
-     * @return
-     * @throws Exception
+     * @param entry the entry
+     * @return the URL
+     * @throws MalformedURLException if the URL can't be built
      */
-    private InputStream getJarAsStream(String libjar_name) throws Exception {
-        return new ByteArrayInputStream(getBytes(urls[0].openStream(), libjar_name));
+    private URL toURL(final EmbeddedJarIndex.Entry entry) throws MalformedURLException {
+        final EmbeddedJarIndex index = embeddedJarIndex;
+        return new URL("jar", "", -1, urls[0] + "!/" + entry.getJar() + "!/" + entry.getName(),
+                       new URLStreamHandler() {
+                           protected URLConnection openConnection(URL u) throws IOException {
+                               return new ByteURLConnection(u, index.read(entry));
+                           }
+                       });
     }
 
     public static class ByteUrlStreamHandler extends URLStreamHandler {
@@ -89,6 +89,31 @@ public interface DeploymentConstants {
     String TAG_HOT_UPDATE = "hotupdate";
     String TAG_ANTI_JAR_LOCKING = "antiJARLocking";
     String TAG_HOT_DEPLOYMENT = "hotdeployment";
+    /**
+     * Parameter giving the interval in milliseconds between the checks of the repository for
+     * hot deployment.
+     */
+    String TAG_HOT_DEPLOYMENT_INTERVAL = "hotDeploymentInterval";
+    /**
+     * Parameter to build the services found in the repository concurrently. Each service is
+     * still added to the AxisConfiguration one at a time, in the order it was found.
+     */
+    String TAG_PARALLEL_DEPLOYMENT = "parallelDeployment";
+    /**
+     * Parameter giving the number of threads used by parallel deployment, by default the number
+     * of processors.
+     */
+    String TAG_DEPLOYMENT_THREADS = "deploymentThreads";
+    /**
+     * Parameter naming the directory, relative to the repository unless absolute, in which the
+     * WSDL definitions read from service archives are cached across restarts.
+     */
+    String TAG_DESCRIPTOR_CACHE = "descriptorCache";
+    /**
+     * Parameter to only read the names of the services in a service archive when it is
+     * deployed, and build the services the first time one of them is looked up.
+     */
+    String TAG_LAZY_SERVICE_ACTIVATION = "lazyServiceActivation";
     String TAG_EXPOSE = "expose";
     String TAG_EXTRACT_SERVICE_ARCHIVE = "extractServiceArchive";
     String TAG_DISPATCH_ORDER = "dispatchOrder";
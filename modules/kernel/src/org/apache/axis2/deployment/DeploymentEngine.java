@@ -62,6 +62,15 @@ import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.lang.reflect.Method;
@@ -127,6 +136,11 @@ public abstract class DeploymentEngine implements DeploymentConstants {
     
     private Map<String, Map<String, Deployer>> deployerMap = new HashMap<String, Map<String, Deployer>>();
 
+    /**
+     * The time in milliseconds it took to deploy each file, by absolute path.
+     */
+    private final Map<String, Long> deploymentTimes = new LinkedHashMap<String, Long>();
+
     public void loadServices() {
         repoListener.checkServices();
         if (hotDeployment) {
@@ -652,16 +666,41 @@ public abstract class DeploymentEngine implements DeploymentConstants {
         wsToUnDeploy.add(file);
     }
 
+    /**
+     * Deploys the files found since the last call. If parallel deployment is enabled, consecutive
+     * files handled by a {@link ConcurrentDeployer} are prepared on a pool of threads and then
+     * committed one at a time, in the order they were found; other files, such as modules, are
+     * deployed on the calling thread, after everything found before them.
+     */
     public void doDeploy() {
         try {
             if (wsToDeploy.size() > 0) {
-                for (int i = 0; i < wsToDeploy.size(); i++) {
-                    DeploymentFileData fileToDeploy = (DeploymentFileData) wsToDeploy.get(i);
-                    try {
-                        fileToDeploy.deploy();
-                    } catch (DeploymentException e) {
-                        // TODO : This probably isn't sufficient.  Maybe provide an option to stop?
-                        log.info(e);
+                int threads = getDeploymentThreads();
+                ExecutorService executor = null;
+                try {
+                    int i = 0;
+                    while (i < wsToDeploy.size()) {
+                        int end = i;
+                        if (threads > 1) {
+                            while (end < wsToDeploy.size() && ((DeploymentFileData) wsToDeploy
+                                    .get(end)).getDeployer() instanceof ConcurrentDeployer) {
+                                end++;
+                            }
+                        }
+                        if (end - i > 1) {
+                            if (executor == null) {
+                                executor = createDeploymentExecutor(threads);
+                            }
+                            deployConcurrently(new ArrayList(wsToDeploy.subList(i, end)),
+                                               executor, threads);
+                            i = end;
+                        } else {
+                            deploy((DeploymentFileData) wsToDeploy.get(i++));
+                        }
+                    }
+                } finally {
+                    if (executor != null) {
+                        executor.shutdown();
                     }
                 }
             }
@@ -670,6 +709,130 @@ public abstract class DeploymentEngine implements DeploymentConstants {
         }
     }
 
+    private void deploy(DeploymentFileData fileToDeploy) {
+        long start = System.nanoTime();
+        try {
+            fileToDeploy.deploy();
+        } catch (DeploymentException e) {
+            // TODO : This probably isn't sufficient.  Maybe provide an option to stop?
+            log.info(e);
+        }
+        deployed(fileToDeploy, System.nanoTime() - start);
+    }
+
+    private void deployConcurrently(List files, ExecutorService executor, int threads) {
+        long start = System.nanoTime();
+        final long[] prepareTimes = new long[files.size()];
+        List<Future> artifacts = new ArrayList<Future>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            final DeploymentFileData fileToDeploy = (DeploymentFileData) files.get(i);
+            final int index = i;
+            artifacts.add(executor.submit(new Callable() {
+                public Object call() throws DeploymentException {
+                    long start = System.nanoTime();
+                    try {
+                        return ((ConcurrentDeployer) fileToDeploy.getDeployer())
+                                .prepare(fileToDeploy);
+                    } finally {
+                        prepareTimes[index] = System.nanoTime() - start;
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < files.size(); i++) {
+            DeploymentFileData fileToDeploy = (DeploymentFileData) files.get(i);
+            long commitStart = System.nanoTime();
+            try {
+                Object artifact = getArtifact(artifacts.get(i));
+                ((ConcurrentDeployer) fileToDeploy.getDeployer()).commit(fileToDeploy, artifact);
+            } catch (DeploymentException e) {
+                log.info(e);
+            }
+            deployed(fileToDeploy, prepareTimes[i] + System.nanoTime() - commitStart);
+        }
+        log.info(Messages.getMessage(DeploymentErrorMsgs.DEPLOYED_CONCURRENTLY,
+                                     String.valueOf(files.size()),
+                                     String.valueOf((System.nanoTime() - start) / 1000000),
+                                     String.valueOf(threads)));
+    }
+
+    private static Object getArtifact(Future artifact) throws DeploymentException {
+        try {
+            return artifact.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeploymentException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DeploymentException) {
+                throw (DeploymentException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DeploymentException(cause);
+        }
+    }
+
+    private void deployed(DeploymentFileData fileToDeploy, long nanos) {
+        long millis = nanos / 1000000;
+        synchronized (deploymentTimes) {
+            deploymentTimes.put(fileToDeploy.getAbsolutePath(), Long.valueOf(millis));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(Messages.getMessage(DeploymentErrorMsgs.DEPLOYED_ARTIFACT,
+                                          fileToDeploy.getName(), String.valueOf(millis)));
+        }
+    }
+
+    /**
+     * @return the number of threads to deploy with, 1 unless parallel deployment is enabled
+     */
+    protected int getDeploymentThreads() {
+        if (axisConfig == null
+                || !JavaUtils.isTrue(axisConfig.getParameterValue(TAG_PARALLEL_DEPLOYMENT))) {
+            return 1;
+        }
+        Object threads = axisConfig.getParameterValue(TAG_DEPLOYMENT_THREADS);
+        if (threads != null) {
+            try {
+                return Math.max(1, Integer.parseInt(threads.toString().trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid " + TAG_DEPLOYMENT_THREADS + " parameter: " + threads);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private static ExecutorService createDeploymentExecutor(int threads) {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "axis2-deployment-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setContextClassLoader(contextClassLoader);
+                return thread;
+            }
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                      new LinkedBlockingQueue<Runnable>(), threadFactory);
+    }
+
+    /**
+     * Gets the time it took to deploy each file deployed so far, including the time spent
+     * building it on another thread with parallel deployment.
+     *
+     * @return the deployment times in milliseconds, by absolute file path, in deployment order
+     */
+    public Map<String, Long> getDeploymentTimes() {
+        synchronized (deploymentTimes) {
+            return new LinkedHashMap<String, Long>(deploymentTimes);
+        }
+    }
+
     /**
      * Checks if the modules, referred by server.xml, exist or that they are deployed.
      *
@@ -722,7 +885,28 @@ public abstract class DeploymentEngine implements DeploymentConstants {
     protected void startSearch(RepositoryListener listener) {
         scheduler = new Scheduler();
 
-        scheduler.schedule(new SchedulerTask(listener), new DeploymentIterator());
+        scheduler.schedule(new SchedulerTask(listener),
+                           new DeploymentIterator(getHotDeploymentInterval()));
+    }
+
+    /**
+     * @return the interval in milliseconds between the checks of the repository
+     */
+    protected long getHotDeploymentInterval() {
+        Object interval = axisConfig == null ? null
+                : axisConfig.getParameterValue(TAG_HOT_DEPLOYMENT_INTERVAL);
+        if (interval != null) {
+            try {
+                long value = Long.parseLong(interval.toString().trim());
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+            log.warn("Invalid " + TAG_HOT_DEPLOYMENT_INTERVAL + " parameter: " + interval);
+        }
+        return DeploymentIterator.DEFAULT_INTERVAL;
     }
 
     public void unDeploy() {
@@ -30,6 +30,10 @@ public class DeploymentErrorMsgs {
     public static final String DEPLOYING_MODULE = "deployingmodule";
     public static final String DEPLOYING_WS = "deployingws";
     public static final String DEPLOYING_POJO = "deployingpojo";
+    public static final String DEPLOYED_ARTIFACT = "deployedartifact";
+    public static final String DEPLOYED_CONCURRENTLY = "deployedconcurrently";
+    public static final String REGISTERING_LAZY_WS = "registeringlazyws";
+    public static final String ACTIVATED_SERVICE_GROUP = "activatedservicegroup";
     public static final String ELEMENT_IS_NOT_ALLOWED = "elementisnotallow";
     public static final String ERROR_IN_LOADING_MESSAGE_RECEIVER = "errorinloadingmr";
     public static final String FLOWTYPE_IS_REQUIRED = "flowtypeisrequird";
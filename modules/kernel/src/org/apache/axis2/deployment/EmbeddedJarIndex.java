@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment;
+
+import org.apache.axiom.attachments.utils.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Index of the entries of the jar files embedded in the lib directory of an archive. The
+ * archive is read once to build the index; afterwards a lookup is a map access, and reading
+ * an entry inflates only that entry out of the embedded jar. The bytes of the embedded jars
+ * are kept in a cache bounded by size and shared by all the indexes, and a jar evicted from
+ * it is read again from the archive when one of its entries is next needed. An index drops
+ * its jars from the cache when {@link #release()} is called once the archive is deployed.
+ * <p/>
+ * An entry matches a resource if its name is the resource name or ends with '/' followed by
+ * the resource name, and the first match is taken in the order of the embedded jar list and
+ * then of the entries in each jar.
+ */
+class EmbeddedJarIndex {
+
+    /**
+     * Upper bound, in bytes, of the embedded jars kept in memory by all the indexes together.
+     */
+    static final long DEFAULT_CACHE_SIZE = 4 * 1024 * 1024;
+
+    private static final JarCache sharedCache = new JarCache(DEFAULT_CACHE_SIZE);
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+
+    private final URL archive;
+
+    private final JarCache jarCache;
+
+    // all the entries, in lookup order
+    private final List<Entry> entries = new ArrayList<Entry>();
+
+    // entries by the last segment of their name, in lookup order
+    private final Map<String, List<Entry>> entriesByFileName = new HashMap<String, List<Entry>>();
+
+    private int archiveReads;
+
+    EmbeddedJarIndex(URL archive, List embeddedJars) throws IOException {
+        this(archive, embeddedJars, sharedCache);
+    }
+
+    EmbeddedJarIndex(URL archive, List embeddedJars, JarCache jarCache) throws IOException {
+        this.archive = archive;
+        this.jarCache = jarCache;
+        Map<String, List<Entry>> jarEntries = new HashMap<String, List<Entry>>();
+        for (Iterator iterator = embeddedJars.iterator(); iterator.hasNext();) {
+            jarEntries.put((String) iterator.next(), null);
+        }
+        ZipInputStream zin = new ZipInputStream(archive.openStream());
+        try {
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                String jarName = entry.getName();
+                if (jarEntries.containsKey(jarName) && jarEntries.get(jarName) == null) {
+                    byte[] bytes = IOUtils.getStreamAsByteArray(zin);
+                    jarEntries.put(jarName, readEntries(jarName, bytes));
+                    jarCache.put(this, jarName, bytes);
+                }
+            }
+        } finally {
+            zin.close();
+        }
+        for (Iterator iterator = embeddedJars.iterator(); iterator.hasNext();) {
+            List<Entry> list = jarEntries.remove(iterator.next());
+            if (list == null) {
+                continue;
+            }
+            for (Iterator<Entry> it = list.iterator(); it.hasNext();) {
+                Entry entry = it.next();
+                entries.add(entry);
+                String fileName = fileName(entry.name);
+                List<Entry> sameName = entriesByFileName.get(fileName);
+                if (sameName == null) {
+                    sameName = new ArrayList<Entry>(1);
+                    entriesByFileName.put(fileName, sameName);
+                }
+                sameName.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Finds the first entry whose name ends with the given resource name.
+     *
+     * @param resource the resource name
+     * @return the entry, or <code>null</code> if no embedded jar has one
+     */
+    Entry find(String resource) {
+        for (Iterator<Entry> iterator = candidates(resource).iterator(); iterator.hasNext();) {
+            Entry entry = iterator.next();
+            if (matches(entry, resource)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds all the entries whose name ends with the given resource name.
+     *
+     * @param resource the resource name
+     * @return the entries, in lookup order
+     */
+    List<Entry> findAll(String resource) {
+        List<Entry> found = new ArrayList<Entry>();
+        for (Iterator<Entry> iterator = candidates(resource).iterator(); iterator.hasNext();) {
+            Entry entry = iterator.next();
+            if (matches(entry, resource)) {
+                found.add(entry);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A matching entry has the same last segment as the resource name, so only the entries
+     * filed under it need to be looked at.
+     */
+    private List<Entry> candidates(String resource) {
+        List<Entry> sameName = entriesByFileName.get(fileName(resource));
+        return sameName == null ? Collections.<Entry>emptyList() : sameName;
+    }
+
+    private static boolean matches(Entry entry, String resource) {
+        int start = entry.name.length() - resource.length();
+        return entry.name.endsWith(resource)
+                && (start == 0 || entry.name.charAt(start - 1) == '/');
+    }
+
+    /**
+     * Drops the embedded jars of this index from the cache. Entries can still be read
+     * afterwards, at the cost of reading the archive again.
+     */
+    void release() {
+        jarCache.remove(this);
+    }
+
+    /**
+     * Reads the content of an entry.
+     *
+     * @param entry an entry found in this index
+     * @return the uncompressed content
+     * @throws IOException if the archive can't be read
+     */
+    byte[] read(Entry entry) throws IOException {
+        byte[] jar = getJar(entry.jar);
+        if (entry.offset >= 0 && entry.offset < jar.length) {
+            ZipInputStream zin = new ZipInputStream(
+                    new ByteArrayInputStream(jar, entry.offset, jar.length - entry.offset));
+            ZipEntry zipEntry = zin.getNextEntry();
+            if (zipEntry != null && entry.name.equals(zipEntry.getName())) {
+                return IOUtils.getStreamAsByteArray(zin);
+            }
+        }
+        // no usable offset for this entry, look for it from the start of the jar
+        ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(jar));
+        ZipEntry zipEntry;
+        while ((zipEntry = zin.getNextEntry()) != null) {
+            if (entry.name.equals(zipEntry.getName())) {
+                return IOUtils.getStreamAsByteArray(zin);
+            }
+        }
+        throw new IOException(entry.name + " not found in " + archive + "!/" + entry.jar);
+    }
+
+    /**
+     * @return the number of times the archive had to be read again because an embedded jar
+     *         was no longer cached
+     */
+    synchronized int getArchiveReads() {
+        return archiveReads;
+    }
+
+    private synchronized byte[] getJar(String jarName) throws IOException {
+        byte[] bytes = jarCache.get(this, jarName);
+        if (bytes != null) {
+            return bytes;
+        }
+        archiveReads++;
+        ZipInputStream zin = new ZipInputStream(archive.openStream());
+        try {
+            ZipEntry entry;
+            while ((entry = zin.getNextEntry()) != null) {
+                if (jarName.equals(entry.getName())) {
+                    bytes = IOUtils.getStreamAsByteArray(zin);
+                    jarCache.put(this, jarName, bytes);
+                    return bytes;
+                }
+            }
+        } finally {
+            zin.close();
+        }
+        throw new IOException(jarName + " not found in " + archive);
+    }
+
+    /**
+     * Lists the entries of an embedded jar. The central directory gives the offset of each
+     * entry, so that it can later be inflated on its own; a jar whose central directory
+     * can't be used (e.g. Zip64) is listed by reading it through.
+     */
+    private static List<Entry> readEntries(String jarName, byte[] jar) throws IOException {
+        List<Entry> list = readCentralDirectory(jarName, jar);
+        if (list != null) {
+            return list;
+        }
+        list = new ArrayList<Entry>();
+        ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(jar));
+        ZipEntry entry;
+        while ((entry = zin.getNextEntry()) != null) {
+            list.add(new Entry(jarName, entry.getName(), -1));
+        }
+        return list;
+    }
+
+    private static List<Entry> readCentralDirectory(String jarName, byte[] jar) {
+        try {
+            int end = -1;
+            for (int i = jar.length - 22; i >= 0 && i >= jar.length - 22 - 0xffff; i--) {
+                if (readInt(jar, i) == END_OF_CENTRAL_DIRECTORY) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                return null;
+            }
+            int count = readShort(jar, end + 10);
+            long offset = readInt(jar, end + 16) & 0xffffffffL;
+            if (count == 0xffff || offset >= jar.length) {
+                return null;
+            }
+            List<Entry> list = new ArrayList<Entry>(count);
+            int position = (int) offset;
+            for (int i = 0; i < count; i++) {
+                if (readInt(jar, position) != CENTRAL_DIRECTORY_ENTRY) {
+                    return null;
+                }
+                int nameLength = readShort(jar, position + 28);
+                int extraLength = readShort(jar, position + 30);
+                int commentLength = readShort(jar, position + 32);
+                long localOffset = readInt(jar, position + 42) & 0xffffffffL;
+                String name = new String(jar, position + 46, nameLength, "UTF-8");
+                list.add(new Entry(jarName, name,
+                                   localOffset < jar.length ? (int) localOffset : -1));
+                position += 46 + nameLength + extraLength + commentLength;
+            }
+            return list;
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return readShort(bytes, offset) | readShort(bytes, offset + 2) << 16;
+    }
+
+    private static String fileName(String name) {
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Embedded jar bytes of any number of indexes, bounded by their total size. The least
+     * recently used jar is evicted first.
+     */
+    static class JarCache {
+        private final long size;
+
+        private final LinkedHashMap<JarKey, byte[]> jars =
+                new LinkedHashMap<JarKey, byte[]>(16, 0.75f, true);
+
+        private long cachedBytes;
+
+        JarCache(long size) {
+            this.size = size;
+        }
+
+        synchronized byte[] get(EmbeddedJarIndex index, String jarName) {
+            return jars.get(new JarKey(index, jarName));
+        }
+
+        synchronized void put(EmbeddedJarIndex index, String jarName, byte[] bytes) {
+            if (bytes.length > size) {
+                return;
+            }
+            byte[] previous = jars.put(new JarKey(index, jarName), bytes);
+            cachedBytes += bytes.length - (previous == null ? 0 : previous.length);
+            for (Iterator<byte[]> iterator = jars.values().iterator();
+                 cachedBytes > size && iterator.hasNext();) {
+                cachedBytes -= iterator.next().length;
+                iterator.remove();
+            }
+        }
+
+        synchronized void remove(EmbeddedJarIndex index) {
+            for (Iterator<Map.Entry<JarKey, byte[]>> iterator = jars.entrySet().iterator();
+                 iterator.hasNext();) {
+                Map.Entry<JarKey, byte[]> jar = iterator.next();
+                if (jar.getKey().index == index) {
+                    cachedBytes -= jar.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+
+        synchronized long getCachedBytes() {
+            return cachedBytes;
+        }
+    }
+
+    private static class JarKey {
+        private final EmbeddedJarIndex index;
+
+        private final String jarName;
+
+        JarKey(EmbeddedJarIndex index, String jarName) {
+            this.index = index;
+            this.jarName = jarName;
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(index) * 31 + jarName.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof JarKey)) {
+                return false;
+            }
+            JarKey other = (JarKey) obj;
+            return index == other.index && jarName.equals(other.jarName);
+        }
+    }
+
+    /**
+     * An entry of one of the embedded jars.
+     */
+    static class Entry {
+        private final String jar;
+
+        private final String name;
+
+        // offset of the local header in the embedded jar, or -1 if unknown
+        private final int offset;
+
+        Entry(String jar, String name, int offset) {
+            this.jar = jar;
+            this.name = name;
+            this.offset = offset;
+        }
+
+        String getJar() {
+            return jar;
+        }
+
+        String getName() {
+            return name;
+        }
+    }
+}
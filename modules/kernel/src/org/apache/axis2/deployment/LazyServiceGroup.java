@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.deployment.repository.util.DeploymentFileData;
+import org.apache.axis2.i18n.Messages;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A service group found in the repository but not built yet, because the
+ * {@link DeploymentConstants#TAG_LAZY_SERVICE_ACTIVATION} parameter is set. Only the names of
+ * its services are known until the AxisConfiguration activates the group, i.e. deploys its
+ * archive, the first time one of them is looked up.
+ */
+public class LazyServiceGroup {
+    private static final Log log = LogFactory.getLog(LazyServiceGroup.class);
+
+    private final String serviceGroupName;
+
+    private final List<String> serviceNames;
+
+    private final DeploymentFileData deploymentFileData;
+
+    private final ServiceDeployer deployer;
+
+    // builds the service group once, the callers that don't run it wait for its result
+    private final FutureTask<ServiceDeployer.ServiceGroupArtifact> build;
+
+    LazyServiceGroup(String serviceGroupName, List<String> serviceNames,
+                     final DeploymentFileData deploymentFileData,
+                     final ServiceDeployer deployer) {
+        this.serviceGroupName = serviceGroupName;
+        this.serviceNames = Collections.unmodifiableList(serviceNames);
+        this.deploymentFileData = deploymentFileData;
+        this.deployer = deployer;
+        build = new FutureTask<ServiceDeployer.ServiceGroupArtifact>(
+                new Callable<ServiceDeployer.ServiceGroupArtifact>() {
+                    public ServiceDeployer.ServiceGroupArtifact call() throws Exception {
+                        return deployer.build(deploymentFileData);
+                    }
+                });
+    }
+
+    public String getServiceGroupName() {
+        return serviceGroupName;
+    }
+
+    public List<String> getServiceNames() {
+        return serviceNames;
+    }
+
+    public DeploymentFileData getDeploymentFileData() {
+        return deploymentFileData;
+    }
+
+    /**
+     * Deploys the service group. Only the first call builds it: concurrent calls wait for the
+     * build to finish, and all calls fail with the same fault if it did. The build holds no
+     * lock, so callers may hold the AxisConfiguration lock while they wait. The built group is
+     * added to the AxisConfiguration only if this group is still registered by then, i.e. it
+     * hasn't been undeployed or added by another caller in the meantime.
+     *
+     * @throws AxisFault if the service group couldn't be deployed
+     */
+    public void activate() throws AxisFault {
+        long start = System.currentTimeMillis();
+        build.run();
+        ServiceDeployer.ServiceGroupArtifact artifact;
+        try {
+            artifact = build.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof AxisFault ? (AxisFault) cause : AxisFault.makeFault(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AxisFault.makeFault(e);
+        }
+        if (deployer.activate(this, artifact)) {
+            log.info(Messages.getMessage(DeploymentErrorMsgs.ACTIVATED_SERVICE_GROUP,
+                                         serviceGroupName,
+                                         String.valueOf(System.currentTimeMillis() - start)));
+        }
+    }
+
+    /**
+     * @return true once the service group has been built, or has failed to build
+     */
+    public boolean isActivated() {
+        return build.isDone();
+    }
+}
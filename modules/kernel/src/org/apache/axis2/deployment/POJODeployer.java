@@ -47,7 +47,7 @@ import java.util.Iterator;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
-public class POJODeployer implements Deployer {
+public class POJODeployer implements ConcurrentDeployer<AxisServiceGroup> {
 
     private static Log log = LogFactory.getLog(POJODeployer.class);
 
@@ -59,6 +59,10 @@ public class POJODeployer implements Deployer {
     }//Will process the file and add that to axisConfig
 
     public void deploy(DeploymentFileData deploymentFileData) {
+        commit(deploymentFileData, prepare(deploymentFileData));
+    }
+
+    public AxisServiceGroup prepare(DeploymentFileData deploymentFileData) {
         ClassLoader threadClassLoader = Thread.currentThread().getContextClassLoader();
         try {
             String extension = DeploymentFileData.getFileExtension(deploymentFileData.getName());
@@ -96,13 +100,13 @@ public class POJODeployer implements Deployer {
                             createAxisService(classLoader,
                                     className,
                                     deploymentFileData.getFile().toURL());
-                    configCtx.getAxisConfiguration().addService(axisService);
+                    return createServiceGroup(axisService);
                 } else {
                     AxisService axisService =
                             createAxisServiceUsingAnnogen(className,
                                     classLoader,
                                     deploymentFileData.getFile().toURL());
-                    configCtx.getAxisConfiguration().addService(axisService);
+                    return createServiceGroup(axisService);
                 }
 
             } else if ("jar".equals(extension)) {
@@ -181,7 +185,7 @@ public class POJODeployer implements Deployer {
                         AxisService axisService = (AxisService)anAxisServiceList;
                         serviceGroup.addService(axisService);
                     }
-                    configCtx.getAxisConfiguration().addServiceGroup(serviceGroup);
+                    return serviceGroup;
                 } else {
                     String msg = "Error:\n No annotated classes found in the jar: " +
                             deploymentFileData.getFile().getName() +
@@ -202,6 +206,27 @@ public class POJODeployer implements Deployer {
                 Thread.currentThread().setContextClassLoader(threadClassLoader);
             }
         }
+        return null;
+    }
+
+    public void commit(DeploymentFileData deploymentFileData, AxisServiceGroup serviceGroup) {
+        if (serviceGroup == null) {
+            return;
+        }
+        try {
+            configCtx.getAxisConfiguration().addServiceGroup(serviceGroup);
+        } catch (Exception e) {
+            log.debug(Messages.getMessage(DeploymentErrorMsgs.STORING_FAULTY_SERVICE,e.getMessage()),e);
+            storeFaultyService(deploymentFileData, e);
+        }
+    }
+
+    // The service group AxisConfiguration.addService(AxisService) would create for the service
+    private AxisServiceGroup createServiceGroup(AxisService axisService) throws AxisFault {
+        AxisServiceGroup serviceGroup = new AxisServiceGroup();
+        serviceGroup.setServiceGroupName(axisService.getName());
+        serviceGroup.addService(axisService);
+        return serviceGroup;
     }
 
     private void storeFaultyService(DeploymentFileData deploymentFileData, Throwable t) {
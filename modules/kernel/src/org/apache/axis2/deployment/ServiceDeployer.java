@@ -24,12 +24,14 @@ import org.apache.axis2.Constants;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.deployment.repository.util.ArchiveReader;
 import org.apache.axis2.deployment.repository.util.DeploymentFileData;
+import org.apache.axis2.deployment.repository.util.DescriptorCache;
 import org.apache.axis2.deployment.util.Utils;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.AxisServiceGroup;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.util.JavaUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -40,26 +42,103 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 
-public class ServiceDeployer implements Deployer {
+public class ServiceDeployer implements ConcurrentDeployer<ServiceDeployer.ServiceGroupArtifact> {
     private static final Log log = LogFactory.getLog(ServiceDeployer.class);
     private AxisConfiguration axisConfig;
     private ConfigurationContext configCtx;
+    private DescriptorCache descriptorCache;
+    private boolean lazyActivation;
 
     //To initialize the deployer
     public void init(ConfigurationContext configCtx) {
         this.configCtx = configCtx;
         this.axisConfig = this.configCtx.getAxisConfiguration();
+        String cacheDir = (String) axisConfig.getParameterValue(
+                DeploymentConstants.TAG_DESCRIPTOR_CACHE);
+        if (cacheDir != null && cacheDir.trim().length() > 0) {
+            File directory = new File(cacheDir.trim());
+            if (!directory.isAbsolute() && axisConfig.getRepository() != null) {
+                try {
+                    directory = new File(Utils.toFile(axisConfig.getRepository()),
+                                         cacheDir.trim());
+                } catch (Exception e) {
+                    log.debug(e);
+                }
+            }
+            descriptorCache = new DescriptorCache(directory);
+        }
+        lazyActivation = JavaUtils.isTrue(axisConfig.getParameterValue(
+                DeploymentConstants.TAG_LAZY_SERVICE_ACTIVATION));
     }
 
     //Will process the file and add that to axisConfig
 
     public void deploy(DeploymentFileData deploymentFileData) throws DeploymentException {
+        commit(deploymentFileData, prepare(deploymentFileData));
+    }
+
+    public ServiceGroupArtifact prepare(DeploymentFileData deploymentFileData)
+            throws DeploymentException {
+        if (lazyActivation) {
+            LazyServiceGroup lazyServiceGroup = readLazyServiceGroup(deploymentFileData);
+            if (lazyServiceGroup != null) {
+                return new ServiceGroupArtifact(lazyServiceGroup);
+            }
+        }
+        return build(deploymentFileData);
+    }
+
+    /**
+     * Adds the service group built for a group registered for lazy activation to the
+     * AxisConfiguration, in place of that registration. Nothing is added if the group is no
+     * longer registered, because it has been undeployed or activated by another thread.
+     *
+     * @return true if the service group was added
+     */
+    boolean activate(LazyServiceGroup lazyServiceGroup, ServiceGroupArtifact artifact)
+            throws DeploymentException {
+        String serviceGroupName = lazyServiceGroup.getServiceGroupName();
+        synchronized (axisConfig) {
+            if (axisConfig.getLazyServiceGroups().get(serviceGroupName) != lazyServiceGroup) {
+                return false;
+            }
+            axisConfig.removeLazyServiceGroup(serviceGroupName);
+            commit(lazyServiceGroup.getDeploymentFileData(), artifact);
+            return true;
+        }
+    }
+
+    /**
+     * Reads the names of the services of a file, for lazy activation.
+     *
+     * @return the service group to activate, or null if the file has to be built right away
+     */
+    private LazyServiceGroup readLazyServiceGroup(DeploymentFileData deploymentFileData) {
+        List<String> serviceNames;
+        try {
+            serviceNames = new ArchiveReader().readServiceNames(deploymentFileData);
+        } catch (DeploymentException e) {
+            // building it reports the error
+            log.debug(e.getMessage(), e);
+            return null;
+        }
+        if (serviceNames == null) {
+            return null;
+        }
+        File file = deploymentFileData.getFile();
+        String serviceGroupName = file.isDirectory() ? file.getName()
+                : DescriptionBuilder.getShortFileName(file.getName());
+        return new LazyServiceGroup(serviceGroupName, serviceNames, deploymentFileData, this);
+    }
+
+    ServiceGroupArtifact build(DeploymentFileData deploymentFileData)
+            throws DeploymentException {
         boolean isDirectory = deploymentFileData.getFile().isDirectory();
         ArchiveReader archiveReader;
-        StringWriter errorWriter = new StringWriter();
         archiveReader = new ArchiveReader();
-        String serviceStatus = "";
+        archiveReader.setDescriptorCache(descriptorCache);
         try {
             deploymentFileData.setClassLoader(isDirectory,
                                               axisConfig.getServiceClassLoader(),
@@ -83,55 +162,60 @@ public class ServiceDeployer implements Deployer {
                     deploymentFileData.getAbsolutePath(), deploymentFileData,
                     serviceGroup, isDirectory, wsdlservice,
                     configCtx);
-            URL location = deploymentFileData.getFile().toURL();
-            DeploymentEngine.addServiceGroup(serviceGroup,
-                                             serviceList,
-                                             location,
+            return new ServiceGroupArtifact(serviceGroup, serviceList,
+                                            deploymentFileData.getFile().toURL());
+        } catch (Throwable t) {
+            throw deploymentFailed(deploymentFileData, t);
+        }
+    }
+
+    public void commit(DeploymentFileData deploymentFileData, ServiceGroupArtifact artifact)
+            throws DeploymentException {
+        try {
+            if (artifact.getLazyServiceGroup() != null) {
+                axisConfig.addLazyServiceGroup(artifact.getLazyServiceGroup());
+                log.info(Messages.getMessage(DeploymentErrorMsgs.REGISTERING_LAZY_WS,
+                                             deploymentFileData.getName(),
+                                             artifact.getLazyServiceGroup().getServiceNames()
+                                                     .toString()));
+                return;
+            }
+            DeploymentEngine.addServiceGroup(artifact.getServiceGroup(),
+                                             artifact.getServiceList(),
+                                             artifact.getLocation(),
                                              deploymentFileData,
                                              axisConfig);
             log.info(Messages.getMessage(DeploymentErrorMsgs.DEPLOYING_WS,
                                          deploymentFileData.getName(),
-                                         location.toString()));
-        } catch (DeploymentException de) {
-            de.printStackTrace();
+                                         artifact.getLocation().toString()));
+        } catch (Throwable t) {
+            throw deploymentFailed(deploymentFileData, t);
+        }
+    }
+
+    /**
+     * Logs why a file couldn't be deployed and records it as a faulty service.
+     *
+     * @return the exception to throw
+     */
+    private DeploymentException deploymentFailed(DeploymentFileData deploymentFileData,
+                                                 Throwable t) {
+        StringWriter errorWriter = new StringWriter();
+        DeploymentException de;
+        if (t instanceof DeploymentException) {
+            t.printStackTrace();
             log.error(Messages.getMessage(DeploymentErrorMsgs.INVALID_SERVICE,
                                           deploymentFileData.getName(),
-                                          de.getMessage()),
-                      de);
-            PrintWriter error_ptintWriter = new PrintWriter(errorWriter);
-            de.printStackTrace(error_ptintWriter);
-            serviceStatus = "Error:\n" + errorWriter.toString();
-
-            throw de;
-
-        } catch (AxisFault axisFault) {
+                                          t.getMessage()),
+                      t);
+            de = (DeploymentException) t;
+        } else if (t instanceof AxisFault) {
             log.error(Messages.getMessage(DeploymentErrorMsgs.INVALID_SERVICE,
                                           deploymentFileData.getName(),
-                                          axisFault.getMessage()),
-                      axisFault);
-            PrintWriter error_ptintWriter = new PrintWriter(errorWriter);
-            axisFault.printStackTrace(error_ptintWriter);
-            serviceStatus = "Error:\n" + errorWriter.toString();
-
-            throw new DeploymentException(axisFault);
-
-        } catch (Exception e) {
-            if (log.isInfoEnabled()) {
-                StringWriter sw = new StringWriter();
-                PrintWriter pw = new PrintWriter(sw);
-                e.printStackTrace(pw);
-                log.info(Messages.getMessage(
-                        DeploymentErrorMsgs.INVALID_SERVICE,
-                        deploymentFileData.getName(),
-                        sw.getBuffer().toString()));
-            }
-            PrintWriter error_ptintWriter = new PrintWriter(errorWriter);
-            e.printStackTrace(error_ptintWriter);
-            serviceStatus = "Error:\n" + errorWriter.toString();
-
-            throw new DeploymentException(e);
-
-        } catch (Throwable t) {
+                                          t.getMessage()),
+                      t);
+            de = new DeploymentException(t);
+        } else {
             if (log.isInfoEnabled()) {
                 StringWriter sw = new StringWriter();
                 PrintWriter pw = new PrintWriter(sw);
@@ -141,18 +225,21 @@ public class ServiceDeployer implements Deployer {
                         deploymentFileData.getName(),
                         sw.getBuffer().toString()));
             }
-            PrintWriter error_ptintWriter = new PrintWriter(errorWriter);
-            t.printStackTrace(error_ptintWriter);
-            serviceStatus = "Error:\n" + errorWriter.toString();
-
-            throw new DeploymentException(new Exception(t));
-
-        } finally {
-            if (serviceStatus.startsWith("Error:")) {
-                axisConfig.getFaultyServices().put(deploymentFileData.getFile().getAbsolutePath(),
-                                                   serviceStatus);
-            }
+            de = t instanceof Exception ? new DeploymentException(t)
+                    : new DeploymentException(new Exception(t));
         }
+        PrintWriter error_ptintWriter = new PrintWriter(errorWriter);
+        t.printStackTrace(error_ptintWriter);
+        axisConfig.getFaultyServices().put(deploymentFileData.getFile().getAbsolutePath(),
+                                           "Error:\n" + errorWriter.toString());
+        return de;
+    }
+
+    /**
+     * @return the cache of the WSDL definitions of service archives, null if not enabled
+     */
+    public DescriptorCache getDescriptorCache() {
+        return descriptorCache;
     }
 
     public void setDirectory(String directory) {
@@ -165,6 +252,10 @@ public class ServiceDeployer implements Deployer {
         try {
             fileName = Utils.getShortFileName(fileName);
             fileName = DeploymentEngine.getAxisServiceName(fileName);
+            if (axisConfig.removeLazyServiceGroup(fileName) != null) {
+                log.info(Messages.getMessage(DeploymentErrorMsgs.SERVICE_REMOVED, fileName));
+                return;
+            }
             AxisServiceGroup serviceGroup = axisConfig.removeServiceGroup(fileName);
             if (serviceGroup != null) {
                 configCtx.removeServiceGroupContext(serviceGroup);
@@ -180,4 +271,60 @@ public class ServiceDeployer implements Deployer {
             throw new DeploymentException(axisFault);
         }
     }
+
+    /**
+     * A service group read from a service archive, with the services it contains, ready to be
+     * added to the AxisConfiguration. With lazy activation, only the names of the services
+     * have been read and the group is registered to be built on first use instead.
+     */
+    public static final class ServiceGroupArtifact {
+        private final AxisServiceGroup serviceGroup;
+        private final ArrayList serviceList;
+        private final URL location;
+        private final LazyServiceGroup lazyServiceGroup;
+
+        ServiceGroupArtifact(AxisServiceGroup serviceGroup, ArrayList serviceList,
+                             URL location) {
+            this.serviceGroup = serviceGroup;
+            this.serviceList = serviceList;
+            this.location = location;
+            this.lazyServiceGroup = null;
+        }
+
+        ServiceGroupArtifact(LazyServiceGroup lazyServiceGroup) {
+            this.serviceGroup = null;
+            this.serviceList = null;
+            this.location = null;
+            this.lazyServiceGroup = lazyServiceGroup;
+        }
+
+        /**
+         * @return the service group, or null if it is registered for lazy activation
+         */
+        public AxisServiceGroup getServiceGroup() {
+            return serviceGroup;
+        }
+
+        /**
+         * @return the services of the group, or null if it is registered for lazy activation
+         */
+        public ArrayList getServiceList() {
+            return serviceList;
+        }
+
+        /**
+         * @return the location of the service archive, or null if the group is registered for
+         *         lazy activation
+         */
+        public URL getLocation() {
+            return location;
+        }
+
+        /**
+         * @return the group to register for lazy activation, or null if it has been built
+         */
+        public LazyServiceGroup getLazyServiceGroup() {
+            return lazyServiceGroup;
+        }
+    }
 }
@@ -22,6 +22,7 @@ package org.apache.axis2.deployment.repository.util;
 
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.util.StAXUtils;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.deployment.DeploymentConstants;
@@ -50,7 +51,11 @@ import org.apache.axis2.util.XMLUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import javax.wsdl.Definition;
+import javax.wsdl.WSDLException;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -67,6 +72,12 @@ import java.util.zip.ZipInputStream;
 public class ArchiveReader implements DeploymentConstants {
     private static final Log log = LogFactory.getLog(ArchiveReader.class);
 
+    private DescriptorCache descriptorCache;
+
+    // the content hash of the service whose WSDLs are being processed, computed when needed
+    private File hashedFile;
+    private String contentHash;
+
     public ArrayList<AxisService> buildServiceGroup(InputStream zin, DeploymentFileData currentFile,
                                        AxisServiceGroup axisServiceGroup, HashMap<String, AxisService> wsdlServices,
                                        ConfigurationContext configCtx)
@@ -200,6 +211,98 @@ public class ArchiveReader implements DeploymentConstants {
         }
     }
 
+    /**
+     * Reads the names of the services described by the services.xml of a service archive or
+     * directory, without building the services.
+     *
+     * @param currentFile the service archive or directory
+     * @return the service names, or null if services.xml doesn't name any service the way
+     *         the service builders do
+     * @throws DeploymentException if services.xml can't be found or read
+     */
+    public List<String> readServiceNames(DeploymentFileData currentFile)
+            throws DeploymentException {
+        File file = currentFile.getFile();
+        InputStream in = null;
+        try {
+            if (file.isDirectory()) {
+                File servicesXML = new File(file, SERVICES_XML);
+                if (!servicesXML.exists()) {
+                    servicesXML = new File(file, SERVICES_XML.toLowerCase());
+                }
+                if (!servicesXML.exists()) {
+                    throw new DeploymentException(Messages.getMessage(
+                            DeploymentErrorMsgs.SERVICE_XML_NOT_FOUND, file.getPath()));
+                }
+                in = new FileInputStream(servicesXML);
+            } else {
+                ZipInputStream zin = new ZipInputStream(new FileInputStream(file));
+                in = zin;
+                ZipEntry entry;
+                while ((entry = zin.getNextEntry()) != null
+                        && !entry.getName().equalsIgnoreCase(SERVICES_XML)) {
+                }
+                if (entry == null) {
+                    throw new DeploymentException(Messages.getMessage(
+                            DeploymentErrorMsgs.SERVICE_XML_NOT_FOUND, file.getPath()));
+                }
+            }
+            return readServiceNames(in,
+                                    DescriptionBuilder.getShortFileName(currentFile.getName()));
+        } catch (IOException e) {
+            throw new DeploymentException(e);
+        } catch (XMLStreamException e) {
+            throw new DeploymentException(Messages.getMessage(
+                    DeploymentErrorMsgs.XML_STREAM_EXCEPTION, e.getMessage()));
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    log.info(Messages.getMessage("errorininputstreamclose"));
+                }
+            }
+        }
+    }
+
+    private List<String> readServiceNames(InputStream in, String defaultName)
+            throws XMLStreamException {
+        XMLStreamReader reader = StAXUtils.createXMLStreamReader(in);
+        try {
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+            }
+            List<String> names = new ArrayList<String>();
+            if (TAG_SERVICE.equals(reader.getLocalName())) {
+                // as in buildServiceGroup and ServiceBuilder
+                String name = reader.getAttributeValue(null, ATTRIBUTE_NAME);
+                names.add(name != null && name.trim().length() > 0 ? name : defaultName);
+                return names;
+            } else if (!TAG_SERVICE_GROUP.equals(reader.getLocalName())) {
+                return null;
+            }
+            // as in ServiceGroupBuilder
+            int depth = 1;
+            while (depth > 0) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2 && TAG_SERVICE.equals(reader.getLocalName())) {
+                        String name = reader.getAttributeValue(null, ATTRIBUTE_NAME);
+                        if (name == null || name.length() == 0) {
+                            return null;
+                        }
+                        names.add(name);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return names.isEmpty() ? null : names;
+        } finally {
+            reader.close();
+        }
+    }
+
     /**
      * Creats AxisService.
      *
@@ -211,6 +314,20 @@ public class ArchiveReader implements DeploymentConstants {
                                  File serviceArchiveFile,
                                  boolean isArchive, InputStream in, String baseURI)
             throws DeploymentException {
+        return processWSDLFile(axisServiceBuilder, serviceArchiveFile, isArchive, in, baseURI,
+                               null, null);
+    }
+
+    /**
+     * @param cachedServiceFile if not null, the service file under which the definition read
+     *                          from the WSDL is to be cached
+     * @param wsdlName          the name of the WSDL file in the service, to cache it under
+     */
+    private List<AxisService> processWSDLFile(WSDLToAxisServiceBuilder axisServiceBuilder,
+                                 File serviceArchiveFile,
+                                 boolean isArchive, InputStream in, String baseURI,
+                                 File cachedServiceFile, String wsdlName)
+            throws DeploymentException {
         try {
 
             if (serviceArchiveFile != null && isArchive) {
@@ -244,6 +361,12 @@ public class ArchiveReader implements DeploymentConstants {
                 }
             }
             if (axisServiceBuilder instanceof WSDL11ToAllAxisServicesBuilder) {
+                if (cachedServiceFile != null) {
+                    // cache the definition before building the services, which attaches
+                    // state that can't be serialized to its schemas
+                    cacheDefinition((WSDL11ToAxisServiceBuilder) axisServiceBuilder,
+                                    cachedServiceFile, wsdlName);
+                }
                 return ((WSDL11ToAllAxisServicesBuilder) axisServiceBuilder).populateAllServices();
             } else if (axisServiceBuilder instanceof WSDL20ToAllAxisServicesBuilder) {
                 return ((WSDL20ToAllAxisServicesBuilder) axisServiceBuilder).populateAllServices();
@@ -338,6 +461,7 @@ public class ArchiveReader implements DeploymentConstants {
                                 ((OMElement) XMLUtils.toOM(in)).getNamespace();
                         if (documentElementNS != null) {
                             WSDLToAxisServiceBuilder wsdlToAxisServiceBuilder;
+                            Definition definition = null;
                             if (WSDL2Constants.WSDL_NAMESPACE
                                     .equals(documentElementNS.getNamespaceURI())) {
                                 // we have a WSDL 2.0 document here.
@@ -346,8 +470,14 @@ public class ArchiveReader implements DeploymentConstants {
                                 wsdlToAxisServiceBuilder.setBaseUri(entryName);
                             } else if (Constants.NS_URI_WSDL11.
                                     equals(documentElementNS.getNamespaceURI())) {
-                                wsdlToAxisServiceBuilder = new WSDL11ToAllAxisServicesBuilder(
-                                        new ByteArrayInputStream(out.toByteArray()));
+                                definition = getCachedDefinition(serviceFile, entry.getName());
+                                if (definition != null) {
+                                    wsdlToAxisServiceBuilder =
+                                            new WSDL11ToAllAxisServicesBuilder(definition);
+                                } else {
+                                    wsdlToAxisServiceBuilder = new WSDL11ToAllAxisServicesBuilder(
+                                            new ByteArrayInputStream(out.toByteArray()));
+                                }
                                 ((WSDL11ToAxisServiceBuilder) wsdlToAxisServiceBuilder).setDocumentBaseUri(entryName);
                             } else {
                                 throw new DeploymentException(Messages.getMessage("invalidWSDLFound"));
@@ -356,6 +486,8 @@ public class ArchiveReader implements DeploymentConstants {
                                                             serviceFile, true,
                                                             new ByteArrayInputStream(
                                                                     out.toByteArray()),
+                                                            entry.getName(),
+                                                            serviceFileToCache(serviceFile, definition),
                                                             entry.getName());
                             if (services != null) {
                                 for (int i = 0; i < services.size(); i++) {
@@ -449,6 +581,7 @@ public class ArchiveReader implements DeploymentConstants {
                 OMNamespace documentElementNS = ((OMElement) XMLUtils.toOM(in)).getNamespace();
                 if (documentElementNS != null) {
                     WSDLToAxisServiceBuilder wsdlToAxisServiceBuilder;
+                    Definition definition = null;
                     if (WSDL2Constants.WSDL_NAMESPACE
                             .equals(documentElementNS.getNamespaceURI())) {
                         // we have a WSDL 2.0 document here.
@@ -457,7 +590,13 @@ public class ArchiveReader implements DeploymentConstants {
                     } else if (Constants.NS_URI_WSDL11.
                             equals(documentElementNS.getNamespaceURI())) {
                         in2 = new FileInputStream(file1);
-                        wsdlToAxisServiceBuilder = new WSDL11ToAllAxisServicesBuilder(in2);
+                        definition = getCachedDefinition(folder.getParentFile(), file1.getName());
+                        if (definition != null) {
+                            wsdlToAxisServiceBuilder =
+                                    new WSDL11ToAllAxisServicesBuilder(definition);
+                        } else {
+                            wsdlToAxisServiceBuilder = new WSDL11ToAllAxisServicesBuilder(in2);
+                        }
                         ((WSDL11ToAxisServiceBuilder) wsdlToAxisServiceBuilder).setDocumentBaseUri(file1.toURI()
                                                                                                         .toString());
                     } else {
@@ -466,7 +605,9 @@ public class ArchiveReader implements DeploymentConstants {
 
                     FileInputStream in3 = new FileInputStream(file1);
                     List<AxisService> services = processWSDLFile(wsdlToAxisServiceBuilder, file1, false,
-                                                    in2, file1.toURI().toString());
+                                                    in2, file1.toURI().toString(),
+                                                    serviceFileToCache(folder.getParentFile(), definition),
+                                                    file1.getName());
 
                     if (services != null) {
                         for (int j = 0; j < services.size(); j++) {
@@ -492,6 +633,49 @@ public class ArchiveReader implements DeploymentConstants {
         }
     }
 
+    /**
+     * Sets the cache of WSDL definitions used by {@link #processWSDLs}.
+     *
+     * @param descriptorCache the cache, or null to read every WSDL file
+     */
+    public void setDescriptorCache(DescriptorCache descriptorCache) {
+        this.descriptorCache = descriptorCache;
+    }
+
+    private Definition getCachedDefinition(File serviceFile, String wsdlName) {
+        if (descriptorCache == null) {
+            return null;
+        }
+        try {
+            if (!serviceFile.equals(hashedFile)) {
+                contentHash = descriptorCache.getContentHash(serviceFile);
+                hashedFile = serviceFile;
+            }
+        } catch (IOException e) {
+            log.debug("Can't compute the content hash of " + serviceFile, e);
+            return null;
+        }
+        return descriptorCache.get(serviceFile, contentHash, wsdlName);
+    }
+
+    // The service file to cache a definition under, null if it was restored or can't be cached
+    private File serviceFileToCache(File serviceFile, Definition restored) {
+        if (descriptorCache != null && restored == null && serviceFile.equals(hashedFile)) {
+            return serviceFile;
+        }
+        return null;
+    }
+
+    private void cacheDefinition(WSDL11ToAxisServiceBuilder builder, File serviceFile,
+                                 String wsdlName) {
+        try {
+            descriptorCache.put(serviceFile, contentHash, wsdlName, builder.readDefinition());
+        } catch (WSDLException e) {
+            // the services can't be built either, which will be reported
+            log.debug(e);
+        }
+    }
+
     public void readModuleArchive(DeploymentFileData deploymentFile,
                                   AxisModule module, boolean explodedDir,
                                   AxisConfiguration axisConfig)
@@ -22,6 +22,7 @@ package org.apache.axis2.deployment.repository.util;
 
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.deployment.Deployer;
+import org.apache.axis2.deployment.DeploymentClassLoader;
 import org.apache.axis2.deployment.DeploymentErrorMsgs;
 import org.apache.axis2.deployment.DeploymentException;
 import org.apache.axis2.deployment.util.Utils;
@@ -133,6 +134,13 @@ public class DeploymentFileData {
     }
 
     public void deploy() throws DeploymentException {
-        deployer.deploy(this);
+        try {
+            deployer.deploy(this);
+        } finally {
+            // the embedded jars are mostly needed while the archive is being deployed
+            if (classLoader instanceof DeploymentClassLoader) {
+                ((DeploymentClassLoader) classLoader).releaseEmbeddedJars();
+            }
+        }
     }
 }
@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment.repository.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.wsdl.Definition;
+import javax.wsdl.Import;
+import javax.wsdl.Types;
+import javax.wsdl.extensions.schema.Schema;
+import javax.wsdl.extensions.schema.SchemaReference;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An on-disk cache of the WSDL 1.1 definitions read from service archives, so that WSDL
+ * documents and the documents they import don't have to be parsed and resolved again when an
+ * unchanged archive is deployed after a restart.
+ * <p/>
+ * Definitions are stored with Java serialization, like {@link
+ * org.apache.axis2.wsdl.util.WSDLWrapperSaveImpl} does, in files named after the archive and the
+ * WSDL file and keyed by a hash of the size and last modified time of the archive, or of every
+ * file of an exploded service. This is what the deployer itself looks at to detect updated
+ * services, and it doesn't require reading the archive. An updated service therefore doesn't
+ * get a stale definition, and replaces the definitions cached for its previous version. Entries
+ * that can't be read back, for instance after an upgrade of WSDL4J, are simply rebuilt.
+ * <p/>
+ * Only the documents of the service itself are covered by the key. A definition that imports
+ * a WSDL or schema document by an absolute or remote location is therefore never cached, since
+ * that document could change without the service changing. Relative locations that lead out of
+ * the service are not detected and should be avoided.
+ */
+public class DescriptorCache {
+    private static final Log log = LogFactory.getLog(DescriptorCache.class);
+
+    private static final String SUFFIX = ".wsdl4j";
+
+    private final File directory;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @param directory the directory to keep the cached definitions in, created if needed
+     */
+    public DescriptorCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Computes the hash identifying the version of a service. Only the size and last
+     * modified time of the files are looked at, not their content.
+     *
+     * @param serviceFile a service archive, or the directory of an exploded service
+     * @return the hash of the archive, or of all the files of an exploded service
+     * @throws IOException if the service can't be read
+     */
+    public String getContentHash(File serviceFile) throws IOException {
+        MessageDigest digest = newDigest();
+        if (serviceFile.isDirectory()) {
+            update(digest, serviceFile, "");
+        } else {
+            update(digest, serviceFile);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, File directory, String path)
+            throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (int i = 0; i < files.length; i++) {
+            String name = path + "/" + files[i].getName();
+            digest.update(name.getBytes("UTF-8"));
+            if (files[i].isDirectory()) {
+                update(digest, files[i], name);
+            } else {
+                update(digest, files[i]);
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, File file) {
+        update(digest, file.length());
+        update(digest, file.lastModified());
+    }
+
+    private static void update(MessageDigest digest, long value) {
+        for (int i = 0; i < 64; i += 8) {
+            digest.update((byte) (value >>> i));
+        }
+    }
+
+    /**
+     * Gets the cached definition of a WSDL file of a service.
+     *
+     * @param serviceFile the service archive or directory
+     * @param contentHash the hash of the service, see {@link #getContentHash(File)}
+     * @param wsdlName    the name of the WSDL file within the service
+     * @return the definition, or null if it isn't cached for this content
+     */
+    public Definition get(File serviceFile, String contentHash, String wsdlName) {
+        File file = getFile(serviceFile, contentHash, wsdlName);
+        if (file.exists()) {
+            ObjectInputStream in = null;
+            try {
+                in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+                Definition definition = (Definition) in.readObject();
+                hitCount.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug("Restored the definition of " + wsdlName + " in "
+                            + serviceFile.getName() + " from " + file);
+                }
+                return definition;
+            } catch (Exception e) {
+                log.debug("Ignoring unreadable cached definition " + file, e);
+                file.delete();
+            } finally {
+                close(in);
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the definition of a WSDL file of a service, replacing the definitions cached for
+     * previous contents of the service. Definitions importing documents from outside the
+     * service are not cached. Failures are logged and otherwise ignored.
+     *
+     * @param serviceFile the service archive or directory
+     * @param contentHash the hash of the service, see {@link #getContentHash(File)}
+     * @param wsdlName    the name of the WSDL file within the service
+     * @param definition  the definition read from the WSDL file
+     */
+    public void put(File serviceFile, String contentHash, String wsdlName,
+                    Definition definition) {
+        if (!isSelfContained(definition)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Not caching the definition of " + wsdlName + " in "
+                        + serviceFile.getName() + " as it imports documents from outside of it");
+            }
+            return;
+        }
+        File file = getFile(serviceFile, contentHash, wsdlName);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            log.warn("Can't create the descriptor cache directory " + directory);
+            return;
+        }
+        File temp = new File(directory, file.getName() + "." + Thread.currentThread().getId());
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeObject(definition);
+            out.close();
+            out = null;
+            removeStaleFiles(file.getName());
+            if (!temp.renameTo(file)) {
+                file.delete();
+                if (!temp.renameTo(file)) {
+                    throw new IOException("Can't rename " + temp + " to " + file);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Can't cache the definition of " + wsdlName + " in "
+                    + serviceFile.getName(), e);
+        } finally {
+            close(out);
+            temp.delete();
+        }
+    }
+
+    /**
+     * Checks that all the WSDL and schema documents a definition imports, directly or not,
+     * are referenced by relative locations.
+     */
+    static boolean isSelfContained(Definition definition) {
+        Set<Object> visited = new HashSet<Object>();
+        List<Object> pending = new ArrayList<Object>();
+        pending.add(definition);
+        while (!pending.isEmpty()) {
+            Object document = pending.remove(pending.size() - 1);
+            if (document == null || !visited.add(document)) {
+                continue;
+            }
+            if (document instanceof Definition) {
+                Definition wsdl = (Definition) document;
+                for (Iterator lists = wsdl.getImports().values().iterator(); lists.hasNext();) {
+                    for (Iterator it = ((List) lists.next()).iterator(); it.hasNext();) {
+                        Import wsdlImport = (Import) it.next();
+                        if (!isRelative(wsdlImport.getLocationURI())) {
+                            return false;
+                        }
+                        pending.add(wsdlImport.getDefinition());
+                    }
+                }
+                Types types = wsdl.getTypes();
+                if (types != null) {
+                    pending.addAll(types.getExtensibilityElements());
+                }
+            } else if (document instanceof Schema) {
+                Schema schema = (Schema) document;
+                List<SchemaReference> references = new ArrayList<SchemaReference>();
+                for (Iterator lists = schema.getImports().values().iterator(); lists.hasNext();) {
+                    references.addAll((Collection) lists.next());
+                }
+                references.addAll(schema.getIncludes());
+                references.addAll(schema.getRedefines());
+                for (Iterator<SchemaReference> it = references.iterator(); it.hasNext();) {
+                    SchemaReference reference = it.next();
+                    if (!isRelative(reference.getSchemaLocationURI())) {
+                        return false;
+                    }
+                    pending.add(reference.getReferencedSchema());
+                }
+            }
+        }
+        return true;
+    }
+
+    // A location without a scheme that isn't an absolute path; no location means nothing is read
+    private static boolean isRelative(String location) {
+        if (location == null) {
+            return true;
+        }
+        int colon = location.indexOf(':');
+        int slash = location.indexOf('/');
+        return !location.startsWith("/") && !location.startsWith("\\")
+                && (colon == -1 || (slash != -1 && slash < colon));
+    }
+
+    // Removes the files cached for the same WSDL file with another content hash
+    private void removeStaleFiles(String name) {
+        String prefix = name.substring(0, name.indexOf('-') + 1);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                String other = files[i].getName();
+                if (other.startsWith(prefix) && other.endsWith(SUFFIX) && !other.equals(name)) {
+                    files[i].delete();
+                }
+            }
+        }
+    }
+
+    private File getFile(File serviceFile, String contentHash, String wsdlName) {
+        String id;
+        try {
+            MessageDigest digest = newDigest();
+            digest.update(serviceFile.getAbsolutePath().getBytes("UTF-8"));
+            digest.update((byte) '!');
+            digest.update(wsdlName.getBytes("UTF-8"));
+            id = toHex(digest.digest()).substring(0, 16);
+        } catch (IOException e) {
+            // UTF-8 is always supported
+            throw new IllegalStateException(e.getMessage());
+        }
+        return new File(directory, id + "-" + contentHash + SUFFIX);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-1
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuffer hex = new StringBuffer(bytes.length * 2);
+        for (int i = 0; i < bytes.length; i++) {
+            hex.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void close(Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                log.debug(e);
+            }
+        }
+    }
+
+    /**
+     * @return the directory the definitions are cached in
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the number of definitions restored from the cache
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of definitions that had to be read from their WSDL file
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+}
@@ -27,16 +27,31 @@ import org.apache.axis2.deployment.DeploymentEngine;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class WSInfoList implements DeploymentConstants {
 
     /**
      * This is to store all the jar files in a specified folder (WEB_INF)
      */
-    private List jarList = new ArrayList();
+    private Set jarList = new HashSet();
+
+    /**
+     * Files found or changed since the previous check, which are only deployed once they have
+     * stopped changing, so that a file still being copied into the repository isn't deployed.
+     * Maps the absolute path of the file to its stamp when it was last checked.
+     */
+    private Map pendingJars = new HashMap();
+
+    /**
+     * Whether the repository has been checked once. Files found by the first check are deployed
+     * right away.
+     */
+    private boolean checked = false;
 
     /**
      * All the currently updated jars
@@ -64,26 +79,73 @@ public class WSInfoList implements DeploymentConstants {
      * If the files already exists, then checks whether it has been updated
      * then changes the last update date of the wsInfo and adds two entries to
      * DeploymentEngine - one for new deployment and other for undeployment.
+     * <p/>
+     * After the first check of the repository, a new or updated file is only deployed once it
+     * is found unchanged by the next check.
      *
      * @param file actual jar files for either Module or service
      */
     public synchronized void addWSInfoItem(File file, Deployer deployer , int type) {
-        WSInfo info = (WSInfo) currentJars.get(file.getAbsolutePath());
+        String path = file.getAbsolutePath();
+        WSInfo info = (WSInfo) currentJars.get(path);
         if (info != null) {
-            if (deploymentEngine.isHotUpdate() && isModified(file, info)) {
-                WSInfo wsInfo = new WSInfo(info.getFileName(), info.getLastModifiedDate(), deployer,type);
-                deploymentEngine.addWSToUndeploy(wsInfo);           // add entry to undeploy list
-                DeploymentFileData deploymentFileData = new DeploymentFileData(file, deployer);
-                deploymentEngine.addWSToDeploy(deploymentFileData);    // add entry to deploylist
+            if (deploymentEngine.isHotUpdate()) {
+                long lastModifiedDate = getLastModifiedDate(file, info.getLastModifiedDate());
+                if (lastModifiedDate != info.getLastModifiedDate() && isSettled(file)) {
+                    WSInfo wsInfo = new WSInfo(info.getFileName(), info.getLastModifiedDate(), deployer,type);
+                    deploymentEngine.addWSToUndeploy(wsInfo);           // add entry to undeploy list
+                    DeploymentFileData deploymentFileData = new DeploymentFileData(file, deployer);
+                    deploymentEngine.addWSToDeploy(deploymentFileData);    // add entry to deploylist
+                    info.setLastModifiedDate(lastModifiedDate);
+                }
             }
-        } else {
+        } else if (isSettled(file)) {
             info = getFileItem(file, deployer, type);
             setLastModifiedDate(file, info);
+        } else {
+            // still changing, check it again next time
+            jarList.add(path);
+            return;
         }
 
         jarList.add(info.getFileName());
     }
 
+    /**
+     * Checks whether a new or updated file can be deployed, which is when the repository is
+     * checked for the first time, or when the file hasn't changed since the previous check.
+     */
+    private boolean isSettled(File file) {
+        if (!checked) {
+            return true;
+        }
+        String path = file.getAbsolutePath();
+        Long stamp = new Long(getStamp(file));
+        if (stamp.equals(pendingJars.get(path))) {
+            pendingJars.remove(path);
+            return true;
+        }
+        pendingJars.put(path, stamp);
+        return false;
+    }
+
+    /**
+     * Gets a value that changes whenever the file, or a file in the directory, is written to.
+     */
+    private static long getStamp(File file) {
+        if (file.isDirectory()) {
+            long stamp = file.lastModified();
+            File files [] = file.listFiles();
+            if (files != null) {
+                for (int i = 0; i < files.length; i++) {
+                    stamp = stamp * 31 + getStamp(files[i]);
+                }
+            }
+            return stamp;
+        }
+        return file.lastModified() * 31 + file.length();
+    }
+
     /**
      * Checks undeployed Services. Checks old jars files and current jars.
      * If name of the old jar file does not exist in the current jar
@@ -105,14 +167,7 @@ public class WSInfoList implements DeploymentConstants {
                 continue;
             }
             //seems like someone has deleted the file , so need to undeploy
-            boolean found = false;
-            for (int i = 0; i < jarList.size(); i++) {
-                String s = (String) jarList.get(i);
-                if(fileName.equals(s)){
-                    found = true;
-                }
-            }
-            if(!found){
+            if(!jarList.contains(fileName)){
                 tobeRemoved.add(fileName);
                 deploymentEngine.addWSToUndeploy(infoItem);
             }
@@ -123,6 +178,8 @@ public class WSInfoList implements DeploymentConstants {
             currentJars.remove(fileName);
         }
         tobeRemoved.clear();
+        // forget about files that were removed before they could be deployed
+        pendingJars.keySet().retainAll(jarList);
         jarList.clear();
         locked = false;
     }
@@ -142,6 +199,7 @@ public class WSInfoList implements DeploymentConstants {
             checkForUndeployedServices();
             deploymentEngine.unDeploy();
             deploymentEngine.doDeploy();
+            checked = true;
         }
     }
 
@@ -162,40 +220,27 @@ public class WSInfoList implements DeploymentConstants {
     }
 
     /**
-     * Checks if a file has been modified by comparing the last update date of
-     * both files and WSInfo. If they are different, the file is assumed to have
-     * been modified.
-     *
-     * @param file
-     * @param wsInfo
+     * Obtains the newest (as compared with timestamp stored in wsInfo)
+     * timestamp and stores it in WSInfo. 
      */
-    private boolean isModified(File file, WSInfo wsInfo) {
-        long currentTimeStamp = wsInfo.getLastModifiedDate();
-        
-        setLastModifiedDate(file, wsInfo);
-        
-        return (currentTimeStamp != wsInfo.getLastModifiedDate());
+    private void setLastModifiedDate(File file, WSInfo wsInfo) {
+        wsInfo.setLastModifiedDate(getLastModifiedDate(file, wsInfo.getLastModifiedDate()));
     }
 
     /**
-     * Obtains the newest (as compared with timestamp stored in wsInfo)
-     * timestamp and stores it in WSInfo. 
+     * Obtains the newest of the given timestamp and the timestamps of the file, or of the files
+     * in the directory.
      */
-    private void setLastModifiedDate(File file, WSInfo wsInfo) {
+    private static long getLastModifiedDate(File file, long lastModifiedDate) {
         if (file.isDirectory()) {
             File files [] = file.listFiles();
-            for (int i = 0; i < files.length; i++) {
-                File fileItem = files[i];
-                if (fileItem.isDirectory()) {
-                    setLastModifiedDate(fileItem, wsInfo);
-                }
-                else if(wsInfo.getLastModifiedDate() < fileItem.lastModified()) {
-                    wsInfo.setLastModifiedDate(fileItem.lastModified());
-                }
+            for (int i = 0; files != null && i < files.length; i++) {
+                lastModifiedDate = getLastModifiedDate(files[i], lastModifiedDate);
             }
         }
-        else if(wsInfo.getLastModifiedDate() < file.lastModified()) {
-            wsInfo.setLastModifiedDate(file.lastModified());
+        else if(lastModifiedDate < file.lastModified()) {
+            lastModifiedDate = file.lastModified();
         }
+        return lastModifiedDate;
     }
 }
@@ -20,15 +20,33 @@
 
 package org.apache.axis2.deployment.scheduler;
 
-import java.util.Calendar;
 import java.util.Date;
 
+/**
+ * The schedule of the checks of the repository for hot deployment. Each check is scheduled a
+ * fixed interval after the end of the previous one (a fixed delay rather than a fixed rate), so
+ * that a slow check of a large repository doesn't make the next one run immediately.
+ */
 public class DeploymentIterator {
-    private Calendar calendar = Calendar.getInstance();
+    /**
+     * The default interval between checks in milliseconds.
+     */
+    public static final long DEFAULT_INTERVAL = 10 * 1000;
 
-    public Date next() {
-        calendar.add(Calendar.SECOND, 10);
+    private final long interval;
+
+    public DeploymentIterator() {
+        this(DEFAULT_INTERVAL);
+    }
 
-        return calendar.getTime();
+    /**
+     * @param interval the interval between checks in milliseconds
+     */
+    public DeploymentIterator(long interval) {
+        this.interval = interval;
+    }
+
+    public Date next() {
+        return new Date(System.currentTimeMillis() + interval);
     }
 }
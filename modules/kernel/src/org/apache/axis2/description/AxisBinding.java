@@ -51,6 +51,8 @@ public class AxisBinding extends AxisDescription {
 
     private Map<String, AxisBindingMessage> faults;
 
+    private volatile HTTPLocationIndex httpLocationIndex;
+
     public AxisBindingMessage getFault(String name) {
         return (AxisBindingMessage) faults.get(name);
     }
@@ -90,6 +92,27 @@ public class AxisBinding extends AxisDescription {
         return obj;
     }
 
+    /**
+     * Get the index used to dispatch REST requests to the operations of this binding. The index
+     * is built from the {@link WSDL2Constants#HTTP_LOCATION_TABLE} property the first time it is
+     * needed, and again whenever that table has been replaced or changed size.
+     *
+     * @return the index, or null if the binding has no location table
+     */
+    public HTTPLocationIndex getHTTPLocationIndex() {
+        Map httpLocationTable = (Map) options.get(WSDL2Constants.HTTP_LOCATION_TABLE);
+        if (httpLocationTable == null) {
+            return null;
+        }
+        HTTPLocationIndex index = httpLocationIndex;
+        if (index == null || !index.isBuiltFrom(httpLocationTable)) {
+            // racing threads build equivalent indexes, so there is no need to lock
+            index = new HTTPLocationIndex(this, httpLocationTable);
+            httpLocationIndex = index;
+        }
+        return index;
+    }
+
     public QName getName() {
         return name;
     }
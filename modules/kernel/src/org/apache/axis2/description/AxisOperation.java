@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
@@ -37,7 +38,10 @@ import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.engine.AxisError;
+import org.apache.axis2.engine.ExecutionPlan;
+import org.apache.axis2.engine.Handler;
 import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.engine.Phase;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.phaseresolver.PhaseResolver;
 import org.apache.axis2.wsdl.WSDLConstants;
@@ -79,6 +83,10 @@ public abstract class AxisOperation extends AxisDescription
 
     private String soapAction;
 
+    // execution plans compiled from the phase lists of this operation
+    private volatile ExecutionPlan inFlowPlan;
+    private volatile ExecutionPlan outFlowPlan;
+    private volatile ExecutionPlan outFaultFlowPlan;
 
     /** Default constructor */
     public AxisOperation() {
@@ -377,6 +385,56 @@ public abstract class AxisOperation extends AxisDescription
 
     public abstract ArrayList getRemainingPhasesInFlow();
 
+    /**
+     * Get the precompiled plan for the remaining (post dispatch) phases of the in flow. The
+     * plan is shared between messages and is recompiled only when the phase list changes.
+     *
+     * @return the in flow ExecutionPlan
+     */
+    public ExecutionPlan getInFlowPlan() {
+        List<Handler> phases = getRemainingPhasesInFlow();
+        ExecutionPlan plan = inFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases, null)) {
+            plan = ExecutionPlan.compile(phases, null);
+            inFlowPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Get the precompiled plan for the out flow of this operation followed by the global out
+     * phases of the given configuration.
+     *
+     * @param axisConfig the AxisConfiguration supplying the global out phases
+     * @return the out flow ExecutionPlan
+     */
+    public ExecutionPlan getOutFlowPlan(AxisConfiguration axisConfig) {
+        List<Handler> phases = getPhasesOutFlow();
+        List<Phase> globalPhases = axisConfig.getOutFlowPhases();
+        ExecutionPlan plan = outFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases, globalPhases)) {
+            plan = ExecutionPlan.compile(phases, globalPhases);
+            outFlowPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Get the precompiled plan for the out fault flow of this operation. The global out fault
+     * phases are not part of this plan, see {@link AxisConfiguration#getOutFaultFlowPlan()}.
+     *
+     * @return the out fault flow ExecutionPlan
+     */
+    public ExecutionPlan getOutFaultFlowPlan() {
+        List<Handler> phases = getPhasesOutFaultFlow();
+        ExecutionPlan plan = outFaultFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases, null)) {
+            plan = ExecutionPlan.compile(phases, null);
+            outFaultFlowPlan = plan;
+        }
+        return plan;
+    }
+
     public String getStyle() {
         return style;
     }
@@ -793,6 +793,8 @@ public class AxisService extends AxisDescription {
 							+ "named: " + axisOperation.getName());
 		}
 
+		invalidateDispatchCache();
+
 		// First check if this action has already been flagged as invalid
 		// because it is a duplicate.
 		if (invalidOperationsAliases.contains(action)) {
@@ -2473,6 +2475,14 @@ public class AxisService extends AxisDescription {
 				}
 			}
 			operationsAliasesMap.remove(operation.getName().getLocalPart());
+			invalidateDispatchCache();
+		}
+	}
+
+	private void invalidateDispatchCache() {
+		AxisConfiguration axisConfiguration = getAxisConfiguration();
+		if (axisConfiguration != null) {
+			axisConfiguration.invalidateDispatchCache();
 		}
 	}
 
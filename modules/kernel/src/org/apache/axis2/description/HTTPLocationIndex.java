@@ -0,0 +1,451 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.description;
+
+import org.apache.axis2.util.OnDemandLogger;
+import org.apache.axis2.wsdl.WSDLUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A radix tree of the whttp:location templates of a binding, used to dispatch REST requests.
+ * <p/>
+ * The index is built from the {@link WSDL2Constants#HTTP_LOCATION_TABLE} of the binding, which
+ * maps the HTTP method followed by the constant part of each template to its operation, and from
+ * the {@link WSDL2Constants#ATTR_WHTTP_LOCATION} templates of the binding operations. A lookup
+ * walks the tree once, character by character, and yields both the operation and the positions
+ * of the template parameters in the request path; no substrings are created unless the caller
+ * asks for the parameter values.
+ * <p/>
+ * A request that matches a complete template dispatches to the operation of that template. A
+ * parameter matches at least one character and never spans a '/' or '?', nor a '&' or ';' in
+ * the query string. Otherwise the operation with the longest constant part that is a prefix of
+ * the request is used, which is how the location table has always been interpreted.
+ * <p/>
+ * Instances are immutable and can be shared between threads.
+ */
+public class HTTPLocationIndex {
+
+    private static final OnDemandLogger log = new OnDemandLogger(HTTPLocationIndex.class);
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Map table;
+
+    private final int tableSize;
+
+    /**
+     * The tree of each HTTP method.
+     */
+    private final Map<String, Node> roots = new HashMap<String, Node>();
+
+    /**
+     * The operation of an empty key in the location table, which matches any request.
+     */
+    private AxisOperation defaultOperation;
+
+    private int maxParameters;
+
+    /**
+     * Build the index of the given location table.
+     *
+     * @param axisBinding       the binding, whose operations provide the location templates
+     * @param httpLocationTable the location table of the binding
+     */
+    public HTTPLocationIndex(AxisBinding axisBinding, Map httpLocationTable) {
+        this.table = httpLocationTable;
+        this.tableSize = httpLocationTable.size();
+
+        // the binding operations with a location, by its constant part; the location table only
+        // keeps one operation for each constant part
+        Map<String, List<AxisBindingOperation>> templates =
+                new HashMap<String, List<AxisBindingOperation>>();
+        for (Iterator<? extends AxisDescription> iter = axisBinding.getChildren();
+             iter.hasNext();) {
+            AxisBindingOperation axisBindingOperation = (AxisBindingOperation) iter.next();
+            Object location =
+                    axisBindingOperation.getProperty(WSDL2Constants.ATTR_WHTTP_LOCATION);
+            if (axisBindingOperation.getAxisOperation() != null && location instanceof String
+                    && ((String) location).length() > 0) {
+                String constant = WSDLUtil.getConstantFromHTTPLocation((String) location, "");
+                List<AxisBindingOperation> list = templates.get(constant);
+                if (list == null) {
+                    list = new ArrayList<AxisBindingOperation>(1);
+                    templates.put(constant, list);
+                }
+                list.add(axisBindingOperation);
+            }
+        }
+
+        for (Iterator iter = httpLocationTable.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry entry = (Map.Entry) iter.next();
+            String key = (String) entry.getKey();
+            AxisOperation axisOperation = (AxisOperation) entry.getValue();
+            if (key.length() == 0) {
+                defaultOperation = axisOperation;
+                continue;
+            }
+
+            // the constant part of a location starts with '/' or '?', and the method can
+            // contain neither
+            int index = 0;
+            while (index < key.length() && key.charAt(index) != '/' && key.charAt(index) != '?') {
+                index++;
+            }
+            String method = key.substring(0, index);
+            Node root = roots.get(method);
+            if (root == null) {
+                root = new Node("");
+                roots.put(method, root);
+            }
+            Node node = insert(root, key, index);
+            if (node.prefixOperation == null) {
+                node.prefixOperation = axisOperation;
+            }
+
+            List<AxisBindingOperation> candidates = templates.get(key.substring(index));
+            if (candidates != null) {
+                // the operation in the table first, so that it wins if the templates are equal
+                addTemplates(root, method, candidates, axisOperation, true);
+                addTemplates(root, method, candidates, axisOperation, false);
+            }
+        }
+    }
+
+    private void addTemplates(Node root, String method, List<AxisBindingOperation> candidates,
+                              AxisOperation axisOperation, boolean same) {
+        for (int i = 0; i < candidates.size(); i++) {
+            AxisBindingOperation candidate = candidates.get(i);
+            if (same ? candidate.getAxisOperation() == axisOperation :
+                    candidate.getAxisOperation() != axisOperation &&
+                            method.equals(candidate.getProperty(WSDL2Constants.ATTR_WHTTP_METHOD))) {
+                addTemplate(root,
+                            (String) candidate.getProperty(WSDL2Constants.ATTR_WHTTP_LOCATION),
+                            candidate.getAxisOperation());
+            }
+        }
+    }
+
+    /**
+     * @param httpLocationTable a location table
+     * @return true if this index was built from the given table in its current state
+     */
+    public boolean isBuiltFrom(Map httpLocationTable) {
+        return table == httpLocationTable && tableSize == httpLocationTable.size();
+    }
+
+    /**
+     * Find the operation a request is dispatched to.
+     *
+     * @param httpMethod the HTTP method of the request
+     * @param path       the part of the request URL following the service name, starting with
+     *                   '/' or '?'
+     * @return the match, or null if no operation matches the request
+     */
+    public Match match(String httpMethod, String path) {
+        Node root = httpMethod == null ? null : roots.get(httpMethod);
+        if (root != null) {
+            Matcher matcher = new Matcher(path, maxParameters);
+            if (matcher.match(root, 0, 0, true)) {
+                return new Match(matcher.route.operation, matcher.route, path, matcher.spans);
+            }
+            if (matcher.fallback != null) {
+                return new Match(matcher.fallback, null, path, null);
+            }
+        }
+        return defaultOperation == null ? null : new Match(defaultOperation, null, path, null);
+    }
+
+    private void addTemplate(Node root, String template, AxisOperation axisOperation) {
+        // the same normalization as WSDLUtil.getConstantFromHTTPLocation
+        if (template.charAt(0) != '?') {
+            template = "/" + template;
+        }
+        List<String> names = new ArrayList<String>();
+        StringBuilder literal = new StringBuilder();
+        Node node = root;
+        int length = template.length();
+        for (int i = 0; i < length; i++) {
+            char c = template.charAt(i);
+            if (c == '{' && i + 1 < length && template.charAt(i + 1) == '{') {
+                literal.append('{');
+                i++;
+            } else if (c == '}' && i + 1 < length && template.charAt(i + 1) == '}') {
+                literal.append('}');
+                i++;
+            } else if (c == '{') {
+                int end = template.indexOf('}', i);
+                if (end == -1) {
+                    log.debug("Ignoring the malformed HTTP location " + template + " of " +
+                            axisOperation.getName());
+                    return;
+                }
+                node = insert(node, literal.toString(), 0);
+                literal.setLength(0);
+                if (node.parameter == null) {
+                    node.parameter = new Node("");
+                }
+                node = node.parameter;
+                // {!name} marks a parameter whose value is not percent-encoded
+                int start = template.charAt(i + 1) == '!' ? i + 2 : i + 1;
+                names.add(template.substring(start, end));
+                maxParameters = Math.max(maxParameters, names.size());
+                i = end;
+            } else {
+                literal.append(c);
+            }
+        }
+        node = insert(node, literal.toString(), 0);
+        if (node.route == null) {
+            node.route = new Route(axisOperation, names.toArray(new String[names.size()]));
+        } else if (node.route.operation != axisOperation) {
+            log.debug("The HTTP location " + template + " of " + axisOperation.getName() +
+                    " is already used by " + node.route.operation.getName());
+        }
+    }
+
+    /**
+     * Add the literal <code>s.substring(from)</code> below the given node, splitting edges as
+     * needed, and return the node it ends at.
+     */
+    private static Node insert(Node node, String s, int from) {
+        while (from < s.length()) {
+            Node child = node.getChild(s.charAt(from));
+            if (child == null) {
+                child = new Node(s.substring(from));
+                node.addChild(child);
+                return child;
+            }
+            String label = child.label;
+            int common = 1;
+            while (common < label.length() && from + common < s.length() &&
+                    label.charAt(common) == s.charAt(from + common)) {
+                common++;
+            }
+            if (common < label.length()) {
+                // split the edge; the child keeps its identity so that its parent stays valid
+                Node tail = new Node(label.substring(common));
+                tail.children = child.children;
+                tail.parameter = child.parameter;
+                tail.route = child.route;
+                tail.prefixOperation = child.prefixOperation;
+                child.label = label.substring(0, common);
+                child.children = new Node[] { tail };
+                child.parameter = null;
+                child.route = null;
+                child.prefixOperation = null;
+            }
+            node = child;
+            from += common;
+        }
+        return node;
+    }
+
+    private static final class Node {
+        /**
+         * The literal characters leading to this node.
+         */
+        String label;
+
+        /**
+         * The nodes reached by literal characters; their labels start with distinct characters.
+         */
+        Node[] children = NO_CHILDREN;
+
+        /**
+         * The node reached by a template parameter.
+         */
+        Node parameter;
+
+        /**
+         * The template ending at this node.
+         */
+        Route route;
+
+        /**
+         * The operation whose constant location part ends at this node.
+         */
+        AxisOperation prefixOperation;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node getChild(char c) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i].label.charAt(0) == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(Node child) {
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(children, 0, newChildren, 0, children.length);
+            newChildren[children.length] = child;
+            children = newChildren;
+        }
+    }
+
+    private static final class Route {
+        final AxisOperation operation;
+        final String[] parameterNames;
+
+        Route(AxisOperation operation, String[] parameterNames) {
+            this.operation = operation;
+            this.parameterNames = parameterNames;
+        }
+    }
+
+    /**
+     * The state of a single lookup.
+     */
+    private static final class Matcher {
+        final String path;
+        final int length;
+        final int queryStart;
+        final int[] spans;
+        Route route;
+        AxisOperation fallback;
+
+        Matcher(String path, int maxParameters) {
+            this.path = path;
+            this.length = path.length();
+            this.queryStart = path.indexOf('?');
+            this.spans = new int[2 * maxParameters];
+        }
+
+        /**
+         * @param node     the current node
+         * @param pos      the position in the path up to which the node has matched
+         * @param count    the number of parameters matched so far
+         * @param constant whether only literal characters have been matched so far
+         * @return true if a template matches the rest of the path
+         */
+        boolean match(Node node, int pos, int count, boolean constant) {
+            if (constant && node.prefixOperation != null) {
+                // deeper nodes of the constant path are visited later, so the longest wins
+                fallback = node.prefixOperation;
+            }
+            if (pos < length) {
+                Node child = node.getChild(path.charAt(pos));
+                if (child != null && path.regionMatches(pos, child.label, 0, child.label.length())
+                        && match(child, pos + child.label.length(), count, constant)) {
+                    return true;
+                }
+                if (node.parameter != null) {
+                    int limit = pos;
+                    while (limit < length && !isDelimiter(limit)) {
+                        limit++;
+                    }
+                    for (int end = pos + 1; end <= limit; end++) {
+                        spans[2 * count] = pos;
+                        spans[2 * count + 1] = end;
+                        if (match(node.parameter, end, count + 1, false)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            if (node.route != null && (pos == length || pos == queryStart ||
+                    (queryStart != -1 && pos > queryStart && isDelimiter(pos)))) {
+                // the rest of the path, if any, is a query string the template doesn't cover
+                route = node.route;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean isDelimiter(int pos) {
+            char c = path.charAt(pos);
+            if (queryStart == -1 || pos < queryStart) {
+                return c == '/' || c == '?';
+            }
+            return pos == queryStart || c == '&' || c == ';';
+        }
+    }
+
+    /**
+     * The result of a lookup.
+     */
+    public static final class Match {
+        private final AxisOperation operation;
+        private final Route route;
+        private final String path;
+        private final int[] spans;
+
+        Match(AxisOperation operation, Route route, String path, int[] spans) {
+            this.operation = operation;
+            this.route = route;
+            this.path = path;
+            this.spans = spans;
+        }
+
+        public AxisOperation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return true if the request matched a complete template, false if the operation was
+         *         only found by the constant part of its location
+         */
+        public boolean isTemplateMatch() {
+            return route != null;
+        }
+
+        public int getParameterCount() {
+            return route == null ? 0 : route.parameterNames.length;
+        }
+
+        public String getParameterName(int i) {
+            return route.parameterNames[i];
+        }
+
+        /**
+         * @param i the index of the parameter in the template
+         * @return the value of the parameter as it appears in the request, i.e. still
+         *         percent-encoded
+         */
+        public String getParameterValue(int i) {
+            if (route == null || i >= route.parameterNames.length) {
+                throw new IndexOutOfBoundsException(String.valueOf(i));
+            }
+            return path.substring(spans[2 * i], spans[2 * i + 1]);
+        }
+
+        /**
+         * @return the template parameters, in template order, with their values as they appear
+         *         in the request
+         */
+        public Map<String, String> getParameters() {
+            Map<String, String> parameters = new LinkedHashMap<String, String>();
+            for (int i = 0; i < getParameterCount(); i++) {
+                parameters.put(getParameterName(i), getParameterValue(i));
+            }
+            return parameters;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.apache.axis2.description;
 
 import java.util.HashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.xml.namespace.QName;
 
@@ -34,6 +35,7 @@ import org.apache.axis2.client.OperationClient;
 import org.apache.axis2.client.Options;
 import org.apache.axis2.client.async.AsyncResult;
 import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.client.async.AxisFuture;
 import org.apache.axis2.client.async.Callback;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
@@ -41,10 +43,15 @@ import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.engine.AxisEngine;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.NonBlockingTransportSender;
+import org.apache.axis2.transport.TransportResponseListener;
+import org.apache.axis2.transport.TransportSender;
 import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.util.CallbackReceiver;
+import org.apache.axis2.util.TimeoutWheel;
 import org.apache.axis2.util.Utils;
+import org.apache.axis2.util.threadpool.AsyncTask;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -167,6 +174,141 @@ class OutInAxisOperationClient extends OperationClient {
         if (log.isDebugEnabled()) {
             log.debug("Entry: OutInAxisOperationClient::execute, " + block);
         }
+        boolean useAsync = prepareExecution();
+        MessageContext mc = oc.getMessageContext(WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
+
+        if (useAsync || mc.getOptions().isUseSeparateListener()) {
+            sendAsync(useAsync, mc, null);
+        } else {
+            if (block) {
+                // Send the SOAP Message and receive a response
+                send(mc);
+                completed = true;
+            } else {
+                NonBlockingInvocationWorker worker =
+                        new NonBlockingInvocationWorker(callback, mc, axisCallback);
+                try {
+                    sc.getConfigurationContext().getThreadPool().execute(worker);
+                } catch (RejectedExecutionException e) {
+                    // the caller does not wait, so the callback is the one to learn of it
+                    worker.reject(new AxisFault(Messages.getMessage("threadpoolrejected"), e));
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the MEP without blocking any thread for the round trip if possible. Where the
+     * response comes back on a separate listener, the future is completed by the
+     * CallbackReceiver. Otherwise, if the transport sender is a NonBlockingTransportSender, it
+     * completes the future from its I/O callback; only other transports need a pooled thread
+     * to wait for the response. The timeout from the options is enforced by the
+     * ConfigurationContext's TimeoutWheel rather than by a waiting thread.
+     *
+     * @return a future for the incoming MessageContext
+     * @throws AxisFault if the exchange can not be started
+     */
+    protected AxisFuture<MessageContext> executeAsyncImpl() throws AxisFault {
+        if (log.isDebugEnabled()) {
+            log.debug("Entry: OutInAxisOperationClient::executeAsync");
+        }
+        boolean useAsync = prepareExecution();
+        final MessageContext mc = oc.getMessageContext(WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
+        final AxisFuture<MessageContext> future = new AxisFuture<MessageContext>();
+
+        final CallbackReceiver callbackReceiver;
+        if (useAsync || mc.getOptions().isUseSeparateListener()) {
+            callbackReceiver = getCallbackReceiver();
+        } else {
+            callbackReceiver = null;
+        }
+
+        // the CallbackReceiver enforces the timeout of replies on a separate channel
+        long timeout = options.getTimeOutInMilliSeconds();
+        final TimeoutWheel.Timeout expiry;
+        if (timeout > 0 && callbackReceiver == null) {
+            expiry = sc.getConfigurationContext().getTimeoutWheel().schedule(new Runnable() {
+                public void run() {
+                    future.fail(new AxisFault(Messages.getMessage("responseTimeOut")));
+                }
+            }, timeout);
+        } else {
+            expiry = null;
+        }
+        future.addListener(new Runnable() {
+            public void run() {
+                completed = true;
+                if (expiry != null) {
+                    expiry.cancel();
+                }
+                if (callbackReceiver != null) {
+                    // a no-op if the response has already been received
+                    callbackReceiver.lookupCallback(mc.getMessageID());
+                }
+            }
+        }, null);
+
+        try {
+            if (callbackReceiver != null) {
+                sendAsync(useAsync, mc, new FutureCallback(future));
+            } else if (isNonBlocking(mc)) {
+                final MessageContext responseMessageContext = createResponseMessageContext(mc);
+                mc.setProperty(NonBlockingTransportSender.RESPONSE_LISTENER,
+                        new TransportResponseListener() {
+                            public void onResponse(MessageContext msgContext) {
+                                try {
+                                    receiveResponse(msgContext, responseMessageContext);
+                                    future.complete(responseMessageContext);
+                                } catch (Throwable t) {
+                                    future.fail(t);
+                                }
+                            }
+
+                            public void onError(MessageContext msgContext, Exception e) {
+                                future.fail(e);
+                            }
+                        });
+                AxisEngine.send(mc);
+            } else {
+                try {
+                    sc.getConfigurationContext().getThreadPool().execute(new AsyncTask() {
+                        public void run() {
+                            try {
+                                future.complete(send(mc));
+                            } catch (Throwable t) {
+                                future.fail(t);
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    throw new AxisFault(Messages.getMessage("threadpoolrejected"), e);
+                }
+            }
+        } catch (AxisFault e) {
+            future.fail(e);
+        }
+        return future;
+    }
+
+    private boolean isNonBlocking(MessageContext mc) {
+        TransportOutDescription transportOut = mc.getTransportOut();
+        if (transportOut == null) {
+            return false;
+        }
+        TransportSender sender = transportOut.getSender();
+        return sender instanceof NonBlockingTransportSender &&
+                ((NonBlockingTransportSender) sender).isNonBlocking(mc);
+    }
+
+    /**
+     * Prepares the outgoing message for sending and decides whether the response comes back
+     * on a separate channel.
+     *
+     * @return true if the exchange has to use the async path even though the caller did not
+     *         ask for a separate listener
+     * @throws AxisFault if the MEP can not be executed
+     */
+    private boolean prepareExecution() throws AxisFault {
         if (completed) {
             throw new AxisFault(Messages.getMessage("mepiscomplted"));
         }
@@ -220,31 +362,10 @@ class OutInAxisOperationClient extends OperationClient {
                 }
             }
         }
-
-        if (useAsync || mc.getOptions().isUseSeparateListener()) {
-            sendAsync(useAsync, mc);
-        } else {
-            if (block) {
-                // Send the SOAP Message and receive a response
-                send(mc);
-                completed = true;
-            } else {
-                sc.getConfigurationContext().getThreadPool().execute(
-                        new NonBlockingInvocationWorker(callback, mc, axisCallback));
-            }
-        }
+        return useAsync;
     }
 
-    private void sendAsync(boolean useAsync, MessageContext mc)
-            throws AxisFault {
-        if (log.isDebugEnabled()) {
-            log.debug("useAsync=" + useAsync + ", seperateListener=" +
-                    mc.getOptions().isUseSeparateListener());
-        }
-        /**
-         * We are following the async path. If the user hasn't set a callback object then we must
-         * block until the whole MEP is complete, as they have no other way to get their reply message.
-         */
+    private CallbackReceiver getCallbackReceiver() {
         // THREADSAFE issue: Multiple threads could be trying to initialize the callback receiver
         // so it is synchronized.  It is not done within the else clause to avoid the 
         // double-checked lock antipattern.
@@ -257,25 +378,47 @@ class OutInAxisOperationClient extends OperationClient {
                 if (log.isDebugEnabled()) {
                     log.debug("Creating new callback receiver");
                 }
-                callbackReceiver = new CallbackReceiver();
+                callbackReceiver = new CallbackReceiver(sc.getConfigurationContext());
                 axisOp.setMessageReceiver(callbackReceiver);
 				if (log.isDebugEnabled()) log.debug("OutInAxisOperation: callbackReceiver " + callbackReceiver + " : " + axisOp);
             }
         }
+        return callbackReceiver;
+    }
+
+    /**
+     * @param futureCallback the callback completing the future of an executeAsync call, or
+     *                       null to use the callback set on this client
+     */
+    private void sendAsync(boolean useAsync, MessageContext mc, AxisCallback futureCallback)
+            throws AxisFault {
+        if (log.isDebugEnabled()) {
+            log.debug("useAsync=" + useAsync + ", seperateListener=" +
+                    mc.getOptions().isUseSeparateListener());
+        }
+        /**
+         * We are following the async path. If the user hasn't set a callback object then we must
+         * block until the whole MEP is complete, as they have no other way to get their reply message.
+         */
+        CallbackReceiver callbackReceiver = getCallbackReceiver();
 
+        // the callback is told about a timeout if the reply never arrives
+        long timeout = options.getTimeOutInMilliSeconds();
         SyncCallBack internalCallback = null;
-        if (callback != null) {
-            callbackReceiver.addCallback(mc.getMessageID(), callback);
+        if (futureCallback != null) {
+            callbackReceiver.addCallback(mc.getMessageID(), futureCallback, timeout);
+        } else if (callback != null) {
+            callbackReceiver.addCallback(mc.getMessageID(), callback, timeout);
 			if (log.isDebugEnabled()) log.debug("OutInAxisOperationClient: Creating callback");
         } else if (axisCallback != null) {
-            callbackReceiver.addCallback(mc.getMessageID(), axisCallback);  
+            callbackReceiver.addCallback(mc.getMessageID(), axisCallback, timeout);
 			if (log.isDebugEnabled()) log.debug("OutInAxisOperationClient: Creating axis callback");			
         } else {
             if (log.isDebugEnabled()) {
                 log.debug("Creating internal callback");
             }
             internalCallback = new SyncCallBack();
-            callbackReceiver.addCallback(mc.getMessageID(), internalCallback);
+            callbackReceiver.addCallback(mc.getMessageID(), internalCallback, timeout);
 			if (log.isDebugEnabled()) log.debug("OutInAxisOperationClient: Creating internal callback");
         }
 
@@ -383,9 +526,21 @@ class OutInAxisOperationClient extends OperationClient {
      * @throws AxisFault Sends the message using a two way transport and waits for a response
      */
     protected MessageContext send(MessageContext msgContext) throws AxisFault {
+        MessageContext responseMessageContext = createResponseMessageContext(msgContext);
+
+        //sending the message
+        AxisEngine.send(msgContext);
 
-        // create the responseMessageContext
+        receiveResponse(msgContext, responseMessageContext);
+        return responseMessageContext;
+    }
 
+    /**
+     * Create the response MessageContext for the given request and add it to the operation
+     * context.
+     */
+    private MessageContext createResponseMessageContext(MessageContext msgContext)
+            throws AxisFault {
         MessageContext responseMessageContext =
                 msgContext.getConfigurationContext().createMessageContext();
 
@@ -397,10 +552,14 @@ class OutInAxisOperationClient extends OperationClient {
         responseMessageContext.setServiceContext(msgContext.getServiceContext());
         responseMessageContext.setAxisMessage(
                 axisOp.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+        return responseMessageContext;
+    }
 
-        //sending the message
-        AxisEngine.send(msgContext);
-
+    /**
+     * Process the response the transport has attached to the request MessageContext.
+     */
+    private void receiveResponse(MessageContext msgContext, MessageContext responseMessageContext)
+            throws AxisFault {
         responseMessageContext.setDoingREST(msgContext.isDoingREST());
 
         // Copy RESPONSE properties which the transport set onto the request message context when it processed
@@ -415,14 +574,13 @@ class OutInAxisOperationClient extends OperationClient {
         responseMessageContext.setTransportIn(msgContext.getTransportIn());
         responseMessageContext.setTransportOut(msgContext.getTransportOut());
         handleResponse(responseMessageContext);
-        return responseMessageContext;
     }
 
     /**
      * This class is the workhorse for a non-blocking invocation that uses a two
      * way transport.
      */
-    private class NonBlockingInvocationWorker implements Runnable {
+    private class NonBlockingInvocationWorker implements AsyncTask {
         private Callback callback;
 
         private MessageContext msgctx;
@@ -481,6 +639,55 @@ class OutInAxisOperationClient extends OperationClient {
                 }
             }
         }
+
+        /**
+         * Report to the callback that the invocation could not be started.
+         */
+        void reject(AxisFault fault) {
+            if (callback != null) {
+                callback.onError(fault);
+                callback.setComplete(true);
+            } else if (axisCallback != null) {
+                axisCallback.onError(fault);
+                axisCallback.onComplete();
+            }
+        }
+    }
+
+    /**
+     * Completes the future of an executeAsync call when the response arrives on a separate
+     * listener.
+     */
+    private class FutureCallback implements AxisCallback {
+        private final AxisFuture<MessageContext> future;
+
+        private MessageContext response;
+
+        FutureCallback(AxisFuture<MessageContext> future) {
+            this.future = future;
+        }
+
+        public void onMessage(MessageContext msgContext) {
+            // see SyncCallBack: the transport stream is closed once the MEP completes
+            msgContext.getEnvelope().buildWithAttachments();
+            response = msgContext;
+        }
+
+        public void onFault(MessageContext msgContext) {
+            if (options.isExceptionToBeThrownOnSOAPFault()) {
+                future.fail(Utils.getInboundFaultFromMessageContext(msgContext));
+            } else {
+                onMessage(msgContext);
+            }
+        }
+
+        public void onError(Exception e) {
+            future.fail(e);
+        }
+
+        public void onComplete() {
+            future.complete(response);
+        }
     }
 
     /**
@@ -106,6 +106,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WSDL11ToAxisServiceBuilder extends WSDLToAxisServiceBuilder {
 
@@ -167,7 +168,8 @@ public class WSDL11ToAxisServiceBuilder extends WSDLToAxisServiceBuilder {
 
     public static final String NAMESPACE_DECLARATION_PREFIX = "xmlns:";
 
-    private static int prefixCounter = 0;
+    // shared by the builders, which may run concurrently during deployment
+    private static final AtomicInteger prefixCounter = new AtomicInteger();
 
     public static final String NAMESPACE_URI = "namespace";
 
@@ -268,6 +270,20 @@ public class WSDL11ToAxisServiceBuilder extends WSDLToAxisServiceBuilder {
     }
 
 
+    /**
+     * Reads the WSDL4J definition the services are built from, if that hasn't been done yet,
+     * without building any service from it.
+     *
+     * @return the definition
+     * @throws WSDLException if the WSDL can't be read
+     */
+    public Definition readDefinition() throws WSDLException {
+        if (wsdl4jDefinition == null) {
+            wsdl4jDefinition = readInTheWSDLFile(in);
+        }
+        return wsdl4jDefinition;
+    }
+
     /**
      * Sets the URI to the base document associated with the WSDL definition.
      * This identifies the origin of the Definition and allows the
@@ -2106,9 +2122,9 @@ public class WSDL11ToAxisServiceBuilder extends WSDLToAxisServiceBuilder {
             // change the prefix in the prefix map to a new one and declare it
 
             // create a prefix
-            String generatedPrefix = "ns" + prefixCounter++;
+            String generatedPrefix = "ns" + prefixCounter.getAndIncrement();
             while (prefixMap.containsKey(generatedPrefix)) {
-                generatedPrefix = "ns" + prefixCounter++;
+                generatedPrefix = "ns" + prefixCounter.getAndIncrement();
             }
             schemaElement.setAttributeNS(XML_NAMESPACE_URI,
                                          NAMESPACE_DECLARATION_PREFIX + generatedPrefix, namespace);
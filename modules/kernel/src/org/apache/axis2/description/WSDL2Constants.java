@@ -134,6 +134,10 @@ public interface WSDL2Constants {
 
     String HTTP_LOCATION_TABLE = "HTTPLocationTable";
 
+    // Message context property set by the HTTPLocationBasedDispatcher: a Map from the name of
+    // each whttp:location template parameter to its (still percent-encoded) value in the request
+    String HTTP_LOCATION_PARAMETERS = "HTTPLocationParameters";
+
     // This was taken from thye resolution of CR117 (WSDL 2.0 working group)
     // http://www.w3.org/2002/ws/desc/5/cr-issues/issues.html?view=normal#CR117
     // http://lists.w3.org/Archives/Public/www-ws-desc/2007Feb/0039.html
@@ -36,6 +36,7 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class WSDLToAxisServiceBuilder {
 
@@ -65,7 +66,8 @@ public abstract class WSDLToAxisServiceBuilder {
 
     protected static final String XSD_REF = "ref";
 
-    protected static int nsCount = 0;
+    // shared by the builders, which may run concurrently during deployment
+    protected static final AtomicInteger nsCount = new AtomicInteger();
 
     protected Map resolvedRpcWrappedElementMap = new HashMap();
 
@@ -190,12 +192,12 @@ public abstract class WSDLToAxisServiceBuilder {
     }
 
     /**
-     * Get a temporary namespace prefix.  NOT threadsafe.
+     * Get a temporary namespace prefix.
      *
      * @return a new namespace prefix of the form "nsX"
      */
     protected String getTemporaryNamespacePrefix() {
-        return "ns" + nsCount++;
+        return "ns" + nsCount.getAndIncrement();
     }
 
     /**
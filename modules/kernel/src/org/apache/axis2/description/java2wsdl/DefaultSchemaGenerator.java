@@ -45,6 +45,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.beans.PropertyDescriptor;
 import java.beans.BeanInfo;
 import java.beans.Introspector;
@@ -55,7 +56,8 @@ public class DefaultSchemaGenerator implements Java2WSDLConstants, SchemaGenerat
 
     public static final String NAME_SPACE_PREFIX = "ax2";// axis2 name space
 
-    private static int prefixCount = 1;
+    // shared by the generators, which may run concurrently during deployment
+    private static final AtomicInteger prefixCount = new AtomicInteger(1);
 
     protected Map targetNamespacePrefixMap = new Hashtable();
 
@@ -1071,7 +1073,7 @@ public class DefaultSchemaGenerator implements Java2WSDLConstants, SchemaGenerat
     }
 
     protected String generatePrefix() {
-        return NAME_SPACE_PREFIX + prefixCount++;
+        return NAME_SPACE_PREFIX + prefixCount.getAndIncrement();
     }
 
     public void setExcludeMethods(ArrayList excludeMethods) {
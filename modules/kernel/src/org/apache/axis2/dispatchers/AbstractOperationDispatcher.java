@@ -24,6 +24,7 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.engine.DispatchCache;
 import org.apache.axis2.handlers.AbstractHandler;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.util.LoggingControl;
@@ -59,6 +60,7 @@ public abstract class AbstractOperationDispatcher extends AbstractHandler {
      */
     public InvocationResponse invoke(MessageContext msgctx) throws AxisFault {
         if ((msgctx.getAxisService() != null) && (msgctx.getAxisOperation() == null)) {
+            DispatchCache.bypass(msgctx);
             AxisOperation axisOperation = findOperation(msgctx.getAxisService(), msgctx);
 
             if (axisOperation != null) {
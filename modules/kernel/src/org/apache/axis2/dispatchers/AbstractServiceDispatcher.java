@@ -23,6 +23,7 @@ import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.engine.DispatchCache;
 import org.apache.axis2.handlers.AbstractHandler;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.util.LoggingControl;
@@ -57,6 +58,7 @@ public abstract class AbstractServiceDispatcher extends AbstractHandler {
         AxisService axisService = msgctx.getAxisService();
 
         if (axisService == null) {
+            DispatchCache.bypass(msgctx);
             axisService = findService(msgctx);
 
             if (axisService != null) {
@@ -58,6 +58,10 @@ public class AddressingBasedDispatcher extends AbstractDispatcher implements Add
     	return rubsd.findService(messageContext);
     }
 
+    protected boolean isDispatchCacheable() {
+        return true;
+    }
+
     public void initDispatcher() {
         init(new HandlerDescription(NAME));
     }
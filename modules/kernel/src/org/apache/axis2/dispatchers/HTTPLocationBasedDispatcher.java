@@ -25,6 +25,7 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisEndpoint;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.HTTPLocationIndex;
 import org.apache.axis2.description.HandlerDescription;
 import org.apache.axis2.description.WSDL2Constants;
 import org.apache.axis2.engine.AbstractDispatcher;
@@ -32,10 +33,6 @@ import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.Map;
-
 /**
  * Dispatches the operation based on the information from the target endpoint URL.
  */
@@ -59,17 +56,25 @@ public class HTTPLocationBasedDispatcher extends AbstractDispatcher {
             String httpMethod = (String) messageContext.getProperty(HTTPConstants.HTTP_METHOD);
 
             if (httpLocation != null) {
-                httpLocation = httpMethod + httpLocation;
                 AxisEndpoint axisEndpoint = (AxisEndpoint) messageContext
                         .getProperty(WSDL2Constants.ENDPOINT_LOCAL_NAME);
                 // Here we check whether the request was dispatched to the correct endpoint. If it
-                // was we can dispatch the operation using the HTTPLocationDispatcher table of that
+                // was we can dispatch the operation using the HTTP location index of that
                 // specific endpoint. 
                 if (axisEndpoint != null) {
-                    Map httpLocationTable = (Map) axisEndpoint.getBinding()
-                            .getProperty(WSDL2Constants.HTTP_LOCATION_TABLE);
-                    if (httpLocationTable != null) {
-                        return getOperationFromHTTPLocation(httpLocation, httpLocationTable);
+                    HTTPLocationIndex httpLocationIndex =
+                            axisEndpoint.getBinding().getHTTPLocationIndex();
+                    if (httpLocationIndex != null) {
+                        HTTPLocationIndex.Match match =
+                                httpLocationIndex.match(httpMethod, httpLocation);
+                        if (match == null) {
+                            return null;
+                        }
+                        if (match.getParameterCount() > 0) {
+                            messageContext.setProperty(WSDL2Constants.HTTP_LOCATION_PARAMETERS,
+                                                       match.getParameters());
+                        }
+                        return match.getOperation();
                     }
                 } 
             } else {
@@ -119,26 +124,4 @@ public class HTTPLocationBasedDispatcher extends AbstractDispatcher {
         }
         return service;
     }
-
-    /**
-     * Given the requestPath that the request came to his method returns the corresponding axisOperation
-     *
-     * @param requestPath - Part of the request url which is the part after the service name
-     * @param httpLocationTable - The httpLocationTable stored in the relavant binding
-     * @return AxisOperation - The corresponding AxisOperation
-     */
-    private AxisOperation getOperationFromHTTPLocation(String requestPath, Map httpLocationTable) {
-
-        Collection httpLocations = httpLocationTable.keySet();
-        Iterator iter = httpLocations.iterator();
-        while (iter.hasNext()) {
-            String location = (String) iter.next();
-            int index = requestPath.indexOf(location);
-            if (index == 0) {
-                return (AxisOperation) httpLocationTable.get(location);
-            }
-
-        }
-        return null;
-    }
 }
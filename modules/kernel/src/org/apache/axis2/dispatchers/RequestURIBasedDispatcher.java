@@ -53,6 +53,10 @@ public class RequestURIBasedDispatcher extends AbstractDispatcher {
     	return rubsd.findService(messageContext);
     }
 
+    protected boolean isDispatchCacheable() {
+        return true;
+    }
+
     public void initDispatcher() {
         init(new HandlerDescription(NAME));
     }
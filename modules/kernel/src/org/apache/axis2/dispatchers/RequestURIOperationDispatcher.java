@@ -53,6 +53,10 @@ public class RequestURIOperationDispatcher extends AbstractDispatcher {
         return null;
     }
 
+    protected boolean isDispatchCacheable() {
+        return true;
+    }
+
     public void initDispatcher() {
         init(new HandlerDescription(NAME));
     }
@@ -59,6 +59,10 @@ public class SOAPActionBasedDispatcher extends AbstractDispatcher {
         return null;
     }
 
+    protected boolean isDispatchCacheable() {
+        return true;
+    }
+
     public void initDispatcher() {
         init(new HandlerDescription(NAME));
     }
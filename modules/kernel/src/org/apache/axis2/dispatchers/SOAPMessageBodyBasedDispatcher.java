@@ -20,7 +20,6 @@
 
 package org.apache.axis2.dispatchers;
 
-import org.apache.axiom.om.OMNamespace;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
@@ -51,20 +50,16 @@ public class SOAPMessageBodyBasedDispatcher extends AbstractDispatcher {
     public AxisOperation findOperation(AxisService service, MessageContext messageContext)
             throws AxisFault {
 
-        String localName = messageContext.getEnvelope().getSOAPBodyFirstElementLocalName();
+        // read through the look ahead, so that the payload is not built
+        QName qName = Utils.getSOAPBodyFirstElementQName(messageContext.getEnvelope());
 
         AxisOperation axisOperation = null;
-        if (localName != null){
-           OMNamespace ns = messageContext.getEnvelope().getSOAPBodyFirstElementNS();
-           QName qName = null;
-           if (ns != null) {
-               qName = new QName(ns.getNamespaceURI(), localName);
-               axisOperation = service.getOperationByMessageElementQName(qName);
-           }
+        if (qName != null){
+           axisOperation = service.getOperationByMessageElementQName(qName);
 
            // this is required for services uses the RPC message receiver
            if (axisOperation == null){
-               QName operationName = new QName(localName);
+               QName operationName = new QName(qName.getLocalPart());
                axisOperation = service.getOperation(operationName);
            }
 
@@ -79,14 +74,12 @@ public class SOAPMessageBodyBasedDispatcher extends AbstractDispatcher {
     public AxisService findService(MessageContext messageContext) throws AxisFault {
         String serviceName;
 
-        String localPart = messageContext.getEnvelope().getSOAPBodyFirstElementLocalName();
-
-        if (localPart != null) {
-            OMNamespace ns = messageContext.getEnvelope().getSOAPBodyFirstElementNS();
+        QName qName = Utils.getSOAPBodyFirstElementQName(messageContext.getEnvelope());
 
-            if (ns != null) {
-                String filePart = ns.getNamespaceURI();
+        if (qName != null) {
+            String filePart = qName.getNamespaceURI();
 
+            if (filePart.length() > 0) {
                 if (LoggingControl.debugLoggingAllowed && log.isDebugEnabled()) {
                     log.debug(messageContext.getLogIDString() +
                             " Checking for Service using SOAP message body's first child's namespace : "
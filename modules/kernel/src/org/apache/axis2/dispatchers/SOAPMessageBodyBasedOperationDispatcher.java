@@ -19,13 +19,13 @@
 
 package org.apache.axis2.dispatchers;
 
-import org.apache.axiom.om.OMNamespace;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.HandlerDescription;
 import org.apache.axis2.util.LoggingControl;
+import org.apache.axis2.util.Utils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -38,27 +38,20 @@ public class SOAPMessageBodyBasedOperationDispatcher extends AbstractOperationDi
 
     public AxisOperation findOperation(AxisService service, MessageContext messageContext)
             throws AxisFault {
-        String localPart = messageContext.getEnvelope().getSOAPBodyFirstElementLocalName();
-        if (localPart == null) {
+        // read through the look ahead, so that the payload is not built
+        QName qName = Utils.getSOAPBodyFirstElementQName(messageContext.getEnvelope());
+        if (qName == null) {
             return null;
         }
         if (LoggingControl.debugLoggingAllowed && log.isDebugEnabled()) {
             log.debug(messageContext.getLogIDString() +
                     " Checking for Operation using SOAP message body's first child's local name : "
-                    + localPart);
+                    + qName.getLocalPart());
         }
-        AxisOperation axisOperation = service.getOperation(new QName(localPart));
+        AxisOperation axisOperation = service.getOperation(new QName(qName.getLocalPart()));
 
         if (axisOperation == null) {
-            OMNamespace ns = messageContext.getEnvelope().getSOAPBodyFirstElementNS();
-            if (ns != null) {
-                QName qName = new QName(ns.getNamespaceURI(), localPart);
-                axisOperation = service.getOperationByMessageElementQName(qName);
-            }
-            if (axisOperation == null) {
-                QName qName = new QName(localPart);
-                axisOperation = service.getOperation(qName);
-            }
+            axisOperation = service.getOperationByMessageElementQName(qName);
         }
         return axisOperation;
     }
@@ -19,7 +19,6 @@
 
 package org.apache.axis2.dispatchers;
 
-import org.apache.axiom.om.OMNamespace;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.AxisService;
@@ -30,6 +29,8 @@ import org.apache.axis2.util.Utils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import javax.xml.namespace.QName;
+
 public class SOAPMessageBodyBasedServiceDispatcher extends AbstractServiceDispatcher {
 
     public static final String NAME = "SOAPMessageBodyBasedServiceDispatcher";
@@ -37,14 +38,13 @@ public class SOAPMessageBodyBasedServiceDispatcher extends AbstractServiceDispat
 
     public AxisService findService(MessageContext messageContext) throws AxisFault {
         String serviceName = null;
-        String localPart = messageContext.getEnvelope().getSOAPBodyFirstElementLocalName();
-
-        if (localPart != null) {
-            OMNamespace ns = messageContext.getEnvelope().getSOAPBodyFirstElementNS();
+        // read through the look ahead, so that the payload is not built
+        QName qName = Utils.getSOAPBodyFirstElementQName(messageContext.getEnvelope());
 
-            if (ns != null) {
-                String filePart = ns.getNamespaceURI();
+        if (qName != null) {
+            String filePart = qName.getNamespaceURI();
 
+            if (filePart.length() > 0) {
                 if (LoggingControl.debugLoggingAllowed && log.isDebugEnabled()) {
                     log.debug(messageContext.getLogIDString() +
                             "Checking for Service using SOAP message body's first child's namespace : "
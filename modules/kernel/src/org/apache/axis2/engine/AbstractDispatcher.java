@@ -83,6 +83,18 @@ public abstract class AbstractDispatcher extends AbstractHandler {
 
     public abstract void initDispatcher();
 
+    /**
+     * Whether the decisions of this dispatcher depend on nothing but the target address and the
+     * action of the message (and the deployed services), so that they can be remembered in the
+     * {@link DispatchCache}. Dispatchers that look at anything else, such as the SOAP body or
+     * other headers, must return false, which is the default.
+     *
+     * @return true if the decisions of this dispatcher can be cached
+     */
+    protected boolean isDispatchCacheable() {
+        return false;
+    }
+
     /**
      * @param msgctx
      * @throws org.apache.axis2.AxisFault
@@ -90,6 +102,40 @@ public abstract class AbstractDispatcher extends AbstractHandler {
     public InvocationResponse invoke(MessageContext msgctx) throws AxisFault {
         AxisService axisService = msgctx.getAxisService();
 
+        DispatchCache dispatchCache = null;
+        DispatchCache.Key cacheKey = null;
+        if (msgctx.getAxisOperation() == null && msgctx.getConfigurationContext() != null
+                && !DispatchCache.isBypassed(msgctx)) {
+            dispatchCache =
+                    msgctx.getConfigurationContext().getAxisConfiguration().getDispatchCache();
+            if (!dispatchCache.isEnabled()) {
+                dispatchCache = null;
+            } else if (isDispatchCacheable()) {
+                cacheKey = dispatchCache.createKey(msgctx);
+                DispatchCache.Entry entry = dispatchCache.lookup(cacheKey, msgctx);
+                if (entry != null) {
+                    if (LoggingControl.debugLoggingAllowed && log.isDebugEnabled()) {
+                        log.debug(msgctx.getLogIDString() + " Dispatched to " +
+                                entry.service.getName() + "/" +
+                                entry.operation.getName().getLocalPart() +
+                                " from the dispatch cache");
+                    }
+                    if (axisService == null) {
+                        if (entry.endpoint != null) {
+                            msgctx.setProperty(WSDL2Constants.ENDPOINT_LOCAL_NAME,
+                                               entry.endpoint);
+                        }
+                        msgctx.setAxisService(entry.service);
+                    }
+                    setAxisOperation(msgctx, entry.operation);
+                    return InvocationResponse.CONTINUE;
+                }
+            } else {
+                // whatever is found from now on may depend on what this dispatcher looks at
+                DispatchCache.bypass(msgctx);
+            }
+        }
+
         if (axisService == null) {
             axisService = findService(msgctx);
 
@@ -99,6 +145,9 @@ public abstract class AbstractDispatcher extends AbstractHandler {
                                                                                   axisService.getName()));
                 }
                 msgctx.setAxisService(axisService);
+                if (cacheKey != null) {
+                    msgctx.setProperty(DispatchCache.DISPATCHED_SERVICE, axisService);
+                }
             }
         }
 
@@ -111,43 +160,44 @@ public abstract class AbstractDispatcher extends AbstractHandler {
                                                                                   axisOperation
                                                                                           .getName().getLocalPart()));
                 }
-
-                msgctx.setAxisOperation(axisOperation);
-                //setting axisMessage into messageContext
-                msgctx.setAxisMessage(axisOperation.getMessage(
-                        WSDLConstants.MESSAGE_LABEL_IN_VALUE));
-                AxisEndpoint axisEndpoint =
-                        (AxisEndpoint) msgctx.getProperty(WSDL2Constants.ENDPOINT_LOCAL_NAME);
-
-                if (axisEndpoint != null) {
-                    AxisBinding axisBinding = axisEndpoint.getBinding();
-					AxisBindingOperation axisBindingOperation = (AxisBindingOperation) axisBinding
-							.getChild(axisOperation.getName());
-					if (axisBindingOperation == null) {
-						String localName = axisOperation.getName()
-								.getLocalPart();
-						AxisBindingOperation bindingOp = null;
-						for (Iterator<AxisBindingOperation> iterator = axisBinding.getChildren(); iterator
-								.hasNext();) {
-							bindingOp = (AxisBindingOperation) iterator.next();
-							if (localName.equals(bindingOp.getName().getLocalPart())) {
-								axisBindingOperation = bindingOp;
-								break;
-							}
-						}
-					}
-					 if (axisBindingOperation != null) {
-						msgctx
-								.setProperty(
-										Constants.AXIS_BINDING_MESSAGE,
-										axisBindingOperation
-												.getChild(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
-						msgctx.setProperty(Constants.AXIS_BINDING_OPERATION,
-								axisBindingOperation);
-					}
+                setAxisOperation(msgctx, axisOperation);
+                if (cacheKey != null) {
+                    dispatchCache.put(cacheKey, msgctx);
                 }
             }
         }
         return InvocationResponse.CONTINUE;
     }
+
+    private void setAxisOperation(MessageContext msgctx, AxisOperation axisOperation) {
+        msgctx.setAxisOperation(axisOperation);
+        //setting axisMessage into messageContext
+        msgctx.setAxisMessage(axisOperation.getMessage(
+                WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+        AxisEndpoint axisEndpoint =
+                (AxisEndpoint) msgctx.getProperty(WSDL2Constants.ENDPOINT_LOCAL_NAME);
+
+        if (axisEndpoint != null) {
+            AxisBinding axisBinding = axisEndpoint.getBinding();
+            AxisBindingOperation axisBindingOperation = (AxisBindingOperation) axisBinding
+                    .getChild(axisOperation.getName());
+            if (axisBindingOperation == null) {
+                String localName = axisOperation.getName().getLocalPart();
+                AxisBindingOperation bindingOp = null;
+                for (Iterator<AxisBindingOperation> iterator = axisBinding.getChildren();
+                     iterator.hasNext();) {
+                    bindingOp = (AxisBindingOperation) iterator.next();
+                    if (localName.equals(bindingOp.getName().getLocalPart())) {
+                        axisBindingOperation = bindingOp;
+                        break;
+                    }
+                }
+            }
+            if (axisBindingOperation != null) {
+                msgctx.setProperty(Constants.AXIS_BINDING_MESSAGE,
+                        axisBindingOperation.getChild(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+                msgctx.setProperty(Constants.AXIS_BINDING_OPERATION, axisBindingOperation);
+            }
+        }
+    }
 }
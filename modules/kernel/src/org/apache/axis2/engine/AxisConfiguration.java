@@ -24,6 +24,7 @@ import java.net.URL;
 import java.security.PrivilegedAction;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
@@ -43,6 +44,7 @@ import org.apache.axis2.clustering.ClusterManager;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.dataretrieval.AxisDataLocator;
 import org.apache.axis2.deployment.DeploymentException;
+import org.apache.axis2.deployment.LazyServiceGroup;
 import org.apache.axis2.deployment.ModuleDeployer;
 import org.apache.axis2.deployment.repository.util.DeploymentFileData;
 import org.apache.axis2.deployment.util.PhasesInfo;
@@ -59,9 +61,12 @@ import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.description.Version;
 import org.apache.axis2.description.java2wsdl.Java2WSDLConstants;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.monitoring.HandlerMetrics;
 import org.apache.axis2.phaseresolver.PhaseMetadata;
 import org.apache.axis2.phaseresolver.PhaseResolver;
+import org.apache.axis2.transport.MediaTypeRegistry;
 import org.apache.axis2.transport.MessageFormatter;
+import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.util.TargetResolver;
 import org.apache.axis2.util.Utils;
 import org.apache.axis2.util.JavaUtils;
@@ -109,6 +114,21 @@ public class AxisConfiguration extends AxisDescription {
     private Map<String, AxisService> allServices = new ConcurrentHashMap<String, AxisService>();
     private Map<String, AxisService> allEndpoints = new ConcurrentHashMap<String, AxisService>();
 
+    // service groups registered for activation on first use, by service and by group name
+    private Map<String, LazyServiceGroup> lazyServices =
+            new ConcurrentHashMap<String, LazyServiceGroup>();
+    private Map<String, LazyServiceGroup> lazyServiceGroups =
+            new ConcurrentHashMap<String, LazyServiceGroup>();
+
+    private volatile DispatchCache dispatchCache;
+
+    private volatile MediaTypeRegistry mediaTypeRegistry;
+
+    // set once a service in pass-through mode has been added, never reset
+    private volatile boolean passThroughServices;
+
+    private final HandlerMetrics handlerMetrics = new HandlerMetrics();
+
     /**
      * Stores the module specified in the server.xml at the document parsing time.
      */
@@ -139,6 +159,11 @@ public class AxisConfiguration extends AxisDescription {
 
     private List<Phase> outPhases;
 
+    // execution plans compiled from the global phase lists
+    private volatile ExecutionPlan inFlowPlan;
+    private volatile ExecutionPlan inFaultFlowPlan;
+    private volatile ExecutionPlan outFaultFlowPlan;
+
     protected PhasesInfo phasesinfo;
 
     private ClassLoader serviceClassLoader;
@@ -200,6 +225,7 @@ public class AxisConfiguration extends AxisDescription {
     public void addMessageBuilder(String contentType,
                                   Builder messageBuilder) {
         messageBuilders.put(contentType, messageBuilder);
+        mediaTypeRegistry = null;
     }
 
     /**
@@ -213,6 +239,7 @@ public class AxisConfiguration extends AxisDescription {
     public void addMessageFormatter(String contentType,
                                     MessageFormatter messageFormatter) {
         messageFormatters.put(contentType, messageFormatter);
+        mediaTypeRegistry = null;
     }
 
     /**
@@ -318,6 +345,15 @@ public class AxisConfiguration extends AxisDescription {
 
     public synchronized void addServiceGroup(AxisServiceGroup axisServiceGroup)
             throws AxisFault {
+        if (!lazyServices.isEmpty()) {
+            for (Iterator<AxisService> i = axisServiceGroup.getServices(); i.hasNext();) {
+                String serviceName = i.next().getName();
+                if (lazyServices.containsKey(serviceName)) {
+                    throw new AxisFault(Messages.getMessage("twoservicecannothavesamename",
+                                                            serviceName));
+                }
+            }
+        }
         axisServiceGroup.setParent(this);
         notifyObservers(AxisEvent.SERVICE_DEPLOY, axisServiceGroup);
         AxisService axisService;
@@ -389,6 +425,7 @@ public class AxisConfiguration extends AxisDescription {
         // serviceGroups.put(axisServiceGroup.getServiceGroupName(),
         // axisServiceGroup);
         addChild(axisServiceGroup);
+        invalidateDispatchCache();
     }
 
     public void addToAllServicesMap(AxisService axisService) throws AxisFault {
@@ -399,6 +436,11 @@ public class AxisConfiguration extends AxisDescription {
                 log.debug("Adding service to allServices map: [" + serviceName + "] ");
             }
             allServices.put(serviceName, axisService);
+            if (JavaUtils.isTrueExplicitly(
+                    axisService.getParameterValue(HTTPConstants.PASS_THROUGH))) {
+                passThroughServices = true;
+            }
+            invalidateDispatchCache();
             if (log.isTraceEnabled()) {
                 log.trace("After adding to allServices map, size is "
                           + allServices.size(), 
@@ -414,6 +456,96 @@ public class AxisConfiguration extends AxisDescription {
         }
     }
 
+    /**
+     * Check whether a service in pass-through mode (see {@link HTTPConstants#PASS_THROUGH}) has
+     * been added, so that transports can skip looking for the service of a request before
+     * building its envelope when there is none. The parameter is read when the service is
+     * added.
+     *
+     * @return true if a pass-through service has been added since this configuration was
+     *         created
+     */
+    public boolean hasPassThroughServices() {
+        return passThroughServices;
+    }
+
+    /**
+     * Registers a service group to be deployed the first time one of its services is looked
+     * up with {@link #getService(String)}.
+     *
+     * @param lazyServiceGroup the service group
+     * @throws AxisFault if one of its services has the name of a service already deployed
+     */
+    public synchronized void addLazyServiceGroup(LazyServiceGroup lazyServiceGroup)
+            throws AxisFault {
+        List<String> serviceNames = lazyServiceGroup.getServiceNames();
+        for (Iterator<String> i = serviceNames.iterator(); i.hasNext();) {
+            String serviceName = i.next();
+            if (allServices.containsKey(serviceName) || lazyServices.containsKey(serviceName)) {
+                throw new AxisFault(Messages.getMessage("twoservicecannothavesamename",
+                                                        serviceName));
+            }
+        }
+        lazyServiceGroups.put(lazyServiceGroup.getServiceGroupName(), lazyServiceGroup);
+        for (Iterator<String> i = serviceNames.iterator(); i.hasNext();) {
+            lazyServices.put(i.next(), lazyServiceGroup);
+        }
+    }
+
+    /**
+     * Removes a service group registered for activation on first use.
+     *
+     * @param serviceGroupName the name of the service group
+     * @return the service group, or null if none was registered with that name
+     */
+    public synchronized LazyServiceGroup removeLazyServiceGroup(String serviceGroupName) {
+        LazyServiceGroup lazyServiceGroup = lazyServiceGroups.remove(serviceGroupName);
+        if (lazyServiceGroup != null) {
+            for (Iterator<String> i = lazyServiceGroup.getServiceNames().iterator();
+                 i.hasNext();) {
+                String serviceName = i.next();
+                if (lazyServices.get(serviceName) == lazyServiceGroup) {
+                    lazyServices.remove(serviceName);
+                }
+            }
+        }
+        return lazyServiceGroup;
+    }
+
+    /**
+     * @return the service groups registered for activation on first use, by group name
+     */
+    public Map<String, LazyServiceGroup> getLazyServiceGroups() {
+        return Collections.unmodifiableMap(lazyServiceGroups);
+    }
+
+    /**
+     * Activates the service group registered for a service, if any. The name may also be
+     * that of one of the endpoints of the service.
+     *
+     * @return true if a service group was activated
+     */
+    private boolean activateLazyService(String name) throws AxisFault {
+        LazyServiceGroup lazyServiceGroup = lazyServices.get(name);
+        if (lazyServiceGroup == null && name.indexOf('.') > 0) {
+            lazyServiceGroup = lazyServices.get(name.substring(0, name.indexOf('.')));
+        }
+        if (lazyServiceGroup == null) {
+            return false;
+        }
+        try {
+            lazyServiceGroup.activate();
+        } finally {
+            synchronized (this) {
+                String serviceGroupName = lazyServiceGroup.getServiceGroupName();
+                if (lazyServiceGroups.get(serviceGroupName) == lazyServiceGroup) {
+                    removeLazyServiceGroup(serviceGroupName);
+                }
+            }
+        }
+        return true;
+    }
+
     public AxisServiceGroup removeServiceGroup(String serviceGroupName) throws AxisFault {
         AxisServiceGroup axisServiceGroup = (AxisServiceGroup) getChild(serviceGroupName);
         if (axisServiceGroup == null) {
@@ -443,6 +575,7 @@ public class AxisConfiguration extends AxisDescription {
 
         }
         removeChild(serviceGroupName);
+        invalidateDispatchCache();
         if (!isClientSide) {
             notifyObservers(AxisEvent.SERVICE_REMOVE, axisServiceGroup);
         }
@@ -614,6 +747,7 @@ public class AxisConfiguration extends AxisDescription {
         if (service != null) {
             AxisServiceGroup serviceGroup = service.getAxisServiceGroup();
             serviceGroup.removeService(name);
+            invalidateDispatchCache();
             log.debug(Messages.getMessage("serviceremoved", name));
         }
     }
@@ -675,6 +809,48 @@ public class AxisConfiguration extends AxisDescription {
         return inPhasesUptoAndIncludingPostDispatch;
     }
 
+    /**
+     * Get the precompiled plan for the global in phases (up to and including PostDispatch).
+     * The plan is shared between messages and is recompiled only when the phase list changes.
+     *
+     * @return the in flow ExecutionPlan
+     */
+    public ExecutionPlan getInFlowPlan() {
+        List<Phase> phases = inPhasesUptoAndIncludingPostDispatch;
+        ExecutionPlan plan = inFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases, null)) {
+            plan = ExecutionPlan.compile(phases, null);
+            inFlowPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * @return the precompiled plan for the global in fault phases
+     */
+    public ExecutionPlan getInFaultFlowPlan() {
+        List<Phase> phases = inFaultPhases;
+        ExecutionPlan plan = inFaultFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases, null)) {
+            plan = ExecutionPlan.compile(phases, null);
+            inFaultFlowPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * @return the precompiled plan for the global out fault phases
+     */
+    public ExecutionPlan getOutFaultFlowPlan() {
+        List<Phase> phases = outFaultPhases;
+        ExecutionPlan plan = outFaultFlowPlan;
+        if (plan == null || !plan.isCompiledFrom(phases, null)) {
+            plan = ExecutionPlan.compile(phases, null);
+            outFaultFlowPlan = plan;
+        }
+        return plan;
+    }
+
     public MessageReceiver getMessageReceiver(String mepURL) {
         return (MessageReceiver) messageReceivers.get(mepURL);
     }
@@ -851,9 +1027,83 @@ public class AxisConfiguration extends AxisDescription {
                 }
             }
         }
+        if (!lazyServices.isEmpty() && activateLazyService(name)) {
+            return getService(name);
+        }
         return null;
     }
 
+    /**
+     * Get the cache of dispatch decisions used by the dispatchers. Its size is set by the
+     * {@link Constants.Configuration#DISPATCH_CACHE_SIZE} parameter, which is read when the
+     * cache is first used.
+     *
+     * @return the dispatch cache
+     */
+    public DispatchCache getDispatchCache() {
+        DispatchCache cache = dispatchCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = dispatchCache;
+                if (cache == null) {
+                    cache = new DispatchCache(getIntParameter(
+                            Constants.Configuration.DISPATCH_CACHE_SIZE,
+                            DispatchCache.DEFAULT_MAX_SIZE));
+                    dispatchCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Clear the dispatch cache. This must be called whenever the way messages are dispatched to
+     * services and operations may have changed.
+     */
+    public void invalidateDispatchCache() {
+        DispatchCache cache = dispatchCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Get the latency metrics of this configuration. They are disabled unless the
+     * {@link Constants.Configuration#HANDLER_METRICS} parameter is set.
+     *
+     * @return the handler metrics
+     */
+    public HandlerMetrics getHandlerMetrics() {
+        return handlerMetrics;
+    }
+
+    /**
+     * Get the registry that resolves content types to message builders and formatters. It is
+     * created when it is first used and recreated after a builder or formatter is registered.
+     *
+     * @return the media type registry
+     */
+    public MediaTypeRegistry getMediaTypeRegistry() {
+        MediaTypeRegistry registry = mediaTypeRegistry;
+        if (registry == null) {
+            registry = new MediaTypeRegistry(this);
+            mediaTypeRegistry = registry;
+        }
+        return registry;
+    }
+
+    private int getIntParameter(String name, int defaultValue) {
+        Parameter param = getParameter(name);
+        if (param != null && param.getValue() != null) {
+            try {
+                return Integer.parseInt(param.getValue().toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + name + ": " + param.getValue());
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Service can start and stop, once stopped it cannot be accessed, so we
      * need a way to get the service even if service is not active.
@@ -867,6 +1117,15 @@ public class AxisConfiguration extends AxisDescription {
             return axisService;
         } else {
             axisService = (AxisService) allEndpoints.get(serviceName);
+            if (axisService == null && !lazyServices.isEmpty()) {
+                try {
+                    if (activateLazyService(serviceName)) {
+                        return getServiceForActivation(serviceName);
+                    }
+                } catch (AxisFault e) {
+                    log.debug(e.getMessage(), e);
+                }
+            }
             return axisService;
         }
     }
@@ -1051,6 +1310,7 @@ public class AxisConfiguration extends AxisDescription {
                                                     serviceName));
         }
         service.setActive(false);
+        invalidateDispatchCache();
         notifyObservers(AxisEvent.SERVICE_STOP, service);
     }
 
@@ -1061,6 +1321,7 @@ public class AxisConfiguration extends AxisDescription {
                                                     serviceName));
         }
         service.setActive(true);
+        invalidateDispatchCache();
         notifyObservers(AxisEvent.SERVICE_START, service);
     }
 
@@ -1221,6 +1482,7 @@ public class AxisConfiguration extends AxisDescription {
         if (configurator != null) {
             configurator.cleanup();
         }
+        handlerMetrics.unregisterMBean();
     }
 
     /**
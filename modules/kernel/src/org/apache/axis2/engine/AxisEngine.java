@@ -23,6 +23,7 @@ package org.apache.axis2.engine;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.xml.namespace.QName;
 
@@ -41,10 +42,12 @@ import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.description.WSDL2Constants;
 import org.apache.axis2.engine.Handler.InvocationResponse;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.monitoring.HandlerMetrics;
 import org.apache.axis2.transport.TransportSender;
 import org.apache.axis2.util.CallbackReceiver;
 import org.apache.axis2.util.LoggingControl;
 import org.apache.axis2.util.MessageContextBuilder;
+import org.apache.axis2.util.threadpool.AsyncTask;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -142,20 +145,17 @@ public class AxisEngine {
             log.trace(msgContext.getLogIDString() + " receive:" + msgContext.getMessageID());
         }
         ConfigurationContext confContext = msgContext.getConfigurationContext();
-        List<Phase> preCalculatedPhases;
+        ExecutionPlan preCalculatedPlan;
         if (msgContext.isFault() || msgContext.isProcessingFault()) {
-            preCalculatedPhases = confContext.getAxisConfiguration().getInFaultFlowPhases();
+            preCalculatedPlan = confContext.getAxisConfiguration().getInFaultFlowPlan();
             msgContext.setFLOW(MessageContext.IN_FAULT_FLOW);
         } else {
-            preCalculatedPhases = confContext.getAxisConfiguration().getInFlowPhases();
+            preCalculatedPlan = confContext.getAxisConfiguration().getInFlowPlan();
             msgContext.setFLOW(MessageContext.IN_FLOW);
         }
-        // Set the initial execution chain in the MessageContext to a *copy* of what
-        // we got above.  This allows individual message processing to change the chain without
-        // affecting later messages.
-        ArrayList<Handler> executionChain = new ArrayList<Handler>();
-        executionChain.addAll(preCalculatedPhases);
-        msgContext.setExecutionChain(executionChain);
+        // The plan is shared with other messages; the MessageContext takes a private copy
+        // only if message processing asks for a modifiable execution chain.
+        msgContext.setExecutionPlan(preCalculatedPlan);
         try {
             InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
 
@@ -170,7 +170,7 @@ public class AxisEngine {
                                 "nomessagereciever",
                                 msgContext.getAxisOperation().getName().toString()));
                     }
-                    receiver.receive(msgContext);
+                    invokeMessageReceiver(receiver, msgContext);
                 }
                 flowComplete(msgContext);
             } else if (pi.equals(InvocationResponse.SUSPEND)) {
@@ -238,10 +238,8 @@ public class AxisEngine {
 
         InvocationResponse pi = InvocationResponse.CONTINUE;
 
-        while (msgContext.getCurrentHandlerIndex() < msgContext.getExecutionChain().size()) {
-            Handler currentHandler = (Handler) msgContext.getExecutionChain().
-                    get(msgContext.getCurrentHandlerIndex());
-
+        Handler currentHandler;
+        while ((currentHandler = getCurrentHandler(msgContext)) != null) {
             try {
                 if (!resuming) {
                     msgContext.addExecutedPhase(currentHandler);
@@ -279,6 +277,48 @@ public class AxisEngine {
         return pi;
     }
 
+    /**
+     * Get the handler at the current index of the execution chain, walking the shared
+     * execution plan when the message has not asked for a private chain.
+     *
+     * @return the current Handler or null if the end of the chain has been reached
+     */
+    private static Handler getCurrentHandler(MessageContext msgContext) {
+        int index = msgContext.getCurrentHandlerIndex();
+        ExecutionPlan plan = msgContext.getExecutionPlan();
+        if (plan != null) {
+            return index < plan.size() ? plan.get(index) : null;
+        }
+        ArrayList<Handler> executionChain = msgContext.getExecutionChain();
+        return index < executionChain.size() ? executionChain.get(index) : null;
+    }
+
+    private static void invokeMessageReceiver(MessageReceiver receiver, MessageContext msgContext)
+            throws AxisFault {
+        HandlerMetrics metrics = HandlerMetrics.getSampled(msgContext);
+        if (metrics != null) {
+            long start = System.nanoTime();
+            receiver.receive(msgContext);
+            metrics.recordPhase(msgContext, HandlerMetrics.MESSAGE_RECEIVER,
+                                System.nanoTime() - start);
+        } else {
+            receiver.receive(msgContext);
+        }
+    }
+
+    private static void invokeTransportSender(TransportSender sender, MessageContext msgContext)
+            throws AxisFault {
+        HandlerMetrics metrics = HandlerMetrics.getSampled(msgContext);
+        if (metrics != null) {
+            long start = System.nanoTime();
+            sender.invoke(msgContext);
+            metrics.recordPhase(msgContext, HandlerMetrics.TRANSPORT_SENDER,
+                                System.nanoTime() - start);
+        } else {
+            sender.invoke(msgContext);
+        }
+    }
+
     private static void flowComplete(MessageContext msgContext) {
         Iterator<Handler> invokedPhaseIterator = msgContext.getExecutedPhases();
 
@@ -328,7 +368,7 @@ public class AxisEngine {
                             "nomessagereciever",
                             msgContext.getAxisOperation().getName().toString()));
                 }
-                receiver.receive(msgContext);
+                invokeMessageReceiver(receiver, msgContext);
             }
             flowComplete(msgContext);
         }
@@ -363,7 +403,7 @@ public class AxisEngine {
             // write the Message to the Wire
             TransportOutDescription transportOut = msgContext.getTransportOut();
             TransportSender sender = transportOut.getSender();
-            sender.invoke(msgContext);
+            invokeTransportSender(sender, msgContext);
             flowComplete(msgContext);
         }
 
@@ -408,12 +448,9 @@ public class AxisEngine {
         }
         // find and invoke the Phases
         OperationContext operationContext = msgContext.getOperationContext();
-        ArrayList executionChain = operationContext.getAxisOperation().getPhasesOutFlow();
-        //rather than having two steps added both oparation and global chain together
-        ArrayList outPhases = new ArrayList();
-        outPhases.addAll(executionChain);
-        outPhases.addAll(msgContext.getConfigurationContext().getAxisConfiguration().getOutFlowPhases());
-        msgContext.setExecutionChain(outPhases);
+        //rather than having two steps the plan holds both oparation and global chain together
+        msgContext.setExecutionPlan(operationContext.getAxisOperation().getOutFlowPlan(
+                msgContext.getConfigurationContext().getAxisConfiguration()));
         msgContext.setFLOW(MessageContext.OUT_FLOW);
         try {
             InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
@@ -432,10 +469,14 @@ public class AxisEngine {
                         MessageContext.TRANSPORT_NON_BLOCKING);
                 if (isTransportNonBlocking != null &&
                         ((Boolean) isTransportNonBlocking).booleanValue()) {
-                    msgContext.getConfigurationContext().getThreadPool().execute(
-                            new TransportNonBlockingInvocationWorker(msgContext, sender));
+                    try {
+                        msgContext.getConfigurationContext().getThreadPool().execute(
+                                new TransportNonBlockingInvocationWorker(msgContext, sender));
+                    } catch (RejectedExecutionException e) {
+                        throw new AxisFault(Messages.getMessage("threadpoolrejected"), e);
+                    }
                 } else {
-                    sender.invoke(msgContext);
+                    invokeTransportSender(sender, msgContext);
                 }
                 //REVIEW: In the case of the TransportNonBlockingInvocationWorker, does this need to wait until that finishes?
                 flowComplete(msgContext);
@@ -472,13 +513,7 @@ public class AxisEngine {
         // find and execute the Fault Out Flow Handlers
         if (opContext != null) {
             AxisOperation axisOperation = opContext.getAxisOperation();
-            ArrayList faultExecutionChain = axisOperation.getPhasesOutFaultFlow();
-
-            //adding both operation specific and global out fault flows.
-
-            ArrayList outFaultPhases = new ArrayList();
-            outFaultPhases.addAll((ArrayList) faultExecutionChain.clone());
-            msgContext.setExecutionChain((ArrayList) outFaultPhases.clone());
+            msgContext.setExecutionPlan(axisOperation.getOutFaultFlowPlan());
             msgContext.setFLOW(MessageContext.OUT_FAULT_FLOW);
             try {
                 InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
@@ -504,9 +539,8 @@ public class AxisEngine {
             }
         }
 
-        ArrayList<Handler> executionChain = new ArrayList<Handler>(msgContext.getConfigurationContext()
-                .getAxisConfiguration().getOutFaultFlowPhases());
-        msgContext.setExecutionChain(executionChain);
+        msgContext.setExecutionPlan(msgContext.getConfigurationContext()
+                .getAxisConfiguration().getOutFaultFlowPlan());
         msgContext.setFLOW(MessageContext.OUT_FAULT_FLOW);
         InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
 
@@ -518,7 +552,7 @@ public class AxisEngine {
             }
             TransportSender sender = transportOut.getSender();
 
-            sender.invoke(msgContext);
+            invokeTransportSender(sender, msgContext);
             flowComplete(msgContext);
         } else if (pi.equals(InvocationResponse.SUSPEND)) {
         } else if (pi.equals(InvocationResponse.ABORT)) {
@@ -567,9 +601,8 @@ public class AxisEngine {
             }
         }
 
-        ArrayList<Handler> executionChain = new ArrayList<Handler>(msgContext.getConfigurationContext()
-                .getAxisConfiguration().getOutFaultFlowPhases());
-        msgContext.setExecutionChain(executionChain);
+        msgContext.setExecutionPlan(msgContext.getConfigurationContext()
+                .getAxisConfiguration().getOutFaultFlowPlan());
         msgContext.setFLOW(MessageContext.OUT_FAULT_FLOW);
         InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
 
@@ -581,7 +614,7 @@ public class AxisEngine {
             }
             TransportSender sender = transportOut.getSender();
 
-            sender.invoke(msgContext);
+            invokeTransportSender(sender, msgContext);
             flowComplete(msgContext);
         } else if (pi.equals(InvocationResponse.SUSPEND)) {
         } else if (pi.equals(InvocationResponse.ABORT)) {
@@ -607,7 +640,7 @@ public class AxisEngine {
      * <p/>
      * way transport.
      */
-    private static class TransportNonBlockingInvocationWorker implements Runnable {
+    private static class TransportNonBlockingInvocationWorker implements AsyncTask {
         private MessageContext msgctx;
         private TransportSender sender;
 
@@ -619,7 +652,7 @@ public class AxisEngine {
 
         public void run() {
             try {
-                sender.invoke(msgctx);
+                invokeTransportSender(sender, msgctx);
             } catch (Exception e) {
                 log.info(msgctx.getLogIDString() + " " + e.getMessage());
                 if (msgctx.getProperty(MessageContext.DISABLE_ASYNC_CALLBACK_ON_TRANSPORT_ERROR) ==
@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisEndpoint;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.description.WSDL2Constants;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers which service and operation the dispatchers resolved for a request path and action,
+ * so that later messages with the same path and action are dispatched with a single lookup.
+ * <p/>
+ * Decisions are keyed on the incoming transport, the HTTP method, the path of the target address
+ * and the action. The scheme, host and port of the address are left out, as are its query string
+ * and fragment, so requests reaching the same service under different host names share an entry.
+ * The action is the SOAPAction or, once the addressing headers have been processed, the
+ * wsa:Action; the message context keeps both in the same place.
+ * <p/>
+ * Only the decisions of dispatchers that look at nothing but the address and the action are
+ * cached (see {@link AbstractDispatcher#isDispatchCacheable()}). If any other dispatcher has been
+ * consulted for a message, for instance one that looks at the SOAP body, the decision for that
+ * message is not cached. The cache is cleared whenever services or operations are deployed,
+ * undeployed, started or stopped. Once it is full, the least recently used decision makes room
+ * for a new one.
+ */
+public class DispatchCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    /**
+     * Local message context property marking a message whose dispatch can't be cached.
+     */
+    static final String NOT_CACHEABLE = "org.apache.axis2.engine.DispatchCache.notCacheable";
+
+    /**
+     * Local message context property holding the service resolved by a cacheable dispatcher.
+     */
+    static final String DISPATCHED_SERVICE =
+            "org.apache.axis2.engine.DispatchCache.dispatchedService";
+
+    /**
+     * Local message context property holding the last key that was looked up in vain, so that
+     * the following dispatchers don't repeat the lookup.
+     */
+    static final String MISSED_KEY = "org.apache.axis2.engine.DispatchCache.missedKey";
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+    private final int maxSize;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    // Held while looking for the entry to evict
+    private final Object evictionLock = new Object();
+
+    /**
+     * @param maxSize the maximum number of entries; 0 or less disables the cache
+     */
+    public DispatchCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Prevent the dispatch decision for a message from being cached. Handlers that dispatch
+     * messages on anything but the target address and action must call this before they try to
+     * find the service or operation; subclasses of {@link AbstractDispatcher} do so automatically.
+     *
+     * @param msgContext the message context
+     */
+    public static void bypass(MessageContext msgContext) {
+        if (!isBypassed(msgContext)) {
+            msgContext.setProperty(NOT_CACHEABLE, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @param msgContext the message context
+     * @return true if the dispatch decision for the message can't be cached
+     */
+    static boolean isBypassed(MessageContext msgContext) {
+        return msgContext.getLocalProperty(NOT_CACHEABLE, false) != null;
+    }
+
+    /**
+     * Create the key for the current transport, HTTP method, path and action of a message.
+     */
+    Key createKey(MessageContext msgContext) {
+        EndpointReference to = msgContext.getTo();
+        TransportInDescription transportIn = msgContext.getTransportIn();
+        return new Key(transportIn == null ? null : transportIn.getName(),
+                (String) msgContext.getProperty(Constants.Configuration.HTTP_METHOD),
+                to == null ? null : getPath(to.getAddress()), msgContext.getSoapAction(),
+                generation.get());
+    }
+
+    /**
+     * Strip the scheme, authority, query string and fragment from an address.
+     */
+    static String getPath(String address) {
+        if (address == null) {
+            return null;
+        }
+        int start = address.indexOf("://");
+        if (start != -1) {
+            start = address.indexOf('/', start + 3);
+            if (start == -1) {
+                return "/";
+            }
+        } else {
+            start = 0;
+        }
+        int end = address.length();
+        for (int i = start; i < end; i++) {
+            char c = address.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+            }
+        }
+        return start == 0 && end == address.length() ? address : address.substring(start, end);
+    }
+
+    /**
+     * Look up the decision for a message that hasn't been dispatched to an operation yet and
+     * whose dispatch can be cached.
+     *
+     * @return the decision, or null if there is none that applies to the message
+     */
+    Entry lookup(Key key, MessageContext msgContext) {
+        if (key.equals(msgContext.getLocalProperty(MISSED_KEY, false))) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        AxisService service = msgContext.getAxisService();
+        if (entry != null && entry.service.isActive()
+                && (service == null || service == entry.service)) {
+            entry.lastUsed = hitCount.incrementAndGet();
+            return entry;
+        }
+        missCount.incrementAndGet();
+        msgContext.setProperty(MISSED_KEY, key);
+        return null;
+    }
+
+    /**
+     * Remember the dispatch decision of a message, unless the message consulted a dispatcher
+     * that isn't cacheable or the cache has been cleared since the key was created.
+     */
+    void put(Key key, MessageContext msgContext) {
+        AxisService service = msgContext.getAxisService();
+        if (msgContext.getLocalProperty(NOT_CACHEABLE, false) != null
+                || service != msgContext.getLocalProperty(DISPATCHED_SERVICE, false)
+                || key.generation != generation.get()) {
+            return;
+        }
+        while (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new Entry(service,
+                (AxisEndpoint) msgContext.getProperty(WSDL2Constants.ENDPOINT_LOCAL_NAME),
+                msgContext.getAxisOperation(), hitCount.get()));
+    }
+
+    /**
+     * Remove the entry that was used least recently. Entries carry the hit count at which they
+     * were last used, so hits only write a field of the entry; the scan to find the oldest one
+     * is only done when a decision is added to a full cache.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            Map.Entry<Key, Entry> oldest = null;
+            for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+                 it.hasNext();) {
+                Map.Entry<Key, Entry> candidate = it.next();
+                if (oldest == null || candidate.getValue().lastUsed < oldest.getValue().lastUsed) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest != null && entries.remove(oldest.getKey(), oldest.getValue())) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Forget all decisions. This is called by the {@link AxisConfiguration} when services or
+     * operations change.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        invalidationCount.incrementAndGet();
+        entries.clear();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the fraction of lookups that were answered from the cache, or 0 if there were none
+     */
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long lookups = hits + missCount.get();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return the number of times the cache has been cleared
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * @return the number of decisions removed to make room for new ones
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    static final class Key {
+        private final String transport;
+        private final String method;
+        private final String path;
+        private final String action;
+        private final long generation;
+        private final int hash;
+
+        Key(String transport, String method, String path, String action, long generation) {
+            this.transport = transport;
+            this.method = method;
+            this.path = path;
+            this.action = action;
+            this.generation = generation;
+            hash = ((hashCode(transport) * 31 + hashCode(method)) * 31 + hashCode(path)) * 31
+                    + hashCode(action);
+        }
+
+        private static int hashCode(String s) {
+            return s == null ? 0 : s.hashCode();
+        }
+
+        private static boolean equals(String s1, String s2) {
+            return s1 == null ? s2 == null : s1.equals(s2);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && equals(path, other.path)
+                    && equals(action, other.action) && equals(method, other.method)
+                    && equals(transport, other.transport);
+        }
+    }
+
+    static final class Entry {
+        final AxisService service;
+        final AxisEndpoint endpoint;
+        final AxisOperation operation;
+        // the hit count when the entry was last used
+        volatile long lastUsed;
+
+        Entry(AxisService service, AxisEndpoint endpoint, AxisOperation operation,
+              long lastUsed) {
+            this.service = service;
+            this.endpoint = endpoint;
+            this.operation = operation;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
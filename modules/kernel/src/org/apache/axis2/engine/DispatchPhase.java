@@ -45,7 +45,6 @@ import org.apache.axis2.wsdl.WSDLConstants.WSDL20_2004_Constants;
 import org.apache.axis2.wsdl.WSDLConstants.WSDL20_2006Constants;
 
 import javax.xml.namespace.QName;
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -148,8 +147,7 @@ public class DispatchPhase extends Phase {
         }
         
 
-        ArrayList operationChain = msgContext.getAxisOperation().getRemainingPhasesInFlow();
-        msgContext.setExecutionChain((ArrayList) operationChain.clone());
+        msgContext.setExecutionPlan(msgContext.getAxisOperation().getInFlowPlan());
     }
 
     private void loadContexts(AxisService service, MessageContext msgContext) throws AxisFault {
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable, precompiled execution chain. A plan is built once from one or two phase lists
+ * (for example an operation's out flow followed by the global out phases) and is then shared by
+ * every message that runs through that flow; the engine walks it by index, so no per-message
+ * copy of the phase list is needed.
+ * <p/>
+ * The entries of a plan are the phases themselves rather than the handlers inside them. Phases
+ * are the units that carry the pre/post-condition checks (see {@link DispatchPhase}) and the
+ * pause/resume index, and module engagement adds handlers to existing phases, so a plan stays
+ * valid across engage/disengage. A plan only has to be recompiled when the phase lists it was
+ * built from change, which {@link #isCompiledFrom(List, List)} detects by comparing the phases
+ * by identity. That walk is bounded by the number of phases, not of handlers, and needs no
+ * cooperation from the code changing the lists.
+ */
+public final class ExecutionPlan {
+
+    /** An empty plan */
+    public static final ExecutionPlan EMPTY = new ExecutionPlan(new Handler[0], 0);
+
+    private final Handler[] handlers;
+
+    /** Number of entries that were taken from the first list */
+    private final int boundary;
+
+    private ExecutionPlan(Handler[] handlers, int boundary) {
+        this.handlers = handlers;
+        this.boundary = boundary;
+    }
+
+    /**
+     * Compile a plan from the given lists, in order.
+     *
+     * @param first  the first part of the chain, may be null
+     * @param second the second part of the chain, may be null
+     * @return a new plan
+     */
+    public static ExecutionPlan compile(List<? extends Handler> first,
+                                        List<? extends Handler> second) {
+        int firstSize = first == null ? 0 : first.size();
+        int secondSize = second == null ? 0 : second.size();
+        if (firstSize + secondSize == 0) {
+            // not tied to the lists, but cheap to get again
+            return EMPTY;
+        }
+        Handler[] handlers = new Handler[firstSize + secondSize];
+        for (int i = 0; i < firstSize; i++) {
+            handlers[i] = first.get(i);
+        }
+        for (int i = 0; i < secondSize; i++) {
+            handlers[firstSize + i] = second.get(i);
+        }
+        return new ExecutionPlan(handlers, firstSize);
+    }
+
+    /**
+     * Check whether this plan still reflects the given lists, i.e. whether it would be
+     * identical to <code>compile(first, second)</code>. This compares the phases by identity
+     * and doesn't allocate.
+     *
+     * @param first  the first part of the chain, may be null
+     * @param second the second part of the chain, may be null
+     * @return true if the plan is up to date
+     */
+    public boolean isCompiledFrom(List<? extends Handler> first, List<? extends Handler> second) {
+        int firstSize = first == null ? 0 : first.size();
+        int secondSize = second == null ? 0 : second.size();
+        if (firstSize != boundary || firstSize + secondSize != handlers.length) {
+            return false;
+        }
+        for (int i = 0; i < firstSize; i++) {
+            if (handlers[i] != first.get(i)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < secondSize; i++) {
+            if (handlers[firstSize + i] != second.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return handlers.length;
+    }
+
+    public Handler get(int index) {
+        return handlers[index];
+    }
+
+    /**
+     * @return a new, mutable list holding the entries of this plan
+     */
+    public ArrayList<Handler> toList() {
+        ArrayList<Handler> list = new ArrayList<Handler>(handlers.length);
+        for (int i = 0; i < handlers.length; i++) {
+            list.add(handlers[i]);
+        }
+        return list;
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.description.HandlerDescription;
 import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.PhaseRule;
+import org.apache.axis2.monitoring.HandlerMetrics;
 import org.apache.axis2.phaseresolver.PhaseException;
 import org.apache.axis2.util.LoggingControl;
 import org.apache.commons.logging.Log;
@@ -296,6 +297,11 @@ public class Phase implements Handler {
 
         InvocationResponse pi = InvocationResponse.CONTINUE;
 
+        // decided once per message, so that a sampled message is timed in every phase
+        HandlerMetrics metrics = HandlerMetrics.getSampled(msgctx);
+        boolean timed = metrics != null;
+        long phaseStart = timed ? System.nanoTime() : 0;
+
         int currentIndex = msgctx.getCurrentPhaseIndex();
 
         if (currentIndex == 0) {
@@ -315,9 +321,20 @@ public class Phase implements Handler {
                 log.debug(msgctx.getLogIDString() + " Invoking Handler '" + handler.getName() +
                         "' in Phase '" + phaseName + "'");
             }
-            pi = handler.invoke(msgctx);
+            if (timed) {
+                long start = System.nanoTime();
+                pi = handler.invoke(msgctx);
+                metrics.recordHandler(msgctx, phaseName, handler,
+                                      System.nanoTime() - start);
+            } else {
+                pi = handler.invoke(msgctx);
+            }
 
             if (!pi.equals(InvocationResponse.CONTINUE)) {
+                if (timed) {
+                    metrics.recordPhase(msgctx, phaseName,
+                                        System.nanoTime() - phaseStart);
+                }
                 return pi;
             }
 
@@ -332,6 +349,10 @@ public class Phase implements Handler {
 
         msgctx.setCurrentPhaseIndex(0);
         checkPostConditions(msgctx);
+        if (timed) {
+            metrics.recordPhase(msgctx, phaseName,
+                                System.nanoTime() - phaseStart);
+        }
         return pi;
     }
 
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.monitoring;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.Handler;
+import org.apache.axis2.engine.Phase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latency of each phase and handler invocation, bucketed by service and
+ * operation. Each AxisConfiguration has its own instance. Phase and AxisEngine call
+ * {@link #getSampled(MessageContext)} before timing anything, and that is a single volatile
+ * read while metrics are disabled (the default).
+ * <p/>
+ * Metrics are switched on and off with the <code>handlerMetrics</code> parameter in axis2.xml,
+ * through JMX (<code>org.apache.axis2:type=HandlerMetrics</code>) or programmatically. For
+ * production use, <code>handlerMetricsSampleRate</code> records only one message in N. The
+ * decision is taken once per message and kept in its {@link #SAMPLED} property, so a sampled
+ * message is timed in every phase it goes through.
+ */
+public class HandlerMetrics implements HandlerMetricsMBean {
+
+    private static final Log log = LogFactory.getLog(HandlerMetrics.class);
+
+    /** Phase name used to record the message receiver of an operation */
+    public static final String MESSAGE_RECEIVER = "MessageReceiver";
+
+    /** Phase name used to record the transport sender */
+    public static final String TRANSPORT_SENDER = "TransportSender";
+
+    /** Name used for the service or operation of a message that has not been dispatched yet */
+    public static final String NOT_DISPATCHED = "-";
+
+    public static final String OBJECT_NAME = "org.apache.axis2:type=HandlerMetrics";
+
+    /** Message property holding the sampling decision of the message, a Boolean */
+    public static final String SAMPLED = "org.apache.axis2.monitoring.HandlerMetrics.sampled";
+
+    private static final AtomicInteger instances = new AtomicInteger();
+
+    private volatile boolean enabled;
+
+    private volatile int sampleRate = 1;
+
+    private final AtomicLong tick = new AtomicLong();
+
+    private ObjectName objectName;
+
+    /** service name -> operation name -> statistics */
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationMetrics>> services =
+            new ConcurrentHashMap<String, ConcurrentMap<String, OperationMetrics>>();
+
+    private final List<HandlerMetricsListener> listeners =
+            new CopyOnWriteArrayList<HandlerMetricsListener>();
+
+    /**
+     * Get the metrics of the configuration of a message if they are enabled and the message
+     * is sampled. The first call for a message decides whether it is sampled.
+     *
+     * @param msgContext the message being processed
+     * @return the metrics to record the message in, or null if it is not timed
+     */
+    public static HandlerMetrics getSampled(MessageContext msgContext) {
+        ConfigurationContext configContext = msgContext.getConfigurationContext();
+        if (configContext == null) {
+            return null;
+        }
+        HandlerMetrics metrics = configContext.getAxisConfiguration().getHandlerMetrics();
+        if (!metrics.enabled) {
+            return null;
+        }
+        Boolean sampled = (Boolean) msgContext.getProperty(SAMPLED);
+        if (sampled == null) {
+            int rate = metrics.sampleRate;
+            sampled = Boolean.valueOf(rate <= 1 || metrics.tick.incrementAndGet() % rate == 0);
+            msgContext.setProperty(SAMPLED, sampled);
+        }
+        return sampled.booleanValue() ? metrics : null;
+    }
+
+    /**
+     * Apply the handler metrics parameters of the given configuration. Metrics are enabled,
+     * and the MBean registered, only if the <code>handlerMetrics</code> parameter is true.
+     *
+     * @param axisConfig the AxisConfiguration
+     */
+    public void configure(AxisConfiguration axisConfig) {
+        Parameter rate = axisConfig.getParameter(Constants.Configuration.HANDLER_METRICS_SAMPLE_RATE);
+        if (rate != null) {
+            try {
+                setSampleRate(Integer.parseInt(((String) rate.getValue()).trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + Constants.Configuration.HANDLER_METRICS_SAMPLE_RATE +
+                        ": " + rate.getValue());
+            }
+        }
+        Parameter param = axisConfig.getParameter(Constants.Configuration.HANDLER_METRICS);
+        setEnabled(param != null && "true".equalsIgnoreCase(((String) param.getValue()).trim()));
+    }
+
+    /**
+     * Record the latency of a handler invocation.
+     *
+     * @param msgContext the message being processed
+     * @param phaseName  the name of the phase the handler belongs to
+     * @param handler    the handler
+     * @param nanos      the latency in nanoseconds
+     */
+    public void recordHandler(MessageContext msgContext, String phaseName, Handler handler,
+                              long nanos) {
+        String handlerName = null;
+        if (handler instanceof Phase) {
+            handlerName = handler.getName();
+        } else if (handler.getHandlerDesc() != null) {
+            handlerName = handler.getHandlerDesc().getName();
+        }
+        if (handlerName == null) {
+            handlerName = handler.getClass().getName();
+        }
+        record(msgContext, phaseName, handlerName, nanos);
+    }
+
+    /**
+     * Record the latency of a whole phase.
+     *
+     * @param msgContext the message being processed
+     * @param phaseName  the name of the phase
+     * @param nanos      the latency in nanoseconds
+     */
+    public void recordPhase(MessageContext msgContext, String phaseName, long nanos) {
+        record(msgContext, phaseName, null, nanos);
+    }
+
+    private void record(MessageContext msgContext, String phaseName, String handlerName,
+                        long nanos) {
+        AxisService service = msgContext.getAxisService();
+        AxisOperation operation = msgContext.getAxisOperation();
+        String serviceName = service == null ? NOT_DISPATCHED : service.getName();
+        String operationName = operation == null || operation.getName() == null
+                ? NOT_DISPATCHED : operation.getName().getLocalPart();
+
+        getOperationMetrics(serviceName, operationName).histogram(phaseName, handlerName)
+                .record(nanos);
+
+        if (!listeners.isEmpty()) {
+            for (Iterator<HandlerMetricsListener> it = listeners.iterator(); it.hasNext();) {
+                try {
+                    it.next().latencyRecorded(msgContext, phaseName, handlerName, nanos);
+                } catch (RuntimeException e) {
+                    log.warn("HandlerMetricsListener failed", e);
+                }
+            }
+        }
+    }
+
+    private OperationMetrics getOperationMetrics(String serviceName, String operationName) {
+        ConcurrentMap<String, OperationMetrics> operations = services.get(serviceName);
+        if (operations == null) {
+            operations = new ConcurrentHashMap<String, OperationMetrics>();
+            ConcurrentMap<String, OperationMetrics> existing =
+                    services.putIfAbsent(serviceName, operations);
+            if (existing != null) {
+                operations = existing;
+            }
+        }
+        OperationMetrics metrics = operations.get(operationName);
+        if (metrics == null) {
+            metrics = new OperationMetrics();
+            OperationMetrics existing = operations.putIfAbsent(operationName, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        return metrics;
+    }
+
+    public void addListener(HandlerMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(HandlerMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get a snapshot of every histogram, keyed by
+     * <code>service/operation/phase</code> for whole phases and
+     * <code>service/operation/phase/handler</code> for handlers.
+     *
+     * @return a sorted map of snapshots
+     */
+    public Map<String, LatencySnapshot> getSnapshots() {
+        Map<String, LatencySnapshot> snapshots = new TreeMap<String, LatencySnapshot>();
+        for (Map.Entry<String, ConcurrentMap<String, OperationMetrics>> service
+                : services.entrySet()) {
+            for (Map.Entry<String, OperationMetrics> operation : service.getValue().entrySet()) {
+                operation.getValue().collect(service.getKey() + "/" + operation.getKey(),
+                                             snapshots);
+            }
+        }
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enable) {
+        enabled = enable;
+        if (enable) {
+            registerMBean();
+        }
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int rate) {
+        sampleRate = rate < 1 ? 1 : rate;
+    }
+
+    public String[] getLatencySummary() {
+        Map<String, LatencySnapshot> snapshots = getSnapshots();
+        List<String> summary = new ArrayList<String>(snapshots.size());
+        for (Map.Entry<String, LatencySnapshot> entry : snapshots.entrySet()) {
+            summary.add(entry.getKey() + " " + entry.getValue());
+        }
+        return summary.toArray(new String[summary.size()]);
+    }
+
+    public void reset() {
+        services.clear();
+    }
+
+    private synchronized void registerMBean() {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                // another configuration of the JVM has the plain name
+                name = new ObjectName(OBJECT_NAME + ",instance=" + instances.incrementAndGet());
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (Exception e) {
+            // metrics are still available programmatically
+            log.warn("Unable to register " + OBJECT_NAME + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unregister the MBean, if it was registered. Called when the configuration is cleaned up.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            log.debug("Unable to unregister " + objectName + ": " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    /**
+     * The histograms of one operation: one per phase and one per handler.
+     */
+    private static class OperationMetrics {
+
+        private final ConcurrentMap<String, LatencyHistogram> phases =
+                new ConcurrentHashMap<String, LatencyHistogram>();
+
+        /** phase name -> handler name -> histogram */
+        private final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> handlers =
+                new ConcurrentHashMap<String, ConcurrentMap<String, LatencyHistogram>>();
+
+        LatencyHistogram histogram(String phaseName, String handlerName) {
+            ConcurrentMap<String, LatencyHistogram> map;
+            if (handlerName == null) {
+                map = phases;
+            } else {
+                map = handlers.get(phaseName);
+                if (map == null) {
+                    map = new ConcurrentHashMap<String, LatencyHistogram>();
+                    ConcurrentMap<String, LatencyHistogram> existing =
+                            handlers.putIfAbsent(phaseName, map);
+                    if (existing != null) {
+                        map = existing;
+                    }
+                }
+                phaseName = handlerName;
+            }
+            LatencyHistogram histogram = map.get(phaseName);
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                LatencyHistogram existing = map.putIfAbsent(phaseName, histogram);
+                if (existing != null) {
+                    histogram = existing;
+                }
+            }
+            return histogram;
+        }
+
+        void collect(String prefix, Map<String, LatencySnapshot> snapshots) {
+            for (Map.Entry<String, LatencyHistogram> phase : phases.entrySet()) {
+                snapshots.put(prefix + "/" + phase.getKey(), phase.getValue().snapshot());
+            }
+            for (Map.Entry<String, ConcurrentMap<String, LatencyHistogram>> phase
+                    : handlers.entrySet()) {
+                for (Map.Entry<String, LatencyHistogram> handler : phase.getValue().entrySet()) {
+                    snapshots.put(prefix + "/" + phase.getKey() + "/" + handler.getKey(),
+                                  handler.getValue().snapshot());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.monitoring;
+
+import org.apache.axis2.context.MessageContext;
+
+/**
+ * Receives the latencies recorded by {@link HandlerMetrics}. Listeners are called on the
+ * thread that processed the message, so implementations must be quick and thread safe.
+ */
+public interface HandlerMetricsListener {
+
+    /**
+     * Called for every sampled phase or handler invocation.
+     *
+     * @param msgContext  the message being processed
+     * @param phaseName   the name of the phase
+     * @param handlerName the name of the handler, or null if the latency is for the whole phase
+     * @param nanos       the latency in nanoseconds
+     */
+    void latencyRecorded(MessageContext msgContext, String phaseName, String handlerName,
+                         long nanos);
+}
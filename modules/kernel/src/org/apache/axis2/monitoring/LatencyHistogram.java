@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram. Latencies are counted in power-of-two nanosecond buckets, and
+ * the counters are striped by thread so that concurrent writers rarely touch the same cache
+ * line. There are at most {@link #MAX_STRIPES} stripes, since a histogram is kept for every
+ * service, operation, phase and handler. Reading the histogram merges the stripes into a
+ * {@link LatencySnapshot}.
+ */
+public class LatencyHistogram {
+
+    /** Number of buckets; bucket i holds latencies in [2^(i-1), 2^i) nanoseconds */
+    static final int BUCKETS = 64;
+
+    // per stripe layout: BUCKETS counters, then the count, the total and the maximum
+    private static final int COUNT = BUCKETS;
+    private static final int TOTAL = BUCKETS + 1;
+    private static final int MAX = BUCKETS + 2;
+    private static final int STRIPE_SIZE = BUCKETS + 3;
+
+    /** Upper bound of the number of stripes, about 2KB of counters per histogram */
+    static final int MAX_STRIPES = 4;
+
+    private static final int STRIPES;
+
+    static {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int stripes = 1;
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray[] stripes;
+
+    public LatencyHistogram() {
+        stripes = new AtomicLongArray[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(STRIPE_SIZE);
+        }
+    }
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        AtomicLongArray stripe =
+                stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        stripe.incrementAndGet(bucketFor(nanos));
+        stripe.incrementAndGet(COUNT);
+        stripe.addAndGet(TOTAL, nanos);
+        long max;
+        while (nanos > (max = stripe.get(MAX))) {
+            if (stripe.compareAndSet(MAX, max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return a merged view of all stripes. Writers are not blocked, so the snapshot may be
+     *         slightly inconsistent while latencies are being recorded.
+     */
+    public LatencySnapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            AtomicLongArray stripe = stripes[i];
+            for (int j = 0; j < BUCKETS; j++) {
+                buckets[j] += stripe.get(j);
+            }
+            count += stripe.get(COUNT);
+            total += stripe.get(TOTAL);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new LatencySnapshot(count, total, max, buckets);
+    }
+
+    public void reset() {
+        for (int i = 0; i < stripes.length; i++) {
+            for (int j = 0; j < STRIPE_SIZE; j++) {
+                stripes[i].set(j, 0);
+            }
+        }
+    }
+
+    static int bucketFor(long nanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.monitoring;
+
+/**
+ * An immutable view of a {@link LatencyHistogram}. All values are in nanoseconds. Percentiles
+ * are reported as the upper bound of the power-of-two bucket they fall in, so they are accurate
+ * to within a factor of two.
+ */
+public class LatencySnapshot {
+
+    private final long count;
+    private final long total;
+    private final long max;
+    private final long[] buckets;
+
+    LatencySnapshot(long count, long total, long max, long[] buckets) {
+        this.count = count;
+        this.total = total;
+        this.max = max;
+        this.buckets = buckets;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * @param percentile a value between 0 and 100
+     * @return the latency below which the given percentage of the recorded latencies fall
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank && buckets[i] > 0) {
+                return Math.min(max, i == 0 ? 0 : (1L << i) - 1);
+            }
+        }
+        return max;
+    }
+
+    public String toString() {
+        return "count=" + count + " mean=" + getMean() + "ns p50=" + getPercentile(50) +
+                "ns p99=" + getPercentile(99) + "ns max=" + max + "ns";
+    }
+}
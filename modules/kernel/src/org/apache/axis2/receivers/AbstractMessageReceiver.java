@@ -43,6 +43,7 @@ import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.Loader;
 import org.apache.axis2.util.MessageContextBuilder;
+import org.apache.axis2.util.threadpool.AsyncTask;
 import org.apache.axis2.wsdl.WSDLUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -53,6 +54,7 @@ import java.net.URL;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.RejectedExecutionException;
 
 public abstract class AbstractMessageReceiver implements MessageReceiver {
     protected static final Log log = LogFactory.getLog(AbstractMessageReceiver.class);
@@ -102,8 +104,12 @@ public abstract class AbstractMessageReceiver implements MessageReceiver {
 				AsyncMessageReceiverWorker worker = new AsyncMessageReceiverWorker(
 						messageCtx);
 				messageCtx.getEnvelope().build();
-				messageCtx.getConfigurationContext().getThreadPool().execute(
-						worker);
+				try {
+					messageCtx.getConfigurationContext().getThreadPool().execute(
+							worker);
+				} catch (RejectedExecutionException e) {
+					throw new AxisFault(Messages.getMessage("threadpoolrejected"), e);
+				}
 				return;
 			}
 		}
@@ -306,7 +312,7 @@ public abstract class AbstractMessageReceiver implements MessageReceiver {
         }
     }
 
-    public class AsyncMessageReceiverWorker implements Runnable {
+    public class AsyncMessageReceiverWorker implements AsyncTask {
     	private MessageContext messageCtx;
 
     	public AsyncMessageReceiverWorker(MessageContext messageCtx){
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport;
+
+import org.apache.axiom.soap.SOAP11Constants;
+import org.apache.axiom.soap.SOAP12Constants;
+import org.apache.axis2.Constants;
+import org.apache.axis2.builder.Builder;
+import org.apache.axis2.builder.BuilderUtil;
+import org.apache.axis2.builder.unknowncontent.UnknownContentBuilder;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.util.JavaUtils;
+
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses Content-Type and Accept header values once and remembers what they resolve to in an
+ * {@link AxisConfiguration}: the message builder, the message formatter, the character set
+ * encoding and the SOAP version. Each distinct header value is parsed only the first time it is
+ * seen, and the same {@link MediaType} is handed out for it afterwards.
+ * <p/>
+ * The registry is created by {@link AxisConfiguration#getMediaTypeRegistry()} and reads the
+ * {@link Constants.Configuration#USE_DEFAULT_FALLBACK_BUILDER} and
+ * {@link Constants.Configuration#ENABLE_HTTP_CONTENT_NEGOTIATION} parameters when it is created.
+ * It is discarded whenever a builder or formatter is registered. Values carrying a MIME boundary
+ * differ from message to message and are never remembered, and neither is anything once
+ * {@link #MAX_ENTRIES} values have been seen.
+ */
+public class MediaTypeRegistry {
+
+    public static final int MAX_ENTRIES = 256;
+
+    // Stands for "no formatter accepted" in the negotiated type map
+    private static final String NONE = "";
+
+    private final AxisConfiguration configuration;
+
+    private final boolean useFallbackBuilder;
+
+    private final boolean contentNegotiation;
+
+    private final Builder fallbackBuilder = new UnknownContentBuilder();
+
+    private final ConcurrentHashMap<String, MediaType> mediaTypes =
+            new ConcurrentHashMap<String, MediaType>();
+
+    private final ConcurrentHashMap<String, String> negotiatedTypes =
+            new ConcurrentHashMap<String, String>();
+
+    public MediaTypeRegistry(AxisConfiguration configuration) {
+        this.configuration = configuration;
+        useFallbackBuilder = JavaUtils.isTrueExplicitly(configuration.getParameterValue(
+                Constants.Configuration.USE_DEFAULT_FALLBACK_BUILDER));
+        contentNegotiation = JavaUtils.isTrueExplicitly(configuration.getParameterValue(
+                Constants.Configuration.ENABLE_HTTP_CONTENT_NEGOTIATION));
+    }
+
+    /**
+     * @param contentType a Content-Type value, with or without parameters
+     * @return the descriptor for the value, or null if contentType is null
+     */
+    public MediaType getMediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType mediaType = mediaTypes.get(contentType);
+        if (mediaType == null) {
+            int index = contentType.indexOf(';');
+            if (index == -1) {
+                mediaType = new MediaType(contentType, contentType,
+                                          configuration.getMessageBuilder(contentType),
+                                          configuration.getMessageFormatter(contentType));
+            } else {
+                MediaType baseType = getMediaType(contentType.substring(0, index).trim());
+                mediaType = new MediaType(contentType, baseType.getBaseType(),
+                                          baseType.builder, baseType.getMessageFormatter());
+            }
+            if (mediaTypes.size() < MAX_ENTRIES
+                    && JavaUtils.indexOfIgnoreCase(contentType, "boundary") == -1) {
+                MediaType existing = mediaTypes.putIfAbsent(contentType, mediaType);
+                if (existing != null) {
+                    mediaType = existing;
+                }
+            }
+        }
+        return mediaType;
+    }
+
+    /**
+     * Get the builder for a content type. Unlike {@link MediaType#getBuilder()}, this honours
+     * the {@link Constants.Configuration#USE_DEFAULT_FALLBACK_BUILDER} parameter.
+     *
+     * @param contentType the content type, which may be null
+     * @return the builder, or null if there is none
+     */
+    public Builder getBuilder(String contentType) {
+        Builder builder = contentType == null ? null : getMediaType(contentType).getBuilder();
+        if (builder == null && useFallbackBuilder) {
+            builder = fallbackBuilder;
+        }
+        return builder;
+    }
+
+    public boolean isContentNegotiationEnabled() {
+        return contentNegotiation;
+    }
+
+    /**
+     * Pick the message type for the response from an Accept header: the first of the accepted
+     * types, before any parameters, that has a formatter. text/xml is skipped, as it is ambiguous
+     * as to whether a SOAP 1.1 or a POX response is wanted.
+     *
+     * @param accept the value of the Accept header
+     * @return the message type, or null if content negotiation is disabled or no accepted type
+     *         has a formatter
+     */
+    public String getNegotiatedMessageType(String accept) {
+        if (!contentNegotiation || accept == null) {
+            return null;
+        }
+        String type = negotiatedTypes.get(accept);
+        if (type == null) {
+            type = NONE;
+            int index = accept.indexOf(';');
+            StringTokenizer tokenizer =
+                    new StringTokenizer(index > 0 ? accept.substring(0, index) : accept, ",");
+            while (tokenizer.hasMoreTokens()) {
+                String candidate = tokenizer.nextToken().trim();
+                if (!HTTPConstants.MEDIA_TYPE_TEXT_XML.equals(candidate)
+                        && configuration.getMessageFormatter(candidate) != null) {
+                    type = candidate;
+                    break;
+                }
+            }
+            if (negotiatedTypes.size() < MAX_ENTRIES) {
+                negotiatedTypes.put(accept, type);
+            }
+        }
+        return type == NONE ? null : type;
+    }
+
+    /**
+     * Find the SOAP version from a content type: application/soap+xml for SOAP 1.2 and text/xml
+     * for SOAP 1.1, either as the media type itself or as a parameter such as "type=".
+     *
+     * @param contentType the content type
+     * @return the SOAP envelope namespace, or null if the content type names neither
+     */
+    public static String getSOAPNamespaceURI(String contentType) {
+        if (JavaUtils.indexOfIgnoreCase(contentType, SOAP12Constants.SOAP_12_CONTENT_TYPE) > -1) {
+            return SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI;
+        } else if (JavaUtils.indexOfIgnoreCase(contentType,
+                                               SOAP11Constants.SOAP_11_CONTENT_TYPE) > -1) {
+            return SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI;
+        }
+        return null;
+    }
+
+    /**
+     * What a Content-Type value resolves to. The builder and formatter are those registered for
+     * the media type without its parameters.
+     */
+    public static final class MediaType {
+        private final String contentType;
+        private final String baseType;
+        private final String charSetEncoding;
+        private final String soapNamespaceURI;
+        private final Builder builder;
+        private final MessageFormatter messageFormatter;
+
+        MediaType(String contentType, String baseType, Builder builder,
+                  MessageFormatter messageFormatter) {
+            this.contentType = contentType;
+            this.baseType = baseType;
+            this.builder = builder;
+            this.messageFormatter = messageFormatter;
+            charSetEncoding = BuilderUtil.getCharSetEncoding(contentType);
+            soapNamespaceURI = MediaTypeRegistry.getSOAPNamespaceURI(contentType);
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return the media type without its parameters
+         */
+        public String getBaseType() {
+            return baseType;
+        }
+
+        /**
+         * @return the charset parameter, or {@link org.apache.axis2.context.MessageContext#DEFAULT_CHAR_SET_ENCODING}
+         *         if there is none
+         */
+        public String getCharSetEncoding() {
+            return charSetEncoding;
+        }
+
+        /**
+         * @return the SOAP envelope namespace, or null if this isn't a SOAP content type
+         */
+        public String getSOAPNamespaceURI() {
+            return soapNamespaceURI;
+        }
+
+        /**
+         * @return the registered builder, or null if there is none
+         */
+        public Builder getBuilder() {
+            return builder;
+        }
+
+        /**
+         * @return the registered formatter, or null if there is none
+         */
+        public MessageFormatter getMessageFormatter() {
+            return messageFormatter;
+        }
+    }
+}
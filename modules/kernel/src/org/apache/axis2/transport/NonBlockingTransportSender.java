@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport;
+
+import org.apache.axis2.context.MessageContext;
+
+/**
+ * A TransportSender that can send a request without waiting for the response, completing the
+ * exchange later from its own I/O thread. Non-blocking client invocations
+ * ({@link org.apache.axis2.client.OperationClient#executeAsync()}) use this instead of
+ * occupying a pooled thread for the whole round trip.
+ * <p/>
+ * When the outgoing MessageContext carries a {@link TransportResponseListener} in the
+ * {@link #RESPONSE_LISTENER} property, <code>invoke</code> must return as soon as the request
+ * has been handed over, and must call the listener exactly once when the response has arrived
+ * or the exchange has failed. Without the property the sender behaves like any other
+ * TransportSender.
+ */
+public interface NonBlockingTransportSender extends TransportSender {
+
+    /** MessageContext property holding the TransportResponseListener of a non-blocking send */
+    public static final String RESPONSE_LISTENER = "NonBlockingTransportSender.responseListener";
+
+    /**
+     * Check whether the given message can be sent without blocking. A sender may, for example,
+     * only support this for some endpoints.
+     *
+     * @param msgContext the outgoing MessageContext
+     * @return true if <code>invoke</code> honours the {@link #RESPONSE_LISTENER} property for
+     *         this message
+     */
+    public boolean isNonBlocking(MessageContext msgContext);
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport;
+
+import org.apache.axis2.context.MessageContext;
+
+/**
+ * Receives the outcome of a request sent by a {@link NonBlockingTransportSender}.
+ */
+public interface TransportResponseListener {
+
+    /**
+     * Called when the response has arrived. The sender must first set up the response on the
+     * request MessageContext as it would for a blocking send, i.e. set the
+     * {@link MessageContext#TRANSPORT_IN} stream and the transport headers.
+     *
+     * @param msgContext the request MessageContext
+     */
+    public void onResponse(MessageContext msgContext);
+
+    /**
+     * Called when the request could not be sent or no response could be read.
+     *
+     * @param msgContext the request MessageContext
+     * @param e          the cause of the failure
+     */
+    public void onError(MessageContext msgContext, Exception e);
+}
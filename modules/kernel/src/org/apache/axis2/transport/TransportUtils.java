@@ -29,7 +29,6 @@ import org.apache.axiom.om.OMOutputFormat;
 import org.apache.axiom.om.impl.builder.StAXBuilder;
 import org.apache.axiom.om.util.DetachableInputStream;
 import org.apache.axiom.soap.SOAP11Constants;
-import org.apache.axiom.soap.SOAP12Constants;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.impl.llom.soap11.SOAP11Factory;
@@ -63,6 +62,13 @@ public class TransportUtils {
 
     private static final Log log = LogFactory.getLog(TransportUtils.class);
 
+    // The default formatters are stateless, so a single instance of each is shared
+    private static final MessageFormatter SOAP_FORMATTER = new SOAPMessageFormatter();
+    private static final MessageFormatter APPLICATION_XML_FORMATTER =
+            new ApplicationXMLFormatter();
+    private static final MessageFormatter X_FORM_URL_ENCODED_FORMATTER =
+            new XFormURLEncodedFormatter();
+
     public static SOAPEnvelope createSOAPMessage(MessageContext msgContext) throws AxisFault {
         return createSOAPMessage(msgContext, false);
     }
@@ -99,7 +105,11 @@ public class TransportUtils {
             String charSetEnc = (String) msgContext
                     .getProperty(Constants.Configuration.CHARACTER_SET_ENCODING);
             if (charSetEnc == null && contentType != null) {
-                charSetEnc = BuilderUtil.getCharSetEncoding(contentType);
+                charSetEnc = msgContext.getConfigurationContext() == null
+                        ? BuilderUtil.getCharSetEncoding(contentType)
+                        : msgContext.getConfigurationContext().getAxisConfiguration()
+                                .getMediaTypeRegistry().getMediaType(contentType)
+                                .getCharSetEncoding();
             } else if (charSetEnc == null) {
                 charSetEnc = MessageContext.DEFAULT_CHAR_SET_ENCODING;
             }
@@ -325,13 +335,12 @@ public class TransportUtils {
                 String httpMethod = (String) msgContext.getProperty(Constants.Configuration.HTTP_METHOD);
                 if (Constants.Configuration.HTTP_METHOD_GET.equals(httpMethod) ||
                         Constants.Configuration.HTTP_METHOD_DELETE.equals(httpMethod)) {
-                    return new XFormURLEncodedFormatter();
+                    return X_FORM_URL_ENCODED_FORMATTER;
                 }
-                return new ApplicationXMLFormatter();
+                return APPLICATION_XML_FORMATTER;
             } else {
                 // Lets default to SOAP formatter
-                //TODO need to improve this to use the stateless nature
-                messageFormatter = new SOAPMessageFormatter();
+                messageFormatter = SOAP_FORMATTER;
             }
         }
         return messageFormatter;
@@ -367,15 +376,9 @@ public class TransportUtils {
             * Thilina: I merged (1) & (2)
             */
 
-            if (JavaUtils.indexOfIgnoreCase(contentType, SOAP12Constants.SOAP_12_CONTENT_TYPE) > -1)
-            {
-                returnNS = SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI;
-            }
-            // search for "type=text/xml"
-            else
-            if (JavaUtils.indexOfIgnoreCase(contentType, SOAP11Constants.SOAP_11_CONTENT_TYPE) > -1)
-            {
-                returnNS = SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI;
+            String soapNamespaceURI = MediaTypeRegistry.getSOAPNamespaceURI(contentType);
+            if (soapNamespaceURI != null) {
+                returnNS = soapNamespaceURI;
             }
         }
 
@@ -44,7 +44,8 @@ public class HTTPConstants {
     public static final String REQUEST_URI = "REQUEST_URI";
 
     /**
-     * Field RESPONSE_CODE
+     * Field RESPONSE_CODE. As a message context property (an Integer), the HTTP status the
+     * HTTP transport sender sends a response with.
      */
     public static final String RESPONSE_CODE = "RESPONSE_CODE";
 
@@ -444,6 +445,54 @@ public class HTTPConstants {
 
     public static final String MULTITHREAD_HTTP_CONNECTION_MANAGER = "MULTITHREAD_HTTP_CONNECTION_MANAGER";
 
+    /**
+     * Maximum number of connections the HTTP connection pool keeps to a single host. A parameter
+     * of the HTTP transport sender, read when the pool is created.
+     */
+    public static final String MAX_CONNECTIONS_PER_HOST = "MAX_CONNECTIONS_PER_HOST";
+
+    /**
+     * Maximum number of connections kept by the HTTP connection pool. A parameter of the HTTP
+     * transport sender, read when the pool is created.
+     */
+    public static final String MAX_TOTAL_CONNECTIONS = "MAX_TOTAL_CONNECTIONS";
+
+    /**
+     * Time in milliseconds after which an idle pooled HTTP connection is closed by a background
+     * task, which also evicts the connections closed by the other side. Read when the pool is
+     * created; no connection is evicted if it isn't set.
+     */
+    public static final String CONNECTION_IDLE_TIMEOUT = "CONNECTION_IDLE_TIMEOUT";
+
+    /**
+     * Time in milliseconds to wait for a pooled HTTP connection when the pool is exhausted. A
+     * parameter of the HTTP transport sender, which may be overridden for a message.
+     */
+    public static final String CONNECTION_POOL_TIMEOUT = "CONNECTION_POOL_TIMEOUT";
+
+    /**
+     * Field DEFAULT_CONNECTION_POOL_TIMEOUT
+     */
+    public static final int DEFAULT_CONNECTION_POOL_TIMEOUT = 30000;
+
+    /**
+     * Parameter of the HTTP/2 transport listener and sender: the maximum number of concurrent
+     * streams the other side may open on a connection.
+     */
+    public static final String HTTP2_MAX_CONCURRENT_STREAMS = "maxConcurrentStreams";
+
+    /**
+     * Parameter of the HTTP/2 transport listener and sender: the flow control window in bytes
+     * granted to the other side for each stream.
+     */
+    public static final String HTTP2_INITIAL_WINDOW_SIZE = "initialWindowSize";
+
+    /**
+     * Parameter of the HTTP/2 transport listener: the maximum number of connections open at the
+     * same time. Further connections are closed as soon as they are accepted.
+     */
+    public static final String HTTP2_MAX_CONNECTIONS = "maxConnections";
+
     /**
      * Field CACHED_HTTP_CLIENT
      */
@@ -513,6 +562,34 @@ public class HTTPConstants {
      */
     public static final String AUTO_RELEASE_CONNECTION = "AutoReleaseConnection" ;
 
+    /**
+     * Service parameter that turns on pass-through mode for a service: the raw bytes of a request
+     * are kept, and are sent on as they are unless a handler has touched the SOAP body.
+     */
+    public static final String PASS_THROUGH = "passThrough";
+
+    /**
+     * Service parameter holding the URL that the PassThroughMessageReceiver forwards requests to.
+     */
+    public static final String PASS_THROUGH_TARGET = "passThroughTarget";
+
+    /**
+     * Message context property holding the raw message of a pass-through request or response.
+     */
+    public static final String PASS_THROUGH_MESSAGE = "PASS_THROUGH_MESSAGE";
+
+    /**
+     * Service parameter giving the maximum number of bytes of a pass-through request or response
+     * that are buffered. A longer request is processed like any other; a longer response is
+     * rejected.
+     */
+    public static final String PASS_THROUGH_MAX_SIZE = "passThroughMaxSize";
+
+    /**
+     * Default value of {@link #PASS_THROUGH_MAX_SIZE}: 1 MB.
+     */
+    public static final int DEFAULT_PASS_THROUGH_MAX_SIZE = 1024 * 1024;
+
     /**
      * Method getBytes.
      *
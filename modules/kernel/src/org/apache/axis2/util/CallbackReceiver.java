@@ -21,63 +21,277 @@ package org.apache.axis2.util;
 
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
 import org.apache.axis2.addressing.RelatesTo;
 import org.apache.axis2.client.async.AsyncResult;
 import org.apache.axis2.client.async.AxisCallback;
 import org.apache.axis2.client.async.Callback;
+import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.Parameter;
 import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.i18n.Messages;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is a MessageReceiver which is used on the client side to accept the
  * messages (response) that come to the client. This correlates the incoming message to
  * the related messages and makes a call to the appropriate callback.
+ * <p/>
+ * Callbacks can be registered with a deadline. If no response has arrived by then (for example
+ * because a reply on a separate channel was lost), the callback is removed and told about the
+ * timeout through onError, so that lost replies don't accumulate. The deadlines are kept on the
+ * ConfigurationContext's {@link TimeoutWheel}. The number of pending callbacks is bounded by the
+ * <code>callbackReceiverMaxPending</code> parameter in axis2.xml.
+ * <p/>
+ * Timeouts are reported to the callbacks by a few dedicated notifier threads, never by the
+ * thread of the timeout wheel nor by the thread pool of the configuration, which may be
+ * saturated. The notifications queue up while the notifier threads are busy; as each one is for
+ * a callback that was pending, the queue is bounded by the number of pending callbacks.
  */
 public class CallbackReceiver implements MessageReceiver {
 
 	private static final Log log = LogFactory.getLog(CallbackReceiver.class);
 	
     public static String SERVICE_NAME = "ClientService";
+
+    /** The default bound on the number of pending callbacks */
+    public static final int DEFAULT_MAX_PENDING = 100000;
+
+    /** The number of threads notifying callbacks of timeouts */
+    public static final int NOTIFIER_THREADS = 2;
+
+    /** Used by receivers that are not attached to a ConfigurationContext */
+    private static TimeoutWheel defaultTimeoutWheel;
+
+    /** Notifies callbacks of timeouts, for all receivers; its daemon threads start on demand */
+    private static ThreadPoolExecutor notifier;
+
     private ConcurrentHashMap callbackStore;
 
+    /** The deadlines of the callbacks registered with a timeout, by message ID */
+    private final ConcurrentHashMap<String, TimeoutWheel.Timeout> timeouts =
+            new ConcurrentHashMap<String, TimeoutWheel.Timeout>();
+
+    private final ConfigurationContext configContext;
+
+    private final int maxPending;
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
     public CallbackReceiver() {
+        this(null);
+    }
+
+    /**
+     * @param configContext the ConfigurationContext whose timeout wheel is used to expire
+     *                      callbacks, and whose configuration bounds the number of pending
+     *                      callbacks; may be null
+     */
+    public CallbackReceiver(ConfigurationContext configContext) {
+        this.configContext = configContext;
+        this.maxPending = getMaxPending(configContext);
         callbackStore = new ConcurrentHashMap();
     }
 
+    private static int getMaxPending(ConfigurationContext configContext) {
+        if (configContext == null || configContext.getAxisConfiguration() == null) {
+            return DEFAULT_MAX_PENDING;
+        }
+        Parameter param = configContext.getAxisConfiguration().getParameter(
+                Constants.Configuration.CALLBACK_RECEIVER_MAX_PENDING);
+        if (param != null && param.getValue() != null) {
+            try {
+                return Integer.parseInt(param.getValue().toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " +
+                        Constants.Configuration.CALLBACK_RECEIVER_MAX_PENDING + ": " +
+                        param.getValue());
+            }
+        }
+        return DEFAULT_MAX_PENDING;
+    }
+
     public void addCallback(String msgID, Callback callback) throws AxisFault {
-    	putIfAbsent(msgID, callback);
+    	putIfAbsent(msgID, callback, 0);
     }
 
     public void addCallback(String msgID, AxisCallback callback) throws AxisFault {
-    	putIfAbsent(msgID, callback);
+    	putIfAbsent(msgID, callback, 0);
     }
-    
+
+    /**
+     * Register a callback that is notified of a timeout if no response arrives within the
+     * given time.
+     *
+     * @param msgID         the message ID of the request
+     * @param callback      the callback
+     * @param timeoutMillis the timeout in milliseconds; 0 or less for no timeout
+     * @throws AxisFault if the message ID is a duplicate or too many callbacks are pending
+     */
+    public void addCallback(String msgID, Callback callback, long timeoutMillis)
+            throws AxisFault {
+        putIfAbsent(msgID, callback, timeoutMillis);
+    }
+
+    /**
+     * Register a callback that is notified of a timeout if no response arrives within the
+     * given time.
+     *
+     * @param msgID         the message ID of the request
+     * @param callback      the callback
+     * @param timeoutMillis the timeout in milliseconds; 0 or less for no timeout
+     * @throws AxisFault if the message ID is a duplicate or too many callbacks are pending
+     */
+    public void addCallback(String msgID, AxisCallback callback, long timeoutMillis)
+            throws AxisFault {
+        putIfAbsent(msgID, callback, timeoutMillis);
+    }
+
     /**
      * Inserts the specified key, value into the callback map. It throws an
      * exception if the message id was a duplicate.
      * 
      * @param msgID The message id.
      * @param callback The callback object.
-     * @throws AxisFault If the message id was a duplicate.
+     * @param timeoutMillis The timeout, if positive.
+     * @throws AxisFault If the message id was a duplicate or the table is full.
      */
-    private void putIfAbsent(String msgID, Object callback) throws AxisFault {
+    private void putIfAbsent(final String msgID, final Object callback, long timeoutMillis)
+            throws AxisFault {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            throw new AxisFault(Messages.getMessage("tooManyPendingCallbacks",
+                    String.valueOf(maxPending)));
+        }
     	if (callbackStore.putIfAbsent(msgID, callback) == null) {
     		if (log.isDebugEnabled()) {
                 log.debug("CallbackReceiver: add callback " + msgID + ", " + callback + " ," + this);
             }
     	} else {
+            pendingCount.decrementAndGet();
     		throw new AxisFault("The Callback for MessageID " + msgID + " is a duplicate");
     	}
+        if (timeoutMillis > 0) {
+            TimeoutWheel.Timeout timeout = getTimeoutWheel().schedule(new Runnable() {
+                public void run() {
+                    expire(msgID, callback);
+                }
+            }, timeoutMillis);
+            timeouts.put(msgID, timeout);
+            if (!callbackStore.containsKey(msgID)) {
+                // the response beat us to it
+                cancelTimeout(msgID);
+            }
+        }
+    }
+
+    private TimeoutWheel getTimeoutWheel() {
+        if (configContext != null) {
+            return configContext.getTimeoutWheel();
+        }
+        synchronized (CallbackReceiver.class) {
+            if (defaultTimeoutWheel == null) {
+                defaultTimeoutWheel = new TimeoutWheel("Axis2 CallbackReceiver timeout wheel");
+            }
+            return defaultTimeoutWheel;
+        }
+    }
+
+    private Object remove(String msgID) {
+        Object o = callbackStore.remove(msgID);
+        if (o != null) {
+            pendingCount.decrementAndGet();
+            cancelTimeout(msgID);
+        }
+        return o;
+    }
+
+    private void cancelTimeout(String msgID) {
+        TimeoutWheel.Timeout timeout = timeouts.remove(msgID);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getNotifier() {
+        if (notifier == null) {
+            notifier = new ThreadPoolExecutor(NOTIFIER_THREADS, NOTIFIER_THREADS, 0,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "Axis2 CallbackReceiver notifier");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        return notifier;
+    }
+
+    /**
+     * Called on the timeout wheel when a deadline passes. The callback is only notified if it
+     * is still waiting; the notification itself is handed to the notifier threads, as callbacks
+     * are application code.
+     */
+    private void expire(final String msgID, final Object callback) {
+        timeouts.remove(msgID);
+        if (!callbackStore.remove(msgID, callback)) {
+            return;
+        }
+        pendingCount.decrementAndGet();
+        expiredCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("CallbackReceiver: callback " + msgID + " timed out, " + this);
+        }
+        if (configContext != null) {
+            configContext.unregisterOperationContext(msgID);
+        }
+        getNotifier().execute(new Runnable() {
+            public void run() {
+                notifyTimeout(callback);
+            }
+        });
+    }
+
+    private static void notifyTimeout(Object callbackObj) {
+        AxisFault fault = new AxisFault(Messages.getMessage("responseTimeOut"));
+        try {
+            if (callbackObj instanceof AxisCallback) {
+                AxisCallback axisCallback = (AxisCallback) callbackObj;
+                axisCallback.onError(fault);
+                axisCallback.onComplete();
+            } else {
+                Callback callback = (Callback) callbackObj;
+                try {
+                    callback.onError(fault);
+                } finally {
+                    callback.setComplete(true);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Callback " + callbackObj + " failed to handle a timeout", e);
+        }
     }
 
     public Object lookupCallback(String msgID) {
-		Object o = callbackStore.remove(msgID);
+		Object o = remove(msgID);
 		if (log.isDebugEnabled()) log.debug("CallbackReceiver: lookup callback " + msgID + ", " + o + " ," + this);
         return o;
     }
@@ -89,7 +303,7 @@ public class CallbackReceiver implements MessageReceiver {
         }
         String messageID = relatesTO.getValue();
 
-        Object callbackObj = callbackStore.remove(messageID);
+        Object callbackObj = remove(messageID);
 		if (log.isDebugEnabled()) log.debug("CallbackReceiver: receive found callback " + callbackObj + ", " + messageID + ", " + this + ", " + msgContext.getAxisOperation());
 
         if (callbackObj == null) {
@@ -137,8 +351,40 @@ public class CallbackReceiver implements MessageReceiver {
         }
     }
 
-    //to get the pending request
+    /**
+     * @return a read-only view of the pending callbacks, by message ID; use
+     *         {@link #lookupCallback} to remove one
+     */
     public Map getCallbackStore() {
-        return callbackStore;
+        return Collections.unmodifiableMap(callbackStore);
+    }
+
+    /**
+     * @return the number of callbacks waiting for a response
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return the number of callbacks that timed out before a response arrived
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return the number of callbacks that could not be registered because too many were
+     *         pending
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return the maximum number of pending callbacks
+     */
+    public int getMaxPending() {
+        return maxPending;
     }
 }
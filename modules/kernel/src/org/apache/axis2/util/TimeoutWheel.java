@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A hashed timing wheel for the many short-lived deadlines of in-flight requests. Scheduling and
+ * cancelling a timeout are constant time and never block; a single daemon thread advances the
+ * wheel one tick at a time and runs the tasks whose deadline has passed. Deadlines are therefore
+ * only accurate to one tick, which is fine for request timeouts but not for precise scheduling.
+ * <p/>
+ * Tasks run on the wheel thread and must be short; anything slow should be handed to another
+ * executor. The thread is started with the first timeout and stopped by {@link #shutdown()};
+ * scheduling another timeout after a shutdown starts a new one.
+ */
+public class TimeoutWheel {
+
+    private static final OnDemandLogger log = new OnDemandLogger(TimeoutWheel.class);
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final String name;
+
+    private final long tickMillis;
+
+    private final int wheelSize;
+
+    private Worker worker;
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    /**
+     * @param name       the name of the wheel thread
+     * @param tickMillis the length of a tick, i.e. the accuracy of the deadlines
+     * @param wheelSize  the number of buckets; rounded up to a power of two
+     */
+    public TimeoutWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.name = name;
+        this.tickMillis = tickMillis;
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheelSize = size;
+    }
+
+    /**
+     * Create a wheel with a 100ms tick and 512 buckets, i.e. one revolution every 51.2 seconds.
+     *
+     * @param name the name of the wheel thread
+     */
+    public TimeoutWheel(String name) {
+        this(name, 100, 512);
+    }
+
+    /**
+     * Run the given task once the delay has passed, unless the returned timeout is cancelled
+     * first.
+     *
+     * @param task        the task to run on the wheel thread
+     * @param delayMillis the delay in milliseconds
+     * @return the timeout, which can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        Timeout timeout = new Timeout(this, task,
+                System.currentTimeMillis() + Math.max(delayMillis, 0));
+        pendingCount.incrementAndGet();
+        start().additions.add(timeout);
+        return timeout;
+    }
+
+    private synchronized Worker start() {
+        if (worker == null) {
+            worker = new Worker();
+            Thread thread = new Thread(worker, name);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            thread.start();
+        }
+        return worker;
+    }
+
+    /**
+     * Stop the wheel thread. Timeouts that have not expired yet are cancelled without running
+     * their task.
+     */
+    public synchronized void shutdown() {
+        if (worker != null) {
+            worker.stopped = true;
+            worker.thread.interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * @return the number of timeouts that are neither cancelled nor expired
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * @return the number of timeouts whose task has been run
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * A scheduled task.
+     */
+    public static final class Timeout {
+        private final TimeoutWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private volatile Worker worker;
+
+        // the following are only used by the wheel thread
+        private long remainingRounds;
+        private int bucket = -1;
+        private Timeout previous;
+        private Timeout next;
+
+        Timeout(TimeoutWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the timeout.
+         *
+         * @return true if the task will not run; false if it has already run or was cancelled
+         *         before
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            wheel.pendingCount.decrementAndGet();
+            Worker w = worker;
+            if (w != null) {
+                // let the wheel thread unlink it, so that long timeouts don't linger
+                w.cancellations.add(this);
+            }
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        /**
+         * @return the time (in milliseconds) at which the task is due
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+
+    private class Worker implements Runnable {
+        final ConcurrentLinkedQueue<Timeout> additions = new ConcurrentLinkedQueue<Timeout>();
+        final ConcurrentLinkedQueue<Timeout> cancellations = new ConcurrentLinkedQueue<Timeout>();
+        final Timeout[] buckets = new Timeout[wheelSize];
+        volatile boolean stopped;
+        Thread thread;
+        long startTime;
+        long tick;
+
+        public void run() {
+            startTime = System.currentTimeMillis();
+            try {
+                while (!stopped) {
+                    long sleep = startTime + (tick + 1) * tickMillis - System.currentTimeMillis();
+                    if (sleep > 0) {
+                        try {
+                            Thread.sleep(sleep);
+                        } catch (InterruptedException e) {
+                            continue;
+                        }
+                    }
+                    transferAdditions();
+                    processCancellations();
+                    expire(buckets[(int) (tick & (wheelSize - 1))]);
+                    tick++;
+                }
+            } finally {
+                discard();
+            }
+        }
+
+        private void transferAdditions() {
+            Timeout timeout;
+            while ((timeout = additions.poll()) != null) {
+                timeout.worker = this;
+                if (timeout.state.get() != INIT) {
+                    continue;
+                }
+                long due = (timeout.deadline - startTime) / tickMillis;
+                timeout.remainingRounds = (due - tick) / wheelSize;
+                // anything already overdue goes into the current bucket
+                link(timeout, (int) (Math.max(due, tick) & (wheelSize - 1)));
+            }
+        }
+
+        private void processCancellations() {
+            Timeout timeout;
+            while ((timeout = cancellations.poll()) != null) {
+                if (timeout.bucket >= 0) {
+                    unlink(timeout);
+                }
+            }
+        }
+
+        private void expire(Timeout timeout) {
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() != INIT) {
+                    unlink(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    unlink(timeout);
+                    if (timeout.state.compareAndSet(INIT, EXPIRED)) {
+                        pendingCount.decrementAndGet();
+                        expiredCount.incrementAndGet();
+                        try {
+                            timeout.task.run();
+                        } catch (Throwable t) {
+                            log.warn("Timeout task " + timeout.task + " failed", t);
+                        }
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void discard() {
+            for (int i = 0; i < buckets.length; i++) {
+                for (Timeout timeout = buckets[i]; timeout != null; timeout = timeout.next) {
+                    discard(timeout);
+                }
+                buckets[i] = null;
+            }
+            Timeout timeout;
+            while ((timeout = additions.poll()) != null) {
+                discard(timeout);
+            }
+            cancellations.clear();
+        }
+
+        private void discard(Timeout timeout) {
+            if (timeout.state.compareAndSet(INIT, CANCELLED)) {
+                pendingCount.decrementAndGet();
+            }
+        }
+
+        private void link(Timeout timeout, int bucket) {
+            timeout.bucket = bucket;
+            timeout.previous = null;
+            timeout.next = buckets[bucket];
+            if (timeout.next != null) {
+                timeout.next.previous = timeout;
+            }
+            buckets[bucket] = timeout;
+        }
+
+        private void unlink(Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                buckets[timeout.bucket] = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = -1;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 
 package org.apache.axis2.util;
 
+import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.util.UUIDGenerator;
 import org.apache.axiom.soap.SOAPBody;
 import org.apache.axiom.soap.SOAPEnvelope;
@@ -193,6 +194,28 @@ public class Utils {
         return serviceGroupContext.getServiceContext(axisService);
     }
 
+    /**
+     * Get the name of the first element in the SOAP body without building it. While the body
+     * has not been built yet, Axiom reads the name by looking ahead on the StAX cursor, so the
+     * element (and everything after it) is left for the message receiver, which may stream it.
+     * Otherwise the name comes from the element that is already there.
+     *
+     * @param envelope the envelope, may be null
+     * @return the QName of the first body element (with an empty namespace URI if the element
+     *         is unqualified), or null if there is no envelope or the body is empty
+     */
+    public static QName getSOAPBodyFirstElementQName(SOAPEnvelope envelope) {
+        if (envelope == null) {
+            return null;
+        }
+        String localName = envelope.getSOAPBodyFirstElementLocalName();
+        if (localName == null) {
+            return null;
+        }
+        OMNamespace ns = envelope.getSOAPBodyFirstElementNS();
+        return new QName(ns == null ? "" : ns.getNamespaceURI(), localName);
+    }
+
     /**
      * Break a full path into pieces
      *
@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.util.threadpool;
+
+/**
+ * Marks a task handed to a {@link ThreadPool} on behalf of a caller that does not wait for
+ * it, such as the worker of a non-blocking invocation. When the pool is saturated such a task
+ * is never run by the submitting thread nor discarded, whatever the rejection policy: unless
+ * the policy is <code>block</code>, the pool throws a
+ * {@link java.util.concurrent.RejectedExecutionException} so that the caller can report a
+ * fault to whoever is waiting for the result.
+ */
+public interface AsyncTask extends Runnable {
+}
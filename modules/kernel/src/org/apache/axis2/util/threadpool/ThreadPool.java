@@ -26,40 +26,70 @@ import org.apache.axis2.java.security.AccessController;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.lang.reflect.Method;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This the thread pool for axis2. This class will be used a singleton
  * across axis2 engine. <code>ThreadPool</code> is accepts <code>AxisWorkers</code> which has
  * run method on them and execute this method, using one of the threads
  * in the thread pool.
+ * <p/>
+ * The pool is built from a {@link ThreadPoolProfile}, which decides how far the pool may grow,
+ * how many tasks may queue and what happens to a task once the pool is saturated. The
+ * ConfigurationContext builds its pool from the profile configured in axis2.xml. The active,
+ * queued and rejected task counts are available for monitoring.
  */
 public class ThreadPool implements ThreadFactory {
     private static final Log log = LogFactory.getLog(ThreadPool.class);
     protected static long SLEEP_INTERVAL = 1000;
-    private static boolean shutDown;
+    private volatile boolean shutDown;
     protected ThreadPoolExecutor executor;
 
-    //integers that define the pool size, with the default values set.
-    private int corePoolSize = 5;
-    private int maxPoolSize = Integer.MAX_VALUE;
+    private final ThreadPoolProfile profile;
+    private final AtomicLong rejectedCount = new AtomicLong();
 
     public ThreadPool() {
-        setExecutor(createDefaultExecutor("Axis2 Task", Thread.NORM_PRIORITY, true));
+        this(new ThreadPoolProfile());
     }
 
+    /**
+     * Create a pool with the behaviour of earlier releases: the pool grows without limit if
+     * <code>maxPoolSize</code> is <code>Integer.MAX_VALUE</code>, and otherwise queues tasks
+     * without limit once <code>maxPoolSize</code> threads exist.
+     */
     public ThreadPool(int corePoolSize, int maxPoolSize) {
-        this.corePoolSize = corePoolSize;
-        this.maxPoolSize = maxPoolSize;
+        this(legacyProfile(corePoolSize, maxPoolSize));
+    }
+
+    public ThreadPool(ThreadPoolProfile profile) {
+        this.profile = profile;
         setExecutor(createDefaultExecutor("Axis2 Task", Thread.NORM_PRIORITY, true));
     }
 
+    private static ThreadPoolProfile legacyProfile(int corePoolSize, int maxPoolSize) {
+        ThreadPoolProfile profile = new ThreadPoolProfile(ThreadPoolProfile.LEGACY);
+        profile.setCorePoolSize(corePoolSize);
+        profile.setMaxPoolSize(maxPoolSize);
+        profile.setQueueCapacity(maxPoolSize == Integer.MAX_VALUE ? 0 : -1);
+        return profile;
+    }
+
+    public ThreadPoolProfile getProfile() {
+        return profile;
+    }
+
     public Executor getExecutor() {
         return executor;
     }
@@ -68,6 +98,12 @@ public class ThreadPool implements ThreadFactory {
         this.executor = executor;
     }
 
+    /**
+     * Run the given task on a pool thread. What happens when the pool is saturated depends on
+     * the rejection policy of the profile; with the abort policy a
+     * {@link RejectedExecutionException} is thrown. An {@link AsyncTask} is rejected the same
+     * way unless the policy is to block, so it is neither run by the caller nor discarded.
+     */
     public void execute(Runnable worker) {
         if (shutDown) {
             throw new RuntimeException(Messages.getMessage("threadpoolshutdown"));
@@ -75,6 +111,43 @@ public class ThreadPool implements ThreadFactory {
         executor.execute(worker);
     }
 
+    /**
+     * @return the approximate number of threads that are running tasks
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return the number of tasks waiting for a thread
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return the number of tasks the pool could not accept, whatever the rejection policy
+     *         then did with them
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return the approximate number of tasks that have completed
+     */
+    public long getCompletedTaskCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    public int getLargestPoolSize() {
+        return executor.getLargestPoolSize();
+    }
+
     /**
      * A forceful shutdown mechanism for thread pool.
      */
@@ -82,6 +155,7 @@ public class ThreadPool implements ThreadFactory {
         if (log.isDebugEnabled()) {
             log.debug("forceShutDown called. Thread workers will be stopped");
         }
+        shutDown = true;
         executor.shutdownNow();
     }
 
@@ -93,31 +167,142 @@ public class ThreadPool implements ThreadFactory {
      * @throws org.apache.axis2.AxisFault
      */
     public void safeShutDown() throws AxisFault {
-        synchronized (this) {
-            shutDown = true;
-        }
-
+        shutDown = true;
         executor.shutdown();
     }
 
     protected ThreadPoolExecutor createDefaultExecutor(final String name,
                                                        final int priority,
                                                        final boolean daemon) {
-        ThreadPoolExecutor rc;
-        if (maxPoolSize == Integer.MAX_VALUE) {
-            rc = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 10,
-                    TimeUnit.SECONDS, new SynchronousQueue(),
-                    new DefaultThreadFactory(name, daemon, priority));
+        ThreadPoolProfile settings = profile;
+        java.util.concurrent.ThreadFactory threadFactory = null;
+        if (settings.isVirtualThreads()) {
+            threadFactory = createVirtualThreadFactory(name);
+            if (threadFactory == null) {
+                log.warn("Virtual threads are not supported by this JVM; using platform threads");
+                if (ThreadPoolProfile.VIRTUAL.equals(settings.getName())) {
+                    settings = new ThreadPoolProfile(ThreadPoolProfile.BOUNDED);
+                }
+            }
+        }
+        if (threadFactory == null) {
+            threadFactory = new DefaultThreadFactory(name, daemon, priority);
+        }
+
+        BlockingQueue<Runnable> queue;
+        if (settings.getQueueCapacity() == 0) {
+            queue = new SynchronousQueue<Runnable>();
+        } else if (settings.getQueueCapacity() < 0) {
+            queue = new LinkedBlockingQueue<Runnable>();
         } else {
-            rc = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 10,
-                    TimeUnit.SECONDS, new LinkedBlockingQueue(),
-                    new DefaultThreadFactory(name, daemon, priority));
+            queue = new ArrayBlockingQueue<Runnable>(settings.getQueueCapacity());
+        }
+
+        ThreadPoolExecutor rc = new ThreadPoolExecutor(settings.getCorePoolSize(),
+                settings.getMaxPoolSize(), settings.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                queue, threadFactory,
+                new CountingRejectionHandler(createRejectionHandler(settings)));
+        if (settings.isAllowCoreThreadTimeOut()) {
+            allowCoreThreadTimeOut(rc);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Created thread pool " + settings);
         }
-// FIXME: This API is only in JDK 1.6 - Use reflection?        
-//        rc.allowCoreThreadTimeOut(true);
         return rc;
     }
 
+    private static RejectedExecutionHandler createRejectionHandler(ThreadPoolProfile settings) {
+        String policy = settings.getRejectionPolicy();
+        if (ThreadPoolProfile.REJECT_CALLER_RUNS.equals(policy)) {
+            return new ThreadPoolExecutor.CallerRunsPolicy();
+        } else if (ThreadPoolProfile.REJECT_BLOCK.equals(policy)) {
+            return new BlockPolicy();
+        } else if (ThreadPoolProfile.REJECT_DISCARD.equals(policy)) {
+            return new DiscardPolicy();
+        }
+        return new ThreadPoolExecutor.AbortPolicy();
+    }
+
+    // ThreadPoolExecutor.allowCoreThreadTimeOut is only available from JDK 1.6
+    private static void allowCoreThreadTimeOut(ThreadPoolExecutor executor) {
+        try {
+            Method method = ThreadPoolExecutor.class.getMethod("allowCoreThreadTimeOut",
+                    new Class[] { boolean.class });
+            method.invoke(executor, new Object[] { Boolean.TRUE });
+        } catch (Exception e) {
+            log.warn("Core thread time out is not supported by this JVM");
+        }
+    }
+
+    /**
+     * Look up <code>Thread.ofVirtual().name(name, 0).factory()</code> reflectively, as virtual
+     * threads only exist on recent JVMs.
+     *
+     * @return a factory creating virtual threads, or null if they are not supported
+     */
+    private static java.util.concurrent.ThreadFactory createVirtualThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual", new Class[0])
+                    .invoke(null, new Object[0]);
+            Class builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", new Class[] { String.class, long.class })
+                    .invoke(builder, new Object[] { name + "-", new Long(0) });
+            return (java.util.concurrent.ThreadFactory)
+                    builderClass.getMethod("factory", new Class[0]).invoke(builder, new Object[0]);
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Virtual threads are not available", e);
+            }
+            return null;
+        }
+    }
+
+    private class CountingRejectionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler policy;
+
+        CountingRejectionHandler(RejectedExecutionHandler policy) {
+            this.policy = policy;
+        }
+
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            rejectedCount.incrementAndGet();
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException(Messages.getMessage("threadpoolshutdown"));
+            }
+            if (r instanceof AsyncTask && !(policy instanceof BlockPolicy)
+                    && !(policy instanceof ThreadPoolExecutor.AbortPolicy)) {
+                // never run a task the caller does not wait for inline, and never drop it
+                throw new RejectedExecutionException(Messages.getMessage("threadpoolrejected"));
+            }
+            policy.rejectedExecution(r, executor);
+        }
+    }
+
+    /**
+     * Makes the submitting thread wait until the pool can take the task.
+     */
+    private static class BlockPolicy implements RejectedExecutionHandler {
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            try {
+                while (!executor.getQueue().offer(r, SLEEP_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException(
+                                Messages.getMessage("threadpoolshutdown"));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+        }
+    }
+
+    private static class DiscardPolicy implements RejectedExecutionHandler {
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            log.warn(Messages.getMessage("threadpoolrejected") + " Discarding " + r);
+        }
+    }
+
     private static class DefaultThreadFactory implements java.util.concurrent.ThreadFactory {
         private final String name;
         private final boolean daemon;
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util.threadpool;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.i18n.Messages;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The settings a {@link ThreadPool} is built from. A profile starts from one of the named
+ * presets and can then be adjusted individually, either programmatically or through the
+ * <code>threadPool*</code> parameters in axis2.xml (see {@link #fromConfiguration}).
+ * <ul>
+ * <li><code>bounded</code> (the default): 5 core threads growing to 100, tasks handed
+ * directly to a thread, and tasks are rejected once all threads are busy, which the callers
+ * report as a fault. This bounds the number of threads instead of creating them without
+ * limit.</li>
+ * <li><code>legacy</code>: the pool used by earlier releases; threads are created without
+ * limit.</li>
+ * <li><code>virtual</code>: a new virtual thread for every task, on JVMs that support them.
+ * Other JVMs fall back to the bounded settings.</li>
+ * </ul>
+ */
+public class ThreadPoolProfile {
+
+    private static final Log log = LogFactory.getLog(ThreadPoolProfile.class);
+
+    public static final String LEGACY = "legacy";
+    public static final String BOUNDED = "bounded";
+    public static final String VIRTUAL = "virtual";
+
+    /** Throw a RejectedExecutionException; the callers turn it into an AxisFault */
+    public static final String REJECT_ABORT = "abort";
+    /**
+     * Run the task in the thread that submitted it. An {@link AsyncTask} is rejected instead,
+     * as its caller does not expect to run it.
+     */
+    public static final String REJECT_CALLER_RUNS = "callerRuns";
+    /** Block the submitting thread until the pool accepts the task */
+    public static final String REJECT_BLOCK = "block";
+    /** Drop the task, logging a warning. An {@link AsyncTask} is rejected instead. */
+    public static final String REJECT_DISCARD = "discard";
+
+    private String name;
+    private int corePoolSize = 5;
+    private int maxPoolSize = 100;
+    private int queueCapacity = 0;
+    private long keepAliveSeconds = 10;
+    private boolean allowCoreThreadTimeOut;
+    private String rejectionPolicy = REJECT_ABORT;
+    private boolean virtualThreads;
+
+    /**
+     * Create a profile with the settings of the given preset.
+     *
+     * @param name one of {@link #BOUNDED}, {@link #LEGACY} or {@link #VIRTUAL}
+     * @throws IllegalArgumentException if the preset is not known
+     */
+    public ThreadPoolProfile(String name) {
+        if (LEGACY.equals(name)) {
+            maxPoolSize = Integer.MAX_VALUE;
+            rejectionPolicy = REJECT_ABORT;
+        } else if (VIRTUAL.equals(name)) {
+            corePoolSize = 0;
+            maxPoolSize = Integer.MAX_VALUE;
+            keepAliveSeconds = 0;
+            rejectionPolicy = REJECT_ABORT;
+            virtualThreads = true;
+        } else if (!BOUNDED.equals(name)) {
+            throw new IllegalArgumentException(Messages.getMessage("threadpoolprofile",
+                    Constants.Configuration.THREAD_POOL_PROFILE, name));
+        }
+        this.name = name;
+    }
+
+    public ThreadPoolProfile() {
+        this(BOUNDED);
+    }
+
+    /**
+     * Build the profile described by the parameters of the given configuration. Invalid values
+     * are logged and ignored.
+     *
+     * @param axisConfig the AxisConfiguration, may be null
+     * @return the profile; the bounded preset if nothing is configured
+     */
+    public static ThreadPoolProfile fromConfiguration(AxisConfiguration axisConfig) {
+        String preset = getValue(axisConfig, Constants.Configuration.THREAD_POOL_PROFILE);
+        ThreadPoolProfile profile;
+        try {
+            profile = new ThreadPoolProfile(preset == null ? BOUNDED : preset);
+        } catch (IllegalArgumentException e) {
+            log.warn(e.getMessage());
+            profile = new ThreadPoolProfile(BOUNDED);
+        }
+        if (axisConfig == null) {
+            return profile;
+        }
+
+        Integer value = getInt(axisConfig, Constants.Configuration.THREAD_POOL_CORE_SIZE, 0);
+        if (value != null) {
+            profile.setCorePoolSize(value.intValue());
+        }
+        value = getInt(axisConfig, Constants.Configuration.THREAD_POOL_MAX_SIZE, 1);
+        if (value != null) {
+            profile.setMaxPoolSize(value.intValue());
+        }
+        value = getInt(axisConfig, Constants.Configuration.THREAD_POOL_QUEUE_CAPACITY,
+                Integer.MIN_VALUE);
+        if (value != null) {
+            profile.setQueueCapacity(value.intValue());
+        }
+        value = getInt(axisConfig, Constants.Configuration.THREAD_POOL_KEEP_ALIVE_SECONDS, 0);
+        if (value != null) {
+            profile.setKeepAliveSeconds(value.intValue());
+        }
+        String flag = getValue(axisConfig,
+                Constants.Configuration.THREAD_POOL_ALLOW_CORE_THREAD_TIMEOUT);
+        if (flag != null) {
+            profile.setAllowCoreThreadTimeOut("true".equalsIgnoreCase(flag));
+        }
+        String policy = getValue(axisConfig, Constants.Configuration.THREAD_POOL_REJECTION_POLICY);
+        if (policy != null) {
+            try {
+                profile.setRejectionPolicy(policy);
+            } catch (IllegalArgumentException e) {
+                log.warn(e.getMessage());
+            }
+        }
+        if (profile.getCorePoolSize() > profile.getMaxPoolSize()) {
+            log.warn(Messages.getMessage("threadpoolprofile",
+                    Constants.Configuration.THREAD_POOL_CORE_SIZE,
+                    String.valueOf(profile.getCorePoolSize())));
+            profile.setCorePoolSize(profile.getMaxPoolSize());
+        }
+        return profile;
+    }
+
+    private static String getValue(AxisConfiguration axisConfig, String name) {
+        if (axisConfig == null) {
+            return null;
+        }
+        Parameter param = axisConfig.getParameter(name);
+        if (param == null || param.getValue() == null) {
+            return null;
+        }
+        String value = param.getValue().toString().trim();
+        return value.length() == 0 ? null : value;
+    }
+
+    private static Integer getInt(AxisConfiguration axisConfig, String name, int min) {
+        String value = getValue(axisConfig, name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            int i = Integer.parseInt(value);
+            if (i >= min) {
+                return new Integer(i);
+            }
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+        log.warn(Messages.getMessage("threadpoolprofile", name, value));
+        return null;
+    }
+
+    /**
+     * @return the name of the preset this profile was created from
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * @return the number of tasks that may wait for a thread; 0 means tasks are handed
+     *         directly to a thread and a negative value means the queue is unbounded
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public void setKeepAliveSeconds(long keepAliveSeconds) {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    /**
+     * @return whether idle core threads are also stopped after the keep alive time. This is
+     *         only honoured on Java 6 and later.
+     */
+    public boolean isAllowCoreThreadTimeOut() {
+        return allowCoreThreadTimeOut;
+    }
+
+    public void setAllowCoreThreadTimeOut(boolean allowCoreThreadTimeOut) {
+        this.allowCoreThreadTimeOut = allowCoreThreadTimeOut;
+    }
+
+    public String getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    /**
+     * @param rejectionPolicy one of {@link #REJECT_CALLER_RUNS}, {@link #REJECT_BLOCK},
+     *                        {@link #REJECT_ABORT} or {@link #REJECT_DISCARD}
+     * @throws IllegalArgumentException if the policy is not known
+     */
+    public void setRejectionPolicy(String rejectionPolicy) {
+        if (!REJECT_CALLER_RUNS.equals(rejectionPolicy) && !REJECT_BLOCK.equals(rejectionPolicy)
+                && !REJECT_ABORT.equals(rejectionPolicy)
+                && !REJECT_DISCARD.equals(rejectionPolicy)) {
+            throw new IllegalArgumentException(Messages.getMessage("threadpoolprofile",
+                    Constants.Configuration.THREAD_POOL_REJECTION_POLICY, rejectionPolicy));
+        }
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    /**
+     * @return whether tasks should run on virtual threads. The setting is ignored, with a
+     *         warning, on JVMs without virtual thread support.
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public String toString() {
+        return name + "[core=" + corePoolSize + ", max=" + maxPoolSize + ", queue=" +
+                queueCapacity + ", keepAlive=" + keepAliveSeconds + "s, allowCoreThreadTimeOut=" +
+                allowCoreThreadTimeOut + ", rejection=" + rejectionPolicy + ", virtual=" +
+                virtualThreads + "]";
+    }
+}
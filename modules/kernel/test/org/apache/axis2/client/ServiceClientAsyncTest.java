@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.client;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.async.AxisFuture;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.apache.axis2.transport.NonBlockingTransportSender;
+import org.apache.axis2.transport.TransportResponseListener;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ServiceClientAsyncTest extends TestCase {
+
+    private static final String RESPONSE =
+            "<soapenv:Envelope xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'>" +
+            "<soapenv:Body><echoResponse xmlns='urn:test'>hello</echoResponse></soapenv:Body>" +
+            "</soapenv:Envelope>";
+
+    private ConfigurationContext configContext;
+    private TestSender sender;
+    private ServiceClient serviceClient;
+
+    protected void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        sender = new TestSender();
+        TransportOutDescription transportOut = new TransportOutDescription("test");
+        transportOut.setSender(sender);
+        configContext.getAxisConfiguration().addTransportOut(transportOut);
+
+        serviceClient = new ServiceClient(configContext, null);
+        Options options = serviceClient.getOptions();
+        options.setTo(new EndpointReference("test://localhost/axis2/services/Echo"));
+        options.setTransportOut(transportOut);
+        options.setAction("urn:echo");
+    }
+
+    protected void tearDown() throws Exception {
+        configContext.terminate();
+    }
+
+    private OMElement createPayload() {
+        OMFactory factory = OMAbstractFactory.getOMFactory();
+        OMElement element = factory.createOMElement("echo",
+                factory.createOMNamespace("urn:test", "t"));
+        element.setText("hello");
+        return element;
+    }
+
+    public void testResponseFromTransportCallback() throws Exception {
+        sender.respond = true;
+        AxisFuture<OMElement> future = serviceClient.sendReceiveAsync(createPayload());
+        OMElement response = future.get(10, TimeUnit.SECONDS);
+        assertEquals("echoResponse", response.getLocalName());
+        assertEquals("hello", response.getText());
+        assertEquals(1, sender.nonBlockingSends);
+        assertEquals(0, configContext.getTimeoutWheel().getPendingCount());
+    }
+
+    public void testTransportError() throws Exception {
+        sender.fail = true;
+        AxisFuture<OMElement> future = serviceClient.sendReceiveAsync(createPayload());
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertEquals("connection refused", e.getCause().getMessage());
+        }
+    }
+
+    public void testTimeout() throws Exception {
+        serviceClient.getOptions().setTimeOutInMilliSeconds(200);
+        AxisFuture<OMElement> future = serviceClient.sendReceiveAsync(createPayload());
+        try {
+            future.getResult();
+            fail("Expected a timeout");
+        } catch (AxisFault e) {
+            // expected
+        }
+        assertEquals(1, configContext.getTimeoutWheel().getExpiredCount());
+    }
+
+    /**
+     * Completes non-blocking sends from a separate thread, as an I/O callback would.
+     */
+    private static class TestSender extends AbstractHandler implements NonBlockingTransportSender {
+        volatile boolean respond;
+        volatile boolean fail;
+        volatile int nonBlockingSends;
+
+        public boolean isNonBlocking(MessageContext msgContext) {
+            return true;
+        }
+
+        public InvocationResponse invoke(final MessageContext msgContext) throws AxisFault {
+            final TransportResponseListener listener = (TransportResponseListener)
+                    msgContext.getProperty(NonBlockingTransportSender.RESPONSE_LISTENER);
+            assertNotNull(listener);
+            nonBlockingSends++;
+            if (respond || fail) {
+                new Thread() {
+                    public void run() {
+                        if (fail) {
+                            listener.onError(msgContext, new AxisFault("connection refused"));
+                        } else {
+                            msgContext.setProperty(MessageContext.TRANSPORT_IN,
+                                    new ByteArrayInputStream(RESPONSE.getBytes()));
+                            listener.onResponse(msgContext);
+                        }
+                    }
+                }.start();
+            }
+            return InvocationResponse.CONTINUE;
+        }
+
+        public void cleanup(MessageContext msgContext) {
+        }
+
+        public void init(ConfigurationContext confContext, TransportOutDescription transportOut) {
+        }
+
+        public void stop() {
+        }
+    }
+}
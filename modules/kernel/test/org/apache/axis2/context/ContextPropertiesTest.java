@@ -88,6 +88,53 @@ public class ContextPropertiesTest extends TestCase {
         }
     }
     
+    /**
+     * Test the slotted property store used by AbstractContext against a HashMap, with a mix of
+     * well-known keys, ad-hoc keys, null keys and null values.
+     */
+    public void testContextProperties() {
+        ContextProperties store = new ContextProperties();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        assertTrue(ContextProperties.slotOf(MessageContext.TRANSPORT_HEADERS) >= 0);
+        assertEquals(-1, ContextProperties.slotOf("adHocKey"));
+
+        for (int i = 0; i < 200; i++) {
+            String key = (i % 3 == 0) ? MessageContext.TRANSPORT_HEADERS : "key" + i;
+            Object value = (i % 7 == 0) ? null : "value" + i;
+            assertEquals(expected.put(key, value), store.put(key, value));
+        }
+        assertEquals(expected.put(null, "nullKey"), store.put(null, "nullKey"));
+        assertEquals(expected, store);
+        assertEquals(expected.size(), store.size());
+        assertTrue(store.containsKey("key7"));
+        assertNull(store.get("key7"));
+
+        // remove every other key, which exercises the backward shift in the ad-hoc table
+        for (int i = 0; i < 200; i += 2) {
+            String key = "key" + i;
+            assertEquals(expected.remove(key), store.remove(key));
+        }
+        assertEquals(expected.remove(MessageContext.TRANSPORT_HEADERS),
+                     store.remove(MessageContext.TRANSPORT_HEADERS));
+        assertEquals(expected, store);
+        for (int i = 1; i < 200; i += 2) {
+            assertEquals(expected.get("key" + i), store.get("key" + i));
+        }
+
+        // the iterator works on a copy of the keys and supports remove
+        for (Iterator<Map.Entry<String, Object>> it = store.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            store.put("added", "during iteration");
+            it.remove();
+        }
+        assertEquals(1, store.size());
+        assertEquals("during iteration", store.get("added"));
+
+        store.clear();
+        assertTrue(store.isEmpty());
+        assertNull(store.get(MessageContext.TRANSPORT_HEADERS));
+    }
+
     /**
      * Test some aspects of the Concurrent collection directly, such as creating with a Map. 
      */
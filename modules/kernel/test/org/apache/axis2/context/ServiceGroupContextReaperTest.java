@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.context;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.description.AxisServiceGroup;
+import org.apache.axis2.engine.AxisConfiguration;
+
+public class ServiceGroupContextReaperTest extends TestCase {
+
+    private ConfigurationContext configContext;
+
+    protected void setUp() throws Exception {
+        configContext = new ConfigurationContext(new AxisConfiguration());
+        configContext.setProperty(Constants.Configuration.CONFIG_CONTEXT_TIMEOUT_INTERVAL,
+                                  new Integer(100));
+    }
+
+    protected void tearDown() throws Exception {
+        configContext.cleanupContexts();
+    }
+
+    private ServiceGroupContext addSession(String id) {
+        ServiceGroupContext sgc = new ServiceGroupContext(configContext, new AxisServiceGroup());
+        sgc.setId(id);
+        configContext.addServiceGroupContextIntoSoapSessionTable(sgc);
+        return sgc;
+    }
+
+    public void testExpiry() throws Exception {
+        addSession("session1");
+        ServiceGroupContextReaper reaper = configContext.getServiceGroupContextReaper();
+        assertEquals(1, reaper.getPendingCount());
+        assertEquals(1, configContext.getServiceGroupContextIDs().length);
+
+        // getServiceGroupContext would touch the context, so poll the ids instead
+        long giveUp = System.currentTimeMillis() + 5000;
+        while (configContext.getServiceGroupContextIDs().length > 0 &&
+                System.currentTimeMillis() < giveUp) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, configContext.getServiceGroupContextIDs().length);
+        assertEquals(1, reaper.getExpiredCount());
+        assertEquals(0, reaper.getPendingCount());
+        assertTrue(reaper.getLastExpiryTime() > 0);
+    }
+
+    public void testTouchedContextIsRescheduled() throws Exception {
+        ServiceGroupContext sgc = addSession("session2");
+        ServiceGroupContextReaper reaper = configContext.getServiceGroupContextReaper();
+        ServiceGroupContextReaper.Expiry expiry =
+                new ServiceGroupContextReaper.Expiry(sgc, System.currentTimeMillis() - 1);
+
+        sgc.touch();
+        reaper.process(expiry);
+        assertEquals(1, reaper.getRescheduledCount());
+        assertEquals(0, reaper.getExpiredCount());
+        assertSame(sgc, configContext.getServiceGroupContext("session2"));
+
+        sgc.setLastTouchedTime(System.currentTimeMillis() - 1000);
+        reaper.process(expiry);
+        assertEquals(1, reaper.getExpiredCount());
+        assertNull(configContext.getServiceGroupContext("session2"));
+
+        // a second entry for a context that has gone is dropped
+        reaper.process(expiry);
+        assertEquals(1, reaper.getExpiredCount());
+    }
+
+    public void testExpiredContextIsNotReturnedBeforeReaping() throws Exception {
+        ServiceGroupContext sgc = addSession("session3");
+        sgc.setLastTouchedTime(System.currentTimeMillis() - 1000);
+        try {
+            configContext.getServiceGroupContextFromSoapSessionTable("session3", null);
+            fail("An expired context was returned");
+        } catch (AxisFault e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment;
+
+import junit.framework.TestCase;
+import org.apache.axiom.attachments.utils.IOUtils;
+import org.apache.axis2.AbstractTestCase;
+import org.apache.axis2.deployment.util.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class DeploymentClassLoaderTest extends TestCase {
+    private File aar = new File(AbstractTestCase.basedir + "/target/deploymentClassLoaderTest/test.aar");
+
+    private DeploymentClassLoader loader;
+
+    protected void setUp() throws Exception {
+        aar.getParentFile().mkdirs();
+        String className = EmbeddedJarIndex.class.getName().replace('.', '/') + ".class";
+        InputStream in = getClass().getClassLoader().getResourceAsStream(className);
+        byte[] classBytes = IOUtils.getStreamAsByteArray(in);
+        in.close();
+
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(aar));
+        addEntry(out, "META-INF/services.xml", "<service/>".getBytes());
+        addEntry(out, "lib/a.jar", jar(new String[] {
+                "META-INF/services/test.Service", "a",
+                "org/test/resource.txt", "resource"}, null, null));
+        addEntry(out, "lib/b.jar", jar(new String[] {
+                "META-INF/services/test.Service", "b",
+                "conf/log.properties", "log"}, className, classBytes));
+        out.close();
+
+        URL url = aar.toURL();
+        loader = new DeploymentClassLoader(new URL[] {url}, Utils.findLibJars(url), null, false);
+    }
+
+    public void testFindResource() throws Exception {
+        assertEquals("resource", read(loader.findResource("org/test/resource.txt")));
+        assertEquals("a", read(loader.findResource("META-INF/services/test.Service")));
+        // entries are matched on the end of their name
+        assertEquals("log", read(loader.findResource("log.properties")));
+        assertEquals("log", read(loader.getResourceAsStream("conf/log.properties")));
+        assertNull(loader.findResource("org/test/missing.txt"));
+        assertNull(loader.findResource("missing.txt"));
+        assertEquals(0, loader.getEmbeddedJarIndex().getArchiveReads());
+    }
+
+    public void testFindResources() throws Exception {
+        List<String> found = new ArrayList<String>();
+        for (Enumeration e = loader.findResources("META-INF/services/test.Service");
+             e.hasMoreElements();) {
+            found.add(read((URL) e.nextElement()));
+        }
+        assertEquals(2, found.size());
+        assertEquals("a", found.get(0));
+        assertEquals("b", found.get(1));
+        assertFalse(loader.findResources("org/test/missing.txt").hasMoreElements());
+    }
+
+    public void testFindClass() throws Exception {
+        Class clazz = loader.loadClass(EmbeddedJarIndex.class.getName());
+        assertSame(loader, clazz.getClassLoader());
+        try {
+            loader.loadClass("org.test.Missing");
+            fail();
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+
+    public void testEvictedJar() throws Exception {
+        URL url = aar.toURL();
+        EmbeddedJarIndex index = new EmbeddedJarIndex(url, Utils.findLibJars(url),
+                                                      new EmbeddedJarIndex.JarCache(0));
+        EmbeddedJarIndex.Entry entry = index.find("conf/log.properties");
+        assertEquals("lib/b.jar", entry.getJar());
+        assertEquals("log", new String(index.read(entry)));
+        assertEquals("log", new String(index.read(entry)));
+        assertEquals(2, index.getArchiveReads());
+    }
+
+    public void testSharedCache() throws Exception {
+        URL url = aar.toURL();
+        EmbeddedJarIndex.JarCache cache = new EmbeddedJarIndex.JarCache(1024 * 1024);
+        EmbeddedJarIndex index1 = new EmbeddedJarIndex(url, Utils.findLibJars(url), cache);
+        long size = cache.getCachedBytes();
+        assertTrue(size > 0);
+        EmbeddedJarIndex index2 = new EmbeddedJarIndex(url, Utils.findLibJars(url), cache);
+        assertEquals(2 * size, cache.getCachedBytes());
+
+        index1.release();
+        assertEquals(size, cache.getCachedBytes());
+        EmbeddedJarIndex.Entry entry = index1.find("conf/log.properties");
+        assertEquals("log", new String(index1.read(entry)));
+        assertEquals(1, index1.getArchiveReads());
+        assertEquals("log", new String(index2.read(index2.find("conf/log.properties"))));
+        assertEquals(0, index2.getArchiveReads());
+
+        // names match on segment boundaries only
+        assertNull(index2.find("g.properties"));
+        assertNull(index2.find("f/log.properties"));
+    }
+
+    private static String read(URL url) throws Exception {
+        return read(url.openStream());
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try {
+            return new String(IOUtils.getStreamAsByteArray(in));
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] jar(String[] entries, String className, byte[] classBytes)
+            throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream out = new ZipOutputStream(bytes);
+        for (int i = 0; i < entries.length; i += 2) {
+            addEntry(out, entries[i], entries[i + 1].getBytes());
+        }
+        if (className != null) {
+            addEntry(out, className, classBytes);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static void addEntry(ZipOutputStream out, String name, byte[] content)
+            throws Exception {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.closeEntry();
+    }
+}
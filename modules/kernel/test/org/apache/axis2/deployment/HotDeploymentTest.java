@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AbstractTestCase;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+public class HotDeploymentTest extends TestCase {
+    private File repo = new File(AbstractTestCase.basedir + "/target/hotDeploymentRepo");
+
+    private AxisConfiguration axisConfig;
+
+    private RepositoryListener listener;
+
+    protected void setUp() throws Exception {
+        delete(repo);
+        writeService("group0", "service0");
+        String axis2xml = read(new File(AbstractTestCase.basedir
+                + "/test-resources/deployment/serviceGroupRepo/axis2.xml"));
+        int index = axis2xml.indexOf("<parameter name=\"hotupdate\">false</parameter>");
+        write(new File(repo, "axis2.xml"), axis2xml.substring(0, index)
+                + "<parameter name=\"hotupdate\">true</parameter>"
+                + "<parameter name=\"hotDeploymentInterval\">3600000</parameter>"
+                + axis2xml.substring(index + "<parameter name=\"hotupdate\">false</parameter>".length()));
+        axisConfig = ConfigurationContextFactory.createConfigurationContextFromFileSystem(
+                repo.getPath(), repo.getPath() + "/axis2.xml").getAxisConfiguration();
+        listener = ((DeploymentEngine) axisConfig.getConfigurator()).getRepoListener();
+    }
+
+    protected void tearDown() throws Exception {
+        axisConfig.getConfigurator().cleanup();
+    }
+
+    public void testNewServiceIsDeployedOnceSettled() throws Exception {
+        assertNotNull(axisConfig.getService("service0"));
+
+        writeService("group1", "service1");
+        listener.startListener();
+        assertNull(axisConfig.getService("service1"));
+        listener.startListener();
+        assertNotNull(axisConfig.getService("service1"));
+    }
+
+    public void testChangingServiceIsNotDeployed() throws Exception {
+        File servicesXml = writeService("group1", "service1");
+        listener.startListener();
+        write(servicesXml, read(servicesXml) + "<!-- still copying -->");
+        servicesXml.setLastModified(servicesXml.lastModified() + 2000);
+        listener.startListener();
+        assertNull(axisConfig.getService("service1"));
+        listener.startListener();
+        assertNotNull(axisConfig.getService("service1"));
+        assertEquals(0, axisConfig.getFaultyServices().size());
+    }
+
+    public void testRemovedServiceIsUndeployed() throws Exception {
+        writeService("group1", "service1");
+        listener.startListener();
+        listener.startListener();
+        assertNotNull(axisConfig.getService("service1"));
+
+        delete(new File(repo, "services/group1"));
+        listener.startListener();
+        assertNull(axisConfig.getService("service1"));
+        assertNotNull(axisConfig.getService("service0"));
+
+        // removed before it could be deployed
+        writeService("group2", "service2");
+        listener.startListener();
+        delete(new File(repo, "services/group2"));
+        listener.startListener();
+        writeService("group2", "service2");
+        listener.startListener();
+        assertNull(axisConfig.getService("service2"));
+    }
+
+    public void testUpdatedServiceIsRedeployedOnceSettled() throws Exception {
+        AxisService service0 = axisConfig.getService("service0");
+        File servicesXml = new File(repo, "services/group0/META-INF/services.xml");
+        servicesXml.setLastModified(servicesXml.lastModified() + 2000);
+        listener.startListener();
+        assertSame(service0, axisConfig.getService("service0"));
+        listener.startListener();
+        assertNotNull(axisConfig.getService("service0"));
+        assertNotSame(service0, axisConfig.getService("service0"));
+        listener.startListener();
+        assertNotNull(axisConfig.getService("service0"));
+    }
+
+    private File writeService(String group, String service) throws IOException {
+        File servicesXml = new File(repo, "services/" + group + "/META-INF/services.xml");
+        write(servicesXml, "<serviceGroup><service name=\"" + service + "\">"
+                + "<parameter name=\"ServiceClass\">org.apache.axis2.Echo2</parameter>"
+                + "<operation name=\"echo\"/></service></serviceGroup>");
+        return servicesXml;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        StringBuffer content = new StringBuffer();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+        }
+        return content.toString();
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                delete(files[i]);
+            }
+        }
+        file.delete();
+    }
+}
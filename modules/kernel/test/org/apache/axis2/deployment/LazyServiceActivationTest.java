@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AbstractTestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+public class LazyServiceActivationTest extends TestCase {
+    private String repo = AbstractTestCase.basedir + "/target/lazyServiceActivationRepo";
+
+    private ConfigurationContext configCtx;
+
+    private AxisConfiguration axisConfig;
+
+    protected void setUp() throws Exception {
+        File services = new File(repo, "services");
+        write(new File(services, "group/META-INF/services.xml"),
+              "<serviceGroup>" + service("serviceA") + service("serviceB") + "</serviceGroup>");
+        write(new File(services, "single/META-INF/services.xml"),
+              "<service><parameter name=\"ServiceClass\">org.apache.axis2.Echo2</parameter>"
+                      + "<operation name=\"echo\"/></service>");
+        write(new File(services, "faulty/META-INF/services.xml"),
+              "<serviceGroup><module ref=\"missingModule\"/>" + service("faultyService")
+                      + "</serviceGroup>");
+
+        String axis2xml = read(new File(AbstractTestCase.basedir
+                + "/test-resources/deployment/serviceGroupRepo/axis2.xml"));
+        int index = axis2xml.indexOf("<parameter name=\"hotupdate\">");
+        write(new File(repo, "axis2.xml"), axis2xml.substring(0, index)
+                + "<parameter name=\"lazyServiceActivation\">true</parameter>"
+                + axis2xml.substring(index));
+        configCtx = ConfigurationContextFactory.createConfigurationContextFromFileSystem(repo,
+                repo + "/axis2.xml");
+        axisConfig = configCtx.getAxisConfiguration();
+    }
+
+    public void testActivationOnFirstLookup() throws Exception {
+        assertEquals(3, axisConfig.getLazyServiceGroups().size());
+        assertFalse(axisConfig.getServices().containsKey("serviceA"));
+        assertTrue(axisConfig.getFaultyServices().isEmpty());
+
+        AxisService serviceA = axisConfig.getService("serviceA");
+        assertNotNull(serviceA);
+        assertEquals("group", serviceA.getAxisServiceGroup().getServiceGroupName());
+        // the whole group is activated
+        assertTrue(axisConfig.getServices().containsKey("serviceB"));
+        assertFalse(axisConfig.getLazyServiceGroups().containsKey("group"));
+        assertSame(serviceA, axisConfig.getService("serviceA"));
+
+        // a <service> without a name is named after its archive
+        assertNotNull(axisConfig.getServiceForActivation("single"));
+        assertNull(axisConfig.getService("missing"));
+    }
+
+    public void testFaultyService() throws Exception {
+        try {
+            axisConfig.getService("faultyService");
+            fail();
+        } catch (AxisFault e) {
+            // expected
+        }
+        assertNull(axisConfig.getService("faultyService"));
+        assertEquals(1, axisConfig.getFaultyServices().size());
+        assertFalse(axisConfig.getLazyServiceGroups().containsKey("faulty"));
+    }
+
+    public void testConcurrentFirstLookups() throws Exception {
+        final AxisService[] found = new AxisService[8];
+        Thread[] threads = new Thread[found.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        found[n] = axisConfig.getService("serviceB");
+                    } catch (AxisFault e) {
+                        // leaves null
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        assertNotNull(found[0]);
+        for (int i = 1; i < found.length; i++) {
+            assertSame(found[0], found[i]);
+        }
+    }
+
+    public void testUnDeploy() throws Exception {
+        ServiceDeployer deployer = new ServiceDeployer();
+        deployer.init(configCtx);
+        deployer.unDeploy(new File(repo, "services/single").getAbsolutePath());
+        assertFalse(axisConfig.getLazyServiceGroups().containsKey("single"));
+        assertNull(axisConfig.getService("single"));
+    }
+
+    public void testLookupWhileHoldingTheConfigurationLock() throws Exception {
+        final AxisService[] found = new AxisService[2];
+        final Thread other = new Thread() {
+            public void run() {
+                try {
+                    found[1] = axisConfig.getService("serviceB");
+                } catch (AxisFault e) {
+                    // leaves null
+                }
+            }
+        };
+        Thread holder = new Thread() {
+            public void run() {
+                synchronized (axisConfig) {
+                    other.start();
+                    try {
+                        // let the other thread start the activation
+                        Thread.sleep(200);
+                        found[0] = axisConfig.getService("serviceA");
+                    } catch (Exception e) {
+                        // leaves null
+                    }
+                }
+            }
+        };
+        holder.start();
+        holder.join(30000);
+        other.join(30000);
+        assertFalse(holder.isAlive() || other.isAlive());
+        assertNotNull(found[0]);
+        assertSame(found[0].getAxisServiceGroup(), found[1].getAxisServiceGroup());
+    }
+
+    public void testUnDeployDuringActivation() throws Exception {
+        LazyServiceGroup group = axisConfig.getLazyServiceGroups().get("group");
+        axisConfig.removeLazyServiceGroup("group");
+        group.activate();
+        assertTrue(group.isActivated());
+        assertFalse(axisConfig.getServices().containsKey("serviceA"));
+        assertNull(axisConfig.getService("serviceA"));
+    }
+
+    public void testEagerServiceWithLazyName() throws Exception {
+        try {
+            axisConfig.addService(new AxisService("serviceA"));
+            fail();
+        } catch (AxisFault e) {
+            // expected
+        }
+        assertNotNull(axisConfig.getService("serviceA"));
+    }
+
+    private static String service(String name) {
+        return "<service name=\"" + name + "\">"
+                + "<parameter name=\"ServiceClass\">org.apache.axis2.Echo2</parameter>"
+                + "<operation name=\"echo\"/></service>";
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        StringBuffer content = new StringBuffer();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+        }
+        return content.toString();
+    }
+}
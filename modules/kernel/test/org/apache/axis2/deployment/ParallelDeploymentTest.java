@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AbstractTestCase;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ParallelDeploymentTest extends TestCase {
+    private static final int SERVICE_GROUPS = 20;
+
+    private static final int FAULTY_GROUP = 7;
+
+    private String repo = AbstractTestCase.basedir + "/target/parallelDeploymentRepo";
+
+    protected void setUp() throws Exception {
+        File services = new File(repo, "services");
+        for (int i = 0; i < SERVICE_GROUPS; i++) {
+            String moduleRef = i == FAULTY_GROUP ? "<module ref=\"missingModule\"/>"
+                    : i % 2 == 0 ? "<module ref=\"testModule\"/>" : "";
+            write(new File(services, "group" + i + "/META-INF/services.xml"),
+                  "<serviceGroup>" + moduleRef
+                          + "<service name=\"service" + i + "\">"
+                          + "<parameter name=\"ServiceClass\">org.apache.axis2.Echo2</parameter>"
+                          + "<operation name=\"echo\"/></service></serviceGroup>");
+        }
+        write(new File(repo, "modules/testModule/META-INF/module.xml"),
+              "<module name=\"testModule\"><InFlow>"
+                      + "<handler name=\"h1\" class=\"org.apache.axis2.ModuleHandler1\">"
+                      + "<order phase=\"Dispatch\"/></handler></InFlow></module>");
+
+        String axis2xml = read(new File(AbstractTestCase.basedir
+                + "/test-resources/deployment/serviceGroupRepo/axis2.xml"));
+        write(new File(repo, "axis2.xml"), axis2xml);
+        int index = axis2xml.indexOf("<parameter name=\"hotupdate\">");
+        write(new File(repo, "parallel.xml"), axis2xml.substring(0, index)
+                + "<parameter name=\"parallelDeployment\">true</parameter>"
+                + "<parameter name=\"deploymentThreads\">4</parameter>"
+                + axis2xml.substring(index));
+    }
+
+    private AxisConfiguration deploy(String axis2xml) throws Exception {
+        return ConfigurationContextFactory.createConfigurationContextFromFileSystem(repo,
+                repo + "/" + axis2xml).getAxisConfiguration();
+    }
+
+    public void testParallelDeployment() throws Exception {
+        AxisConfiguration axisConfig = deploy("parallel.xml");
+        for (int i = 0; i < SERVICE_GROUPS; i++) {
+            AxisService service = axisConfig.getService("service" + i);
+            if (i == FAULTY_GROUP) {
+                assertNull(service);
+            } else {
+                assertNotNull(service);
+                assertEquals(i % 2 == 0, service.isEngaged("testModule"));
+            }
+        }
+        assertEquals(1, axisConfig.getFaultyServices().size());
+        assertTrue(axisConfig.getFaultyServices().keySet().iterator().next()
+                .endsWith("group" + FAULTY_GROUP));
+
+        Map<String, Long> times = getDeploymentEngine(axisConfig).getDeploymentTimes();
+        assertTrue(times.containsKey(new File(repo, "modules/testModule").getAbsolutePath()));
+        for (int i = 0; i < SERVICE_GROUPS; i++) {
+            assertTrue(times.containsKey(new File(repo, "services/group" + i).getAbsolutePath()));
+        }
+    }
+
+    public void testSameOrderAsSequentialDeployment() throws Exception {
+        List<String> sequential = new ArrayList<String>(
+                getDeploymentEngine(deploy("axis2.xml")).getDeploymentTimes().keySet());
+        List<String> parallel = new ArrayList<String>(
+                getDeploymentEngine(deploy("parallel.xml")).getDeploymentTimes().keySet());
+        assertEquals(sequential, parallel);
+    }
+
+    private static DeploymentEngine getDeploymentEngine(AxisConfiguration axisConfig) {
+        return (DeploymentEngine) axisConfig.getConfigurator();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        StringBuffer content = new StringBuffer();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+        }
+        return content.toString();
+    }
+}
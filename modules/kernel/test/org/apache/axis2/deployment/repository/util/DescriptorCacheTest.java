@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.deployment.repository.util;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AbstractTestCase;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.deployment.DeploymentEngine;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+
+import javax.wsdl.Definition;
+import javax.wsdl.Import;
+import javax.wsdl.factory.WSDLFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class DescriptorCacheTest extends TestCase {
+    private File wsdl = new File(AbstractTestCase.basedir + "/test-resources/wsdl/test1.wsdl");
+
+    private File base = new File(AbstractTestCase.basedir + "/target/descriptorCacheTest");
+
+    private File cacheDir = new File(base, "cache");
+
+    private DescriptorCache cache;
+
+    protected void setUp() throws Exception {
+        delete(base);
+        base.mkdirs();
+        cache = new DescriptorCache(cacheDir);
+    }
+
+    private HashMap<String, AxisService> processWSDLs(File serviceFile) throws Exception {
+        ArchiveReader archiveReader = new ArchiveReader();
+        archiveReader.setDescriptorCache(cache);
+        return archiveReader.processWSDLs(new DeploymentFileData(serviceFile));
+    }
+
+    public void testArchive() throws Exception {
+        File aar = new File(base, "echo.aar");
+        writeArchive(aar, "");
+        HashMap<String, AxisService> built = processWSDLs(aar);
+        assertFalse(built.isEmpty());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cacheDir.list().length);
+
+        HashMap<String, AxisService> restored = processWSDLs(aar);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(describe(built), describe(restored));
+
+        // a changed archive doesn't get the stale definition, and replaces it
+        writeArchive(aar, "<!-- changed -->");
+        assertEquals(describe(built), describe(processWSDLs(aar)));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cacheDir.list().length);
+    }
+
+    public void testExplodedService() throws Exception {
+        File service = new File(base, "echo");
+        File metaInf = new File(service, "META-INF");
+        metaInf.mkdirs();
+        copy(wsdl, new FileOutputStream(new File(metaInf, "echo.wsdl")));
+
+        HashMap<String, AxisService> built = processWSDLs(service);
+        assertFalse(built.isEmpty());
+        HashMap<String, AxisService> restored = processWSDLs(service);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(describe(built), describe(restored));
+
+        // files outside META-INF are part of the key too
+        OutputStream out = new FileOutputStream(new File(service, "types.xsd"));
+        out.write("<!-- new -->".getBytes());
+        out.close();
+        processWSDLs(service);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    public void testImportsFromOutside() throws Exception {
+        WSDLFactory factory = WSDLFactory.newInstance();
+        Definition definition = factory.newDefinition();
+        Import wsdlImport = definition.createImport();
+        wsdlImport.setNamespaceURI("urn:types");
+        wsdlImport.setLocationURI("types/types.wsdl");
+        definition.addImport(wsdlImport);
+        assertTrue(DescriptorCache.isSelfContained(definition));
+
+        Definition imported = factory.newDefinition();
+        wsdlImport.setDefinition(imported);
+        Import remoteImport = imported.createImport();
+        remoteImport.setNamespaceURI("urn:remote");
+        remoteImport.setLocationURI("http://example.org/remote.wsdl");
+        imported.addImport(remoteImport);
+        assertFalse(DescriptorCache.isSelfContained(definition));
+
+        remoteImport.setLocationURI("/opt/wsdl/remote.wsdl");
+        assertFalse(DescriptorCache.isSelfContained(definition));
+
+        File aar = new File(base, "echo.aar");
+        cache.put(aar, cache.getContentHash(aar), "echo.wsdl", definition);
+        assertFalse(cacheDir.exists() && cacheDir.list().length > 0);
+    }
+
+    public void testUnreadableEntry() throws Exception {
+        File aar = new File(base, "echo.aar");
+        writeArchive(aar, "");
+        processWSDLs(aar);
+        File entry = cacheDir.listFiles()[0];
+        OutputStream out = new FileOutputStream(entry);
+        out.write("garbage".getBytes());
+        out.close();
+
+        assertFalse(processWSDLs(aar).isEmpty());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        processWSDLs(aar);
+        assertEquals(1, cache.getHitCount());
+    }
+
+    public void testServiceDeployer() throws Exception {
+        File repo = new File(base, "repo");
+        File aar = new File(repo, "services/echo.aar");
+        aar.getParentFile().mkdirs();
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(aar));
+        out.putNextEntry(new ZipEntry("META-INF/services.xml"));
+        out.write(("<service name=\"EchoService\"><parameter name=\"ServiceClass\">"
+                + "org.apache.axis2.Echo2</parameter></service>").getBytes());
+        out.putNextEntry(new ZipEntry("META-INF/echo.wsdl"));
+        copy(wsdl, out);
+        out.close();
+        String axis2xml = read(new File(AbstractTestCase.basedir
+                + "/test-resources/deployment/serviceGroupRepo/axis2.xml"));
+        int index = axis2xml.indexOf("<parameter name=\"hotupdate\">");
+        OutputStream config = new FileOutputStream(new File(repo, "axis2.xml"));
+        config.write((axis2xml.substring(0, index)
+                + "<parameter name=\"descriptorCache\">cache</parameter>"
+                + axis2xml.substring(index)).getBytes("UTF-8"));
+        config.close();
+
+        assertNotNull(deploy(repo).getAxisConfig().getService("EchoService"));
+        assertEquals(1, new File(repo, "cache").list().length);
+        DeploymentEngine deploymentEngine = deploy(repo);
+        assertNotNull(deploymentEngine.getAxisConfig().getService("EchoService"));
+        assertEquals(1, deploymentEngine.getServiceDeployer().getDescriptorCache().getHitCount());
+    }
+
+    private static DeploymentEngine deploy(File repo) throws Exception {
+        return (DeploymentEngine) ConfigurationContextFactory
+                .createConfigurationContextFromFileSystem(repo.getPath(),
+                                                          repo.getPath() + "/axis2.xml")
+                .getAxisConfiguration().getConfigurator();
+    }
+
+    private static String read(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copy(file, out);
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    private static String describe(HashMap<String, AxisService> services) {
+        TreeSet<String> description = new TreeSet<String>();
+        for (AxisService service : services.values()) {
+            description.add(service.getName() + " " + service.getTargetNamespace());
+            for (Iterator it = service.getOperations(); it.hasNext();) {
+                AxisOperation operation = (AxisOperation) it.next();
+                description.add(service.getName() + "." + operation.getName() + " "
+                        + operation.getMessageExchangePattern() + " "
+                        + operation.getSoapAction());
+            }
+            description.add(service.getName() + " schemas " + service.getSchema().size());
+        }
+        return description.toString();
+    }
+
+    private void writeArchive(File aar, String comment) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(aar));
+        out.putNextEntry(new ZipEntry("META-INF/echo.wsdl"));
+        copy(wsdl, out);
+        out.write(comment.getBytes());
+        out.close();
+    }
+
+    private static void copy(File file, OutputStream out) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[4096];
+            int read;
+            while ((read = in.read(buf)) > 0) {
+                out.write(buf, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        if (!(out instanceof ZipOutputStream)) {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (int i = 0; i < files.length; i++) {
+                delete(files[i]);
+            }
+        }
+        file.delete();
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.context.ServiceGroupContext;
 import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.HTTPConstants;
 
 import javax.xml.namespace.QName;
 import java.io.ByteArrayOutputStream;
@@ -45,6 +46,17 @@ public class AxisServiceTest extends TestCase {
         }
     }
 
+    public void testPassThroughServices() throws Exception {
+        AxisConfiguration axisConfig = new AxisConfiguration();
+        axisConfig.addService(new AxisService("Plain"));
+        assertFalse(axisConfig.hasPassThroughServices());
+
+        AxisService service = new AxisService("Proxy");
+        service.addParameter(HTTPConstants.PASS_THROUGH, "true");
+        axisConfig.addService(service);
+        assertTrue(axisConfig.hasPassThroughServices());
+    }
+
     public void testAddMessageElementQNameToOperationMappingBasic() {
         AxisService service = new AxisService();
         
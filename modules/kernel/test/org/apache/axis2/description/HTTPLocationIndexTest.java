@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.description;
+
+import junit.framework.TestCase;
+import org.apache.axis2.wsdl.WSDLUtil;
+
+import javax.xml.namespace.QName;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class HTTPLocationIndexTest extends TestCase {
+
+    private AxisBinding axisBinding;
+    private Map httpLocationTable;
+
+    protected void setUp() throws Exception {
+        axisBinding = new AxisBinding();
+        httpLocationTable = new TreeMap();
+        axisBinding.setProperty(WSDL2Constants.HTTP_LOCATION_TABLE, httpLocationTable);
+    }
+
+    private AxisOperation addOperation(String name, String httpMethod, String location) {
+        AxisOperation axisOperation = new InOutAxisOperation(new QName(name));
+        AxisBindingOperation axisBindingOperation = new AxisBindingOperation();
+        axisBindingOperation.setName(axisOperation.getName());
+        axisBindingOperation.setAxisOperation(axisOperation);
+        axisBindingOperation.setProperty(WSDL2Constants.ATTR_WHTTP_LOCATION, location);
+        axisBindingOperation.setProperty(WSDL2Constants.ATTR_WHTTP_METHOD, httpMethod);
+        axisBinding.addChild(axisBindingOperation.getName(), axisBindingOperation);
+        httpLocationTable.put(WSDLUtil.getConstantFromHTTPLocation(location, httpMethod),
+                              axisOperation);
+        return axisOperation;
+    }
+
+    public void testTemplates() throws Exception {
+        AxisOperation list = addOperation("list", "GET", "items");
+        AxisOperation get = addOperation("get", "GET", "items/{id}");
+        AxisOperation history =
+                addOperation("history", "GET", "stock/{symbol}/history?from={from}");
+        AxisOperation quote = addOperation("quote", "GET", "stock/{symbol}");
+        AxisOperation update = addOperation("update", "PUT", "items/{id}");
+        HTTPLocationIndex index = axisBinding.getHTTPLocationIndex();
+
+        assertSame(list, index.match("GET", "/items").getOperation());
+        assertSame(list, index.match("GET", "/items?sort=name").getOperation());
+
+        HTTPLocationIndex.Match match = index.match("GET", "/items/42");
+        assertSame(get, match.getOperation());
+        assertTrue(match.isTemplateMatch());
+        assertEquals(1, match.getParameterCount());
+        assertEquals("id", match.getParameterName(0));
+        assertEquals("42", match.getParameterValue(0));
+
+        assertSame(update, index.match("PUT", "/items/42").getOperation());
+        assertNull(index.match("DELETE", "/items/42"));
+
+        // both templates have the same constant part, which the location table can't tell apart
+        match = index.match("GET", "/stock/IBM");
+        assertSame(quote, match.getOperation());
+        assertEquals("IBM", match.getParameters().get("symbol"));
+
+        match = index.match("GET", "/stock/IBM/history?from=2007-01-01&to=2008-01-01");
+        assertSame(history, match.getOperation());
+        assertEquals(2, match.getParameterCount());
+        assertEquals("IBM", match.getParameterValue(0));
+        assertEquals("2007-01-01", match.getParameterValue(1));
+    }
+
+    public void testParametersWithinSegments() throws Exception {
+        AxisOperation file = addOperation("file", "GET", "files/{name}.{extension}");
+        AxisOperation escaped = addOperation("escaped", "GET", "raw/{{literal}}/{!path}");
+        HTTPLocationIndex index = axisBinding.getHTTPLocationIndex();
+
+        HTTPLocationIndex.Match match = index.match("GET", "/files/report.pdf");
+        assertSame(file, match.getOperation());
+        assertEquals("report", match.getParameters().get("name"));
+        assertEquals("pdf", match.getParameters().get("extension"));
+
+        match = index.match("GET", "/raw/{literal}/a%2Fb");
+        assertSame(escaped, match.getOperation());
+        assertEquals("a%2Fb", match.getParameters().get("path"));
+    }
+
+    public void testConstantPrefixFallback() throws Exception {
+        AxisOperation get = addOperation("get", "GET", "items/{id}");
+        AxisOperation search = addOperation("search", "GET", "search");
+        AxisOperation any = new InOutAxisOperation(new QName("any"));
+        HTTPLocationIndex index = axisBinding.getHTTPLocationIndex();
+
+        // a parameter doesn't span a '/', but the constant part still matches
+        HTTPLocationIndex.Match match = index.match("GET", "/items/42/details");
+        assertSame(get, match.getOperation());
+        assertFalse(match.isTemplateMatch());
+        assertEquals(0, match.getParameterCount());
+        assertSame(search, index.match("GET", "/searchAll").getOperation());
+        assertNull(index.match("GET", "/other"));
+
+        // operations without a location match any request
+        httpLocationTable.put("", any);
+        HTTPLocationIndex rebuilt = axisBinding.getHTTPLocationIndex();
+        assertNotSame(index, rebuilt);
+        assertSame(rebuilt, axisBinding.getHTTPLocationIndex());
+        assertSame(any, rebuilt.match("GET", "/other").getOperation());
+        assertSame(any, rebuilt.match("POST", "/items/42").getOperation());
+        assertSame(get, rebuilt.match("GET", "/items/42").getOperation());
+    }
+}
@@ -21,6 +21,8 @@ package org.apache.axis2.dispatchers;
 
 import junit.framework.TestCase;
 import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.impl.OMContainerEx;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
 import org.apache.axiom.soap.SOAPBody;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axis2.AxisFault;
@@ -33,6 +35,9 @@ import org.apache.axis2.description.InOnlyAxisOperation;
 import org.apache.axis2.engine.AxisConfiguration;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
 
 public class SOAPMessageBodyBasedOperationDispatcherTest extends TestCase {
 
@@ -67,4 +72,32 @@ public class SOAPMessageBodyBasedOperationDispatcherTest extends TestCase {
         assertEquals(operation2, messageContext.getAxisOperation());
     }
 
+    public void testFindOperationWithoutBuildingBody() throws Exception {
+        AxisService service = new AxisService("Service2");
+        AxisOperation operation = new InOnlyAxisOperation(new QName("echo"));
+        service.addOperation(operation);
+        service.addMessageElementQNameToOperationMapping(new QName("http://test", "echoRequest"),
+                                                         operation);
+
+        ConfigurationContext cc = ConfigurationContextFactory.createEmptyConfigurationContext();
+        cc.getAxisConfiguration().addService(service);
+        MessageContext messageContext = cc.createMessageContext();
+        messageContext.setAxisService(service);
+
+        String message = "<soapenv:Envelope xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'>" +
+                "<soapenv:Body><t:echoRequest xmlns:t='http://test'><t:data>payload</t:data>" +
+                "</t:echoRequest></soapenv:Body></soapenv:Envelope>";
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(
+                new StringReader(message));
+        SOAPEnvelope envelope = new StAXSOAPModelBuilder(reader, null).getSOAPEnvelope();
+        messageContext.setEnvelope(envelope);
+
+        new SOAPMessageBodyBasedOperationDispatcher().invoke(messageContext);
+
+        assertEquals(operation, messageContext.getAxisOperation());
+        // the dispatcher looked ahead on the parser; the payload has not been built
+        assertNull(((OMContainerEx) envelope.getBody()).getFirstOMChildIfAvailable());
+        assertEquals("echoRequest", envelope.getBody().getFirstElement().getLocalName());
+    }
+
 }
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.soap.SOAPBody;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.InOnlyAxisOperation;
+import org.apache.axis2.dispatchers.RequestURIBasedDispatcher;
+import org.apache.axis2.dispatchers.SOAPActionBasedDispatcher;
+import org.apache.axis2.dispatchers.SOAPMessageBodyBasedDispatcher;
+
+import javax.xml.namespace.QName;
+
+public class DispatchCacheTest extends TestCase {
+
+    private static final String ADDRESS = "http://127.0.0.1:8080/axis2/services/Service1";
+
+    private ConfigurationContext configContext;
+    private AxisService service;
+    private AxisOperation operation1;
+    private AxisOperation operation2;
+
+    protected void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        service = new AxisService("Service1");
+        operation1 = new InOnlyAxisOperation(new QName("operation1"));
+        operation1.setSoapAction("urn:operation1");
+        operation2 = new InOnlyAxisOperation(new QName("operation2"));
+        service.addOperation(operation1);
+        service.addOperation(operation2);
+        configContext.getAxisConfiguration().addService(service);
+    }
+
+    private MessageContext dispatch(String address, String action, String bodyElement)
+            throws Exception {
+        MessageContext msgContext = configContext.createMessageContext();
+        msgContext.setTo(new EndpointReference(address));
+        msgContext.setSoapAction(action);
+        SOAPEnvelope envelope = OMAbstractFactory.getSOAP11Factory().createSOAPEnvelope();
+        SOAPBody body = OMAbstractFactory.getSOAP11Factory().createSOAPBody(envelope);
+        body.addChild(OMAbstractFactory.getSOAP11Factory().createOMElement(bodyElement,
+                                                                           "http://test", "t"));
+        msgContext.setEnvelope(envelope);
+
+        new RequestURIBasedDispatcher().invoke(msgContext);
+        new SOAPActionBasedDispatcher().invoke(msgContext);
+        new SOAPMessageBodyBasedDispatcher().invoke(msgContext);
+        return msgContext;
+    }
+
+    public void testCachedDispatch() throws Exception {
+        DispatchCache cache = configContext.getAxisConfiguration().getDispatchCache();
+        assertEquals(DispatchCache.DEFAULT_MAX_SIZE, cache.getMaxSize());
+
+        MessageContext msgContext = dispatch(ADDRESS, "urn:operation1", "operation1");
+        assertSame(service, msgContext.getAxisService());
+        assertSame(operation1, msgContext.getAxisOperation());
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getMissCount());
+
+        // the query string is ignored, and the body isn't looked at
+        msgContext = dispatch(ADDRESS + "?foo=bar", "urn:operation1", "operation2");
+        assertSame(service, msgContext.getAxisService());
+        assertSame(operation1, msgContext.getAxisOperation());
+        assertNotNull(msgContext.getAxisMessage());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRatio(), 0.001);
+    }
+
+    public void testKey() throws Exception {
+        DispatchCache cache = configContext.getAxisConfiguration().getDispatchCache();
+        dispatch(ADDRESS, "urn:operation1", "operation1");
+
+        // the host and port don't matter
+        MessageContext msgContext = dispatch("https://localhost/axis2/services/Service1#x",
+                                             "urn:operation1", "operation2");
+        assertSame(operation1, msgContext.getAxisOperation());
+        assertEquals(1, cache.getHitCount());
+
+        // the HTTP method does
+        msgContext = configContext.createMessageContext();
+        msgContext.setProperty(Constants.Configuration.HTTP_METHOD, "GET");
+        assertFalse(cache.createKey(msgContext).equals(
+                cache.createKey(configContext.createMessageContext())));
+
+        assertEquals("/axis2/services/Service1", DispatchCache.getPath(ADDRESS + "?foo"));
+        assertEquals("/", DispatchCache.getPath("http://localhost"));
+        assertEquals("Service1", DispatchCache.getPath("Service1"));
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        configContext.getAxisConfiguration().addParameter(
+                Constants.Configuration.DISPATCH_CACHE_SIZE, "2");
+        operation2.setSoapAction("urn:operation2");
+        AxisOperation operation3 = new InOnlyAxisOperation(new QName("operation3"));
+        operation3.setSoapAction("urn:operation3");
+        service.addOperation(operation3);
+        configContext.getAxisConfiguration().addService(service);
+        DispatchCache cache = configContext.getAxisConfiguration().getDispatchCache();
+
+        dispatch(ADDRESS, "urn:operation1", "operation1");
+        dispatch(ADDRESS, "urn:operation2", "operation2");
+        dispatch(ADDRESS, "urn:operation1", "operation1");
+        assertEquals(1, cache.getHitCount());
+        dispatch(ADDRESS, "urn:operation3", "operation3");
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+
+        dispatch(ADDRESS, "urn:operation1", "operation1");
+        assertEquals(2, cache.getHitCount());
+        dispatch(ADDRESS, "urn:operation2", "operation2");
+        assertEquals(2, cache.getHitCount());
+    }
+
+    public void testBodyBasedDispatchIsNotCached() throws Exception {
+        DispatchCache cache = configContext.getAxisConfiguration().getDispatchCache();
+        MessageContext msgContext = dispatch(ADDRESS, "urn:unknown", "operation2");
+        assertSame(operation2, msgContext.getAxisOperation());
+        assertEquals(0, cache.getSize());
+
+        msgContext = dispatch(ADDRESS, "urn:unknown", "operation1");
+        assertSame(operation1, msgContext.getAxisOperation());
+        assertEquals(0, cache.getHitCount());
+
+        // once bypassed, later dispatchers no longer look at the cache
+        msgContext = configContext.createMessageContext();
+        DispatchCache.bypass(msgContext);
+        new RequestURIBasedDispatcher().invoke(msgContext);
+        assertNull(msgContext.getLocalProperty(DispatchCache.MISSED_KEY, false));
+    }
+
+    public void testInvalidation() throws Exception {
+        AxisConfiguration axisConfig = configContext.getAxisConfiguration();
+        DispatchCache cache = axisConfig.getDispatchCache();
+        dispatch(ADDRESS, "urn:operation1", "operation1");
+        assertEquals(1, cache.getSize());
+
+        axisConfig.stopService("Service1");
+        assertEquals(0, cache.getSize());
+        try {
+            dispatch(ADDRESS, "urn:operation1", "operation1");
+            fail("Expected the stopped service to be inaccessible");
+        } catch (AxisFault e) {
+            // expected
+        }
+        axisConfig.startService("Service1");
+        dispatch(ADDRESS, "urn:operation1", "operation1");
+        assertEquals(1, cache.getSize());
+
+        service.addOperation(new InOnlyAxisOperation(new QName("operation3")));
+        assertEquals(0, cache.getSize());
+        dispatch(ADDRESS, "urn:operation1", "operation1");
+
+        axisConfig.removeServiceGroup("Service1");
+        assertEquals(0, cache.getSize());
+        MessageContext msgContext = dispatch(ADDRESS, "urn:operation1", "operation1");
+        assertNull(msgContext.getAxisService());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    public void testDisabled() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        configContext.getAxisConfiguration().addParameter(
+                Constants.Configuration.DISPATCH_CACHE_SIZE, "0");
+        configContext.getAxisConfiguration().addService(service);
+        MessageContext msgContext = dispatch(ADDRESS, "urn:operation1", "operation1");
+        assertSame(operation1, msgContext.getAxisOperation());
+        DispatchCache cache = configContext.getAxisConfiguration().getDispatchCache();
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getMissCount());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import junit.framework.TestCase;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.InOutAxisOperation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class ExecutionPlanTest extends TestCase {
+
+    public void testCompile() throws Exception {
+        List<Phase> first = new ArrayList<Phase>();
+        first.add(new Phase("a"));
+        first.add(new Phase("b"));
+        List<Phase> second = new ArrayList<Phase>();
+        second.add(new Phase("c"));
+
+        ExecutionPlan plan = ExecutionPlan.compile(first, second);
+        assertEquals(3, plan.size());
+        assertSame(first.get(0), plan.get(0));
+        assertSame(second.get(0), plan.get(2));
+        assertTrue(plan.isCompiledFrom(first, second));
+        assertFalse(plan.isCompiledFrom(second, first));
+
+        second.add(new Phase("d"));
+        assertFalse(plan.isCompiledFrom(first, second));
+        second.remove(1);
+        assertTrue(plan.isCompiledFrom(first, second));
+
+        // a copy of the lists is the same chain
+        assertTrue(plan.isCompiledFrom(new ArrayList<Phase>(first), new ArrayList<Phase>(second)));
+        // a phase replaced in place is detected
+        second.set(0, new Phase("c"));
+        assertFalse(plan.isCompiledFrom(first, second));
+
+        assertSame(ExecutionPlan.EMPTY, ExecutionPlan.compile(null, new ArrayList<Phase>()));
+    }
+
+    public void testOperationPlanIsSharedUntilPhasesChange() throws Exception {
+        AxisOperation operation = new InOutAxisOperation();
+        ArrayList<Phase> inPhases = new ArrayList<Phase>();
+        inPhases.add(new Phase("OperationInPhase"));
+        operation.setRemainingPhasesInFlow(inPhases);
+
+        ExecutionPlan plan = operation.getInFlowPlan();
+        assertEquals(1, plan.size());
+        assertSame(plan, operation.getInFlowPlan());
+
+        operation.getRemainingPhasesInFlow().add(new Phase("Custom"));
+        ExecutionPlan rebuilt = operation.getInFlowPlan();
+        assertNotSame(plan, rebuilt);
+        assertEquals(2, rebuilt.size());
+    }
+
+    public void testExecutionChainIsCopiedOnAccess() throws Exception {
+        List<Phase> phases = new ArrayList<Phase>();
+        phases.add(new Phase("a"));
+        ExecutionPlan plan = ExecutionPlan.compile(phases, null);
+
+        MessageContext msgContext = new MessageContext();
+        msgContext.setExecutionPlan(plan);
+        assertSame(plan, msgContext.getExecutionPlan());
+
+        ArrayList<Handler> chain = msgContext.getExecutionChain();
+        assertNull(msgContext.getExecutionPlan());
+        chain.add(new Phase("b"));
+        assertEquals(1, plan.size());
+        assertEquals(2, msgContext.getExecutionChain().size());
+    }
+
+    public void testExecutedPhasesAreLifo() throws Exception {
+        MessageContext msgContext = new MessageContext();
+        List<Phase> phases = new ArrayList<Phase>();
+        for (int i = 0; i < 20; i++) {
+            Phase phase = new Phase("p" + i);
+            phases.add(phase);
+            msgContext.addExecutedPhase(phase);
+        }
+        msgContext.removeFirstExecutedPhase();
+
+        Iterator<Handler> it = msgContext.getExecutedPhases();
+        for (int i = 18; i >= 0; i--) {
+            assertSame(phases.get(i), it.next());
+        }
+        assertFalse(it.hasNext());
+
+        msgContext.resetExecutedPhases();
+        assertFalse(msgContext.getExecutedPhases().hasNext());
+    }
+}
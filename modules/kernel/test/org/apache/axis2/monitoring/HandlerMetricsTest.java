@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.monitoring;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.HandlerDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.engine.Phase;
+import org.apache.axis2.handlers.AbstractHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class HandlerMetricsTest extends TestCase {
+
+    private AxisConfiguration axisConfig = new AxisConfiguration();
+
+    private ConfigurationContext configContext;
+
+    private HandlerMetrics metrics = axisConfig.getHandlerMetrics();
+
+    protected void setUp() throws Exception {
+        configContext = new ConfigurationContext(axisConfig);
+    }
+
+    protected void tearDown() throws Exception {
+        metrics.setEnabled(false);
+        metrics.unregisterMBean();
+    }
+
+    public void testHistogram() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50500L, snapshot.getMean());
+        assertEquals(100000L, snapshot.getMax());
+        // accurate to within a factor of two
+        assertTrue(snapshot.getPercentile(50) >= 50000L);
+        assertTrue(snapshot.getPercentile(50) < 100000L);
+        assertEquals(100000L, snapshot.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    public void testDisabledPhaseRecordsNothing() throws Exception {
+        invokePhase();
+        assertTrue(metrics.getSnapshots().isEmpty());
+    }
+
+    public void testPhaseAndHandlerLatencies() throws Exception {
+        final List<String> recorded = new ArrayList<String>();
+        HandlerMetricsListener listener = new HandlerMetricsListener() {
+            public void latencyRecorded(MessageContext msgContext, String phaseName,
+                                        String handlerName, long nanos) {
+                recorded.add(phaseName + "/" + handlerName);
+            }
+        };
+        metrics.addListener(listener);
+        metrics.setEnabled(true);
+        try {
+            invokePhase();
+            invokePhase();
+        } finally {
+            metrics.removeListener(listener);
+        }
+
+        Map<String, LatencySnapshot> snapshots = metrics.getSnapshots();
+        assertEquals(2, snapshots.get("-/-/Test").getCount());
+        assertEquals(2, snapshots.get("-/-/Test/first").getCount());
+        assertEquals(2, snapshots.get("-/-/Test/second").getCount());
+        assertEquals(6, recorded.size());
+        assertEquals("Test/first", recorded.get(0));
+        assertEquals("Test/null", recorded.get(2));
+        assertEquals(3, metrics.getLatencySummary().length);
+    }
+
+    public void testSampling() throws Exception {
+        metrics.setEnabled(true);
+        metrics.setSampleRate(4);
+        for (int i = 0; i < 8; i++) {
+            invokePhase();
+        }
+        assertEquals(2, metrics.getSnapshots().get("-/-/Test").getCount());
+    }
+
+    public void testWholeMessageIsSampled() throws Exception {
+        metrics.setEnabled(true);
+        metrics.setSampleRate(2);
+        for (int i = 0; i < 6; i++) {
+            MessageContext msgContext = newMessageContext();
+            invokePhase("A", msgContext);
+            invokePhase("B", msgContext);
+            invokePhase("C", msgContext);
+        }
+        Map<String, LatencySnapshot> snapshots = metrics.getSnapshots();
+        assertEquals(3, snapshots.get("-/-/A").getCount());
+        assertEquals(3, snapshots.get("-/-/B").getCount());
+        assertEquals(3, snapshots.get("-/-/C").getCount());
+    }
+
+    public void testConfigure() throws Exception {
+        axisConfig.addParameter(Constants.Configuration.HANDLER_METRICS, "true");
+        axisConfig.addParameter(Constants.Configuration.HANDLER_METRICS_SAMPLE_RATE, "10");
+        metrics.configure(axisConfig);
+        assertTrue(metrics.isEnabled());
+        assertEquals(10, metrics.getSampleRate());
+
+        axisConfig.addParameter(Constants.Configuration.HANDLER_METRICS, "false");
+        metrics.configure(axisConfig);
+        assertFalse(metrics.isEnabled());
+    }
+
+    public void testConfigurationsAreIndependent() throws Exception {
+        AxisConfiguration other = new AxisConfiguration();
+        assertNotSame(metrics, other.getHandlerMetrics());
+        metrics.setEnabled(true);
+        try {
+            assertFalse(other.getHandlerMetrics().isEnabled());
+            MessageContext msgContext = new MessageContext();
+            msgContext.setConfigurationContext(new ConfigurationContext(other));
+            invokePhase("Test", msgContext);
+            assertTrue(other.getHandlerMetrics().getSnapshots().isEmpty());
+            invokePhase();
+            assertEquals(1, metrics.getSnapshots().get("-/-/Test").getCount());
+        } finally {
+            other.getHandlerMetrics().unregisterMBean();
+        }
+    }
+
+    private void invokePhase() throws AxisFault {
+        invokePhase("Test", newMessageContext());
+    }
+
+    private void invokePhase(String name, MessageContext msgContext) throws AxisFault {
+        Phase phase = new Phase(name);
+        phase.addHandler(new NoOpHandler("first"));
+        phase.addHandler(new NoOpHandler("second"));
+        phase.invoke(msgContext);
+    }
+
+    private MessageContext newMessageContext() {
+        MessageContext msgContext = new MessageContext();
+        msgContext.setConfigurationContext(configContext);
+        return msgContext;
+    }
+
+    private static class NoOpHandler extends AbstractHandler {
+        NoOpHandler(String name) {
+            init(new HandlerDescription(name));
+        }
+
+        public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+            return InvocationResponse.CONTINUE;
+        }
+    }
+}
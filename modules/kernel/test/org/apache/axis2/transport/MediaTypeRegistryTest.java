@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport;
+
+import junit.framework.TestCase;
+import org.apache.axiom.soap.SOAP11Constants;
+import org.apache.axiom.soap.SOAP12Constants;
+import org.apache.axis2.Constants;
+import org.apache.axis2.builder.ApplicationXMLBuilder;
+import org.apache.axis2.builder.Builder;
+import org.apache.axis2.builder.BuilderUtil;
+import org.apache.axis2.builder.SOAPBuilder;
+import org.apache.axis2.builder.unknowncontent.UnknownContentBuilder;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.transport.http.ApplicationXMLFormatter;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.SOAPMessageFormatter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class MediaTypeRegistryTest extends TestCase {
+
+    private ConfigurationContext configContext;
+    private AxisConfiguration axisConfig;
+    private Builder soapBuilder;
+    private Builder xmlBuilder;
+    private MessageFormatter xmlFormatter;
+
+    protected void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+        axisConfig = configContext.getAxisConfiguration();
+        soapBuilder = new SOAPBuilder();
+        xmlBuilder = new ApplicationXMLBuilder();
+        xmlFormatter = new ApplicationXMLFormatter();
+        axisConfig.addMessageBuilder("text/xml", soapBuilder);
+        axisConfig.addMessageBuilder("application/soap+xml", soapBuilder);
+        axisConfig.addMessageBuilder("application/xml", xmlBuilder);
+        axisConfig.addMessageFormatter("application/xml", xmlFormatter);
+    }
+
+    public void testMediaType() throws Exception {
+        MediaTypeRegistry registry = axisConfig.getMediaTypeRegistry();
+        assertSame(registry, axisConfig.getMediaTypeRegistry());
+
+        MediaTypeRegistry.MediaType mediaType =
+                registry.getMediaType("application/soap+xml; charset=UTF-16; action=\"urn:a\"");
+        assertSame(mediaType,
+                   registry.getMediaType("application/soap+xml; charset=UTF-16; action=\"urn:a\""));
+        assertEquals("application/soap+xml", mediaType.getBaseType());
+        assertEquals("UTF-16", mediaType.getCharSetEncoding());
+        assertEquals(SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI, mediaType.getSOAPNamespaceURI());
+        assertSame(soapBuilder, mediaType.getBuilder());
+        assertNull(mediaType.getMessageFormatter());
+
+        mediaType = registry.getMediaType("application/xml");
+        assertEquals(MessageContext.DEFAULT_CHAR_SET_ENCODING, mediaType.getCharSetEncoding());
+        assertNull(mediaType.getSOAPNamespaceURI());
+        assertSame(xmlBuilder, mediaType.getBuilder());
+        assertSame(xmlFormatter, mediaType.getMessageFormatter());
+
+        // the SOAP version of a multipart message comes from its type parameter
+        String multipart = "multipart/related; boundary=MIMEBoundary_1; type=\"text/xml\"";
+        mediaType = registry.getMediaType(multipart);
+        assertEquals(SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI, mediaType.getSOAPNamespaceURI());
+        assertNotSame(mediaType, registry.getMediaType(multipart));
+
+        assertNull(registry.getBuilder("application/unknown"));
+        assertNull(registry.getBuilder(null));
+    }
+
+    public void testRegistrationRecreatesRegistry() throws Exception {
+        MediaTypeRegistry registry = axisConfig.getMediaTypeRegistry();
+        assertNull(registry.getBuilder("application/json"));
+
+        Builder jsonBuilder = new ApplicationXMLBuilder();
+        axisConfig.addMessageBuilder("application/json", jsonBuilder);
+        registry = axisConfig.getMediaTypeRegistry();
+        assertSame(jsonBuilder, registry.getBuilder("application/json"));
+
+        axisConfig.addParameter(Constants.Configuration.USE_DEFAULT_FALLBACK_BUILDER, "true");
+        axisConfig.addMessageFormatter("application/json", xmlFormatter);
+        Builder fallback = axisConfig.getMediaTypeRegistry().getBuilder("application/unknown");
+        assertTrue(fallback instanceof UnknownContentBuilder);
+        assertSame(fallback, axisConfig.getMediaTypeRegistry().getBuilder("image/png"));
+    }
+
+    public void testContentNegotiation() throws Exception {
+        axisConfig.addParameter(Constants.Configuration.ENABLE_HTTP_CONTENT_NEGOTIATION, "true");
+        MediaTypeRegistry registry = axisConfig.getMediaTypeRegistry();
+        assertTrue(registry.isContentNegotiationEnabled());
+        assertEquals("application/xml",
+                     registry.getNegotiatedMessageType("text/xml, application/xml, */*"));
+        assertNull(registry.getNegotiatedMessageType("text/xml"));
+        assertNull(registry.getNegotiatedMessageType(null));
+
+        MessageContext msgContext = configContext.createMessageContext();
+        Map headers = new HashMap();
+        headers.put(HTTPConstants.HEADER_ACCEPT, "text/html,application/xml;q=0.9");
+        msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, headers);
+        assertSame(soapBuilder, BuilderUtil.getBuilderFromSelector("text/xml", msgContext));
+        assertEquals("application/xml",
+                     msgContext.getProperty(Constants.Configuration.MESSAGE_TYPE));
+    }
+
+    public void testDefaultFormattersAreShared() throws Exception {
+        MessageContext msgContext = configContext.createMessageContext();
+        MessageFormatter formatter = TransportUtils.getMessageFormatter(msgContext);
+        assertTrue(formatter instanceof SOAPMessageFormatter);
+        assertSame(formatter,
+                   TransportUtils.getMessageFormatter(configContext.createMessageContext()));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.client.async.AxisCallback;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CallbackReceiverTest extends TestCase {
+
+    private ConfigurationContext configContext;
+
+    protected void setUp() throws Exception {
+        configContext = ConfigurationContextFactory.createEmptyConfigurationContext();
+    }
+
+    protected void tearDown() throws Exception {
+        configContext.terminate();
+    }
+
+    public void testExpiry() throws Exception {
+        CallbackReceiver receiver = new CallbackReceiver(configContext);
+        TestCallback callback = new TestCallback();
+        receiver.addCallback("urn:uuid:1", callback, 100);
+        assertEquals(1, receiver.getPendingCount());
+
+        assertTrue(callback.completed.await(10, TimeUnit.SECONDS));
+        assertTrue(callback.error instanceof AxisFault);
+        assertEquals("Axis2 CallbackReceiver notifier", callback.thread.getName());
+        assertEquals(0, receiver.getPendingCount());
+        assertEquals(1, receiver.getExpiredCount());
+        assertNull(receiver.lookupCallback("urn:uuid:1"));
+    }
+
+    public void testResponseCancelsTimeout() throws Exception {
+        CallbackReceiver receiver = new CallbackReceiver(configContext);
+        TestCallback callback = new TestCallback();
+        receiver.addCallback("urn:uuid:2", callback, 60000);
+        assertEquals(1, configContext.getTimeoutWheel().getPendingCount());
+
+        assertSame(callback, receiver.lookupCallback("urn:uuid:2"));
+        assertEquals(0, receiver.getPendingCount());
+        assertEquals(0, configContext.getTimeoutWheel().getPendingCount());
+        assertEquals(0, receiver.getExpiredCount());
+    }
+
+    public void testBoundedTable() throws Exception {
+        configContext.getAxisConfiguration().addParameter(
+                Constants.Configuration.CALLBACK_RECEIVER_MAX_PENDING, "2");
+        CallbackReceiver receiver = new CallbackReceiver(configContext);
+        assertEquals(2, receiver.getMaxPending());
+        receiver.addCallback("urn:uuid:3", new TestCallback());
+        receiver.addCallback("urn:uuid:4", new TestCallback());
+        try {
+            receiver.addCallback("urn:uuid:5", new TestCallback());
+            fail("Expected the table to be full");
+        } catch (AxisFault e) {
+            // expected
+        }
+        assertEquals(1, receiver.getRejectedCount());
+
+        // a duplicate doesn't leak a slot
+        try {
+            receiver.addCallback("urn:uuid:4", new TestCallback());
+            fail("Expected a duplicate message ID to be rejected");
+        } catch (AxisFault e) {
+            // expected
+        }
+        receiver.lookupCallback("urn:uuid:3");
+        receiver.addCallback("urn:uuid:5", new TestCallback());
+        assertEquals(2, receiver.getPendingCount());
+    }
+
+    public void testReadOnlyCallbackStore() throws Exception {
+        CallbackReceiver receiver = new CallbackReceiver(configContext);
+        receiver.addCallback("urn:uuid:6", new TestCallback());
+        assertTrue(receiver.getCallbackStore().containsKey("urn:uuid:6"));
+        try {
+            receiver.getCallbackStore().remove("urn:uuid:6");
+            fail("Expected the store to be read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(1, receiver.getPendingCount());
+    }
+
+    private static class TestCallback implements AxisCallback {
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Exception error;
+        volatile Thread thread;
+
+        public void onMessage(MessageContext msgContext) {
+        }
+
+        public void onFault(MessageContext msgContext) {
+        }
+
+        public void onError(Exception e) {
+            error = e;
+            thread = Thread.currentThread();
+        }
+
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
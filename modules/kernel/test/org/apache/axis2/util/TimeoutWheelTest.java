@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TimeoutWheelTest extends TestCase {
+
+    private TimeoutWheel wheel;
+
+    protected void setUp() throws Exception {
+        // a small wheel, so that the tests also cover timeouts spanning several rounds
+        wheel = new TimeoutWheel("test wheel", 10, 8);
+    }
+
+    protected void tearDown() throws Exception {
+        wheel.shutdown();
+    }
+
+    public void testExpiry() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        long start = System.currentTimeMillis();
+        Runnable task = new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        };
+        wheel.schedule(task, 0);
+        wheel.schedule(task, 50);
+        TimeoutWheel.Timeout last = wheel.schedule(task, 250);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() >= last.getDeadline());
+        assertTrue(System.currentTimeMillis() - start >= 250);
+        assertTrue(last.isExpired());
+        assertEquals(3, wheel.getExpiredCount());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    public void testCancel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final boolean[] ran = new boolean[1];
+        TimeoutWheel.Timeout cancelled = wheel.schedule(new Runnable() {
+            public void run() {
+                ran[0] = true;
+            }
+        }, 30);
+        wheel.schedule(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        }, 100);
+        assertEquals(2, wheel.getPendingCount());
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(1, wheel.getPendingCount());
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertFalse(ran[0]);
+        assertTrue(cancelled.isCancelled());
+        assertEquals(1, wheel.getExpiredCount());
+    }
+
+    public void testShutdownDiscardsPendingTimeouts() throws Exception {
+        TimeoutWheel.Timeout timeout = wheel.schedule(new Runnable() {
+            public void run() {
+            }
+        }, 60000);
+        wheel.shutdown();
+        for (int i = 0; i < 100 && wheel.getPendingCount() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, wheel.getPendingCount());
+        assertFalse(timeout.cancel());
+
+        // the wheel can be used again
+        final CountDownLatch latch = new CountDownLatch(1);
+        wheel.schedule(new Runnable() {
+            public void run() {
+                latch.countDown();
+            }
+        }, 10);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.util.threadpool;
+
+import junit.framework.TestCase;
+import org.apache.axis2.Constants;
+import org.apache.axis2.engine.AxisConfiguration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ThreadPoolProfileTest extends TestCase {
+
+    public void testDefaultProfile() throws Exception {
+        ThreadPoolProfile profile = ThreadPoolProfile.fromConfiguration(new AxisConfiguration());
+        assertEquals(ThreadPoolProfile.BOUNDED, profile.getName());
+        assertEquals(5, profile.getCorePoolSize());
+        assertEquals(100, profile.getMaxPoolSize());
+        assertEquals(0, profile.getQueueCapacity());
+        assertEquals(ThreadPoolProfile.REJECT_ABORT, profile.getRejectionPolicy());
+    }
+
+    public void testConfiguredProfile() throws Exception {
+        AxisConfiguration axisConfig = new AxisConfiguration();
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_PROFILE, "legacy");
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_CORE_SIZE, "2");
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_MAX_SIZE, "4");
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_QUEUE_CAPACITY, "10");
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_ALLOW_CORE_THREAD_TIMEOUT,
+                "true");
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_REJECTION_POLICY, "block");
+        ThreadPoolProfile profile = ThreadPoolProfile.fromConfiguration(axisConfig);
+        assertEquals(ThreadPoolProfile.LEGACY, profile.getName());
+        assertEquals(2, profile.getCorePoolSize());
+        assertEquals(4, profile.getMaxPoolSize());
+        assertEquals(10, profile.getQueueCapacity());
+        assertTrue(profile.isAllowCoreThreadTimeOut());
+        assertEquals(ThreadPoolProfile.REJECT_BLOCK, profile.getRejectionPolicy());
+    }
+
+    public void testInvalidSettingsAreIgnored() throws Exception {
+        AxisConfiguration axisConfig = new AxisConfiguration();
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_PROFILE, "unknown");
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_MAX_SIZE, "many");
+        axisConfig.addParameter(Constants.Configuration.THREAD_POOL_REJECTION_POLICY, "retry");
+        ThreadPoolProfile profile = ThreadPoolProfile.fromConfiguration(axisConfig);
+        assertEquals(ThreadPoolProfile.BOUNDED, profile.getName());
+        assertEquals(100, profile.getMaxPoolSize());
+        assertEquals(ThreadPoolProfile.REJECT_ABORT, profile.getRejectionPolicy());
+    }
+
+    public void testAbortPolicy() throws Exception {
+        ThreadPoolProfile profile = new ThreadPoolProfile();
+        profile.setCorePoolSize(1);
+        profile.setMaxPoolSize(1);
+        profile.setRejectionPolicy(ThreadPoolProfile.REJECT_ABORT);
+        ThreadPool pool = new ThreadPool(profile);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            pool.execute(new Waiter(release));
+            try {
+                pool.execute(new Waiter(release));
+                fail("Expected RejectedExecutionException");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            assertEquals(1, pool.getRejectedCount());
+            assertEquals(1, pool.getPoolSize());
+        } finally {
+            release.countDown();
+            pool.safeShutDown();
+        }
+    }
+
+    public void testCallerRunsPolicy() throws Exception {
+        ThreadPoolProfile profile = new ThreadPoolProfile();
+        profile.setCorePoolSize(1);
+        profile.setMaxPoolSize(1);
+        profile.setRejectionPolicy(ThreadPoolProfile.REJECT_CALLER_RUNS);
+        ThreadPool pool = new ThreadPool(profile);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            pool.execute(new Waiter(release));
+            final Thread[] runner = new Thread[1];
+            pool.execute(new Runnable() {
+                public void run() {
+                    runner[0] = Thread.currentThread();
+                }
+            });
+            assertSame(Thread.currentThread(), runner[0]);
+            assertEquals(1, pool.getRejectedCount());
+        } finally {
+            release.countDown();
+            pool.safeShutDown();
+        }
+    }
+
+    public void testAsyncTaskIsNeverRunInlineOrDiscarded() throws Exception {
+        String[] policies = { ThreadPoolProfile.REJECT_CALLER_RUNS,
+                ThreadPoolProfile.REJECT_DISCARD };
+        for (int i = 0; i < policies.length; i++) {
+            ThreadPoolProfile profile = new ThreadPoolProfile();
+            profile.setCorePoolSize(1);
+            profile.setMaxPoolSize(1);
+            profile.setRejectionPolicy(policies[i]);
+            ThreadPool pool = new ThreadPool(profile);
+            CountDownLatch release = new CountDownLatch(1);
+            try {
+                pool.execute(new Waiter(release));
+                final boolean[] ran = new boolean[1];
+                try {
+                    pool.execute(new AsyncTask() {
+                        public void run() {
+                            ran[0] = true;
+                        }
+                    });
+                    fail("Expected RejectedExecutionException for " + policies[i]);
+                } catch (RejectedExecutionException e) {
+                    // expected
+                }
+                assertFalse(ran[0]);
+                assertEquals(1, pool.getRejectedCount());
+            } finally {
+                release.countDown();
+                pool.safeShutDown();
+            }
+        }
+    }
+
+    public void testQueuedCount() throws Exception {
+        ThreadPoolProfile profile = new ThreadPoolProfile();
+        profile.setCorePoolSize(1);
+        profile.setMaxPoolSize(1);
+        profile.setQueueCapacity(5);
+        ThreadPool pool = new ThreadPool(profile);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 3; i++) {
+                pool.execute(new Waiter(release));
+            }
+            assertEquals(2, pool.getQueuedCount());
+            assertEquals(0, pool.getRejectedCount());
+        } finally {
+            release.countDown();
+            pool.safeShutDown();
+        }
+    }
+
+    public void testShutDownIsPerPool() throws Exception {
+        ThreadPool first = new ThreadPool();
+        ThreadPool second = new ThreadPool();
+        first.safeShutDown();
+        try {
+            first.execute(new Waiter(new CountDownLatch(0)));
+            fail("Expected the pool to be shut down");
+        } catch (RuntimeException e) {
+            // expected
+        }
+        second.execute(new Waiter(new CountDownLatch(0)));
+        second.safeShutDown();
+    }
+
+    private static class Waiter implements Runnable {
+        private final CountDownLatch latch;
+
+        Waiter(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        public void run() {
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -30,7 +30,6 @@ import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.transport.MessageFormatter;
-import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.httpclient.Credentials;
@@ -41,8 +40,8 @@ import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpConnectionManager;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.HttpVersion;
-import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.NTCredentials;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
@@ -399,7 +398,7 @@ public abstract class AbstractHTTPSender {
             httpMethod.setDoAuthentication(true);
         }
 
-        MessageFormatter messageFormatter = TransportUtils.getMessageFormatter(
+        MessageFormatter messageFormatter = PassThroughFormatter.getMessageFormatter(
                 msgContext);
 
         url = messageFormatter.getTargetAddress(msgContext, format, url);
@@ -426,7 +425,7 @@ public abstract class AbstractHTTPSender {
         }
 
         if (httpVersion.equals(HTTPConstants.HEADER_PROTOCOL_10)) {
-            httpClient.getParams().setVersion(HttpVersion.HTTP_1_0);
+            httpMethod.getParams().setVersion(HttpVersion.HTTP_1_0);
         }
         return messageFormatter;
     }
@@ -434,7 +433,12 @@ public abstract class AbstractHTTPSender {
     /**
      * This is used to get the dynamically set time out values from the
      * message context. If the values are not available or invalid then
-     * the default values or the values set by the configuration will be used
+     * the default values or the values set by the configuration will be used.
+     * <p/>
+     * This applies to the messages sent with an HttpClient of their own (see
+     * {@link #requiresOwnHttpClient(MessageContext)}); the messages sent with the shared
+     * HttpClient of the connection pool go through
+     * {@link #initializeTimeouts(MessageContext, HttpMethod, HttpConnectionManager)} instead.
      *
      * @param msgContext the active MessageContext
      * @param httpClient
@@ -497,28 +501,37 @@ public abstract class AbstractHTTPSender {
                 (HttpConnectionManager) msgContext.getProperty(
                      HTTPConstants.MUTTITHREAD_HTTP_CONNECTION_MANAGER);
         }
+        HttpClientParams params = null;
         if (connManager == null) {
             // reuse HttpConnectionManager
             synchronized (configContext) {
                 connManager = (HttpConnectionManager) configContext.getProperty(
                                    HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
                 if (connManager == null) {
-                    log.trace("Making new ConnectionManager");
-                    connManager = new MultiThreadedHttpConnectionManager();
-                    configContext.setProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER, 
-                                              connManager);
+                    connManager = PooledHttpConnectionManager.getInstance(configContext);
                 }
             }
         }
+        if (connManager instanceof PooledHttpConnectionManager) {
+            HttpClient sharedClient = ((PooledHttpConnectionManager) connManager).getHttpClient();
+            if (!requiresOwnHttpClient(msgContext)) {
+                return sharedClient;
+            }
+            params = new HttpClientParams(sharedClient.getParams());
+        }
 
         /*
          * Create a new instance of HttpClient since the way
          * it is used here it's not fully thread-safe.
          */
-        httpClient = new HttpClient(connManager);
+        httpClient = params == null ? new HttpClient(connManager)
+                : new HttpClient(params, connManager);
 
-        // Set the default timeout in case we have a connection pool starvation to 30sec
-        httpClient.getParams().setConnectionManagerTimeout(30000);
+        // Set the timeout in case we have a connection pool starvation (default 30sec)
+        httpClient.getParams().setConnectionManagerTimeout(
+                PooledHttpConnectionManager.getIntSetting(msgContext,
+                        HTTPConstants.CONNECTION_POOL_TIMEOUT,
+                        HTTPConstants.DEFAULT_CONNECTION_POOL_TIMEOUT));
 
         // Get the timeout values set in the runtime
         initializeTimeouts(msgContext, httpClient);
@@ -526,6 +539,55 @@ public abstract class AbstractHTTPSender {
         return httpClient;
     }
 
+    /**
+     * Check if a message needs an HttpClient of its own, because it sets parameters or state of
+     * the HttpClient: credentials, a proxy or a connection pool timeout. Other messages are sent
+     * with the HttpClient of the connection pool.
+     *
+     * @param msgContext the message context
+     * @return true if the message can't be sent with a shared HttpClient
+     */
+    protected boolean requiresOwnHttpClient(MessageContext msgContext) {
+        return isAuthenticationEnabled(msgContext)
+                || ProxyConfiguration.isProxyConfigured(msgContext)
+                || msgContext.getProperty(HTTPConstants.CONNECTION_POOL_TIMEOUT) != null;
+    }
+
+    private static boolean isSharedHttpClient(HttpClient httpClient) {
+        HttpConnectionManager connManager = httpClient.getHttpConnectionManager();
+        return connManager instanceof PooledHttpConnectionManager
+                && ((PooledHttpConnectionManager) connManager).getHttpClient() == httpClient;
+    }
+
+    /**
+     * Apply the timeouts of a message sent with the shared HttpClient of the connection pool.
+     * The socket timeout is set on the method, since the parameters of the shared HttpClient
+     * must not be changed. Subclasses that customise
+     * {@link #initializeTimeouts(MessageContext, HttpClient)} should override this method as
+     * well, or override {@link #requiresOwnHttpClient(MessageContext)} to always use an
+     * HttpClient of their own.
+     *
+     * @param msgContext  the active MessageContext
+     * @param method      the method about to be executed
+     * @param connManager the connection pool
+     */
+    protected void initializeTimeouts(MessageContext msgContext, HttpMethod method,
+                                    HttpConnectionManager connManager) {
+        Integer soTimeout = (Integer) msgContext.getProperty(HTTPConstants.SO_TIMEOUT);
+        Integer connTimeout = (Integer) msgContext.getProperty(HTTPConstants.CONNECTION_TIMEOUT);
+        long timeout = msgContext.getOptions().getTimeOutInMilliSeconds();
+        if (connTimeout != null) {
+            connManager.getParams().setConnectionTimeout(connTimeout.intValue());
+        } else if (timeout > 0) {
+            connManager.getParams().setConnectionTimeout((int) timeout);
+        }
+        if (soTimeout != null) {
+            method.getParams().setSoTimeout(soTimeout.intValue());
+        } else if (timeout > 0) {
+            method.getParams().setSoTimeout((int) timeout);
+        }
+    }
+
     protected void executeMethod(HttpClient httpClient, MessageContext msgContext, URL url,
                                  HttpMethod method) throws IOException {
         HostConfiguration config = this.getHostConfiguration(httpClient, msgContext, url);
@@ -554,7 +616,13 @@ public abstract class AbstractHTTPSender {
         if (cookiePolicy != null) {
             method.getParams().setCookiePolicy(cookiePolicy);   
         }
-        httpClient.executeMethod(config, method);
+        if (isSharedHttpClient(httpClient)) {
+            // the shared HttpClient keeps no state (cookies, credentials) from one call to the next
+            initializeTimeouts(msgContext, method, httpClient.getHttpConnectionManager());
+            httpClient.executeMethod(config, method, new HttpState());
+        } else {
+            httpClient.executeMethod(config, method);
+        }
     }
 
     public void addCustomHeaders(HttpMethod method, MessageContext msgContext) {
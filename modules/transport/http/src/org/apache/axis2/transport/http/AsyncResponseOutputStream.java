@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The stream the engine writes a response to when the response may be completed asynchronously
+ * (see {@link AxisServlet}). Once the container has timed the request out, the response belongs
+ * to the container again: {@link #discard()} makes the stream drop everything written to it
+ * instead of passing it to a response that has been completed and may have been recycled.
+ */
+class AsyncResponseOutputStream extends FilterOutputStream {
+
+    private boolean discarded;
+
+    AsyncResponseOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Drop everything written from now on. This waits for a write in progress to finish.
+     */
+    synchronized void discard() {
+        discarded = true;
+    }
+
+    public synchronized void write(int b) throws IOException {
+        if (!discarded) {
+            out.write(b);
+        }
+    }
+
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (!discarded) {
+            out.write(b, off, len);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!discarded) {
+            out.flush();
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (!discarded) {
+            out.close();
+        }
+    }
+}
@@ -20,11 +20,14 @@
 package org.apache.axis2.transport.http;
 
 import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.util.blob.OverflowBlob;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.transport.MessageFormatter;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import javax.xml.stream.FactoryConfigurationError;
 import java.io.IOException;
@@ -34,16 +37,26 @@ import java.util.zip.GZIPOutputStream;
 /**
  * This Request Entity is used by the HTTPCommonsTransportSender. This wraps the
  * Axis2 message formatter object.
+ * <p/>
+ * When the request isn't chunked, the message is serialized once into a buffer to compute its
+ * length. Messages larger than {@link #BUFFER_CHUNK_SIZE} * {@link #BUFFER_CHUNKS} bytes are
+ * spilled to a temporary file, which is deleted by {@link #release()}.
  */
 public class AxisRequestEntity implements RequestEntity {
 
+    private static final Log log = LogFactory.getLog(AxisRequestEntity.class);
+
+    static final int BUFFER_CHUNK_SIZE = 4096;
+
+    static final int BUFFER_CHUNKS = 64;
+
     private MessageFormatter messageFormatter;
 
     private boolean chunked = false;
 
     private MessageContext messageContext;
 
-    private byte[] bytes;
+    private OverflowBlob buffer;
 
     private boolean isAllowedRetry;
 
@@ -83,10 +96,7 @@ public class AxisRequestEntity implements RequestEntity {
             if (chunked) {
                 messageFormatter.writeTo(messageContext, format, outStream, isAllowedRetry);
             } else {
-                if (bytes == null) {
-                    bytes = messageFormatter.getBytes(messageContext, format);
-                }
-                outStream.write(bytes);
+                bufferMessage().writeTo(outStream);
             }
             if (outStream instanceof GZIPOutputStream) {
                 ((GZIPOutputStream) outStream).finish();
@@ -104,14 +114,38 @@ public class AxisRequestEntity implements RequestEntity {
         if (chunked) {
             return -1;
         }
-        if (bytes == null) {
+        try {
+            return bufferMessage().getLength();
+        } catch (IOException e) {
+            log.debug("Unable to serialize the message", e);
+            return -1;
+        }
+    }
+
+    private OverflowBlob bufferMessage() throws IOException {
+        if (buffer == null) {
+            OverflowBlob blob = new OverflowBlob(BUFFER_CHUNKS, BUFFER_CHUNK_SIZE, "axis2", ".tmp");
+            OutputStream out = blob.getOutputStream();
             try {
-                bytes = messageFormatter.getBytes(messageContext, format);
-            } catch (AxisFault e) {
-                return -1;
+                messageFormatter.writeTo(messageContext, format, out, false);
+                out.close();
+            } catch (IOException e) {
+                blob.release();
+                throw e;
             }
+            buffer = blob;
+        }
+        return buffer;
+    }
+
+    /**
+     * Discard the buffered message, if any. The entity can't be written once it has been released.
+     */
+    public void release() {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
         }
-        return bytes.length;
     }
 
     public String getContentType() {
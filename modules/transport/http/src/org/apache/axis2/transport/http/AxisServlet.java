@@ -90,6 +90,20 @@ public class AxisServlet extends HttpServlet {
     static final OnDemandLogger log = new OnDemandLogger(AxisServlet.class);
     public static final String CONFIGURATION_CONTEXT = "CONFIGURATION_CONTEXT";
     public static final String SESSION_ID = "SessionId";
+
+    /**
+     * Name of the axis2.xml parameter that lets the servlet release the container thread while
+     * the response of a request is held (Servlet 3.0 asynchronous processing). The servlet must
+     * also be declared with <tt>&lt;async-supported&gt;true&lt;/async-supported&gt;</tt>.
+     */
+    public static final String SERVLET_ASYNC = "servletAsync";
+
+    /**
+     * Name of the axis2.xml parameter giving the time in milliseconds after which a request whose
+     * response is held asynchronously is answered with an error (see {@link #SERVLET_ASYNC}).
+     * Defaults to {@link HTTPConstants#DEFAULT_SO_TIMEOUT}; 0 means no timeout.
+     */
+    public static final String SERVLET_ASYNC_TIMEOUT = "servletAsyncTimeout";
     
     private static final Set<String> metadataQueryParamNames = new HashSet<String>(
             Arrays.asList("wsdl2", "wsdl", "xsd", "policy"));
@@ -106,6 +120,9 @@ public class AxisServlet extends HttpServlet {
     private static final String LIST_SERVICES_SUFFIX = "/services/listServices";
     private static final String LIST_FAULTY_SERVICES_SUFFIX = "/services/ListFaultyServices";
     private boolean closeReader = true;
+    // set if responses held asynchronously release the container thread
+    transient ServletAsyncSupport asyncSupport;
+    long asyncTimeout = HTTPConstants.DEFAULT_SO_TIMEOUT;
 
     private static final int BUFFER_SIZE = 1024 * 8;
     
@@ -135,12 +152,16 @@ public class AxisServlet extends HttpServlet {
         if (!HTTPTransportUtils.isRESTRequest(contentType)) {
             msgContext = createMessageContext(request, response);
             msgContext.setProperty(Constants.Configuration.CONTENT_TYPE, contentType);
+            // with asynchronous completion, the engine may write after the request has timed out
+            AsyncResponseOutputStream asyncOut =
+                    asyncSupport != null ? new AsyncResponseOutputStream(out) : null;
+            OutputStream bufferedOut =
+                    new BufferedOutputStream(asyncOut != null ? asyncOut : out);
+            boolean async = false;
             try {
                 // adding ServletContext into msgContext;
                 String url = request.getRequestURL().toString();
                 
-                OutputStream bufferedOut = new BufferedOutputStream(out);
-                
                 InvocationResponse pi = HTTPTransportUtils.
                         processHTTPPostRequest(msgContext,
                                 new BufferedInputStream(request.getInputStream()),
@@ -154,71 +175,29 @@ public class AxisServlet extends HttpServlet {
 
                 if (pi.equals(InvocationResponse.SUSPEND) ||
                         (holdResponse != null && Boolean.TRUE.equals(holdResponse))) {
-                    ((RequestResponseTransport) msgContext
-                            .getProperty(RequestResponseTransport.TRANSPORT_CONTROL))
-                            .awaitResponse();
+                    RequestResponseTransport transport = (RequestResponseTransport) msgContext
+                            .getProperty(RequestResponseTransport.TRANSPORT_CONTROL);
+                    async = asyncSupport != null
+                            && transport instanceof ServletRequestResponseTransport
+                            && ((ServletRequestResponseTransport) transport)
+                                    .startAsync(request, msgContext, bufferedOut, asyncOut);
+                    if (!async) {
+                        transport.awaitResponse();
+                    }
                 }
 
-                // if data has not been sent back and this is not a signal response
-                if (!TransportUtils.isResponseWritten(msgContext)  
-                		&& (((RequestResponseTransport) 
-                				msgContext.getProperty(
-                						RequestResponseTransport.TRANSPORT_CONTROL)).
-                						getStatus() != RequestResponseTransport.
-                						RequestResponseTransportStatus.SIGNALLED)) {
-                    response.setStatus(HttpServletResponse.SC_ACCEPTED);
-                    // only set contentType in this scenario, not if response already set
-                    log.debug("Response not written. Setting response contentType to text/xml; " +
-                            "charset=" +msgContext.getProperty(Constants.Configuration.CHARACTER_SET_ENCODING));
-                    response.setContentType("text/xml; charset="
-                            + msgContext
-                            .getProperty(Constants.Configuration.CHARACTER_SET_ENCODING));
+                if (!async) {
+                    completeResponse(msgContext, response, bufferedOut);
                 }
-                
-                // Make sure that no data remains in the BufferedOutputStream even if the message
-                // formatter doesn't call flush
-                bufferedOut.flush();
-
             } catch (AxisFault e) {
-                setResponseState(msgContext, response);
-                log.debug(e);
-                if (msgContext != null) {
-                    processAxisFault(msgContext, response, out, e);
-                } else {
-                    throw new ServletException(e);
-                }
+                processPostFault(msgContext, response, out, e);
             } catch (Throwable t) {
-                log.error(t.getMessage(), t);
-                try {
-                    // If the fault is not going along the back channel we should be 202ing
-                    if (AddressingHelper.isFaultRedirected(msgContext)) {
-                        response.setStatus(HttpServletResponse.SC_ACCEPTED);
-                    } else {
-                        response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-
-                        AxisBindingOperation axisBindingOperation =
-                                (AxisBindingOperation) msgContext
-                                        .getProperty(Constants.AXIS_BINDING_OPERATION);
-                        if (axisBindingOperation != null) {
-                            AxisBindingMessage axisBindingMessage = axisBindingOperation.getFault(
-                                    (String) msgContext.getProperty(Constants.FAULT_NAME));
-                            if(axisBindingMessage != null){
-                                Integer code = (Integer) axisBindingMessage
-                                        .getProperty(WSDL2Constants.ATTR_WHTTP_CODE);
-                                if (code != null) {
-                                    response.setStatus(code.intValue());
-                                }
-                            }
-                        }
-                    }
-                    handleFault(msgContext, out, new AxisFault(t.toString(), t));
-                } catch (AxisFault e2) {
-                    log.info(e2);
-                    throw new ServletException(e2);
-                }
+                processPostError(msgContext, response, out, t);
             } finally {
-                closeStaxBuilder(msgContext);
-                TransportUtils.deleteAttachments(msgContext);
+                if (!async) {
+                    closeStaxBuilder(msgContext);
+                    TransportUtils.deleteAttachments(msgContext);
+                }
             }
         } else {
             if (!disableREST) {
@@ -332,6 +311,80 @@ public class AxisServlet extends HttpServlet {
         response.setStatus(HttpServletResponse.SC_ACCEPTED);
     }
 
+    /**
+     * Finish the response of a SOAP request once the message has been processed.
+     *
+     * @param msgContext the request message context
+     * @param response   the servlet response
+     * @param out        the buffered output stream given to the engine
+     * @throws IOException if the response can't be flushed
+     */
+    private void completeResponse(MessageContext msgContext, HttpServletResponse response,
+                                  OutputStream out) throws IOException {
+        // if data has not been sent back and this is not a signal response
+        if (!TransportUtils.isResponseWritten(msgContext)  
+        		&& (((RequestResponseTransport) 
+        				msgContext.getProperty(
+        						RequestResponseTransport.TRANSPORT_CONTROL)).
+        						getStatus() != RequestResponseTransport.
+        						RequestResponseTransportStatus.SIGNALLED)) {
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            // only set contentType in this scenario, not if response already set
+            log.debug("Response not written. Setting response contentType to text/xml; " +
+                    "charset=" +msgContext.getProperty(Constants.Configuration.CHARACTER_SET_ENCODING));
+            response.setContentType("text/xml; charset="
+                    + msgContext
+                    .getProperty(Constants.Configuration.CHARACTER_SET_ENCODING));
+        }
+        
+        // Make sure that no data remains in the BufferedOutputStream even if the message
+        // formatter doesn't call flush
+        out.flush();
+    }
+
+    private void processPostFault(MessageContext msgContext, HttpServletResponse response,
+                                  OutputStream out, AxisFault e) throws ServletException {
+        setResponseState(msgContext, response);
+        log.debug(e);
+        if (msgContext != null) {
+            processAxisFault(msgContext, response, out, e);
+        } else {
+            throw new ServletException(e);
+        }
+    }
+
+    private void processPostError(MessageContext msgContext, HttpServletResponse response,
+                                  OutputStream out, Throwable t) throws ServletException {
+        log.error(t.getMessage(), t);
+        try {
+            // If the fault is not going along the back channel we should be 202ing
+            if (AddressingHelper.isFaultRedirected(msgContext)) {
+                response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            } else {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+
+                AxisBindingOperation axisBindingOperation =
+                        (AxisBindingOperation) msgContext
+                                .getProperty(Constants.AXIS_BINDING_OPERATION);
+                if (axisBindingOperation != null) {
+                    AxisBindingMessage axisBindingMessage = axisBindingOperation.getFault(
+                            (String) msgContext.getProperty(Constants.FAULT_NAME));
+                    if(axisBindingMessage != null){
+                        Integer code = (Integer) axisBindingMessage
+                                .getProperty(WSDL2Constants.ATTR_WHTTP_CODE);
+                        if (code != null) {
+                            response.setStatus(code.intValue());
+                        }
+                    }
+                }
+            }
+            handleFault(msgContext, out, new AxisFault(t.toString(), t));
+        } catch (AxisFault e2) {
+            log.info(e2);
+            throw new ServletException(e2);
+        }
+    }
+
     /**
      * Close the builders.
      *
@@ -540,6 +593,25 @@ public class AxisServlet extends HttpServlet {
             closeReader = JavaUtils.isTrueExplicitly(parameter.getValue());
         }
 
+        // Should we release the container thread while a response is held
+        parameter = axisConfiguration.getParameter(SERVLET_ASYNC);
+        if (parameter != null && JavaUtils.isTrueExplicitly(parameter.getValue())) {
+            asyncSupport = ServletAsyncSupport.getInstance();
+            if (asyncSupport == null) {
+                log.warn("The servlet container doesn't support asynchronous processing; " +
+                        "the " + SERVLET_ASYNC + " parameter is ignored");
+            }
+        }
+        parameter = axisConfiguration.getParameter(SERVLET_ASYNC_TIMEOUT);
+        if (parameter != null && parameter.getValue() != null) {
+            try {
+                asyncTimeout = Long.parseLong(parameter.getValue().toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + SERVLET_ASYNC_TIMEOUT + ": " +
+                        parameter.getValue());
+            }
+        }
+
     }
 
     /**
@@ -734,13 +806,142 @@ public class AxisServlet extends HttpServlet {
         private RequestResponseTransportStatus status = RequestResponseTransportStatus.WAITING;
         AxisFault faultToBeThrownOut = null;
 
+        // Set while the response is completed asynchronously
+        private Object asyncContext = null;
+        private MessageContext asyncMessageContext = null;
+        private OutputStream asyncOut = null;
+        private AsyncResponseOutputStream asyncResponseOut = null;
+        // Set if the container timed the asynchronous request out
+        private boolean asyncTimedOut = false;
+
         ServletRequestResponseTransport(HttpServletResponse response) {
             this.response = response;
         }
 
+        /**
+         * Release the container thread instead of waiting for the response. The response is then
+         * completed by the thread that signals it.
+         *
+         * @param request    the servlet request
+         * @param msgContext the request message context
+         * @param out        the output stream given to the engine
+         * @param responseOut the stream <code>out</code> writes to, which drops the writes once
+         *                    the request has timed out
+         * @return true if the response will be completed asynchronously, false if the response is
+         *         already available or the request doesn't support asynchronous processing, in
+         *         which case the caller must use {@link #awaitResponse()}
+         */
+        synchronized boolean startAsync(HttpServletRequest request, MessageContext msgContext,
+                                        OutputStream out, AsyncResponseOutputStream responseOut) {
+            if (responseReadySignal.getCount() == 0) {
+                return false;
+            }
+            Object asyncContext = asyncSupport.startAsync(request, asyncTimeout, new Runnable() {
+                public void run() {
+                    timeoutAsync();
+                }
+            });
+            if (asyncContext == null) {
+                return false;
+            }
+            log.debug("Releasing servlet thread -- response will be completed asynchronously");
+            this.asyncContext = asyncContext;
+            this.asyncMessageContext = msgContext;
+            this.asyncOut = out;
+            this.asyncResponseOut = responseOut;
+            return true;
+        }
+
+        /**
+         * Answer a request the container timed out with an error. The message context is left
+         * alone, as the engine may still be using it; it is cleaned up when the response is
+         * eventually signalled. What the engine writes from now on, through the output stream
+         * or the OutTransportInfo of the message context, is dropped.
+         */
+        private void timeoutAsync() {
+            Object asyncContext;
+            synchronized (this) {
+                asyncContext = this.asyncContext;
+                this.asyncContext = null;
+                asyncTimedOut = asyncContext != null;
+            }
+            if (asyncContext == null) {
+                return;
+            }
+            log.debug("Timed out waiting for the response of an asynchronous request");
+            if (asyncResponseOut != null) {
+                asyncResponseOut.discard();
+            }
+            Object outTransportInfo =
+                    asyncMessageContext.getProperty(Constants.OUT_TRANSPORT_INFO);
+            if (outTransportInfo instanceof ServletBasedOutTransportInfo) {
+                ((ServletBasedOutTransportInfo) outTransportInfo).discard();
+            }
+            try {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                                   "Timed out waiting for the response");
+            } catch (Exception e) {
+                log.debug(e.getMessage(), e);
+            } finally {
+                asyncSupport.complete(asyncContext);
+            }
+        }
+
+        private void completeAsync() {
+            Object asyncContext;
+            boolean timedOut;
+            synchronized (this) {
+                asyncContext = this.asyncContext;
+                this.asyncContext = null;
+                timedOut = asyncTimedOut;
+                asyncTimedOut = false;
+            }
+            if (timedOut) {
+                try {
+                    closeStaxBuilder(asyncMessageContext);
+                } catch (Exception e) {
+                    log.debug(e.getMessage(), e);
+                }
+                TransportUtils.deleteAttachments(asyncMessageContext);
+                return;
+            }
+            if (asyncContext == null) {
+                return;
+            }
+            MessageContext msgContext = asyncMessageContext;
+            try {
+                if (faultToBeThrownOut != null) {
+                    throw faultToBeThrownOut;
+                }
+                completeResponse(msgContext, response, asyncOut);
+            } catch (AxisFault e) {
+                try {
+                    processPostFault(msgContext, response, asyncOut, e);
+                } catch (ServletException e2) {
+                    log.error(e2.getMessage(), e2);
+                }
+            } catch (Throwable t) {
+                try {
+                    processPostError(msgContext, response, asyncOut, t);
+                } catch (ServletException e2) {
+                    log.error(e2.getMessage(), e2);
+                }
+            } finally {
+                try {
+                    asyncOut.flush();
+                    closeStaxBuilder(msgContext);
+                } catch (Exception e) {
+                    log.debug(e.getMessage(), e);
+                }
+                TransportUtils.deleteAttachments(msgContext);
+                asyncSupport.complete(asyncContext);
+            }
+        }
+
         public void acknowledgeMessage(MessageContext msgContext) throws AxisFault {
             status = RequestResponseTransportStatus.ACKED;
             responseReadySignal.countDown();
+            completeAsync();
         }
 
         public void awaitResponse()
@@ -757,6 +958,7 @@ public class AxisServlet extends HttpServlet {
             log.debug("Signalling response available");
             status = RequestResponseTransportStatus.SIGNALLED;
             responseReadySignal.countDown();
+            completeAsync();
         }
 
         public RequestResponseTransportStatus getStatus() {
@@ -76,6 +76,8 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
 
     int connectionTimeout = HTTPConstants.DEFAULT_CONNECTION_TIMEOUT;
 
+    private ConfigurationContext configurationContext;
+
     public void cleanup(MessageContext msgContext) throws AxisFault {
         HttpMethod httpMethod = (HttpMethod) msgContext.getProperty(HTTPConstants.HTTP_METHOD);
 
@@ -88,6 +90,10 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
 
     public void init(ConfigurationContext confContext,
                      TransportOutDescription transportOut) throws AxisFault {
+        if (configurationContext == null) {
+            PooledHttpConnectionManager.addUser(confContext);
+        }
+        configurationContext = confContext;
 
         // <parameter name="PROTOCOL">HTTP/1.0</parameter> or
         // <parameter name="PROTOCOL">HTTP/1.1</parameter> is
@@ -140,7 +146,11 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
     }
 
     public void stop() {
-        // Any code that , need to invoke when sender stop
+        // The pool is shared with the other HTTP senders; the last one to stop shuts it down
+        if (configurationContext != null) {
+            PooledHttpConnectionManager.removeUser(configurationContext);
+            configurationContext = null;
+        }
     }
 
     public InvocationResponse invoke(MessageContext msgContext)
@@ -271,13 +281,23 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
 
         if (transportInfo == null) throw new AxisFault("No transport info in MessageContext");
 
+        // Select the formatter first: a pass-through message is only sent as it is if its SOAP
+        // body hasn't been looked at, and isFault() below may look at it
+        MessageFormatter messageFormatter = PassThroughFormatter.getMessageFormatter(msgContext);
+        if (messageFormatter == null) throw new AxisFault("No MessageFormatter in MessageContext");
+
+        // the status of a response relayed from another server (see PassThroughMessageReceiver)
+        Integer responseCode = (Integer) msgContext.getProperty(HTTPConstants.RESPONSE_CODE);
+
         ServletBasedOutTransportInfo servletBasedOutTransportInfo = null;
         if (transportInfo instanceof ServletBasedOutTransportInfo) {
             servletBasedOutTransportInfo =
                     (ServletBasedOutTransportInfo) transportInfo;
 
-            // if sending a fault, set HTTP status code to 500
-            if (msgContext.isFault()) {
+            // send a relayed status as it is, and a fault with HTTP status code 500
+            if (responseCode != null) {
+                servletBasedOutTransportInfo.setStatus(responseCode.intValue());
+            } else if (msgContext.isFault()) {
                 servletBasedOutTransportInfo.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             }
 
@@ -304,6 +324,9 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
                 }
             }
         } else if (transportInfo instanceof AxisHttpResponseImpl) {
+            if (responseCode != null) {
+                ((AxisHttpResponseImpl) transportInfo).setStatus(responseCode.intValue());
+            }
             Object customHeaders = msgContext.getProperty(HTTPConstants.HTTP_HEADERS);
             if (customHeaders != null) {
                 if (customHeaders instanceof List) {
@@ -330,9 +353,6 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
 
         format.setAutoCloseWriter(true);
 
-        MessageFormatter messageFormatter = TransportUtils.getMessageFormatter(msgContext);
-        if (messageFormatter == null) throw new AxisFault("No MessageFormatter in MessageContext");
-
         // Once we get to this point, exceptions should NOT be turned into faults and sent,
         // because we're already sending!  So catch everything and log it, but don't pass
         // upwards.
@@ -410,7 +430,15 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
         }
     }
 
-    private static String findSOAPAction(MessageContext messageContext) {
+    /**
+     * Find the SOAP action to send with a message: the SOAP action of the message context, its
+     * WS-Addressing action or the SOAP action of its operation, unless SOAP actions are
+     * disabled.
+     *
+     * @param messageContext the outgoing message context
+     * @return the SOAP action, or null if there is none
+     */
+    public static String findSOAPAction(MessageContext messageContext) {
         String soapActionString = null;
 
         Parameter parameter =
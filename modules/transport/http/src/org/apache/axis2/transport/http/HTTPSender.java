@@ -178,9 +178,10 @@ public class HTTPSender extends AbstractHTTPSender {
         MessageFormatter messageFormatter =
                 populateCommonProperties(msgContext, url, postMethod, httpClient, soapActionString);
 
-        postMethod.setRequestEntity(new AxisRequestEntity(messageFormatter,
-                                                          msgContext, format, soapActionString,
-                                                          chunked, isAllowedRetry));
+        AxisRequestEntity requestEntity = new AxisRequestEntity(messageFormatter,
+                msgContext, format, soapActionString, chunked, isAllowedRetry);
+
+        postMethod.setRequestEntity(requestEntity);
 
         if (!httpVersion.equals(HTTPConstants.HEADER_PROTOCOL_10) && chunked) {
             postMethod.setContentChunked(true);
@@ -202,6 +203,7 @@ public class HTTPSender extends AbstractHTTPSender {
             log.info("Unable to sendViaPost to url[" + url + "]", e);
             throw AxisFault.makeFault(e);
         } finally {
+            requestEntity.release();
             cleanup(msgContext, postMethod);
         }
     }
@@ -233,9 +235,10 @@ public class HTTPSender extends AbstractHTTPSender {
         MessageFormatter messageFormatter =
                 populateCommonProperties(msgContext, url, putMethod, httpClient, soapActionString);
 
-        putMethod.setRequestEntity(new AxisRequestEntity(messageFormatter,
-                                                         msgContext, format, soapActionString,
-                                                         chunked, isAllowedRetry));
+        AxisRequestEntity requestEntity = new AxisRequestEntity(messageFormatter,
+                msgContext, format, soapActionString, chunked, isAllowedRetry);
+
+        putMethod.setRequestEntity(requestEntity);
 
         if (!httpVersion.equals(HTTPConstants.HEADER_PROTOCOL_10) && chunked) {
             putMethod.setContentChunked(true);
@@ -256,6 +259,7 @@ public class HTTPSender extends AbstractHTTPSender {
             log.info("Unable to sendViaPut to url[" + url + "]", e);
             throw AxisFault.makeFault(e);
         } finally {
+            requestEntity.release();
             cleanup(msgContext, putMethod);
         }
     }
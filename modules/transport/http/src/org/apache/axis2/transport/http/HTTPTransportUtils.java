@@ -37,6 +37,7 @@ import org.apache.axis2.builder.BuilderUtil;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.TransportInDescription;
@@ -47,6 +48,7 @@ import org.apache.axis2.transport.TransportListener;
 import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.axis2.util.Utils;
+import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -165,11 +167,31 @@ public class HTTPTransportUtils {
             soapVersion = initializeMessageContext(msgContext, soapActionHeader, requestURI, contentType);
             msgContext.setProperty(MessageContext.TRANSPORT_OUT, out);
 
+            in = handleGZip(msgContext, in);
+            PassThroughMessage passThroughMessage = null;
+            AxisService passThroughService = getPassThroughService(msgContext, requestURI);
+            if (passThroughService != null) {
+                passThroughMessage = PassThroughMessage.read(in, contentType,
+                        PassThroughMessage.getMaxSize(passThroughService));
+                dispatchPassThrough(msgContext, passThroughService);
+                in = passThroughMessage.getInputStream();
+                if (passThroughMessage.isComplete()) {
+                    msgContext.setProperty(HTTPConstants.PASS_THROUGH_MESSAGE,
+                                           passThroughMessage);
+                } else {
+                    // too large to be kept: the request is streamed and serialized again
+                    log.debug("Pass-through request larger than the maximum size; streaming it");
+                    passThroughMessage = null;
+                }
+            }
             msgContext.setEnvelope(
                     TransportUtils.createSOAPMessage(
                             msgContext,
-                            handleGZip(msgContext, in), 
+                            in,
                             contentType));
+            if (passThroughMessage != null) {
+                passThroughMessage.setEnvelope(msgContext.getEnvelope());
+            }
             return AxisEngine.receive(msgContext);
         } catch (SOAPProcessingException e) {
             throw AxisFault.makeFault(e);
@@ -190,6 +212,60 @@ public class HTTPTransportUtils {
         }
     }
 
+    /**
+     * Find the service a request is addressed to if it is in pass-through mode, i.e. if its
+     * {@link HTTPConstants#PASS_THROUGH} parameter is true. Nothing is looked up unless a
+     * pass-through service has been deployed.
+     */
+    private static AxisService getPassThroughService(MessageContext msgContext,
+                                                     String requestURI) {
+        ConfigurationContext configurationContext = msgContext.getConfigurationContext();
+        if (!configurationContext.getAxisConfiguration().hasPassThroughServices()) {
+            return null;
+        }
+        String servicePath = configurationContext.getServiceContextPath();
+        if (servicePath == null) {
+            return null;
+        }
+        String[] values = Utils.parseRequestURLForServiceAndOperation(requestURI, servicePath);
+        if (values == null || values[0] == null) {
+            return null;
+        }
+        AxisService service =
+                configurationContext.getAxisConfiguration().getServiceForActivation(values[0]);
+        if (service != null && service.isActive() && JavaUtils.isTrueExplicitly(
+                service.getParameterValue(HTTPConstants.PASS_THROUGH))) {
+            return service;
+        }
+        return null;
+    }
+
+    /**
+     * Dispatch a pass-through request on the request URI and the SOAP action only, so that the
+     * dispatchers don't need to look at the SOAP body. A service with a single operation takes
+     * all requests that don't name one of its operations by their SOAP action.
+     */
+    private static void dispatchPassThrough(MessageContext msgContext, AxisService service) {
+        msgContext.setAxisService(service);
+        AxisOperation operation = null;
+        if (msgContext.getSoapAction() != null) {
+            operation = service.getOperationBySOAPAction(msgContext.getSoapAction());
+        }
+        if (operation == null) {
+            Iterator<AxisOperation> operations = service.getOperations();
+            if (operations.hasNext()) {
+                operation = operations.next();
+                if (operations.hasNext()) {
+                    operation = null;
+                }
+            }
+        }
+        if (operation != null) {
+            msgContext.setAxisOperation(operation);
+            msgContext.setAxisMessage(operation.getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+        }
+    }
+
     public static int initializeMessageContext(MessageContext msgContext,
                                                 String soapActionHeader,
                                                 String requestURI,
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.MessageFormatter;
+import org.apache.axis2.transport.TransportUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+
+/**
+ * Writes the raw bytes of an intact {@link PassThroughMessage} with its original content type.
+ * The SOAP action and the target address are left to the formatter that would otherwise have
+ * been used.
+ */
+public class PassThroughFormatter implements MessageFormatter {
+
+    private final PassThroughMessage message;
+
+    private final MessageFormatter formatter;
+
+    public PassThroughFormatter(PassThroughMessage message, MessageFormatter formatter) {
+        this.message = message;
+        this.formatter = formatter;
+    }
+
+    /**
+     * Get the formatter for an outgoing message: a PassThroughFormatter if the message context
+     * carries an intact pass-through message, and the formatter selected by
+     * {@link TransportUtils#getMessageFormatter(MessageContext)} otherwise.
+     *
+     * @param msgContext the outgoing message context
+     * @return the message formatter
+     * @throws AxisFault if no formatter can be found
+     */
+    public static MessageFormatter getMessageFormatter(MessageContext msgContext)
+            throws AxisFault {
+        MessageFormatter formatter = TransportUtils.getMessageFormatter(msgContext);
+        PassThroughMessage message = PassThroughMessage.getIntactMessage(msgContext);
+        return message == null ? formatter : new PassThroughFormatter(message, formatter);
+    }
+
+    public byte[] getBytes(MessageContext messageContext, OMOutputFormat format)
+            throws AxisFault {
+        try {
+            return message.toByteArray();
+        } catch (IOException e) {
+            throw AxisFault.makeFault(e);
+        }
+    }
+
+    public void writeTo(MessageContext messageContext, OMOutputFormat format,
+                        OutputStream outputStream, boolean preserve) throws AxisFault {
+        try {
+            message.writeTo(outputStream);
+        } catch (IOException e) {
+            throw AxisFault.makeFault(e);
+        }
+    }
+
+    public String getContentType(MessageContext messageContext, OMOutputFormat format,
+                                 String soapAction) {
+        return message.getContentType();
+    }
+
+    public URL getTargetAddress(MessageContext messageContext, OMOutputFormat format,
+                                URL targetURL) throws AxisFault {
+        return formatter.getTargetAddress(messageContext, format, targetURL);
+    }
+
+    public String formatSOAPAction(MessageContext messageContext, OMOutputFormat format,
+                                   String soapAction) {
+        return formatter.formatSOAPAction(messageContext, format, soapAction);
+    }
+}
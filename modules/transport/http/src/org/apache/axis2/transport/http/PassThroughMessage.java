@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.impl.OMContainerEx;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPHeader;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.AxisService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The raw bytes of a message handled in pass-through mode (see
+ * {@link HTTPConstants#PASS_THROUGH}), kept in pooled buffers so that the message can be sent on
+ * without serializing its envelope again.
+ * <p/>
+ * The envelope of the message is built from {@link #getInputStream()}, and as Axiom builds it on
+ * demand, the SOAP body isn't parsed unless a handler asks for it. The raw bytes are only used
+ * while the message is intact: the message context still holds the same envelope, the SOAP body
+ * hasn't been looked at and no header blocks have been added or removed. Handlers that change a
+ * header block in place must remove the {@link HTTPConstants#PASS_THROUGH_MESSAGE} property.
+ * <p/>
+ * At most {@link HTTPConstants#PASS_THROUGH_MAX_SIZE} bytes are buffered. A longer message is
+ * incomplete: its stream goes on with the rest of the original stream, and it can't be sent on
+ * as it is.
+ */
+public class PassThroughMessage {
+
+    private static final Log log = LogFactory.getLog(PassThroughMessage.class);
+
+    static final int BUFFER_SIZE = 8192;
+
+    private static final int MAX_POOLED_BUFFERS = 512;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> pool =
+            new ConcurrentLinkedQueue<ByteBuffer>();
+
+    private static final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    private final String contentType;
+
+    private final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+
+    private int length;
+
+    // The rest of the original stream, if the message is longer than the maximum size
+    private InputStream remainder;
+
+    private SOAPEnvelope envelope;
+
+    private int headerBlockCount;
+
+    private volatile boolean released;
+
+    private PassThroughMessage(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Read a message up to the end of the stream, buffering at most
+     * {@link HTTPConstants#DEFAULT_PASS_THROUGH_MAX_SIZE} bytes.
+     *
+     * @param in          the message, already decoded if it was sent with a content encoding
+     * @param contentType the content type of the message
+     * @return the message
+     * @throws IOException if the message can't be read
+     */
+    public static PassThroughMessage read(InputStream in, String contentType) throws IOException {
+        return read(in, contentType, HTTPConstants.DEFAULT_PASS_THROUGH_MAX_SIZE);
+    }
+
+    /**
+     * Read a message up to the end of the stream, or until more than <code>maxSize</code> bytes
+     * have been read. In the latter case the message is not complete (see
+     * {@link #isComplete()}), and the rest of the stream is left unread.
+     *
+     * @param in          the message, already decoded if it was sent with a content encoding
+     * @param contentType the content type of the message
+     * @param maxSize     the maximum number of bytes to buffer
+     * @return the message
+     * @throws IOException if the message can't be read
+     */
+    public static PassThroughMessage read(InputStream in, String contentType, int maxSize)
+            throws IOException {
+        PassThroughMessage message = new PassThroughMessage(contentType);
+        try {
+            ByteBuffer buffer = null;
+            while (true) {
+                if (message.length > maxSize) {
+                    message.remainder = in;
+                    break;
+                }
+                if (buffer == null || !buffer.hasRemaining()) {
+                    buffer = acquire();
+                    message.buffers.add(buffer);
+                }
+                // read one byte past the maximum size to know whether the stream ends there
+                int count = in.read(buffer.array(), buffer.position(),
+                        (int) Math.min(buffer.remaining(), (long) maxSize + 1 - message.length));
+                if (count == -1) {
+                    break;
+                }
+                buffer.position(buffer.position() + count);
+                message.length += count;
+            }
+        } catch (IOException e) {
+            message.release();
+            throw e;
+        }
+        for (ByteBuffer buffer : message.buffers) {
+            buffer.flip();
+        }
+        return message;
+    }
+
+    /**
+     * Get the maximum number of bytes buffered for the messages of a pass-through service.
+     *
+     * @param service the service
+     * @return the value of its {@link HTTPConstants#PASS_THROUGH_MAX_SIZE} parameter, or the
+     *         default
+     */
+    public static int getMaxSize(AxisService service) {
+        Object value = service == null ? null
+                : service.getParameterValue(HTTPConstants.PASS_THROUGH_MAX_SIZE);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + HTTPConstants.PASS_THROUGH_MAX_SIZE + ": "
+                        + value);
+            }
+        }
+        return HTTPConstants.DEFAULT_PASS_THROUGH_MAX_SIZE;
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        pooledBuffers.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Hand the buffers back to the pool. The message can't be read once it has been released.
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (ByteBuffer buffer : buffers) {
+            if (pooledBuffers.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+                pool.offer(buffer);
+            } else {
+                pooledBuffers.decrementAndGet();
+            }
+        }
+        buffers.clear();
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the number of bytes buffered
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return true if the whole message has been buffered, false if it was longer than the
+     *         maximum size
+     */
+    public boolean isComplete() {
+        return remainder == null;
+    }
+
+    /**
+     * @return a stream over the raw message; each call returns a new stream
+     */
+    public InputStream getInputStream() {
+        return new BufferInputStream();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        checkComplete();
+        for (ByteBuffer buffer : buffers) {
+            out.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+        }
+    }
+
+    public byte[] toByteArray() throws IOException {
+        checkComplete();
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (ByteBuffer buffer : buffers) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset(), bytes, offset, buffer.limit());
+            offset += buffer.limit();
+        }
+        return bytes;
+    }
+
+    private void checkReleased() throws IOException {
+        if (released) {
+            throw new IOException("The pass-through message has been released");
+        }
+    }
+
+    private void checkComplete() throws IOException {
+        checkReleased();
+        if (remainder != null) {
+            throw new IOException("The pass-through message is larger than the maximum size");
+        }
+    }
+
+    /**
+     * Remember the envelope built from this message. This builds the SOAP header, but not the
+     * body.
+     *
+     * @param envelope the envelope built from {@link #getInputStream()}
+     */
+    public void setEnvelope(SOAPEnvelope envelope) {
+        this.envelope = envelope;
+        headerBlockCount = countHeaderBlocks(envelope);
+    }
+
+    /**
+     * @param msgContext the message context carrying the message
+     * @return true if the raw message can still be sent instead of the envelope of the message
+     *         context
+     */
+    public boolean isIntact(MessageContext msgContext) {
+        if (released || remainder != null || envelope == null
+                || msgContext.getEnvelope() != envelope) {
+            return false;
+        }
+        OMElement body = envelope.getBody();
+        if (!(body instanceof OMContainerEx) || body.isComplete()
+                || ((OMContainerEx) body).getFirstOMChildIfAvailable() != null) {
+            return false;
+        }
+        return countHeaderBlocks(envelope) == headerBlockCount;
+    }
+
+    private static int countHeaderBlocks(SOAPEnvelope envelope) {
+        SOAPHeader header = envelope.getHeader();
+        int count = 0;
+        if (header != null) {
+            for (Iterator blocks = header.getChildElements(); blocks.hasNext(); blocks.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the message of a message context that can be sent on as it is.
+     *
+     * @param msgContext the message context
+     * @return the message, or null if the message context has no pass-through message or the
+     *         message is no longer intact
+     */
+    public static PassThroughMessage getIntactMessage(MessageContext msgContext) {
+        PassThroughMessage message = (PassThroughMessage) msgContext.getProperty(
+                HTTPConstants.PASS_THROUGH_MESSAGE);
+        return message != null && message.isIntact(msgContext) ? message : null;
+    }
+
+    private class BufferInputStream extends InputStream {
+        private int index;
+        private int position;
+
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkReleased();
+            while (index < buffers.size()) {
+                ByteBuffer buffer = buffers.get(index);
+                int remaining = buffer.limit() - position;
+                if (remaining > 0) {
+                    int count = Math.min(len, remaining);
+                    System.arraycopy(buffer.array(), buffer.arrayOffset() + position, b, off,
+                                     count);
+                    position += count;
+                    return count;
+                }
+                index++;
+                position = 0;
+            }
+            return remainder == null ? -1 : remainder.read(b, off, len);
+        }
+
+        public int available() throws IOException {
+            if (index < buffers.size()) {
+                return buffers.get(index).limit() - position;
+            }
+            return remainder == null ? 0 : remainder.available();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.OutInAxisOperation;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.AxisEngine;
+import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.receivers.AbstractMessageReceiver;
+import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.util.MessageContextBuilder;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpStatus;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Forwards the requests of a pass-through service (see {@link HTTPConstants#PASS_THROUGH}) to the
+ * URL given by its {@link HTTPConstants#PASS_THROUGH_TARGET} parameter and sends back the
+ * response. The request goes straight to the HTTP transport sender, without running the out
+ * flow, so its raw bytes are sent on unless a handler of the in flow has touched the SOAP body.
+ * The response is kept the same way, and is sent back as it was received unless a handler of the
+ * out flow touches its SOAP body. The HTTP status of an error response (a SOAP fault) is sent
+ * back with it.
+ * <p/>
+ * A pass-through service is typically configured with a single in-out operation using this
+ * receiver, so that it takes every request:
+ * <pre>
+ * &lt;service name="Proxy"&gt;
+ *     &lt;parameter name="passThrough"&gt;true&lt;/parameter&gt;
+ *     &lt;parameter name="passThroughTarget"&gt;http://backend:8080/axis2/services/Echo&lt;/parameter&gt;
+ *     &lt;operation name="forward"&gt;
+ *         &lt;messageReceiver class="org.apache.axis2.transport.http.PassThroughMessageReceiver"/&gt;
+ *     &lt;/operation&gt;
+ * &lt;/service&gt;
+ * </pre>
+ * Requests and responses are buffered up to the size given by the
+ * {@link HTTPConstants#PASS_THROUGH_MAX_SIZE} parameter. A larger request is streamed and
+ * serialized again, and a larger response fails the call.
+ */
+public class PassThroughMessageReceiver extends AbstractMessageReceiver {
+
+    // Only used to tell the HTTP sender that a response is expected
+    private static final AxisOperation OUT_IN_OPERATION =
+            new OutInAxisOperation(ServiceClient.ANON_OUT_IN_OP);
+
+    protected void invokeBusinessLogic(MessageContext inMessage) throws AxisFault {
+        MessageContext outMessage = MessageContextBuilder.createOutMessageContext(inMessage);
+        outMessage.getOperationContext().addMessageContext(outMessage);
+
+        PassThroughMessage request = (PassThroughMessage) inMessage.getProperty(
+                HTTPConstants.PASS_THROUGH_MESSAGE);
+        PassThroughMessage response = null;
+        try {
+            response = forward(inMessage, outMessage);
+            replicateState(inMessage);
+            AxisEngine.send(outMessage);
+        } finally {
+            if (request != null) {
+                request.release();
+            }
+            if (response != null && !outMessage.isPaused()) {
+                response.release();
+            }
+        }
+    }
+
+    private PassThroughMessage forward(MessageContext inMessage, MessageContext outMessage)
+            throws AxisFault {
+        AxisService service = inMessage.getAxisService();
+        Object target = service.getParameterValue(HTTPConstants.PASS_THROUGH_TARGET);
+        if (target == null) {
+            throw new AxisFault(Messages.getMessage("passThroughTargetMissing",
+                                                    HTTPConstants.PASS_THROUGH_TARGET,
+                                                    service.getName()));
+        }
+        EndpointReference targetEPR = new EndpointReference(target.toString().trim());
+
+        MessageContext request = new MessageContext();
+        request.setConfigurationContext(inMessage.getConfigurationContext());
+        request.setTo(targetEPR);
+        request.setSoapAction(inMessage.getSoapAction());
+        request.setEnvelope(inMessage.getEnvelope());
+        request.setProperty(HTTPConstants.PASS_THROUGH_MESSAGE,
+                            inMessage.getProperty(HTTPConstants.PASS_THROUGH_MESSAGE));
+        request.setServiceContext(inMessage.getServiceContext());
+        OperationContext operationContext =
+                new OperationContext(OUT_IN_OPERATION, inMessage.getServiceContext());
+        request.setOperationContext(operationContext);
+        TransportOutDescription transportOut = getTransportOut(inMessage, targetEPR);
+        request.setTransportOut(transportOut);
+
+        transportOut.getSender().invoke(request);
+
+        InputStream in = (InputStream) operationContext.getProperty(MessageContext.TRANSPORT_IN);
+        if (in == null) {
+            throw new AxisFault(Messages.getMessage("passThroughNoResponse",
+                                                    targetEPR.getAddress()));
+        }
+        HttpMethod method = (HttpMethod) request.getProperty(HTTPConstants.HTTP_METHOD);
+        String contentType = null;
+        Map transportInfo = (Map) request.getProperty(Constants.Configuration.TRANSPORT_INFO_MAP);
+        if (transportInfo != null) {
+            contentType = (String) transportInfo.get(Constants.Configuration.CONTENT_TYPE);
+        }
+        try {
+            int maxSize = PassThroughMessage.getMaxSize(service);
+            PassThroughMessage response = PassThroughMessage.read(in, contentType, maxSize);
+            if (!response.isComplete()) {
+                // the connection is released on return, so the rest can't be streamed
+                response.release();
+                throw new AxisFault(Messages.getMessage("passThroughResponseTooLarge",
+                                                        targetEPR.getAddress(),
+                                                        String.valueOf(maxSize)));
+            }
+            outMessage.setProperty(HTTPConstants.PASS_THROUGH_MESSAGE, response);
+            outMessage.setEnvelope(TransportUtils.createSOAPMessage(
+                    outMessage, response.getInputStream(), contentType));
+            response.setEnvelope(outMessage.getEnvelope());
+            // HTTPSender only returns the body of a 200, a 400 or a 500 response
+            int statusCode = method == null ? HttpStatus.SC_OK : method.getStatusCode();
+            if (statusCode != HttpStatus.SC_OK) {
+                outMessage.setProcessingFault(true);
+                outMessage.setProperty(HTTPConstants.RESPONSE_CODE, new Integer(statusCode));
+            }
+            return response;
+        } catch (IOException e) {
+            throw AxisFault.makeFault(e);
+        } catch (XMLStreamException e) {
+            throw AxisFault.makeFault(e);
+        } finally {
+            if (method != null) {
+                method.releaseConnection();
+            }
+        }
+    }
+
+    private TransportOutDescription getTransportOut(MessageContext inMessage,
+                                                    EndpointReference targetEPR)
+            throws AxisFault {
+        String address = targetEPR.getAddress();
+        int index = address.indexOf(':');
+        String scheme = index == -1 ? Constants.TRANSPORT_HTTP : address.substring(0, index);
+        TransportOutDescription transportOut =
+                inMessage.getConfigurationContext().getAxisConfiguration().getTransportOut(scheme);
+        if (transportOut == null) {
+            throw new AxisFault(Messages.getMessage("transportnotfound", scheme));
+        }
+        return transportOut;
+    }
+}
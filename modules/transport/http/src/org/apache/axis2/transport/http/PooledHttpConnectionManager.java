@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The connection pool shared by the HTTP and HTTPS senders of a configuration context. It is sized
+ * with the {@link HTTPConstants#MAX_CONNECTIONS_PER_HOST} and
+ * {@link HTTPConstants#MAX_TOTAL_CONNECTIONS} parameters, closes connections idle for longer than
+ * {@link HTTPConstants#CONNECTION_IDLE_TIMEOUT}, and keeps statistics about the connections
+ * handed out, so that an undersized pool shows up as lease waits rather than as unexplained
+ * latency.
+ * <p/>
+ * The settings are the parameters of the HTTP transport sender (or of the HTTPS one if there is no
+ * HTTP sender); message context properties and client options don't change the pool. The pool
+ * belongs to the configuration context: it is created when first used, and shut down when the
+ * last of the senders using it is stopped. It comes with an HttpClient that is reused for the
+ * requests that don't need settings of their own.
+ */
+public class PooledHttpConnectionManager extends MultiThreadedHttpConnectionManager {
+
+    private static final Log log = LogFactory.getLog(PooledHttpConnectionManager.class);
+
+    private static final long MIN_EVICTION_INTERVAL = 1000;
+
+    // Name of the configuration context property counting the senders using the pool
+    private static final String USERS = PooledHttpConnectionManager.class.getName() + ".users";
+
+    private final HttpClient httpClient = new HttpClient(this);
+
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong waitedLeaseCount = new AtomicLong();
+    private final AtomicLong leaseTimeoutCount = new AtomicLong();
+    private final AtomicLong totalLeaseWaitTime = new AtomicLong();
+    private final AtomicLong maxLeaseWaitTime = new AtomicLong();
+    private final AtomicInteger leasedConnections = new AtomicInteger();
+
+    private IdleConnectionTimeoutThread evictor;
+
+    /**
+     * Get the pool of a configuration context, creating it if needed.
+     *
+     * @param configContext the configuration context
+     * @return the pool
+     */
+    public static PooledHttpConnectionManager getInstance(ConfigurationContext configContext) {
+        synchronized (configContext) {
+            Object connManager =
+                    configContext.getProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
+            if (connManager instanceof PooledHttpConnectionManager) {
+                return (PooledHttpConnectionManager) connManager;
+            }
+            log.trace("Making new ConnectionManager");
+            PooledHttpConnectionManager pool = create(getTransportOut(configContext));
+            configContext.setProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER, pool);
+            return pool;
+        }
+    }
+
+    /**
+     * Record that a sender uses the pool of a configuration context. The pool is shut down when
+     * every sender that called this method has called {@link #removeUser}.
+     *
+     * @param configContext the configuration context
+     */
+    public static void addUser(ConfigurationContext configContext) {
+        synchronized (configContext) {
+            Integer users = (Integer) configContext.getProperty(USERS);
+            configContext.setProperty(USERS,
+                                      Integer.valueOf(users == null ? 1 : users.intValue() + 1));
+        }
+    }
+
+    /**
+     * Record that a sender no longer uses the pool of a configuration context, and shut the
+     * pool down if it was the last one.
+     *
+     * @param configContext the configuration context
+     */
+    public static void removeUser(ConfigurationContext configContext) {
+        PooledHttpConnectionManager pool = null;
+        synchronized (configContext) {
+            Integer users = (Integer) configContext.getProperty(USERS);
+            if (users != null && users.intValue() > 1) {
+                configContext.setProperty(USERS, Integer.valueOf(users.intValue() - 1));
+                return;
+            }
+            configContext.removeProperty(USERS);
+            Object connManager =
+                    configContext.getProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
+            if (connManager instanceof PooledHttpConnectionManager) {
+                configContext.removeProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
+                pool = (PooledHttpConnectionManager) connManager;
+            }
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private static TransportOutDescription getTransportOut(ConfigurationContext configContext) {
+        AxisConfiguration axisConfig = configContext.getAxisConfiguration();
+        TransportOutDescription transportOut =
+                axisConfig.getTransportOut(Constants.TRANSPORT_HTTP);
+        return transportOut != null ? transportOut
+                : axisConfig.getTransportOut(Constants.TRANSPORT_HTTPS);
+    }
+
+    /**
+     * Create a pool configured with the parameters of a transport sender.
+     *
+     * @param transportOut the transport sender, or null to use the defaults
+     * @return the pool
+     */
+    public static PooledHttpConnectionManager create(TransportOutDescription transportOut) {
+        PooledHttpConnectionManager connManager = new PooledHttpConnectionManager();
+        int maxPerHost = getIntParameter(transportOut, HTTPConstants.MAX_CONNECTIONS_PER_HOST, -1);
+        if (maxPerHost > 0) {
+            connManager.getParams().setDefaultMaxConnectionsPerHost(maxPerHost);
+        }
+        int maxTotal = getIntParameter(transportOut, HTTPConstants.MAX_TOTAL_CONNECTIONS, -1);
+        if (maxTotal > 0) {
+            connManager.getParams().setMaxTotalConnections(maxTotal);
+        }
+        long idleTimeout = getIntParameter(transportOut, HTTPConstants.CONNECTION_IDLE_TIMEOUT, -1);
+        if (idleTimeout > 0) {
+            connManager.startEvictor(idleTimeout);
+        }
+        connManager.httpClient.getParams().setConnectionManagerTimeout(
+                getIntParameter(transportOut, HTTPConstants.CONNECTION_POOL_TIMEOUT,
+                                HTTPConstants.DEFAULT_CONNECTION_POOL_TIMEOUT));
+        if (log.isDebugEnabled()) {
+            log.debug("Created HTTP connection pool: " + connManager.getParams()
+                    .getDefaultMaxConnectionsPerHost() + " connections per host, "
+                    + connManager.getParams().getMaxTotalConnections() + " in total"
+                    + (idleTimeout > 0 ? ", idle timeout " + idleTimeout + " ms" : ""));
+        }
+        return connManager;
+    }
+
+    /**
+     * Get an integer setting from the message context properties, or else from the parameters
+     * of the HTTP transport sender.
+     *
+     * @param msgContext the message context
+     * @param name       the name of the property or parameter
+     * @param def        the value to return if the setting is absent or invalid
+     * @return the value of the setting
+     */
+    static int getIntSetting(MessageContext msgContext, String name, int def) {
+        Object value = msgContext.getProperty(name);
+        if (value == null) {
+            TransportOutDescription transportOut = msgContext.getTransportOut();
+            if (transportOut == null && msgContext.getConfigurationContext() != null) {
+                transportOut = msgContext.getConfigurationContext().getAxisConfiguration()
+                        .getTransportOut(Constants.TRANSPORT_HTTP);
+            }
+            return getIntParameter(transportOut, name, def);
+        }
+        return toInt(name, value, def);
+    }
+
+    private static int getIntParameter(TransportOutDescription transportOut, String name,
+                                       int def) {
+        Parameter param = transportOut == null ? null : transportOut.getParameter(name);
+        return toInt(name, param == null ? null : param.getValue(), def);
+    }
+
+    private static int toInt(String name, Object value, int def) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + name + ": not a number", e);
+            }
+        }
+        return def;
+    }
+
+    private synchronized void startEvictor(long idleTimeout) {
+        evictor = new IdleConnectionTimeoutThread() {
+            protected void handleCloseIdleConnections(HttpConnectionManager connectionManager) {
+                super.handleCloseIdleConnections(connectionManager);
+                ((MultiThreadedHttpConnectionManager) connectionManager).deleteClosedConnections();
+            }
+        };
+        evictor.setName("HttpConnectionEvictor");
+        evictor.setConnectionTimeout(idleTimeout);
+        evictor.setTimeoutInterval(Math.max(MIN_EVICTION_INTERVAL, idleTimeout / 2));
+        evictor.addConnectionManager(this);
+        evictor.start();
+    }
+
+    public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration,
+                                                   long timeout)
+            throws ConnectionPoolTimeoutException {
+        long start = System.currentTimeMillis();
+        HttpConnection connection;
+        try {
+            connection = super.getConnectionWithTimeout(hostConfiguration, timeout);
+        } catch (ConnectionPoolTimeoutException e) {
+            leaseTimeoutCount.incrementAndGet();
+            log.warn("Timed out after " + timeout + " ms waiting for a connection to "
+                    + hostConfiguration.getHostURL() + ": " + getLeasedConnections()
+                    + " connections in use, at most " + getParams().getMaxConnectionsPerHost(
+                    hostConfiguration) + " per host and " + getParams().getMaxTotalConnections()
+                    + " in total");
+            throw e;
+        }
+        long wait = System.currentTimeMillis() - start;
+        leaseCount.incrementAndGet();
+        leasedConnections.incrementAndGet();
+        if (wait > 0) {
+            waitedLeaseCount.incrementAndGet();
+            totalLeaseWaitTime.addAndGet(wait);
+            long max;
+            while (wait > (max = maxLeaseWaitTime.get())
+                    && !maxLeaseWaitTime.compareAndSet(max, wait)) {
+                // retry
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Waited " + wait + " ms for a connection to "
+                        + hostConfiguration.getHostURL());
+            }
+        }
+        return connection;
+    }
+
+    public void releaseConnection(HttpConnection conn) {
+        leasedConnections.decrementAndGet();
+        super.releaseConnection(conn);
+    }
+
+    /**
+     * @return the HttpClient shared by the requests that don't need settings of their own; its
+     *         parameters and state must not be changed
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public synchronized void shutdown() {
+        if (evictor != null) {
+            evictor.shutdown();
+            evictor = null;
+        }
+        super.shutdown();
+    }
+
+    /**
+     * @return the number of connections handed out and not released yet
+     */
+    public int getLeasedConnections() {
+        return leasedConnections.get();
+    }
+
+    /**
+     * @return the number of connections handed out so far
+     */
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    /**
+     * @return the number of connections that were only handed out after waiting for a connection
+     *         to be released
+     */
+    public long getWaitedLeaseCount() {
+        return waitedLeaseCount.get();
+    }
+
+    /**
+     * @return the number of requests that timed out waiting for a connection
+     */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount.get();
+    }
+
+    /**
+     * @return the total time spent waiting for connections, in milliseconds
+     */
+    public long getTotalLeaseWaitTime() {
+        return totalLeaseWaitTime.get();
+    }
+
+    /**
+     * @return the longest time spent waiting for a connection, in milliseconds
+     */
+    public long getMaxLeaseWaitTime() {
+        return maxLeaseWaitTime.get();
+    }
+}
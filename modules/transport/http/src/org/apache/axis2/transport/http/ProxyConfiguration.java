@@ -212,9 +212,22 @@ public class ProxyConfiguration {
     public static boolean isProxyEnabled(MessageContext messageContext, URL targetURL)
             throws AxisFault {
 
-        boolean state = false;
+        boolean state = isProxyConfigured(messageContext);
 
+        boolean isNonProxyHost = validateNonProxyHosts(targetURL.getHost());
+
+        return state && !isNonProxyHost;
 
+    }
+
+    /**
+     * Check if a proxy is configured for a message, whatever the host it is sent to.
+     *
+     * @param messageContext the message context
+     * @return true if a proxy is set in axis2.xml, on the message context or with the Java
+     *         networking properties
+     */
+    public static boolean isProxyConfigured(MessageContext messageContext) {
         Parameter param = messageContext.getConfigurationContext().getAxisConfiguration()
                 .getParameter(ATTR_PROXY);
 
@@ -224,14 +237,7 @@ public class ProxyConfiguration {
         //From Java Networking Properties
         String sp = System.getProperty(HTTP_PROXY_HOST);
 
-        if (param != null || obj != null || sp != null) {
-            state = true;
-        }
-
-        boolean isNonProxyHost = validateNonProxyHosts(targetURL.getHost());
-
-        return state && !isNonProxyHost;
-
+        return param != null || obj != null || sp != null;
     }
 
     /**
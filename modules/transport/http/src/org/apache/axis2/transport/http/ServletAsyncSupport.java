@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.servlet.ServletRequest;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Access to the asynchronous processing of Servlet 3.0 containers. The transport is built against
+ * an older Servlet API, so the methods are looked up when the class is loaded, and are only used
+ * if the container provides them.
+ */
+final class ServletAsyncSupport {
+
+    private static final Log log = LogFactory.getLog(ServletAsyncSupport.class);
+
+    private static final ServletAsyncSupport instance = create(ServletRequest.class);
+
+    private final Method isAsyncSupported;
+    private final Method startAsync;
+    private final Method setTimeout;
+    private final Method addListener;
+    private final Method complete;
+
+    private ServletAsyncSupport(Method isAsyncSupported, Method startAsync, Method setTimeout,
+                                Method addListener, Method complete) {
+        this.isAsyncSupported = isAsyncSupported;
+        this.startAsync = startAsync;
+        this.setTimeout = setTimeout;
+        this.addListener = addListener;
+        this.complete = complete;
+    }
+
+    /**
+     * Look up the asynchronous processing methods on a request type.
+     *
+     * @param requestClass the request type, <code>ServletRequest</code> except in tests
+     * @return the methods, or null if the request type doesn't have them
+     */
+    static ServletAsyncSupport create(Class<?> requestClass) {
+        try {
+            Method startAsync = requestClass.getMethod("startAsync");
+            Class<?> asyncContextClass = startAsync.getReturnType();
+            Method addListener = null;
+            Method[] methods = asyncContextClass.getMethods();
+            for (int i = 0; i < methods.length; i++) {
+                if (methods[i].getName().equals("addListener")
+                        && methods[i].getParameterTypes().length == 1) {
+                    addListener = methods[i];
+                }
+            }
+            if (addListener == null || !addListener.getParameterTypes()[0].isInterface()) {
+                return null;
+            }
+            return new ServletAsyncSupport(requestClass.getMethod("isAsyncSupported"),
+                                           startAsync,
+                                           asyncContextClass.getMethod("setTimeout", long.class),
+                                           addListener,
+                                           asyncContextClass.getMethod("complete"));
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the asynchronous processing methods of the servlet container, or null if the
+     *         container doesn't support asynchronous processing
+     */
+    static ServletAsyncSupport getInstance() {
+        return instance;
+    }
+
+    /**
+     * Put a request in asynchronous mode.
+     *
+     * @param request   the request
+     * @param timeout   the time in milliseconds after which the container times the request out;
+     *                  0 or less for no timeout
+     * @param onTimeout called by the container when the request times out; it must complete the
+     *                  request
+     * @return the async context of the request, or null if the request doesn't support
+     *         asynchronous processing
+     */
+    Object startAsync(ServletRequest request, long timeout, final Runnable onTimeout) {
+        try {
+            if (!((Boolean) isAsyncSupported.invoke(request)).booleanValue()) {
+                return null;
+            }
+            Object asyncContext = startAsync.invoke(request);
+            setTimeout.invoke(asyncContext, Long.valueOf(Math.max(timeout, 0)));
+            Class<?> listenerClass = addListener.getParameterTypes()[0];
+            Object listener = Proxy.newProxyInstance(listenerClass.getClassLoader(),
+                    new Class<?>[] { listenerClass }, new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            String name = method.getName();
+                            if (name.equals("onTimeout")) {
+                                onTimeout.run();
+                            } else if (name.equals("equals")) {
+                                return Boolean.valueOf(proxy == args[0]);
+                            } else if (name.equals("hashCode")) {
+                                return Integer.valueOf(System.identityHashCode(proxy));
+                            } else if (name.equals("toString")) {
+                                return "AxisServlet async listener";
+                            }
+                            return null;
+                        }
+                    });
+            addListener.invoke(asyncContext, listener);
+            return asyncContext;
+        } catch (IllegalAccessException e) {
+            log.debug("Unable to start asynchronous processing", e);
+        } catch (InvocationTargetException e) {
+            log.debug("Unable to start asynchronous processing", e.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Complete a request put in asynchronous mode by
+     * {@link #startAsync(ServletRequest, long, Runnable)}.
+     *
+     * @param asyncContext the async context of the request
+     */
+    void complete(Object asyncContext) {
+        try {
+            complete.invoke(asyncContext);
+        } catch (IllegalAccessException e) {
+            log.warn("Unable to complete asynchronous request", e);
+        } catch (InvocationTargetException e) {
+            log.warn("Unable to complete asynchronous request", e.getCause());
+        }
+    }
+}
@@ -27,19 +27,36 @@ import javax.servlet.http.HttpServletResponse;
 public class ServletBasedOutTransportInfo implements OutTransportInfo {
     private HttpServletResponse response;
 
+    // Set once the response no longer belongs to the engine
+    private boolean discarded;
+
     public ServletBasedOutTransportInfo(HttpServletResponse response) {
         this.response = response;
     }
 
-    public void setContentType(String contentType) {
-        response.setContentType(contentType);
+    public synchronized void setContentType(String contentType) {
+        if (!discarded) {
+            response.setContentType(contentType);
+        }
+    }
+
+    public synchronized void addHeader(String headerName, String headerValue) {
+        if (!discarded) {
+            response.addHeader(headerName, headerValue);
+        }
     }
 
-    public void addHeader(String headerName, String headerValue) {
-        response.addHeader(headerName, headerValue);
+    public synchronized void setStatus(int status) {
+        if (!discarded) {
+            response.setStatus(status);
+        }
     }
 
-    public void setStatus(int status) {
-        response.setStatus(status);
+    /**
+     * Ignore the calls made from now on, once the container has timed out a request whose
+     * response was to be completed asynchronously.
+     */
+    synchronized void discard() {
+        discarded = true;
     }
 }
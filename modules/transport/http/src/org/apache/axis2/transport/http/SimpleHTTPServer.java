@@ -87,7 +87,7 @@ public class SimpleHTTPServer implements TransportListener {
         httpDescription.setReceiver(this);
         trpInDesc = httpDescription;
         httpFactory.getListenerManager().addListener(httpDescription, true);
-        sessionManager = new SessionManager();
+        sessionManager = httpFactory.newSessionManager();
     }
 
     /**
@@ -111,6 +111,9 @@ public class SimpleHTTPServer implements TransportListener {
             if (httpFactory == null) {
                 httpFactory = new HttpFactory(configurationContext, port);
             }
+            if (sessionManager == null) {
+                sessionManager = httpFactory.newSessionManager();
+            }
         } catch (Exception e1) {
             throw AxisFault.makeFault(e1);
         }
@@ -303,6 +306,13 @@ public class SimpleHTTPServer implements TransportListener {
     }
 
 
+    /**
+     * @return the transport sessions of this server, with their statistics
+     */
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
     public SessionContext getSessionContext(MessageContext messageContext) {
         String sessionKey = (String) messageContext.getProperty(HTTPConstants.COOKIE_STRING);
         return this.sessionManager.getSessionContext(sessionKey);
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the header blocks received on an HTTP/2 connection (RFC 7541). There is one decoder
+ * per connection, and the blocks must be decoded in the order they were received since they
+ * update the dynamic table.
+ */
+class HpackDecoder {
+
+    private final HpackTable table = new HpackTable();
+
+    // The table size acknowledged in our SETTINGS, which bounds the size updates of the encoder
+    private final int maxTableSize;
+
+    private byte[] block;
+
+    private int position;
+
+    private int end;
+
+    HpackDecoder(int maxTableSize) {
+        this.maxTableSize = maxTableSize;
+        table.setMaxSize(maxTableSize);
+    }
+
+    /**
+     * Decode a complete header block.
+     *
+     * @throws IOException if the block is malformed; the decoding context is then unusable and
+     *                     the connection must be closed with COMPRESSION_ERROR
+     */
+    List<Header> decode(byte[] block, int offset, int length) throws IOException {
+        this.block = block;
+        this.position = offset;
+        this.end = offset + length;
+        List<Header> headers = new ArrayList<Header>();
+        boolean first = true;
+        while (position < end) {
+            int b = block[position] & 0xff;
+            if ((b & 0x80) != 0) {
+                // Indexed header field
+                Header header = table.get(readInteger(7));
+                if (header == null) {
+                    throw new IOException("Invalid header table index");
+                }
+                headers.add(header);
+            } else if ((b & 0x40) != 0) {
+                // Literal header field with incremental indexing
+                Header header = readLiteral(6);
+                table.add(header);
+                headers.add(header);
+            } else if ((b & 0x20) != 0) {
+                // Dynamic table size update, only allowed at the beginning of a block
+                int size = readInteger(5);
+                if (!first || size > maxTableSize) {
+                    throw new IOException("Invalid dynamic table size update");
+                }
+                table.setMaxSize(size);
+                continue;
+            } else {
+                // Literal header field without indexing or never indexed
+                headers.add(readLiteral(4));
+            }
+            first = false;
+        }
+        this.block = null;
+        return headers;
+    }
+
+    private Header readLiteral(int prefix) throws IOException {
+        int index = readInteger(prefix);
+        String name;
+        if (index == 0) {
+            name = readString();
+        } else {
+            Header header = table.get(index);
+            if (header == null) {
+                throw new IOException("Invalid header table index");
+            }
+            name = header.getName();
+        }
+        return new BasicHeader(name, readString());
+    }
+
+    private int readInteger(int prefix) throws IOException {
+        int mask = (1 << prefix) - 1;
+        int value = block[position++] & mask;
+        if (value < mask) {
+            return value;
+        }
+        int shift = 0;
+        int b;
+        do {
+            if (position == end || shift > 21) {
+                throw new IOException("Invalid integer in header block");
+            }
+            b = block[position++] & 0xff;
+            value += (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private String readString() throws IOException {
+        if (position == end) {
+            throw new IOException("Truncated header block");
+        }
+        boolean huffman = (block[position] & 0x80) != 0;
+        int length = readInteger(7);
+        if (length > end - position) {
+            throw new IOException("Truncated header block");
+        }
+        String value;
+        if (huffman) {
+            byte[] decoded = Huffman.decode(block, position, length);
+            value = new String(decoded, 0, decoded.length, "ISO-8859-1");
+        } else {
+            value = new String(block, position, length, "ISO-8859-1");
+        }
+        position += length;
+        return value;
+    }
+}
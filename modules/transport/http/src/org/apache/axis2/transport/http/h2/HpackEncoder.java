@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Encodes the header blocks sent on an HTTP/2 connection (RFC 7541). Header fields are added to
+ * the dynamic table so that the ones repeated on each request of a connection, such as the
+ * content type, the SOAP action or the authority, are sent as a single byte after the first
+ * request. Strings are Huffman encoded when that makes them shorter. The blocks must be sent in
+ * the order they were encoded.
+ */
+class HpackEncoder {
+
+    private final HpackTable table = new HpackTable();
+
+    // The smallest and the last table size set since the last block, which must be signalled
+    // to the decoder at the beginning of the next block
+    private int minTableSize = -1;
+
+    private int pendingTableSize = -1;
+
+    /**
+     * Apply the SETTINGS_HEADER_TABLE_SIZE of the peer. The table never grows beyond the
+     * default size, whatever the peer allows.
+     */
+    void setMaxTableSize(int size) {
+        size = Math.min(size, HpackTable.DEFAULT_MAX_SIZE);
+        if (size == table.getMaxSize() && pendingTableSize == -1) {
+            return;
+        }
+        table.setMaxSize(size);
+        minTableSize = minTableSize == -1 ? size : Math.min(minTableSize, size);
+        pendingTableSize = size;
+    }
+
+    void encode(List<Header> headers, ByteArrayOutputStream out) {
+        if (pendingTableSize != -1) {
+            if (minTableSize < pendingTableSize) {
+                writeInteger(out, 0x20, 5, minTableSize);
+            }
+            writeInteger(out, 0x20, 5, pendingTableSize);
+            minTableSize = -1;
+            pendingTableSize = -1;
+        }
+        for (Header header : headers) {
+            String name = header.getName().toLowerCase(Locale.ENGLISH);
+            String value = header.getValue() == null ? "" : header.getValue();
+            int index = table.find(name, value);
+            if (index > 0) {
+                writeInteger(out, 0x80, 7, index);
+            } else if (isSensitive(name)) {
+                // Never indexed, so that intermediaries don't index it either
+                writeInteger(out, 0x10, 4, -index);
+                if (index == 0) {
+                    writeString(out, name);
+                }
+                writeString(out, value);
+            } else if (isIndexable(name)
+                    && HpackTable.sizeOf(name, value) <= table.getMaxSize()) {
+                writeInteger(out, 0x40, 6, -index);
+                if (index == 0) {
+                    writeString(out, name);
+                }
+                writeString(out, value);
+                table.add(new BasicHeader(name, value));
+            } else {
+                writeInteger(out, 0x00, 4, -index);
+                if (index == 0) {
+                    writeString(out, name);
+                }
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static boolean isSensitive(String name) {
+        return name.equals("authorization") || name.equals("proxy-authorization")
+                || name.equals("cookie") || name.equals("set-cookie");
+    }
+
+    // Fields whose value changes on every message would only push the others out of the table
+    private static boolean isIndexable(String name) {
+        return !name.equals("content-length") && !name.equals("date");
+    }
+
+    private static void writeInteger(ByteArrayOutputStream out, int pattern, int prefix,
+                                     int value) {
+        int mask = (1 << prefix) - 1;
+        if (value < mask) {
+            out.write(pattern | value);
+            return;
+        }
+        out.write(pattern | mask);
+        value -= mask;
+        while (value >= 0x80) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes;
+        try {
+            bytes = value.getBytes("ISO-8859-1");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        int huffmanLength = Huffman.encodedLength(bytes);
+        if (huffmanLength < bytes.length) {
+            writeInteger(out, 0x80, 7, huffmanLength);
+            Huffman.encode(bytes, out);
+        } else {
+            writeInteger(out, 0x00, 7, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.util.LinkedList;
+
+/**
+ * The header table of an HPACK encoding or decoding context (RFC 7541, section 2.3): the static
+ * table followed by a dynamic table whose most recent entry has the lowest index.
+ */
+class HpackTable {
+
+    static final int DEFAULT_MAX_SIZE = 4096;
+
+    // The size of an entry is the length of its name and value plus 32
+    private static final int ENTRY_OVERHEAD = 32;
+
+    private static final Header[] STATIC_TABLE = {
+            new BasicHeader(":authority", ""),
+            new BasicHeader(":method", "GET"),
+            new BasicHeader(":method", "POST"),
+            new BasicHeader(":path", "/"),
+            new BasicHeader(":path", "/index.html"),
+            new BasicHeader(":scheme", "http"),
+            new BasicHeader(":scheme", "https"),
+            new BasicHeader(":status", "200"),
+            new BasicHeader(":status", "204"),
+            new BasicHeader(":status", "206"),
+            new BasicHeader(":status", "304"),
+            new BasicHeader(":status", "400"),
+            new BasicHeader(":status", "404"),
+            new BasicHeader(":status", "500"),
+            new BasicHeader("accept-charset", ""),
+            new BasicHeader("accept-encoding", "gzip, deflate"),
+            new BasicHeader("accept-language", ""),
+            new BasicHeader("accept-ranges", ""),
+            new BasicHeader("accept", ""),
+            new BasicHeader("access-control-allow-origin", ""),
+            new BasicHeader("age", ""),
+            new BasicHeader("allow", ""),
+            new BasicHeader("authorization", ""),
+            new BasicHeader("cache-control", ""),
+            new BasicHeader("content-disposition", ""),
+            new BasicHeader("content-encoding", ""),
+            new BasicHeader("content-language", ""),
+            new BasicHeader("content-length", ""),
+            new BasicHeader("content-location", ""),
+            new BasicHeader("content-range", ""),
+            new BasicHeader("content-type", ""),
+            new BasicHeader("cookie", ""),
+            new BasicHeader("date", ""),
+            new BasicHeader("etag", ""),
+            new BasicHeader("expect", ""),
+            new BasicHeader("expires", ""),
+            new BasicHeader("from", ""),
+            new BasicHeader("host", ""),
+            new BasicHeader("if-match", ""),
+            new BasicHeader("if-modified-since", ""),
+            new BasicHeader("if-none-match", ""),
+            new BasicHeader("if-range", ""),
+            new BasicHeader("if-unmodified-since", ""),
+            new BasicHeader("last-modified", ""),
+            new BasicHeader("link", ""),
+            new BasicHeader("location", ""),
+            new BasicHeader("max-forwards", ""),
+            new BasicHeader("proxy-authenticate", ""),
+            new BasicHeader("proxy-authorization", ""),
+            new BasicHeader("range", ""),
+            new BasicHeader("referer", ""),
+            new BasicHeader("refresh", ""),
+            new BasicHeader("retry-after", ""),
+            new BasicHeader("server", ""),
+            new BasicHeader("set-cookie", ""),
+            new BasicHeader("strict-transport-security", ""),
+            new BasicHeader("transfer-encoding", ""),
+            new BasicHeader("user-agent", ""),
+            new BasicHeader("vary", ""),
+            new BasicHeader("via", ""),
+            new BasicHeader("www-authenticate", "")
+    };
+
+    private final LinkedList<Header> entries = new LinkedList<Header>();
+
+    private int size;
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * @param index an index starting at 1
+     * @return the entry, or null if there is no entry with that index
+     */
+    Header get(int index) {
+        if (index <= 0) {
+            return null;
+        } else if (index <= STATIC_TABLE.length) {
+            return STATIC_TABLE[index - 1];
+        } else if (index - STATIC_TABLE.length <= entries.size()) {
+            return entries.get(index - STATIC_TABLE.length - 1);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Look up a header field.
+     *
+     * @return the index of an entry with the same name and value, or minus the index of an entry
+     *         with the same name, or 0 if there is none
+     */
+    int find(String name, String value) {
+        int nameIndex = 0;
+        int index = 1;
+        for (int i = 0; i < STATIC_TABLE.length; i++, index++) {
+            Header entry = STATIC_TABLE[i];
+            if (entry.getName().equals(name)) {
+                if (entry.getValue().equals(value)) {
+                    return index;
+                } else if (nameIndex == 0) {
+                    nameIndex = -index;
+                }
+            }
+        }
+        for (Header entry : entries) {
+            if (entry.getName().equals(name)) {
+                if (entry.getValue().equals(value)) {
+                    return index;
+                } else if (nameIndex == 0) {
+                    nameIndex = -index;
+                }
+            }
+            index++;
+        }
+        return nameIndex;
+    }
+
+    static int sizeOf(String name, String value) {
+        return name.length() + value.length() + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Add an entry to the dynamic table, evicting the oldest entries to make room for it. An
+     * entry larger than the table empties it.
+     */
+    void add(Header entry) {
+        int entrySize = sizeOf(entry.getName(), entry.getValue());
+        evict(maxSize - entrySize);
+        if (entrySize <= maxSize) {
+            entries.addFirst(entry);
+            size += entrySize;
+        }
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        evict(maxSize);
+    }
+
+    private void evict(int targetSize) {
+        while (size > targetSize && !entries.isEmpty()) {
+            Header entry = entries.removeLast();
+            size -= sizeOf(entry.getName(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,999 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP/2 connection (RFC 7540) over a plain socket, started with prior knowledge: the client
+ * sends the connection preface straight away instead of upgrading an HTTP/1.1 request. This is
+ * the "h2c" flavour of HTTP/2, meant for internal hops where both ends are known to speak it.
+ * <p/>
+ * Any number of requests are multiplexed over the connection, each on its own
+ * {@link Http2Stream}. Frames are read by a single thread running {@link #run()}, which decodes
+ * the header blocks and buffers the data of each stream until the thread using the stream reads
+ * it; frames are written by the threads using the streams, one frame at a time. Both directions
+ * are flow controlled per stream and for the whole connection: a stream can't send more than
+ * the window granted by the peer, and the window granted to the peer is only extended as the
+ * data is consumed, so a slow reader doesn't make the connection buffer an unbounded amount of
+ * data.
+ * <p/>
+ * All the state of the connection and its streams is guarded by the connection itself. The
+ * socket output is guarded by a separate lock, which is always taken first, and no thread waits
+ * while holding it.
+ */
+public class Http2Connection implements Runnable {
+
+    private static final Log log = LogFactory.getLog(Http2Connection.class);
+
+    static final int TYPE_DATA = 0x0;
+    static final int TYPE_HEADERS = 0x1;
+    static final int TYPE_PRIORITY = 0x2;
+    static final int TYPE_RST_STREAM = 0x3;
+    static final int TYPE_SETTINGS = 0x4;
+    static final int TYPE_PUSH_PROMISE = 0x5;
+    static final int TYPE_PING = 0x6;
+    static final int TYPE_GOAWAY = 0x7;
+    static final int TYPE_WINDOW_UPDATE = 0x8;
+    static final int TYPE_CONTINUATION = 0x9;
+
+    static final int FLAG_END_STREAM = 0x1;
+    static final int FLAG_ACK = 0x1;
+    static final int FLAG_END_HEADERS = 0x4;
+    static final int FLAG_PADDED = 0x8;
+    static final int FLAG_PRIORITY = 0x20;
+
+    static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+    static final int SETTINGS_ENABLE_PUSH = 0x2;
+    static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+
+    static final int NO_ERROR = 0x0;
+    static final int PROTOCOL_ERROR = 0x1;
+    static final int INTERNAL_ERROR = 0x2;
+    static final int FLOW_CONTROL_ERROR = 0x3;
+    static final int STREAM_CLOSED = 0x5;
+    static final int FRAME_SIZE_ERROR = 0x6;
+    static final int REFUSED_STREAM = 0x7;
+    static final int CANCEL = 0x8;
+    static final int COMPRESSION_ERROR = 0x9;
+
+    /**
+     * The initial flow control window of a connection and of its streams.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 65535;
+
+    static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+
+    private static final int MAX_FRAME_SIZE = 16777215;
+
+    // Limit on the size of a header block received in several frames
+    private static final int MAX_HEADER_BLOCK_SIZE = 256 * 1024;
+
+    private static final byte[] PREFACE = {
+            'P', 'R', 'I', ' ', '*', ' ', 'H', 'T', 'T', 'P', '/', '2', '.', '0', '\r', '\n',
+            '\r', '\n', 'S', 'M', '\r', '\n', '\r', '\n'
+    };
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Receives the streams opened by the client of a server side connection.
+     */
+    public interface StreamListener {
+
+        /**
+         * Called by the thread reading the connection once the request headers of a stream have
+         * been received. The stream must be handled by another thread.
+         */
+        void streamOpened(Http2Stream stream);
+    }
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final OutputStream out;
+
+    private final StreamListener listener;
+
+    private final int localMaxConcurrentStreams;
+
+    private final int localWindowSize;
+
+    private final HpackEncoder encoder = new HpackEncoder();
+
+    private final HpackDecoder decoder = new HpackDecoder(HpackTable.DEFAULT_MAX_SIZE);
+
+    private final Object writeLock = new Object();
+
+    private final Map<Integer, Http2Stream> streams = new HashMap<Integer, Http2Stream>();
+
+    private int nextStreamId;
+
+    // Streams counted against the concurrency limit of the peer before their headers are sent
+    private int reservedStreams;
+
+    private int lastRemoteStreamId;
+
+    private int remoteMaxConcurrentStreams = Integer.MAX_VALUE;
+
+    private int remoteInitialWindowSize = DEFAULT_WINDOW_SIZE;
+
+    private int remoteMaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+    private int sendWindow = DEFAULT_WINDOW_SIZE;
+
+    private int receivedSinceUpdate;
+
+    private boolean goingAway;
+
+    private boolean closeWhenIdle;
+
+    private IOException failure;
+
+    // A header block continued in CONTINUATION frames
+    private ByteArrayOutputStream continuedBlock;
+
+    private int continuedStreamId;
+
+    private int continuedFlags;
+
+    /**
+     * Create a connection. The connection doesn't do anything before {@link #start()} is called
+     * and a thread runs {@link #run()}.
+     *
+     * @param socket               the connected socket
+     * @param listener             the listener of the streams opened by the client for a
+     *                             server side connection, or null for a client side connection
+     * @param maxConcurrentStreams the maximum number of streams the peer may open concurrently
+     * @param windowSize           the flow control window granted to the peer for each stream,
+     *                             and for the connection; at least {@link #DEFAULT_WINDOW_SIZE}
+     * @throws IOException if the streams of the socket can't be obtained
+     */
+    public Http2Connection(Socket socket, StreamListener listener, int maxConcurrentStreams,
+                           int windowSize) throws IOException {
+        this.socket = socket;
+        this.listener = listener;
+        this.localMaxConcurrentStreams = maxConcurrentStreams;
+        this.localWindowSize = Math.max(windowSize, DEFAULT_WINDOW_SIZE);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream(),
+                                                         DEFAULT_MAX_FRAME_SIZE));
+        out = new BufferedOutputStream(socket.getOutputStream(), DEFAULT_MAX_FRAME_SIZE + 9);
+        nextStreamId = listener == null ? 1 : 2;
+    }
+
+    /**
+     * Open a client side connection and start the daemon thread reading it.
+     *
+     * @param host                 the host to connect to
+     * @param port                 the port to connect to
+     * @param connectionTimeout    the connection timeout in milliseconds, 0 for none
+     * @param maxConcurrentStreams the maximum number of streams the server may push; as the
+     *                             client doesn't accept pushed streams, only advertised
+     * @param windowSize           the flow control window granted to the server
+     * @return the started connection
+     * @throws IOException if the connection fails
+     */
+    public static Http2Connection connect(String host, int port, int connectionTimeout,
+                                          int maxConcurrentStreams, int windowSize)
+            throws IOException {
+        Socket socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), connectionTimeout);
+        Http2Connection connection;
+        try {
+            connection = new Http2Connection(socket, null, maxConcurrentStreams, windowSize);
+            connection.start();
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        Thread thread = new Thread(connection, "Http2Connection-" + host + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+        return connection;
+    }
+
+    /**
+     * Send the connection preface of the client, if this is a client side connection, and the
+     * initial SETTINGS frame.
+     *
+     * @throws IOException if the socket fails
+     */
+    public void start() throws IOException {
+        ByteArrayOutputStream settings = new ByteArrayOutputStream();
+        if (listener == null) {
+            writeSetting(settings, SETTINGS_ENABLE_PUSH, 0);
+        }
+        writeSetting(settings, SETTINGS_MAX_CONCURRENT_STREAMS, localMaxConcurrentStreams);
+        writeSetting(settings, SETTINGS_INITIAL_WINDOW_SIZE, localWindowSize);
+        synchronized (writeLock) {
+            if (listener == null) {
+                out.write(PREFACE);
+            }
+            writeFrame(TYPE_SETTINGS, 0, 0, settings.toByteArray(), 0, settings.size());
+        }
+        if (localWindowSize > DEFAULT_WINDOW_SIZE) {
+            writeWindowUpdate(0, localWindowSize - DEFAULT_WINDOW_SIZE);
+        }
+    }
+
+    private static void writeSetting(ByteArrayOutputStream out, int id, int value) {
+        out.write(id >>> 8);
+        out.write(id);
+        writeInt(out, value);
+    }
+
+    private static void writeInt(OutputStream out, int value) {
+        try {
+            out.write(value >>> 24);
+            out.write(value >>> 16);
+            out.write(value >>> 8);
+            out.write(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static int readInt(byte[] b, int offset) {
+        return ((b[offset] & 0xff) << 24) | ((b[offset + 1] & 0xff) << 16)
+                | ((b[offset + 2] & 0xff) << 8) | (b[offset + 3] & 0xff);
+    }
+
+    public InetAddress getRemoteAddress() {
+        return socket.getInetAddress();
+    }
+
+    public InetAddress getLocalAddress() {
+        return socket.getLocalAddress();
+    }
+
+    /**
+     * @return true if new streams can be opened on this client side connection
+     */
+    public synchronized boolean isUsable() {
+        return failure == null && !goingAway && nextStreamId > 0;
+    }
+
+    /**
+     * @return the number of open streams
+     */
+    public synchronized int getStreamCount() {
+        return streams.size();
+    }
+
+    /**
+     * Read the connection until it is closed.
+     */
+    public void run() {
+        try {
+            if (listener != null) {
+                byte[] preface = new byte[PREFACE.length];
+                in.readFully(preface);
+                for (int i = 0; i < PREFACE.length; i++) {
+                    if (preface[i] != PREFACE[i]) {
+                        throw new Http2Exception(PROTOCOL_ERROR, "Invalid connection preface");
+                    }
+                }
+            }
+            while (readFrame()) {
+                // continue
+            }
+            fail(new EOFException("HTTP/2 connection closed by the peer"));
+        } catch (Http2Exception e) {
+            log.debug("HTTP/2 protocol error: " + e.getMessage(), e);
+            try {
+                writeGoAway(e.getErrorCode());
+            } catch (IOException ignored) {
+                // the connection is closed anyway
+            }
+            fail(e);
+        } catch (IOException e) {
+            fail(e);
+        } catch (RuntimeException e) {
+            log.error(e.getMessage(), e);
+            fail(new IOException(e.getMessage()));
+        } finally {
+            closeSocket();
+        }
+    }
+
+    private boolean readFrame() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return false;
+        }
+        int length = (b << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+        int type = in.readUnsignedByte();
+        int flags = in.readUnsignedByte();
+        int streamId = in.readInt() & 0x7fffffff;
+        if (length > DEFAULT_MAX_FRAME_SIZE) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Frame of " + length + " bytes");
+        }
+        byte[] payload = length == 0 ? EMPTY : new byte[length];
+        in.readFully(payload);
+        if (continuedBlock != null
+                && (type != TYPE_CONTINUATION || streamId != continuedStreamId)) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Expected a CONTINUATION frame");
+        }
+        switch (type) {
+            case TYPE_DATA:
+                onData(streamId, flags, payload);
+                break;
+            case TYPE_HEADERS:
+                onHeaders(streamId, flags, payload);
+                break;
+            case TYPE_PRIORITY:
+                break;
+            case TYPE_RST_STREAM:
+                onRstStream(streamId, payload);
+                break;
+            case TYPE_SETTINGS:
+                onSettings(streamId, flags, payload);
+                break;
+            case TYPE_PUSH_PROMISE:
+                throw new Http2Exception(PROTOCOL_ERROR, "Unexpected PUSH_PROMISE frame");
+            case TYPE_PING:
+                onPing(streamId, flags, payload);
+                break;
+            case TYPE_GOAWAY:
+                onGoAway(streamId, payload);
+                break;
+            case TYPE_WINDOW_UPDATE:
+                onWindowUpdate(streamId, payload);
+                break;
+            case TYPE_CONTINUATION:
+                onContinuation(streamId, flags, payload);
+                break;
+            default:
+                // Frames of unknown types are ignored
+        }
+        return true;
+    }
+
+    // True if the stream hasn't been opened yet, by either side
+    private boolean isIdle(int streamId) {
+        boolean local = (streamId & 1) == (nextStreamId & 1);
+        return local ? streamId >= nextStreamId : streamId > lastRemoteStreamId;
+    }
+
+    private void onData(int streamId, int flags, byte[] payload) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "DATA frame on stream 0");
+        }
+        int offset = 0;
+        int length = payload.length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (length == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Invalid padding");
+            }
+            offset = 1;
+            length -= 1 + (payload[0] & 0xff);
+            if (length < 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Invalid padding");
+            }
+        }
+        int connectionUpdate = 0;
+        int errorCode = NO_ERROR;
+        Http2Stream stream;
+        Runnable headersListener = null;
+        synchronized (this) {
+            // The window of the connection is extended as soon as data is received: the window
+            // of each stream bounds what is buffered
+            receivedSinceUpdate += payload.length;
+            if (receivedSinceUpdate >= localWindowSize / 2) {
+                connectionUpdate = receivedSinceUpdate;
+                receivedSinceUpdate = 0;
+            }
+            stream = streams.get(streamId);
+            if (stream != null) {
+                errorCode = stream.receiveData(payload, offset, length,
+                                               (flags & FLAG_END_STREAM) != 0);
+                if (errorCode != NO_ERROR) {
+                    removeStream(stream, new IOException(
+                            "HTTP/2 stream reset after a flow control error"));
+                } else {
+                    closeIfDone(stream);
+                }
+                headersListener = stream.takeHeadersListener();
+                notifyAll();
+            } else if (isIdle(streamId)) {
+                throw new Http2Exception(PROTOCOL_ERROR, "DATA frame on idle stream");
+            }
+        }
+        runHeadersListener(headersListener);
+        if (connectionUpdate > 0) {
+            writeWindowUpdate(0, connectionUpdate);
+        }
+        if (errorCode != NO_ERROR) {
+            writeRstStream(streamId, errorCode);
+        }
+    }
+
+    private void onHeaders(int streamId, int flags, byte[] payload) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "HEADERS frame on stream 0");
+        }
+        int offset = 0;
+        int end = payload.length;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (end == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Invalid padding");
+            }
+            offset = 1;
+            end -= payload[0] & 0xff;
+        }
+        if ((flags & FLAG_PRIORITY) != 0) {
+            offset += 5;
+        }
+        if (offset > end) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Invalid HEADERS frame");
+        }
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            onHeaderBlock(streamId, flags, payload, offset, end - offset);
+        } else {
+            continuedBlock = new ByteArrayOutputStream();
+            continuedBlock.write(payload, offset, end - offset);
+            continuedStreamId = streamId;
+            continuedFlags = flags;
+        }
+    }
+
+    private void onContinuation(int streamId, int flags, byte[] payload) throws IOException {
+        if (continuedBlock == null) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Unexpected CONTINUATION frame");
+        }
+        continuedBlock.write(payload, 0, payload.length);
+        if (continuedBlock.size() > MAX_HEADER_BLOCK_SIZE) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Header block too large");
+        }
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            byte[] block = continuedBlock.toByteArray();
+            continuedBlock = null;
+            onHeaderBlock(streamId, continuedFlags, block, 0, block.length);
+        }
+    }
+
+    private void onHeaderBlock(int streamId, int flags, byte[] block, int offset, int length)
+            throws IOException {
+        // The block is decoded even if the stream is gone, to keep the decoder in sync
+        List<Header> headers;
+        try {
+            headers = decoder.decode(block, offset, length);
+        } catch (IOException e) {
+            throw new Http2Exception(COMPRESSION_ERROR, e.getMessage());
+        }
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        Http2Stream opened = null;
+        int errorCode = NO_ERROR;
+        Runnable headersListener = null;
+        synchronized (this) {
+            Http2Stream stream = streams.get(streamId);
+            if (stream != null) {
+                stream.receiveHeaders(headers, endStream);
+                closeIfDone(stream);
+                headersListener = stream.takeHeadersListener();
+                notifyAll();
+            } else if (listener != null && (streamId & 1) == 1
+                       && streamId > lastRemoteStreamId) {
+                lastRemoteStreamId = streamId;
+                if (goingAway || streams.size() >= localMaxConcurrentStreams) {
+                    errorCode = REFUSED_STREAM;
+                } else {
+                    opened = new Http2Stream(this, streamId, remoteInitialWindowSize,
+                                             localWindowSize);
+                    opened.receiveHeaders(headers, endStream);
+                    streams.put(streamId, opened);
+                }
+            } else if (isIdle(streamId)) {
+                throw new Http2Exception(PROTOCOL_ERROR, "HEADERS frame on idle stream");
+            }
+        }
+        runHeadersListener(headersListener);
+        if (errorCode != NO_ERROR) {
+            writeRstStream(streamId, errorCode);
+        }
+        if (opened != null) {
+            listener.streamOpened(opened);
+        }
+    }
+
+    private void onRstStream(int streamId, byte[] payload) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "RST_STREAM frame on stream 0");
+        }
+        if (payload.length != 4) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid RST_STREAM frame");
+        }
+        Runnable headersListener = null;
+        synchronized (this) {
+            Http2Stream stream = streams.get(streamId);
+            int errorCode = readInt(payload, 0);
+            if (stream != null && errorCode == NO_ERROR && stream.remoteClosed) {
+                // The peer has sent everything and doesn't need the rest of our data
+                stream.localClosed = true;
+                closeIfDone(stream);
+                notifyAll();
+            } else if (stream != null) {
+                removeStream(stream, new IOException("HTTP/2 stream reset by the peer, error code "
+                                                     + errorCode));
+                headersListener = stream.takeHeadersListener();
+                notifyAll();
+            } else if (isIdle(streamId)) {
+                throw new Http2Exception(PROTOCOL_ERROR, "RST_STREAM frame on idle stream");
+            }
+        }
+        runHeadersListener(headersListener);
+    }
+
+    private void onSettings(int streamId, int flags, byte[] payload) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS frame on a stream");
+        }
+        if ((flags & FLAG_ACK) != 0) {
+            if (payload.length != 0) {
+                throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid SETTINGS acknowledgement");
+            }
+            return;
+        }
+        if (payload.length % 6 != 0) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid SETTINGS frame");
+        }
+        // The encoder must switch to the new table size before the acknowledgement is sent
+        synchronized (writeLock) {
+            synchronized (this) {
+                for (int i = 0; i < payload.length; i += 6) {
+                    int id = ((payload[i] & 0xff) << 8) | (payload[i + 1] & 0xff);
+                    int value = readInt(payload, i + 2);
+                    applySetting(id, value);
+                }
+                notifyAll();
+            }
+            writeFrame(TYPE_SETTINGS, FLAG_ACK, 0, EMPTY, 0, 0);
+        }
+    }
+
+    private void applySetting(int id, int value) throws Http2Exception {
+        switch (id) {
+            case SETTINGS_HEADER_TABLE_SIZE:
+                encoder.setMaxTableSize(value < 0 ? Integer.MAX_VALUE : value);
+                break;
+            case SETTINGS_ENABLE_PUSH:
+                if (value != 0 && value != 1) {
+                    throw new Http2Exception(PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH");
+                }
+                break;
+            case SETTINGS_MAX_CONCURRENT_STREAMS:
+                remoteMaxConcurrentStreams = value < 0 ? Integer.MAX_VALUE : value;
+                break;
+            case SETTINGS_INITIAL_WINDOW_SIZE:
+                if (value < 0) {
+                    throw new Http2Exception(FLOW_CONTROL_ERROR, "Invalid initial window size");
+                }
+                int delta = value - remoteInitialWindowSize;
+                for (Http2Stream stream : streams.values()) {
+                    if ((long) stream.sendWindow + delta > Integer.MAX_VALUE) {
+                        throw new Http2Exception(FLOW_CONTROL_ERROR, "Window overflow");
+                    }
+                    stream.sendWindow += delta;
+                }
+                remoteInitialWindowSize = value;
+                break;
+            case SETTINGS_MAX_FRAME_SIZE:
+                if (value < DEFAULT_MAX_FRAME_SIZE || value > MAX_FRAME_SIZE) {
+                    throw new Http2Exception(PROTOCOL_ERROR, "Invalid maximum frame size");
+                }
+                remoteMaxFrameSize = value;
+                break;
+            default:
+                // Unknown settings are ignored
+        }
+    }
+
+    private void onPing(int streamId, int flags, byte[] payload) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "PING frame on a stream");
+        }
+        if (payload.length != 8) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid PING frame");
+        }
+        if ((flags & FLAG_ACK) == 0) {
+            writeFrame(TYPE_PING, FLAG_ACK, 0, payload, 0, payload.length);
+        }
+    }
+
+    private void onGoAway(int streamId, byte[] payload) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "GOAWAY frame on a stream");
+        }
+        if (payload.length < 8) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid GOAWAY frame");
+        }
+        int lastStreamId = readInt(payload, 0) & 0x7fffffff;
+        int errorCode = readInt(payload, 4);
+        if (log.isDebugEnabled()) {
+            log.debug("GOAWAY received from " + socket.getRemoteSocketAddress()
+                      + ", last stream " + lastStreamId + ", error code " + errorCode);
+        }
+        synchronized (this) {
+            goingAway = true;
+            // The streams we opened beyond the last one processed by the peer are refused
+            for (Iterator<Http2Stream> it = streams.values().iterator(); it.hasNext();) {
+                Http2Stream stream = it.next();
+                int id = stream.getId();
+                if ((id & 1) == (nextStreamId & 1) && id > lastStreamId) {
+                    it.remove();
+                    stream.fail(new IOException("HTTP/2 stream refused by GOAWAY"));
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    private void onWindowUpdate(int streamId, byte[] payload) throws IOException {
+        if (payload.length != 4) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame");
+        }
+        int increment = readInt(payload, 0) & 0x7fffffff;
+        int errorCode = NO_ERROR;
+        synchronized (this) {
+            if (streamId == 0) {
+                if (increment == 0) {
+                    throw new Http2Exception(PROTOCOL_ERROR, "Window increment of 0");
+                }
+                if ((long) sendWindow + increment > Integer.MAX_VALUE) {
+                    throw new Http2Exception(FLOW_CONTROL_ERROR, "Window overflow");
+                }
+                sendWindow += increment;
+            } else {
+                Http2Stream stream = streams.get(streamId);
+                if (stream == null) {
+                    if (isIdle(streamId)) {
+                        throw new Http2Exception(PROTOCOL_ERROR,
+                                                 "WINDOW_UPDATE frame on idle stream");
+                    }
+                    return;
+                }
+                if (increment == 0) {
+                    errorCode = PROTOCOL_ERROR;
+                } else if ((long) stream.sendWindow + increment > Integer.MAX_VALUE) {
+                    errorCode = FLOW_CONTROL_ERROR;
+                } else {
+                    stream.sendWindow += increment;
+                }
+                if (errorCode != NO_ERROR) {
+                    removeStream(stream, new IOException("Invalid HTTP/2 window update"));
+                }
+            }
+            notifyAll();
+        }
+        if (errorCode != NO_ERROR) {
+            writeRstStream(streamId, errorCode);
+        }
+    }
+
+    /**
+     * Open a stream on this client side connection and send its request headers. Waits for
+     * the number of open streams to fall below the limit set by the server.
+     *
+     * @param headers   the request headers, starting with the pseudo-headers
+     * @param endStream true if the request has no body
+     * @param timeout   the time to wait for the stream limit in milliseconds, 0 for no limit
+     * @return the stream
+     * @throws IOException if the connection fails or is going away
+     */
+    public Http2Stream newStream(List<Header> headers, boolean endStream, int timeout)
+            throws IOException {
+        synchronized (this) {
+            long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+            while (streams.size() + reservedStreams >= remoteMaxConcurrentStreams) {
+                checkUsable();
+                waitUntil(deadline);
+            }
+            checkUsable();
+            reservedStreams++;
+        }
+        Http2Stream stream;
+        synchronized (writeLock) {
+            synchronized (this) {
+                reservedStreams--;
+                checkUsable();
+                stream = new Http2Stream(this, nextStreamId, remoteInitialWindowSize,
+                                         localWindowSize);
+                streams.put(nextStreamId, stream);
+                // Identifiers can't be reused; the connection is replaced when they run out
+                nextStreamId += 2;
+            }
+            writeHeaders(stream, headers, endStream);
+        }
+        return stream;
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw failure;
+        } else if (goingAway || nextStreamId < 0) {
+            throw new IOException("The HTTP/2 connection is going away");
+        }
+    }
+
+    // Wait on the connection; called with its lock held
+    void waitUntil(long deadline) throws IOException {
+        try {
+            if (deadline == 0) {
+                wait();
+            } else {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException("Timed out waiting on HTTP/2 stream");
+                }
+                wait(remaining);
+            }
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted while waiting on HTTP/2 stream");
+        }
+    }
+
+    /**
+     * Send the headers of a stream, in a HEADERS frame followed by as many CONTINUATION frames
+     * as needed.
+     */
+    void writeHeaders(Http2Stream stream, List<Header> headers, boolean endStream)
+            throws IOException {
+        synchronized (writeLock) {
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            encoder.encode(headers, block);
+            byte[] bytes = block.toByteArray();
+            int offset = 0;
+            int type = TYPE_HEADERS;
+            do {
+                int length = Math.min(bytes.length - offset, remoteMaxFrameSize);
+                int flags = offset + length == bytes.length ? FLAG_END_HEADERS : 0;
+                if (type == TYPE_HEADERS && endStream) {
+                    flags |= FLAG_END_STREAM;
+                }
+                writeFrame(type, flags, stream.getId(), bytes, offset, length);
+                offset += length;
+                type = TYPE_CONTINUATION;
+            } while (offset < bytes.length);
+        }
+        if (endStream) {
+            closeLocally(stream);
+        }
+    }
+
+    /**
+     * Send data on a stream, in as many DATA frames as the frame size and the flow control
+     * windows require, waiting for the peer to extend the windows when they are exhausted.
+     */
+    void writeData(Http2Stream stream, byte[] b, int offset, int length, boolean endStream,
+                   int timeout) throws IOException {
+        do {
+            int count;
+            synchronized (this) {
+                long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+                while (true) {
+                    stream.checkWritable();
+                    count = Math.min(Math.min(length, remoteMaxFrameSize),
+                                     Math.min(sendWindow, stream.sendWindow));
+                    if (count > 0 || length == 0) {
+                        break;
+                    }
+                    waitUntil(deadline);
+                }
+                sendWindow -= count;
+                stream.sendWindow -= count;
+            }
+            boolean last = endStream && count == length;
+            writeFrame(TYPE_DATA, last ? FLAG_END_STREAM : 0, stream.getId(), b, offset, count);
+            offset += count;
+            length -= count;
+        } while (length > 0);
+        if (endStream) {
+            closeLocally(stream);
+        }
+    }
+
+    void writeWindowUpdate(int streamId, int increment) throws IOException {
+        byte[] payload = new byte[4];
+        payload[0] = (byte) (increment >>> 24);
+        payload[1] = (byte) (increment >>> 16);
+        payload[2] = (byte) (increment >>> 8);
+        payload[3] = (byte) increment;
+        writeFrame(TYPE_WINDOW_UPDATE, 0, streamId, payload, 0, 4);
+    }
+
+    private void writeRstStream(int streamId, int errorCode) throws IOException {
+        byte[] payload = new byte[4];
+        payload[0] = (byte) (errorCode >>> 24);
+        payload[1] = (byte) (errorCode >>> 16);
+        payload[2] = (byte) (errorCode >>> 8);
+        payload[3] = (byte) errorCode;
+        writeFrame(TYPE_RST_STREAM, 0, streamId, payload, 0, 4);
+    }
+
+    private void writeGoAway(int errorCode) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(8);
+        synchronized (this) {
+            writeInt(payload, lastRemoteStreamId);
+        }
+        writeInt(payload, errorCode);
+        writeFrame(TYPE_GOAWAY, 0, 0, payload.toByteArray(), 0, 8);
+    }
+
+    private void writeFrame(int type, int flags, int streamId, byte[] payload, int offset,
+                            int length) throws IOException {
+        synchronized (writeLock) {
+            out.write(length >>> 16);
+            out.write(length >>> 8);
+            out.write(length);
+            out.write(type);
+            out.write(flags);
+            writeInt(out, streamId);
+            out.write(payload, offset, length);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reset a stream that is still open, telling the peer with a RST_STREAM frame.
+     */
+    void reset(Http2Stream stream, int errorCode) {
+        Runnable headersListener;
+        synchronized (this) {
+            if (streams.get(stream.getId()) != stream) {
+                return;
+            }
+            removeStream(stream, new IOException("HTTP/2 stream reset"));
+            headersListener = stream.takeHeadersListener();
+            notifyAll();
+        }
+        runHeadersListener(headersListener);
+        try {
+            writeRstStream(stream.getId(), errorCode);
+        } catch (IOException e) {
+            log.debug("Failed to reset HTTP/2 stream " + stream.getId(), e);
+        }
+    }
+
+    private synchronized void closeLocally(Http2Stream stream) {
+        stream.localClosed = true;
+        closeIfDone(stream);
+        notifyAll();
+    }
+
+    private void closeIfDone(Http2Stream stream) {
+        if (stream.localClosed && stream.remoteClosed) {
+            streams.remove(stream.getId());
+            closeIfIdle();
+        }
+    }
+
+    private void removeStream(Http2Stream stream, IOException e) {
+        streams.remove(stream.getId());
+        stream.fail(e);
+        closeIfIdle();
+    }
+
+    // Called with the lock held once a stream is gone. The socket is closed without a GOAWAY
+    // frame, which would need the write lock; the peer has nothing left to learn from it.
+    private void closeIfIdle() {
+        if (closeWhenIdle && streams.isEmpty() && failure == null) {
+            failure = new IOException("HTTP/2 connection closed");
+            closeSocket();
+        }
+    }
+
+    private void fail(IOException e) {
+        List<Runnable> headersListeners = new ArrayList<Runnable>();
+        synchronized (this) {
+            if (failure == null) {
+                failure = e;
+            }
+            List<Http2Stream> failed = new ArrayList<Http2Stream>(streams.values());
+            streams.clear();
+            for (Http2Stream stream : failed) {
+                stream.fail(e);
+                Runnable headersListener = stream.takeHeadersListener();
+                if (headersListener != null) {
+                    headersListeners.add(headersListener);
+                }
+            }
+            notifyAll();
+        }
+        closeSocket();
+        for (Runnable headersListener : headersListeners) {
+            runHeadersListener(headersListener);
+        }
+    }
+
+    private static void runHeadersListener(Runnable headersListener) {
+        if (headersListener != null) {
+            try {
+                headersListener.run();
+            } catch (RuntimeException e) {
+                log.error("HTTP/2 headers listener failed", e);
+            }
+        }
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Failed to close HTTP/2 connection", e);
+        }
+    }
+
+    /**
+     * Close the connection once the streams still open are done, rather than failing them as
+     * {@link #close()} does. This is meant for a client side connection that is no longer usable,
+     * where no new streams can be opened.
+     */
+    public void closeWhenIdle() {
+        synchronized (this) {
+            if (!streams.isEmpty()) {
+                closeWhenIdle = true;
+                return;
+            }
+        }
+        close();
+    }
+
+    /**
+     * Close the connection, telling the peer with a GOAWAY frame. The streams still open fail.
+     */
+    public void close() {
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            goingAway = true;
+        }
+        try {
+            writeGoAway(NO_ERROR);
+        } catch (IOException e) {
+            log.debug("Failed to send GOAWAY", e);
+        }
+        fail(new IOException("HTTP/2 connection closed"));
+    }
+}
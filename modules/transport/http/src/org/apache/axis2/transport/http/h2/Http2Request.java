@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.axis2.transport.http.server.AxisHttpRequest;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.RequestLine;
+import org.apache.http.message.AbstractHttpMessage;
+import org.apache.http.message.BasicRequestLine;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * The request received on a server side {@link Http2Stream}, seen as an HTTP/1.1 style request
+ * so that it can be handled by the {@link org.apache.axis2.transport.http.server.Worker} of the
+ * HTTP transport. The pseudo-headers give the method and the URI; the other headers are kept.
+ */
+class Http2Request extends AbstractHttpMessage implements AxisHttpRequest, HttpRequest {
+
+    static final HttpVersion HTTP_2 = new HttpVersion(2, 0);
+
+    private final Http2Stream stream;
+
+    private String method;
+
+    private String uri;
+
+    Http2Request(Http2Stream stream) {
+        this.stream = stream;
+        List<Header> headers = stream.getHeaders();
+        for (Header header : headers) {
+            String name = header.getName();
+            if (name.equals(":method")) {
+                method = header.getValue();
+            } else if (name.equals(":path")) {
+                uri = header.getValue();
+            } else if (!name.startsWith(":")) {
+                addHeader(header);
+            }
+        }
+    }
+
+    /**
+     * @return true if the request has the pseudo-headers required by every request
+     */
+    boolean isValid() {
+        return method != null && uri != null;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRequestURI() {
+        return uri;
+    }
+
+    public String getContentType() {
+        Header header = getFirstHeader("content-type");
+        return header == null ? null : header.getValue();
+    }
+
+    public InputStream getInputStream() {
+        return stream.getInputStream();
+    }
+
+    public RequestLine getRequestLine() {
+        return new BasicRequestLine(method, uri, HTTP_2);
+    }
+
+    public ProtocolVersion getProtocolVersion() {
+        return HTTP_2;
+    }
+}
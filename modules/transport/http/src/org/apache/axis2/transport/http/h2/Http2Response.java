@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.OutTransportInfo;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.server.AxisHttpResponse;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.message.AbstractHttpMessage;
+import org.apache.http.message.BasicHeader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The response sent on a server side {@link Http2Stream}. The headers are sent when the first
+ * byte of the body is written, or when the response is finished if it has no body.
+ */
+class Http2Response extends AbstractHttpMessage implements AxisHttpResponse, OutTransportInfo {
+
+    private final Http2Stream stream;
+
+    private final MessageContext msgContext;
+
+    private final OutputStream outputStream;
+
+    private int status = HttpStatus.SC_OK;
+
+    private String contentType;
+
+    private volatile boolean committed;
+
+    Http2Response(Http2Stream stream, MessageContext msgContext) {
+        this.stream = stream;
+        this.msgContext = msgContext;
+        outputStream = new CommitOutputStream(stream.getOutputStream());
+    }
+
+    public void setStatus(int sc) {
+        assertNotCommitted();
+        this.status = sc;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void sendError(int sc, String msg) {
+        setStatus(sc);
+    }
+
+    public void sendError(int sc) {
+        setStatus(sc);
+    }
+
+    public void setContentType(String contentType) {
+        assertNotCommitted();
+        this.contentType = contentType;
+    }
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    public ProtocolVersion getProtocolVersion() {
+        return Http2Request.HTTP_2;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    private void assertNotCommitted() {
+        if (committed) {
+            throw new IllegalStateException("Response already committed");
+        }
+    }
+
+    private void commit(boolean endStream) throws IOException {
+        if (committed) {
+            return;
+        }
+        committed = true;
+        List<Header> headers = new ArrayList<Header>();
+        headers.add(new BasicHeader(":status", Integer.toString(status)));
+        if (contentType != null) {
+            headers.add(new BasicHeader("content-type", contentType));
+        }
+        Header[] all = getAllHeaders();
+        for (int i = 0; i < all.length; i++) {
+            String name = all[i].getName().toLowerCase(Locale.ENGLISH);
+            // Connection specific headers are not allowed in HTTP/2
+            if (!name.equals("connection") && !name.equals("keep-alive")
+                    && !name.equals("proxy-connection") && !name.equals("transfer-encoding")
+                    && !name.equals("upgrade") && !name.equals("content-type")) {
+                headers.add(new BasicHeader(name, all[i].getValue()));
+            }
+        }
+        String sessionCookie = (String) msgContext.getProperty(HTTPConstants.COOKIE_STRING);
+        if (sessionCookie != null) {
+            headers.add(new BasicHeader("set-cookie",
+                                        Constants.SESSION_COOKIE_JSESSIONID + "=" + sessionCookie));
+        }
+        stream.sendHeaders(headers, endStream);
+    }
+
+    /**
+     * Send the headers if they haven't been sent, and end the stream.
+     */
+    void finish() throws IOException {
+        if (!committed) {
+            commit(true);
+        } else {
+            outputStream.close();
+        }
+    }
+
+    private class CommitOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        CommitOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        public void write(int b) throws IOException {
+            commit(false);
+            out.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            commit(false);
+            out.write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+            commit(false);
+            out.flush();
+        }
+
+        public void close() throws IOException {
+            if (!committed) {
+                commit(true);
+            } else {
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.server.AxisHttpService;
+import org.apache.axis2.transport.http.server.RequestSessionCookie;
+import org.apache.axis2.transport.http.server.Worker;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpException;
+import org.apache.http.HttpStatus;
+import org.apache.http.MethodNotSupportedException;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.DefaultHttpResponseFactory;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.BasicHttpProcessor;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * Runs the requests received on HTTP/2 streams through the same worker and message context set
+ * up as the requests of the HTTP/1.1 listener.
+ */
+class Http2Service extends AxisHttpService {
+
+    private static final Log log = LogFactory.getLog(Http2Service.class);
+
+    private final ConfigurationContext configurationContext;
+
+    private final int timeout;
+
+    Http2Service(ConfigurationContext configurationContext, String transportName, Worker worker,
+                 int timeout) {
+        // The HTTP/1.1 processing of AxisHttpService isn't used, only doService
+        super(new BasicHttpProcessor(), new DefaultConnectionReuseStrategy(),
+              new DefaultHttpResponseFactory(), configurationContext, worker);
+        this.configurationContext = configurationContext;
+        this.timeout = timeout;
+        setTransportName(transportName);
+    }
+
+    void handleStream(Http2Stream stream) {
+        stream.setTimeout(timeout);
+        Http2Connection connection = stream.getConnection();
+        MessageContext msgContext = configurationContext.createMessageContext();
+        msgContext.setIncomingTransportName(getTransportName());
+        msgContext.setProperty(MessageContext.REMOTE_ADDR,
+                               connection.getRemoteAddress().getHostAddress());
+        msgContext.setProperty(MessageContext.TRANSPORT_ADDR,
+                               connection.getLocalAddress().getHostAddress());
+
+        Http2Request request = new Http2Request(stream);
+        Http2Response response = new Http2Response(stream, msgContext);
+        try {
+            if (!request.isValid()) {
+                stream.reset(Http2Connection.PROTOCOL_ERROR);
+                return;
+            }
+            msgContext.setProperty(HTTPConstants.HTTP_METHOD, request.getMethod());
+            HttpContext context = new BasicHttpContext();
+            new RequestSessionCookie().process(request, context);
+            try {
+                doService(request, response, context, msgContext);
+            } catch (HttpException e) {
+                if (response.isCommitted()) {
+                    throw e;
+                }
+                response.setStatus(e instanceof MethodNotSupportedException
+                        ? HttpStatus.SC_NOT_IMPLEMENTED : HttpStatus.SC_BAD_REQUEST);
+            }
+            response.finish();
+        } catch (HttpException e) {
+            log.debug("Failed to process HTTP/2 stream " + stream.getId(), e);
+            stream.reset(Http2Connection.INTERNAL_ERROR);
+        } catch (IOException e) {
+            log.debug("Failed to process HTTP/2 stream " + stream.getId(), e);
+            stream.reset(Http2Connection.CANCEL);
+        } catch (RuntimeException e) {
+            log.error("Failed to process HTTP/2 stream " + stream.getId(), e);
+            stream.reset(Http2Connection.INTERNAL_ERROR);
+        } finally {
+            // Stops the client sending the part of the request that wasn't read
+            stream.reset(Http2Connection.NO_ERROR);
+        }
+    }
+}
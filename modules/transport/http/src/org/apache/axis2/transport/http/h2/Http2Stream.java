@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.http.Header;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A stream of an {@link Http2Connection}, carrying one request and its response. The headers
+ * received on the stream are those of the request on the server side and those of the response
+ * on the client side; the data received is read from {@link #getInputStream()} and the data to
+ * send is written to {@link #getOutputStream()}, closing it ends the stream.
+ * <p/>
+ * The received data is buffered by the stream until it is read, and the flow control window of
+ * the stream is only extended once half of it has been read.
+ */
+public class Http2Stream {
+
+    private final Http2Connection connection;
+
+    private final int id;
+
+    private final int windowSize;
+
+    // The state below is guarded by the connection
+
+    int sendWindow;
+
+    private int receiveWindow;
+
+    // Data read since the receive window was last extended
+    private int consumed;
+
+    private List<Header> headers;
+
+    private final LinkedList<ByteBuffer> data = new LinkedList<ByteBuffer>();
+
+    boolean localClosed;
+
+    boolean remoteClosed;
+
+    private IOException failure;
+
+    private Runnable headersListener;
+
+    private int timeout;
+
+    private final InputStream inputStream = new StreamInputStream();
+
+    private final OutputStream outputStream = new StreamOutputStream();
+
+    Http2Stream(Http2Connection connection, int id, int sendWindow, int windowSize) {
+        this.connection = connection;
+        this.id = id;
+        this.sendWindow = sendWindow;
+        this.windowSize = windowSize;
+        this.receiveWindow = windowSize;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Http2Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Set the time to wait for the peer, when reading data or headers and when waiting for the
+     * flow control window to send data.
+     *
+     * @param timeout the timeout in milliseconds, 0 for none
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the headers received so far, or null if none have been received
+     */
+    public List<Header> getHeaders() {
+        synchronized (connection) {
+            return headers;
+        }
+    }
+
+    /**
+     * Wait for the headers of the response on a client side stream. Informational (1xx)
+     * responses are skipped.
+     *
+     * @return the headers of the response
+     * @throws IOException if the stream fails or the timeout expires
+     */
+    public List<Header> awaitHeaders() throws IOException {
+        synchronized (connection) {
+            long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+            while (headers == null) {
+                if (failure != null) {
+                    throw failure;
+                } else if (remoteClosed) {
+                    throw new IOException("HTTP/2 stream closed without headers");
+                }
+                waitUntil(deadline);
+            }
+            return headers;
+        }
+    }
+
+    /**
+     * Have the given task run once the headers of the response have been received on a client
+     * side stream, or once the stream has failed or closed without them, instead of waiting for
+     * them with {@link #awaitHeaders()}. The task is run by the thread reading the connection,
+     * or straight away by the calling thread if that has already happened, so it must neither
+     * block nor read the stream itself.
+     *
+     * @param listener the task to run
+     */
+    public void setHeadersListener(Runnable listener) {
+        synchronized (connection) {
+            if (headers == null && failure == null && !remoteClosed) {
+                headersListener = listener;
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * Get the value of a header received on the stream.
+     *
+     * @param name the name of the header, in lower case
+     * @return the value of the first header with that name, or null
+     */
+    public String getHeader(String name) {
+        List<Header> headers = getHeaders();
+        if (headers != null) {
+            for (Header header : headers) {
+                if (header.getName().equals(name)) {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Send the headers of the response on a server side stream.
+     *
+     * @param headers   the headers, starting with the pseudo-headers
+     * @param endStream true if there is no data to send
+     * @throws IOException if the stream fails
+     */
+    public void sendHeaders(List<Header> headers, boolean endStream) throws IOException {
+        synchronized (connection) {
+            checkWritable();
+        }
+        connection.writeHeaders(this, headers, endStream);
+    }
+
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * @return true if all the data sent by the peer has been received
+     */
+    public boolean isRemoteClosed() {
+        synchronized (connection) {
+            return remoteClosed;
+        }
+    }
+
+    /**
+     * Reset the stream unless it has been closed in both directions. The reset tells the peer
+     * that nothing more will be sent or read on the stream.
+     *
+     * @param errorCode the error code of the RST_STREAM frame: 0 to stop the peer from sending
+     *                  data that isn't needed once the response is complete, or
+     *                  {@link Http2Connection#CANCEL} to abandon the stream
+     */
+    public void reset(int errorCode) {
+        connection.reset(this, errorCode);
+    }
+
+    // The methods below are called with the lock of the connection held
+
+    void receiveHeaders(List<Header> headers, boolean endStream) {
+        if (this.headers == null) {
+            String status = null;
+            for (Header header : headers) {
+                if (header.getName().equals(":status")) {
+                    status = header.getValue();
+                }
+            }
+            if (status == null || !status.startsWith("1") || endStream) {
+                this.headers = headers;
+            }
+        }
+        // Later headers are trailers, which are ignored
+        if (endStream) {
+            remoteClosed = true;
+        }
+    }
+
+    /**
+     * Buffer the data of a DATA frame.
+     *
+     * @return 0, or the error code of the RST_STREAM frame to send if the frame isn't allowed
+     */
+    int receiveData(byte[] frame, int offset, int length, boolean endStream) {
+        if (remoteClosed) {
+            return Http2Connection.STREAM_CLOSED;
+        }
+        receiveWindow -= frame.length;
+        if (receiveWindow < 0) {
+            return Http2Connection.FLOW_CONTROL_ERROR;
+        }
+        // The padding is consumed straight away
+        consumed += frame.length - length;
+        if (length > 0) {
+            data.add(ByteBuffer.wrap(frame, offset, length));
+        }
+        if (endStream) {
+            remoteClosed = true;
+        }
+        return Http2Connection.NO_ERROR;
+    }
+
+    /**
+     * @return the headers listener if it is due to run, which the caller must do once it has
+     *         released the lock of the connection; null otherwise
+     */
+    Runnable takeHeadersListener() {
+        if (headersListener == null || (headers == null && failure == null && !remoteClosed)) {
+            return null;
+        }
+        Runnable listener = headersListener;
+        headersListener = null;
+        return listener;
+    }
+
+    void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        data.clear();
+    }
+
+    void checkWritable() throws IOException {
+        if (failure != null) {
+            throw failure;
+        } else if (localClosed) {
+            throw new IOException("HTTP/2 stream already closed");
+        }
+    }
+
+    private void waitUntil(long deadline) throws IOException {
+        connection.waitUntil(deadline);
+    }
+
+    private class StreamInputStream extends InputStream {
+
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int count;
+            int update = 0;
+            synchronized (connection) {
+                long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+                while (data.isEmpty()) {
+                    if (failure != null) {
+                        throw failure;
+                    } else if (remoteClosed) {
+                        return -1;
+                    }
+                    waitUntil(deadline);
+                }
+                ByteBuffer buffer = data.getFirst();
+                count = Math.min(len, buffer.remaining());
+                buffer.get(b, off, count);
+                if (!buffer.hasRemaining()) {
+                    data.removeFirst();
+                }
+                consumed += count;
+                if (!remoteClosed && consumed >= windowSize / 2) {
+                    update = consumed;
+                    receiveWindow += consumed;
+                    consumed = 0;
+                }
+            }
+            if (update > 0) {
+                connection.writeWindowUpdate(id, update);
+            }
+            return count;
+        }
+
+        public int available() {
+            synchronized (connection) {
+                return data.isEmpty() ? 0 : data.getFirst().remaining();
+            }
+        }
+    }
+
+    private class StreamOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[Http2Connection.DEFAULT_MAX_FRAME_SIZE];
+
+        private int count;
+
+        private boolean closed;
+
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len >= buffer.length - count) {
+                flushBuffer();
+                if (len >= buffer.length) {
+                    connection.writeData(Http2Stream.this, b, off, len, false, timeout);
+                    return;
+                }
+            }
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                connection.writeData(Http2Stream.this, buffer, 0, count, false, timeout);
+                count = 0;
+            }
+        }
+
+        public void flush() throws IOException {
+            flushBuffer();
+        }
+
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            synchronized (connection) {
+                if (localClosed) {
+                    return;
+                }
+            }
+            connection.writeData(Http2Stream.this, buffer, 0, count, true, timeout);
+            count = 0;
+        }
+    }
+}
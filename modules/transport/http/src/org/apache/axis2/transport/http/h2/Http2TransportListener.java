@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.SessionContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.ParameterInclude;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.TransportListener;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.HTTPTransportUtils;
+import org.apache.axis2.transport.http.HTTPWorkerFactory;
+import org.apache.axis2.transport.http.server.DefaultThreadFactory;
+import org.apache.axis2.transport.http.server.HttpFactory;
+import org.apache.axis2.transport.http.server.SessionManager;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport listener accepting cleartext HTTP/2 connections with prior knowledge (h2c). Each
+ * connection carries any number of concurrent requests, which are processed by the worker of
+ * the HTTP transport, so services are reachable the same way as through the HTTP/1.1 listener.
+ * The listener is configured in axis2.xml with the same transport name as the
+ * {@link Http2TransportSender}, which also writes the responses:
+ * <pre>
+ * &lt;transportReceiver name="h2c" class="org.apache.axis2.transport.http.h2.Http2TransportListener"&gt;
+ *     &lt;parameter name="port"&gt;8081&lt;/parameter&gt;
+ *     &lt;parameter name="maxConnections"&gt;100&lt;/parameter&gt;
+ *     &lt;parameter name="requestCoreThreadPoolSize"&gt;10&lt;/parameter&gt;
+ *     &lt;parameter name="requestMaxThreadPoolSize"&gt;150&lt;/parameter&gt;
+ *     &lt;parameter name="maxConcurrentStreams"&gt;100&lt;/parameter&gt;
+ *     &lt;parameter name="initialWindowSize"&gt;65535&lt;/parameter&gt;
+ * &lt;/transportReceiver&gt;
+ * </pre>
+ * Each open connection has a thread reading it, so at most <code>maxConnections</code>
+ * connections are served; further ones are closed once accepted. Requests are processed by at
+ * most <code>requestMaxThreadPoolSize</code> threads, and streams opened while they are all busy
+ * are refused, which tells the client it may retry them.
+ * <p/>
+ * HTTP/2 over TLS, which needs ALPN to select the protocol, is not supported.
+ */
+public class Http2TransportListener implements TransportListener {
+
+    private static final Log log = LogFactory.getLog(Http2TransportListener.class);
+
+    public static final int DEFAULT_PORT = 8081;
+
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 100;
+
+    public static final int DEFAULT_REQUEST_CORE_THREADS = 10;
+
+    public static final int DEFAULT_REQUEST_MAX_THREADS = 150;
+
+    // Seconds an idle thread beyond the core threads is kept
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private ConfigurationContext configurationContext;
+
+    private TransportInDescription transportIn;
+
+    private int port = DEFAULT_PORT;
+
+    private int maxConcurrentStreams;
+
+    private int windowSize;
+
+    private int requestTimeout;
+
+    private int maxConnections;
+
+    private int requestCoreThreads;
+
+    private int requestMaxThreads;
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService connectionExecutor;
+
+    private ExecutorService requestExecutor;
+
+    private Http2Service service;
+
+    private final Set<Http2Connection> connections = new HashSet<Http2Connection>();
+
+    private SessionManager sessionManager;
+
+    private volatile boolean running;
+
+    public void init(ConfigurationContext axisConf, TransportInDescription transprtIn)
+            throws AxisFault {
+        this.configurationContext = axisConf;
+        this.transportIn = transprtIn;
+        port = getIntParameter(transprtIn, PARAM_PORT, DEFAULT_PORT);
+        maxConcurrentStreams = getIntParameter(transprtIn,
+                HTTPConstants.HTTP2_MAX_CONCURRENT_STREAMS, DEFAULT_MAX_CONCURRENT_STREAMS);
+        windowSize = getIntParameter(transprtIn, HTTPConstants.HTTP2_INITIAL_WINDOW_SIZE,
+                                     Http2Connection.DEFAULT_WINDOW_SIZE);
+        requestTimeout = getIntParameter(transprtIn,
+                HttpFactory.PARAMETER_REQUEST_SOCKET_TIMEOUT, 20000);
+        maxConnections = getIntParameter(transprtIn, HTTPConstants.HTTP2_MAX_CONNECTIONS,
+                                         DEFAULT_MAX_CONNECTIONS);
+        requestMaxThreads = getIntParameter(transprtIn,
+                HttpFactory.PARAMETER_REQUEST_MAX_THREAD_POOL_SIZE, DEFAULT_REQUEST_MAX_THREADS);
+        requestCoreThreads = Math.min(requestMaxThreads, getIntParameter(transprtIn,
+                HttpFactory.PARAMETER_REQUEST_CORE_THREAD_POOL_SIZE, DEFAULT_REQUEST_CORE_THREADS));
+        sessionManager = new SessionManager(
+                getIntParameter(transprtIn, HttpFactory.PARAMETER_SESSION_TIMEOUT,
+                                (int) SessionManager.DEFAULT_SESSION_TIMEOUT),
+                getIntParameter(transprtIn, HttpFactory.PARAMETER_MAX_SESSIONS,
+                                SessionManager.DEFAULT_MAX_SESSIONS));
+    }
+
+    static int getIntParameter(ParameterInclude parameters, String name, int def)
+            throws AxisFault {
+        Parameter param = parameters.getParameter(name);
+        if (param == null || param.getValue() == null) {
+            return def;
+        }
+        String value = param.getValue().toString().trim();
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new AxisFault(Messages.getMessage("http2InvalidParameter", name, value));
+        }
+    }
+
+    public void start() throws AxisFault {
+        try {
+            serverSocket = new ServerSocket(port);
+        } catch (IOException e) {
+            throw AxisFault.makeFault(e);
+        }
+        port = serverSocket.getLocalPort();
+        // Tasks are handed directly to a thread, and rejected once all threads are busy
+        connectionExecutor = new ThreadPoolExecutor(0, maxConnections, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new DefaultThreadFactory(
+                new ThreadGroup("HTTP/2 connection thread group"), "Http2Connection-" + port));
+        requestExecutor = new ThreadPoolExecutor(requestCoreThreads, requestMaxThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new DefaultThreadFactory(new ThreadGroup("HTTP/2 request thread group"),
+                                         "Http2Request-" + port));
+        service = new Http2Service(configurationContext, transportIn.getName(),
+                                   new HTTPWorkerFactory().newWorker(), requestTimeout);
+        running = true;
+        Thread acceptor = new Thread(new Runnable() {
+            public void run() {
+                acceptConnections();
+            }
+        }, "Http2Listener-" + port);
+        acceptor.start();
+    }
+
+    private void acceptConnections() {
+        Http2Connection.StreamListener streamListener = new Http2Connection.StreamListener() {
+            public void streamOpened(final Http2Stream stream) {
+                try {
+                    requestExecutor.execute(new Runnable() {
+                        public void run() {
+                            service.handleStream(stream);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    stream.reset(Http2Connection.REFUSED_STREAM);
+                }
+            }
+        };
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (running) {
+                    log.error("Failed to accept HTTP/2 connection", e);
+                    continue;
+                }
+                break;
+            }
+            final Http2Connection connection;
+            try {
+                socket.setTcpNoDelay(true);
+                connection = new Http2Connection(socket, streamListener, maxConcurrentStreams,
+                                                 windowSize);
+            } catch (IOException e) {
+                log.debug("Failed to open HTTP/2 connection", e);
+                closeSocket(socket);
+                continue;
+            }
+            synchronized (connections) {
+                connections.add(connection);
+            }
+            try {
+                connectionExecutor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            connection.start();
+                            connection.run();
+                        } catch (IOException e) {
+                            log.debug("Failed to start HTTP/2 connection", e);
+                            connection.close();
+                        } finally {
+                            synchronized (connections) {
+                                connections.remove(connection);
+                            }
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.debug("Too many HTTP/2 connections, closing " + socket);
+                synchronized (connections) {
+                    connections.remove(connection);
+                }
+                closeSocket(socket);
+            }
+        }
+    }
+
+    private static void closeSocket(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Failed to close socket", e);
+        }
+    }
+
+    /**
+     * Stop accepting connections and close the open connections.
+     */
+    public void stop() throws AxisFault {
+        running = false;
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close server socket", e);
+            }
+        }
+        List<Http2Connection> open;
+        synchronized (connections) {
+            open = new ArrayList<Http2Connection>(connections);
+        }
+        for (Http2Connection connection : open) {
+            connection.close();
+        }
+        if (connectionExecutor != null) {
+            connectionExecutor.shutdown();
+            requestExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return the port the listener accepts connections on, once started
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public EndpointReference getEPRForService(String serviceName, String ip) throws AxisFault {
+        return getEPRsForService(serviceName, ip)[0];
+    }
+
+    public EndpointReference[] getEPRsForService(String serviceName, String ip)
+            throws AxisFault {
+        return HTTPTransportUtils.getEPRsForService(configurationContext, transportIn,
+                                                    serviceName, ip, port);
+    }
+
+    /**
+     * @return the transport sessions of this listener, with their statistics
+     */
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    public SessionContext getSessionContext(MessageContext messageContext) {
+        String sessionKey = (String) messageContext.getProperty(HTTPConstants.COOKIE_STRING);
+        return sessionManager.getSessionContext(sessionKey);
+    }
+
+    public void destroy() {
+        this.configurationContext = null;
+    }
+}
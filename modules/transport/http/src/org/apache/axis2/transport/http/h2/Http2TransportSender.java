@@ -0,0 +1,545 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.h2;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.MessageFormatter;
+import org.apache.axis2.transport.NonBlockingTransportSender;
+import org.apache.axis2.transport.OutTransportInfo;
+import org.apache.axis2.transport.TransportResponseListener;
+import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.transport.http.CommonsHTTPTransportSender;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.PassThroughFormatter;
+import org.apache.axis2.util.JavaUtils;
+import org.apache.axis2.util.threadpool.AsyncTask;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.message.BasicHeader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transport sender speaking cleartext HTTP/2 with prior knowledge (h2c). Requests to the same
+ * host and port are multiplexed over a single connection, each on its own stream, instead of
+ * using a connection per concurrent request. Addresses use the name of the transport as their
+ * scheme, so that the transport is selected from the address, but plain http addresses are
+ * accepted too:
+ * <pre>
+ * &lt;transportSender name="h2c" class="org.apache.axis2.transport.http.h2.Http2TransportSender"&gt;
+ *     &lt;parameter name="SO_TIMEOUT"&gt;60000&lt;/parameter&gt;
+ *     &lt;parameter name="CONNECTION_TIMEOUT"&gt;60000&lt;/parameter&gt;
+ *     &lt;parameter name="initialWindowSize"&gt;65535&lt;/parameter&gt;
+ * &lt;/transportSender&gt;
+ * </pre>
+ * The sender also writes the responses of the requests received by the
+ * {@link Http2TransportListener}. HTTP/2 over TLS, which needs ALPN to select the protocol, is
+ * not supported.
+ * <p/>
+ * Requests are sent without blocking when the caller asks for it: no thread waits for the
+ * response, and once its headers have arrived the response is processed on a thread of the
+ * ConfigurationContext's pool, as reading its body must not hold up the thread reading the
+ * connection.
+ */
+public class Http2TransportSender extends AbstractHandler implements NonBlockingTransportSender {
+
+    private static final Log log = LogFactory.getLog(Http2TransportSender.class);
+
+    // Message context property holding the stream of a response, until it is cleaned up
+    static final String HTTP2_STREAM = "HTTP2_STREAM";
+
+    private static final String USER_AGENT = "Axis2";
+
+    private final Map<String, Http2Connection> connections =
+            new HashMap<String, Http2Connection>();
+
+    private int soTimeout = HTTPConstants.DEFAULT_SO_TIMEOUT;
+
+    private int connectionTimeout = HTTPConstants.DEFAULT_CONNECTION_TIMEOUT;
+
+    private int windowSize = Http2Connection.DEFAULT_WINDOW_SIZE;
+
+    public void init(ConfigurationContext confContext, TransportOutDescription transportOut)
+            throws AxisFault {
+        soTimeout = Http2TransportListener.getIntParameter(transportOut,
+                HTTPConstants.SO_TIMEOUT, HTTPConstants.DEFAULT_SO_TIMEOUT);
+        connectionTimeout = Http2TransportListener.getIntParameter(transportOut,
+                HTTPConstants.CONNECTION_TIMEOUT, HTTPConstants.DEFAULT_CONNECTION_TIMEOUT);
+        windowSize = Http2TransportListener.getIntParameter(transportOut,
+                HTTPConstants.HTTP2_INITIAL_WINDOW_SIZE, Http2Connection.DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Close the connections opened by this sender.
+     */
+    public void stop() {
+        List<Http2Connection> open;
+        synchronized (connections) {
+            open = new ArrayList<Http2Connection>(connections.values());
+            connections.clear();
+        }
+        for (Http2Connection connection : open) {
+            connection.close();
+        }
+    }
+
+    public void cleanup(MessageContext msgContext) throws AxisFault {
+        Http2Stream stream = (Http2Stream) msgContext.getProperty(HTTP2_STREAM);
+        if (stream != null) {
+            // Only resets the stream if the response hasn't been read completely
+            stream.reset(Http2Connection.CANCEL);
+            msgContext.removeProperty(HTTP2_STREAM);
+        }
+    }
+
+    public boolean isNonBlocking(MessageContext msgContext) {
+        EndpointReference epr = getTarget(msgContext);
+        return epr != null && !epr.hasNoneAddress();
+    }
+
+    // The address to send a request to, or null if the message is a response
+    private static EndpointReference getTarget(MessageContext msgContext) {
+        String transportURL = (String) msgContext.getProperty(
+                Constants.Configuration.TRANSPORT_URL);
+        if (transportURL != null) {
+            return new EndpointReference(transportURL);
+        } else if (msgContext.getTo() != null && !msgContext.getTo().hasAnonymousAddress()) {
+            return msgContext.getTo();
+        }
+        return null;
+    }
+
+    public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+        OMOutputFormat format = new OMOutputFormat();
+        msgContext.setDoingMTOM(TransportUtils.doWriteMTOM(msgContext));
+        msgContext.setDoingSwA(TransportUtils.doWriteSwA(msgContext));
+        msgContext.setDoingREST(TransportUtils.isDoingREST(msgContext));
+        format.setSOAP11(msgContext.isSOAP11());
+        format.setDoOptimize(msgContext.isDoingMTOM());
+        format.setDoingSWA(msgContext.isDoingSwA());
+        format.setCharSetEncoding(TransportUtils.getCharSetEncoding(msgContext));
+        Object mimeBoundaryProperty = msgContext.getProperty(Constants.Configuration.MIME_BOUNDARY);
+        if (mimeBoundaryProperty != null) {
+            format.setMimeBoundary((String) mimeBoundaryProperty);
+        }
+
+        EndpointReference epr = getTarget(msgContext);
+        try {
+            if (epr != null) {
+                if (!epr.hasNoneAddress()) {
+                    sendRequest(msgContext, epr.getAddress(), format);
+                }
+            } else if (msgContext.getProperty(MessageContext.TRANSPORT_OUT) != null) {
+                sendResponse(msgContext, format);
+                TransportUtils.setResponseWritten(msgContext, true);
+            } else {
+                throw new AxisFault("Both the TO and MessageContext.TRANSPORT_OUT property " +
+                                    "are null, so nowhere to send");
+            }
+        } catch (IOException e) {
+            log.debug(e);
+            throw AxisFault.makeFault(e);
+        }
+        return InvocationResponse.CONTINUE;
+    }
+
+    private void sendResponse(MessageContext msgContext, OMOutputFormat format)
+            throws IOException {
+        OutputStream out = (OutputStream) msgContext.getProperty(MessageContext.TRANSPORT_OUT);
+        OutTransportInfo transportInfo =
+                (OutTransportInfo) msgContext.getProperty(Constants.OUT_TRANSPORT_INFO);
+        if (transportInfo == null) {
+            throw new AxisFault("No transport info in MessageContext");
+        }
+        MessageFormatter formatter = PassThroughFormatter.getMessageFormatter(msgContext);
+        boolean gzip = JavaUtils.isTrueExplicitly(
+                msgContext.getOptions().getProperty(HTTPConstants.MC_GZIP_RESPONSE));
+        if (transportInfo instanceof Http2Response) {
+            Http2Response response = (Http2Response) transportInfo;
+            if (!response.isCommitted()) {
+                if (msgContext.isFault() && response.getStatus() == HttpStatus.SC_OK) {
+                    response.setStatus(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+                }
+                for (Header header : getCustomHeaders(msgContext)) {
+                    response.addHeader(header);
+                }
+                if (gzip) {
+                    response.addHeader(HTTPConstants.HEADER_CONTENT_ENCODING,
+                                       HTTPConstants.COMPRESSION_GZIP);
+                }
+            }
+        }
+        format.setAutoCloseWriter(true);
+        transportInfo.setContentType(formatter.getContentType(msgContext, format,
+                CommonsHTTPTransportSender.findSOAPAction(msgContext)));
+        if (gzip) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+            formatter.writeTo(msgContext, format, gzipOut, false);
+            gzipOut.finish();
+            gzipOut.flush();
+        } else {
+            formatter.writeTo(msgContext, format, out, false);
+        }
+    }
+
+    private void sendRequest(MessageContext msgContext, String address, OMOutputFormat format)
+            throws IOException {
+        URI uri;
+        try {
+            uri = new URI(address);
+        } catch (URISyntaxException e) {
+            throw AxisFault.makeFault(e);
+        }
+        String scheme = uri.getScheme();
+        if (uri.getHost() == null || !(Constants.TRANSPORT_H2C.equalsIgnoreCase(scheme)
+                || Constants.TRANSPORT_HTTP.equalsIgnoreCase(scheme))) {
+            throw new AxisFault(Messages.getMessage("http2UnsupportedScheme", address));
+        }
+        String host = uri.getHost();
+        int port = uri.getPort() == -1 ? 80 : uri.getPort();
+        String path = uri.getRawPath() == null || uri.getRawPath().length() == 0
+                ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+
+        MessageFormatter formatter = PassThroughFormatter.getMessageFormatter(msgContext);
+        String soapActionString = CommonsHTTPTransportSender.findSOAPAction(msgContext);
+        String method = (String) msgContext.getProperty(Constants.Configuration.HTTP_METHOD);
+        if (method == null) {
+            method = Constants.Configuration.HTTP_METHOD_POST;
+        }
+        boolean hasBody = !Constants.Configuration.HTTP_METHOD_GET.equals(method)
+                && !Constants.Configuration.HTTP_METHOD_DELETE.equals(method);
+        if (!hasBody) {
+            // REST requests without a body carry the message in the target address
+            URL target = formatter.getTargetAddress(msgContext, format,
+                                                    new URL("http", host, port, path));
+            path = target.getFile();
+        }
+
+        List<Header> headers = new ArrayList<Header>();
+        headers.add(new BasicHeader(":method", method));
+        headers.add(new BasicHeader(":scheme", Constants.TRANSPORT_HTTP));
+        headers.add(new BasicHeader(":authority", host + ":" + port));
+        headers.add(new BasicHeader(":path", path));
+        if (hasBody) {
+            headers.add(new BasicHeader(HTTPConstants.HEADER_CONTENT_TYPE,
+                    formatter.getContentType(msgContext, format, soapActionString)));
+        }
+        String soapAction = formatter.formatSOAPAction(msgContext, format, soapActionString);
+        if (soapAction != null) {
+            headers.add(new BasicHeader(HTTPConstants.HEADER_SOAP_ACTION, soapAction));
+        }
+        headers.add(new BasicHeader(HTTPConstants.HEADER_USER_AGENT, USER_AGENT));
+        boolean gzip = hasBody && msgContext.isPropertyTrue(HTTPConstants.MC_GZIP_REQUEST);
+        if (gzip) {
+            headers.add(new BasicHeader(HTTPConstants.HEADER_CONTENT_ENCODING,
+                                        HTTPConstants.COMPRESSION_GZIP));
+        }
+        if (msgContext.getOptions() != null && msgContext.getOptions().isManageSession()) {
+            Object cookieString = msgContext.getProperty(HTTPConstants.COOKIE_STRING);
+            if (cookieString != null) {
+                headers.add(new BasicHeader(HTTPConstants.HEADER_COOKIE,
+                                            cookieString.toString()));
+            }
+        }
+        headers.addAll(getCustomHeaders(msgContext));
+
+        int timeout = getTimeout(msgContext, HTTPConstants.SO_TIMEOUT, soTimeout);
+        Http2Connection connection = getConnection(host, port, getTimeout(msgContext,
+                HTTPConstants.CONNECTION_TIMEOUT, connectionTimeout));
+        Http2Stream stream = connection.newStream(headers, !hasBody, timeout);
+        stream.setTimeout(timeout);
+        try {
+            if (hasBody) {
+                OutputStream out = stream.getOutputStream();
+                if (gzip) {
+                    GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+                    formatter.writeTo(msgContext, format, gzipOut, false);
+                    gzipOut.finish();
+                } else {
+                    formatter.writeTo(msgContext, format, out, false);
+                }
+                out.close();
+            }
+            TransportResponseListener listener = (TransportResponseListener)
+                    msgContext.getProperty(NonBlockingTransportSender.RESPONSE_LISTENER);
+            if (listener != null) {
+                stream.setHeadersListener(new ResponseDispatcher(msgContext, stream, listener));
+            } else {
+                handleResponse(msgContext, stream);
+            }
+        } catch (IOException e) {
+            stream.reset(Http2Connection.CANCEL);
+            throw e;
+        }
+    }
+
+    private Http2Connection getConnection(String host, int port, int timeout)
+            throws IOException {
+        String key = host + ":" + port;
+        synchronized (connections) {
+            Http2Connection connection = connections.get(key);
+            if (connection != null && connection.isUsable()) {
+                return connection;
+            }
+        }
+        // Connect without holding the lock, so that other hosts aren't held up
+        Http2Connection connection = Http2Connection.connect(host, port, timeout,
+                Http2TransportListener.DEFAULT_MAX_CONCURRENT_STREAMS, windowSize);
+        Http2Connection replaced;
+        synchronized (connections) {
+            Http2Connection existing = connections.get(key);
+            if (existing != null && existing.isUsable()) {
+                connection.close();
+                return existing;
+            }
+            replaced = connections.put(key, connection);
+        }
+        if (replaced != null) {
+            // Release its socket and reader thread once the requests still on it are done
+            replaced.closeWhenIdle();
+        }
+        return connection;
+    }
+
+    private static int getTimeout(MessageContext msgContext, String name, int def) {
+        Object value = msgContext.getProperty(name);
+        return value instanceof Integer ? ((Integer) value).intValue() : def;
+    }
+
+    private static List<Header> getCustomHeaders(MessageContext msgContext) {
+        List<Header> headers = new ArrayList<Header>();
+        Object customHeaders = msgContext.getProperty(HTTPConstants.HTTP_HEADERS);
+        if (customHeaders instanceof List) {
+            for (Iterator iter = ((List) customHeaders).iterator(); iter.hasNext();) {
+                Object header = iter.next();
+                if (header instanceof org.apache.commons.httpclient.Header) {
+                    org.apache.commons.httpclient.Header h =
+                            (org.apache.commons.httpclient.Header) header;
+                    headers.add(new BasicHeader(h.getName(), h.getValue()));
+                } else if (header instanceof Header) {
+                    headers.add((Header) header);
+                }
+            }
+        } else if (customHeaders instanceof Map) {
+            for (Iterator iter = ((Map) customHeaders).entrySet().iterator(); iter.hasNext();) {
+                Map.Entry header = (Map.Entry) iter.next();
+                headers.add(new BasicHeader((String) header.getKey(), (String) header.getValue()));
+            }
+        }
+        return headers;
+    }
+
+    private void handleResponse(MessageContext msgContext, Http2Stream stream)
+            throws IOException {
+        List<Header> headers = stream.awaitHeaders();
+        int status;
+        try {
+            status = Integer.parseInt(stream.getHeader(":status"));
+        } catch (NumberFormatException e) {
+            throw new AxisFault("Invalid HTTP/2 response status");
+        }
+        Map<String, String> transportHeaders =
+                new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        for (Header header : headers) {
+            if (!header.getName().startsWith(":")) {
+                transportHeaders.put(header.getName(), header.getValue());
+            }
+        }
+        // Set the response properties onto the request message context, as the HTTP sender does
+        msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, transportHeaders);
+        msgContext.setProperty(HTTPConstants.MC_HTTP_STATUS_CODE, new Integer(status));
+        String contentType = transportHeaders.get(HTTPConstants.HEADER_CONTENT_TYPE);
+
+        if (status == HttpStatus.SC_OK) {
+            processResponse(msgContext, stream, transportHeaders, contentType);
+        } else if (status == HttpStatus.SC_ACCEPTED) {
+            // No content is expected with a 202 response
+            stream.reset(Http2Connection.CANCEL);
+        } else if (status == HttpStatus.SC_INTERNAL_SERVER_ERROR
+                || status == HttpStatus.SC_BAD_REQUEST) {
+            OperationContext opContext = msgContext.getOperationContext();
+            if (opContext != null) {
+                MessageContext inMessageContext =
+                        opContext.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+                if (inMessageContext != null) {
+                    inMessageContext.setProcessingFault(true);
+                }
+            }
+            if (contentType != null) {
+                processResponse(msgContext, stream, transportHeaders, contentType);
+            }
+            Object isTransportNonBlocking = msgContext.getProperty(
+                    MessageContext.TRANSPORT_NON_BLOCKING);
+            if (isTransportNonBlocking != null && (Boolean) isTransportNonBlocking) {
+                throw new AxisFault(Messages.getMessage("transportError",
+                                                        String.valueOf(status), contentType));
+            }
+        } else {
+            stream.reset(Http2Connection.CANCEL);
+            throw new AxisFault(Messages.getMessage("transportError",
+                                                    String.valueOf(status), contentType));
+        }
+    }
+
+    private void processResponse(MessageContext msgContext, Http2Stream stream,
+                                 Map<String, String> transportHeaders, String contentType)
+            throws IOException {
+        if (contentType != null) {
+            String charSetEnc = null;
+            int index = contentType.toLowerCase(Locale.ENGLISH).indexOf(
+                    HTTPConstants.CHAR_SET_ENCODING + "=");
+            if (index != -1) {
+                charSetEnc = contentType.substring(
+                        index + HTTPConstants.CHAR_SET_ENCODING.length() + 1);
+                int end = charSetEnc.indexOf(';');
+                if (end != -1) {
+                    charSetEnc = charSetEnc.substring(0, end);
+                }
+                charSetEnc = charSetEnc.replace('"', ' ').trim();
+            }
+            MessageContext inMessageContext = msgContext.getOperationContext() == null
+                    ? null
+                    : msgContext.getOperationContext().getMessageContext(
+                            WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+            if (inMessageContext != null) {
+                inMessageContext.setProperty(Constants.Configuration.CONTENT_TYPE, contentType);
+                inMessageContext.setProperty(Constants.Configuration.CHARACTER_SET_ENCODING,
+                                             charSetEnc);
+            } else {
+                Map transportInfoMap = new HashMap();
+                transportInfoMap.put(Constants.Configuration.CONTENT_TYPE, contentType);
+                transportInfoMap.put(Constants.Configuration.CHARACTER_SET_ENCODING, charSetEnc);
+                msgContext.setProperty(Constants.Configuration.TRANSPORT_INFO_MAP,
+                                       transportInfoMap);
+            }
+        }
+
+        String sessionCookie = getSessionCookie(msgContext, transportHeaders);
+        if (sessionCookie != null && msgContext.getServiceContext() != null) {
+            msgContext.getServiceContext().setProperty(HTTPConstants.COOKIE_STRING,
+                                                       sessionCookie);
+        }
+
+        InputStream in = stream.getInputStream();
+        String contentEncoding = transportHeaders.get(HTTPConstants.HEADER_CONTENT_ENCODING);
+        if (contentEncoding != null) {
+            if (contentEncoding.equalsIgnoreCase(HTTPConstants.COMPRESSION_GZIP)) {
+                in = new GZIPInputStream(in);
+            } else if (!"identity".equalsIgnoreCase(contentEncoding)) {
+                throw new AxisFault("HTTP :" + "unsupported content-encoding of '"
+                                    + contentEncoding + "' found");
+            }
+        }
+        msgContext.setProperty(HTTP2_STREAM, stream);
+        OperationContext opContext = msgContext.getOperationContext();
+        if (opContext != null) {
+            opContext.setProperty(MessageContext.TRANSPORT_IN, in);
+        }
+    }
+
+    /**
+     * Hands the response of a non-blocking request over to the thread pool once its headers
+     * have arrived.
+     */
+    private class ResponseDispatcher implements Runnable {
+
+        private final MessageContext msgContext;
+
+        private final Http2Stream stream;
+
+        private final TransportResponseListener listener;
+
+        ResponseDispatcher(MessageContext msgContext, Http2Stream stream,
+                           TransportResponseListener listener) {
+            this.msgContext = msgContext;
+            this.stream = stream;
+            this.listener = listener;
+        }
+
+        public void run() {
+            try {
+                msgContext.getConfigurationContext().getThreadPool().execute(new AsyncTask() {
+                    public void run() {
+                        try {
+                            handleResponse(msgContext, stream);
+                        } catch (IOException e) {
+                            stream.reset(Http2Connection.CANCEL);
+                            listener.onError(msgContext, e);
+                            return;
+                        }
+                        listener.onResponse(msgContext);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // the pool is saturated or shut down
+                stream.reset(Http2Connection.CANCEL);
+                listener.onError(msgContext,
+                        new AxisFault(Messages.getMessage("threadpoolrejected"), e));
+            }
+        }
+    }
+
+    private static String getSessionCookie(MessageContext msgContext,
+                                           Map<String, String> transportHeaders) {
+        String cookie = transportHeaders.get(HTTPConstants.HEADER_SET_COOKIE);
+        if (cookie == null) {
+            return null;
+        }
+        String customCookieId = (String) msgContext.getProperty(Constants.CUSTOM_COOKIE_ID);
+        int index = cookie.indexOf('=');
+        String name = index == -1 ? cookie : cookie.substring(0, index).trim();
+        if (Constants.SESSION_COOKIE.equalsIgnoreCase(name)
+                || Constants.SESSION_COOKIE_JSESSIONID.equalsIgnoreCase(name)
+                || name.equalsIgnoreCase(customCookieId)) {
+            return cookie;
+        }
+        return null;
+    }
+}
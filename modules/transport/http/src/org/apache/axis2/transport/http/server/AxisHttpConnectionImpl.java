@@ -53,6 +53,7 @@ import org.apache.http.params.HttpParams;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.SocketException;
@@ -74,6 +75,19 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
     
     public AxisHttpConnectionImpl(final Socket socket, final HttpParams params) 
             throws IOException {
+        this(socket, null, params);
+    }
+
+    /**
+     * Create a connection whose input starts with bytes that have already been read from the
+     * socket.
+     *
+     * @param socket the connected socket, in blocking mode
+     * @param head   the bytes already read from the socket, or null
+     * @param params the connection parameters
+     */
+    protected AxisHttpConnectionImpl(final Socket socket, final InputStream head,
+                                     final HttpParams params) throws IOException {
         super();
         if (socket == null) {
             throw new IllegalArgumentException("Socket may not be null"); 
@@ -92,7 +106,11 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         int buffersize = HttpConnectionParams.getSocketBufferSize(params);
         this.socket = socket;
         this.outbuffer = new SocketOutputBuffer(socket, buffersize, params); 
-        this.inbuffer = new SocketInputBuffer(socket, buffersize, params); 
+        if (head == null) {
+            this.inbuffer = new SocketInputBuffer(socket, buffersize, params);
+        } else {
+            this.inbuffer = new HeadSocketInputBuffer(socket, head, buffersize, params);
+        }
         this.contentLenStrategy = new StrictContentLengthStrategy();
         this.requestParser = new HttpRequestParser(
                 this.inbuffer, null, new DefaultHttpRequestFactory(), params);
@@ -190,6 +208,14 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         }
     }
     
+    /**
+     * @return true if bytes of the next request have already been read from the socket
+     */
+    boolean hasBufferedData() {
+        return this.inbuffer instanceof HeadSocketInputBuffer
+                && ((HeadSocketInputBuffer) this.inbuffer).hasBufferedData();
+    }
+
     public InputStream getInputStream() {
         return this.in;
     }
@@ -281,4 +307,29 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         return buffer.toString();
     }
 
+    /**
+     * A socket input buffer that returns the bytes already read from the socket before reading
+     * from the socket itself.
+     */
+    private static class HeadSocketInputBuffer extends SocketInputBuffer {
+
+        private final InputStream head;
+
+        HeadSocketInputBuffer(final Socket socket, final InputStream head, int buffersize,
+                              final HttpParams params) throws IOException {
+            super(socket, buffersize, params);
+            this.head = head;
+            init(new SequenceInputStream(head, socket.getInputStream()), buffersize, params);
+        }
+
+        protected boolean hasBufferedData() {
+            try {
+                return super.hasBufferedData() || this.head.available() > 0;
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+
+    }
+
 }
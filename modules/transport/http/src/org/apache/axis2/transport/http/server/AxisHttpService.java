@@ -81,6 +81,8 @@ public class AxisHttpService {
 
     private HttpParams params;
 
+    private String transportName = Constants.TRANSPORT_HTTP;
+
     public AxisHttpService(
             final HttpProcessor httpProcessor,
             final ConnectionReuseStrategy connStrategy,
@@ -119,11 +121,23 @@ public class AxisHttpService {
         this.params = params;
     }
 
+    public String getTransportName() {
+        return this.transportName;
+    }
+
+    /**
+     * Set the name of the transport whose descriptions are set on the message contexts of the
+     * requests. Defaults to {@link Constants#TRANSPORT_HTTP}.
+     */
+    public void setTransportName(final String transportName) {
+        this.transportName = transportName;
+    }
+
     public void handleRequest(final AxisHttpConnection conn, final HttpContext context)
             throws IOException, HttpException {
 
         MessageContext msgContext = configurationContext.createMessageContext();
-        msgContext.setIncomingTransportName(Constants.TRANSPORT_HTTP);
+        msgContext.setIncomingTransportName(this.transportName);
 
         if (conn != null) {
             msgContext.setProperty(MessageContext.REMOTE_ADDR,
@@ -246,9 +260,9 @@ public class AxisHttpService {
 
         try {
             TransportOutDescription transportOut = this.configurationContext.getAxisConfiguration()
-                    .getTransportOut(Constants.TRANSPORT_HTTP);
+                    .getTransportOut(this.transportName);
             TransportInDescription transportIn = this.configurationContext.getAxisConfiguration()
-                    .getTransportIn(Constants.TRANSPORT_HTTP);
+                    .getTransportIn(this.transportName);
 
             String sessionKey = (String) context.getAttribute(HTTPConstants.COOKIE_STRING);
             msgContext.setTransportIn(transportIn);
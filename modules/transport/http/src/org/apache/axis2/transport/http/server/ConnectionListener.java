@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.server;
+
+/**
+ * An {@link IOProcessor} accepting the connections of a server socket, which
+ * {@link SimpleHttpServer} waits for before reporting the port it listens on.
+ */
+public interface ConnectionListener extends IOProcessor {
+
+    /**
+     * Wait until the server socket is open or the listener has been destroyed.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void awaitSocketOpen() throws InterruptedException;
+
+    /**
+     * @return the local port of the server socket, once it is open
+     */
+    int getPort();
+
+}
@@ -27,7 +27,7 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 
-public class DefaultConnectionListener implements IOProcessor {
+public class DefaultConnectionListener implements ConnectionListener {
 
     private static Log LOG = LogFactory.getLog(DefaultConnectionListener.class);
 
@@ -100,6 +100,26 @@ public class HttpFactory {
      */
     public static final String PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT = "threadKeepAliveTimeUnit";
 
+    /**
+     * Name of axis2.xml selectorListener parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_SELECTOR_LISTENER = "selectorListener";
+
+    /**
+     * Name of axis2.xml selectorThreadCount parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_SELECTOR_THREAD_COUNT = "selectorThreadCount";
+
+    /**
+     * Name of axis2.xml sessionTimeout parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_SESSION_TIMEOUT = "sessionTimeout";
+
+    /**
+     * Name of axis2.xml maxSessions parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_MAX_SESSIONS = "maxSessions";
+
     private ConfigurationContext configurationContext;
     private TransportInDescription httpConfiguration;
     private int port;
@@ -111,6 +131,10 @@ public class HttpFactory {
     private int requestMaxThreadPoolSize;
     private long threadKeepAliveTime;
     private TimeUnit threadKeepAliveTimeUnit;
+    private boolean selectorListener;
+    private int selectorThreadCount;
+    private long sessionTimeout;
+    private int maxSessions;
 
     private WorkerFactory requestWorkerFactory = null;
 
@@ -130,6 +154,11 @@ public class HttpFactory {
         threadKeepAliveTime = getLongParam(PARAMETER_THREAD_KEEP_ALIVE_TIME, 180L);
         threadKeepAliveTimeUnit =
                 getTimeUnitParam(PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT, TimeUnit.SECONDS);
+        selectorListener = getBooleanParam(PARAMETER_SELECTOR_LISTENER, false);
+        selectorThreadCount = getIntParam(PARAMETER_SELECTOR_THREAD_COUNT, 2);
+        sessionTimeout = getLongParam(PARAMETER_SESSION_TIMEOUT,
+                                      SessionManager.DEFAULT_SESSION_TIMEOUT);
+        maxSessions = getIntParam(PARAMETER_MAX_SESSIONS, SessionManager.DEFAULT_MAX_SESSIONS);
     }
 
     /**
@@ -225,12 +254,21 @@ public class HttpFactory {
     }
 
     /**
-     * Create the listener for request connections
+     * Create the listener for request connections: a {@link SelectorConnectionListener} if the
+     * selectorListener parameter is set, and a {@link DefaultConnectionListener} otherwise
      */
     public IOProcessor newRequestConnectionListener(
             int port,
             final HttpConnectionManager manager, 
             final HttpParams params) throws IOException {
+        if (selectorListener) {
+            return new SelectorConnectionListener(
+                    port,
+                    selectorThreadCount,
+                    manager,
+                    new DefaultConnectionListenerFailureHandler(),
+                    params);
+        }
         return new DefaultConnectionListener(
                 port, 
                 manager, 
@@ -238,6 +276,14 @@ public class HttpFactory {
                 params);
     }
 
+    /**
+     * Create the store of the transport sessions, configured by the sessionTimeout and
+     * maxSessions parameters
+     */
+    public SessionManager newSessionManager() {
+        return new SessionManager(sessionTimeout, maxSessions);
+    }
+
     /**
      * Create and set the parameters applied to incoming request connections
      */
@@ -476,4 +522,65 @@ public class HttpFactory {
         this.threadKeepAliveTimeUnit = threadKeepAliveTimeUnit;
     }
 
+    /**
+     * Getter for selectorListener
+     * return true if idle connections are kept on selector threads rather than on request
+     * processing threads (default false)
+     */
+    public boolean getSelectorListener() {
+        return selectorListener;
+    }
+
+    /**
+     * Setter for selectorListener
+     */
+    public void setSelectorListener(boolean selectorListener) {
+        this.selectorListener = selectorListener;
+    }
+
+    /**
+     * Getter for selectorThreadCount
+     * return the number of selector threads used when selectorListener is set (default 2)
+     */
+    public int getSelectorThreadCount() {
+        return selectorThreadCount;
+    }
+
+    /**
+     * Setter for selectorThreadCount
+     */
+    public void setSelectorThreadCount(int selectorThreadCount) {
+        this.selectorThreadCount = selectorThreadCount;
+    }
+
+    /**
+     * Getter for sessionTimeout
+     * return the idle timeout of transport sessions in milliseconds (default 30000)
+     */
+    public long getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * Setter for sessionTimeout
+     */
+    public void setSessionTimeout(long sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    /**
+     * Getter for maxSessions
+     * return the maximum number of transport sessions kept (default 10000)
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * Setter for maxSessions
+     */
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
 }
@@ -77,9 +77,16 @@ public class HttpServiceProcessor implements IOProcessor {
     public void run() {
         LOG.debug("New connection thread");
         HttpContext context = new BasicHttpContext(null);
+        boolean handedOver = false;
         try {
             while (! Thread.interrupted() && ! isDestroyed() && this.conn.isOpen()) {
                 this.httpservice.handleRequest(this.conn, context);
+                // Idle connections accepted by a selector go back to the selector
+                if (this.conn instanceof SelectorHttpConnection
+                        && ((SelectorHttpConnection) this.conn).handOver()) {
+                    handedOver = true;
+                    break;
+                }
             }
         } catch (ConnectionClosedException ex) {
             LOG.debug("Client closed connection");
@@ -96,7 +103,11 @@ public class HttpServiceProcessor implements IOProcessor {
                 LOG.warn("HTTP protocol error: " + ex.getMessage());
             }
         } finally {
-            destroy();
+            if (handedOver) {
+                this.terminated.set(true);
+            } else {
+                destroy();
+            }
             if (this.callback == null) {
                 throw new NullPointerException("The callback object can't be null");
             }
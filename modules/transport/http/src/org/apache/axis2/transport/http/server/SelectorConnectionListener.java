@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A connection listener that keeps idle connections on a few selector threads instead of
+ * blocking a request thread on each of them. A selector thread reads the head of a request
+ * (the request line and headers) without blocking, and only then hands the connection to the
+ * connection manager. Once the request has been served, a keep-alive connection goes back to its
+ * selector. Connections that stay idle for longer than the socket timeout are closed.
+ * <p/>
+ * The request body is still read by the request thread, from a blocking socket.
+ */
+public class SelectorConnectionListener implements ConnectionListener {
+
+    private static Log LOG = LogFactory.getLog(SelectorConnectionListener.class);
+
+    /**
+     * Heads that grow beyond this size are handed over as they are, for the request parser to
+     * reject them.
+     */
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+    /** The interval at which idle connections are looked for, in milliseconds. */
+    private static final long SELECT_TIMEOUT = 1000L;
+
+    private volatile boolean destroyed = false;
+
+    private final int port;
+    private final int reactorCount;
+    private final HttpConnectionManager connmanager;
+    private final ConnectionListenerFailureHandler failureHandler;
+    private final HttpParams params;
+
+    private ServerSocketChannel serverchannel = null;
+    private Reactor[] reactors = null;
+    private int nextReactor = 0;
+
+    public SelectorConnectionListener(
+            int port,
+            int reactorCount,
+            final HttpConnectionManager connmanager,
+            final ConnectionListenerFailureHandler failureHandler,
+            final HttpParams params) throws IOException {
+        super();
+        if (reactorCount < 1) {
+            throw new IllegalArgumentException("At least one selector thread is required");
+        }
+        if (connmanager == null) {
+            throw new IllegalArgumentException("Connection manager may not be null");
+        }
+        if (failureHandler == null) {
+            throw new IllegalArgumentException("Failure handler may not be null");
+        }
+        if (params == null) {
+            throw new IllegalArgumentException("HTTP parameters may not be null");
+        }
+        this.port = port;
+        this.reactorCount = reactorCount;
+        this.connmanager = connmanager;
+        this.failureHandler = failureHandler;
+        this.params = params;
+    }
+
+    public void run() {
+        try {
+            while (!Thread.interrupted() && !this.destroyed) {
+                try {
+                    if (serverchannel == null || !serverchannel.isOpen()) {
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info("Listening on port " + port);
+                        }
+                        synchronized (this) {
+                            startReactors();
+                            serverchannel = ServerSocketChannel.open();
+                            serverchannel.socket().setReuseAddress(true);
+                            serverchannel.socket().bind(new InetSocketAddress(port));
+                            notifyAll();
+                        }
+                    }
+                    LOG.debug("Waiting for incoming HTTP connection");
+                    SocketChannel channel = this.serverchannel.accept();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Incoming HTTP connection from " +
+                                channel.socket().getRemoteSocketAddress());
+                    }
+                    this.reactors[this.nextReactor].register(channel);
+                    this.nextReactor = (this.nextReactor + 1) % this.reactors.length;
+                } catch (ClosedByInterruptException ie) {
+                    break;
+                } catch (Throwable ex) {
+                    if (Thread.interrupted() || this.destroyed) {
+                        break;
+                    }
+                    if (!failureHandler.failed(this, ex)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            destroy();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private void startReactors() throws IOException {
+        if (this.reactors != null) {
+            return;
+        }
+        ThreadFactory threadFactory = new DefaultThreadFactory(
+                new ThreadGroup("Selector thread group"), "HttpSelector-" + port);
+        Reactor[] started = new Reactor[this.reactorCount];
+        try {
+            for (int i = 0; i < started.length; i++) {
+                started[i] = new Reactor();
+            }
+        } catch (IOException ex) {
+            for (int i = 0; i < started.length && started[i] != null; i++) {
+                started[i].stop();
+                started[i].closeAll();
+            }
+            throw ex;
+        }
+        for (int i = 0; i < started.length; i++) {
+            threadFactory.newThread(started[i]).start();
+        }
+        this.reactors = started;
+    }
+
+    public synchronized void awaitSocketOpen() throws InterruptedException {
+        while (serverchannel == null && !destroyed) {
+            wait();
+        }
+    }
+
+    public synchronized int getPort() {
+        return serverchannel.socket().getLocalPort();
+    }
+
+    public synchronized void close() throws IOException {
+        if (this.serverchannel != null) {
+            this.serverchannel.close();
+            this.serverchannel = null;
+        }
+    }
+
+    public synchronized void destroy() {
+        this.destroyed = true;
+        try {
+            close();
+        } catch (IOException ex) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("I/O error closing listener", ex);
+            }
+        }
+        if (this.reactors != null) {
+            for (int i = 0; i < this.reactors.length; i++) {
+                this.reactors[i].stop();
+            }
+        }
+    }
+
+    public synchronized boolean isDestroyed() {
+        return this.destroyed;
+    }
+
+    private static void closeChannel(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            LOG.debug("I/O error closing connection", ex);
+        }
+    }
+
+    /**
+     * The head of a request read so far from an idle connection.
+     */
+    private static class Head {
+
+        private byte[] bytes = null;
+        private int length = 0;
+        private long lastActive = System.currentTimeMillis();
+
+        void append(ByteBuffer buffer) {
+            int count = buffer.remaining();
+            if (this.bytes == null) {
+                this.bytes = new byte[count];
+            } else if (this.length + count > this.bytes.length) {
+                byte[] bytes = new byte[Math.max(this.length + count, this.bytes.length * 2)];
+                System.arraycopy(this.bytes, 0, bytes, 0, this.length);
+                this.bytes = bytes;
+            }
+            buffer.get(this.bytes, this.length, count);
+            this.length += count;
+        }
+
+        /**
+         * @param from the length of the head before the last read
+         * @return true if the head ends with an empty line, after the given offset
+         */
+        boolean isComplete(int from) {
+            for (int i = Math.max(1, from - 3); i < this.length; i++) {
+                if (this.bytes[i] == '\n') {
+                    if (this.bytes[i - 1] == '\n') {
+                        return true;
+                    }
+                    if (i >= 3 && this.bytes[i - 1] == '\r' && this.bytes[i - 2] == '\n'
+                            && this.bytes[i - 3] == '\r') {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * A selector thread, waiting for requests on the idle connections registered with it.
+     */
+    class Reactor implements Runnable {
+
+        private final Selector selector;
+
+        private final Queue<SocketChannel> registrations =
+                new ConcurrentLinkedQueue<SocketChannel>();
+
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+        private final List<SelectionKey> ready = new ArrayList<SelectionKey>();
+
+        private final int idleTimeout;
+
+        private long lastSweep = System.currentTimeMillis();
+
+        private volatile boolean stopped = false;
+
+        Reactor() throws IOException {
+            this.selector = Selector.open();
+            this.idleTimeout = HttpConnectionParams.getSoTimeout(params);
+        }
+
+        /**
+         * Wait for the next request on a connection. May be called from any thread.
+         *
+         * @param channel a connected channel that is not registered with any selector
+         */
+        void register(SocketChannel channel) {
+            this.registrations.offer(channel);
+            if (this.stopped) {
+                closeRegistrations();
+            } else {
+                this.selector.wakeup();
+            }
+        }
+
+        void stop() {
+            this.stopped = true;
+            this.selector.wakeup();
+        }
+
+        public void run() {
+            try {
+                while (!this.stopped) {
+                    this.selector.select(SELECT_TIMEOUT);
+                    if (this.stopped) {
+                        break;
+                    }
+                    processRegistrations();
+                    do {
+                        processSelectedKeys();
+                    } while (handOverReadyConnections());
+                    closeIdleConnections();
+                }
+            } catch (Throwable ex) {
+                if (!this.stopped) {
+                    LOG.error("Selector thread terminated", ex);
+                }
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void processRegistrations() {
+            SocketChannel channel;
+            while ((channel = this.registrations.poll()) != null) {
+                try {
+                    channel.configureBlocking(false);
+                    channel.register(this.selector, SelectionKey.OP_READ, new Head());
+                } catch (IOException ex) {
+                    LOG.debug("I/O error registering connection", ex);
+                    closeChannel(channel);
+                }
+            }
+        }
+
+        private void processSelectedKeys() {
+            for (Iterator<SelectionKey> i = this.selector.selectedKeys().iterator();
+                 i.hasNext();) {
+                SelectionKey key = i.next();
+                i.remove();
+                if (key.isValid() && key.isReadable()) {
+                    read(key);
+                }
+            }
+        }
+
+        private void read(SelectionKey key) {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Head head = (Head) key.attachment();
+            this.readBuffer.clear();
+            int count;
+            try {
+                count = channel.read(this.readBuffer);
+            } catch (IOException ex) {
+                LOG.debug("I/O error reading request", ex);
+                count = -1;
+            }
+            if (count == -1) {
+                key.cancel();
+                closeChannel(channel);
+                return;
+            }
+            if (count == 0) {
+                return;
+            }
+            this.readBuffer.flip();
+            int from = head.length;
+            head.append(this.readBuffer);
+            head.lastActive = System.currentTimeMillis();
+            if (head.isComplete(from) || head.length >= MAX_HEAD_SIZE) {
+                key.cancel();
+                this.ready.add(key);
+            }
+        }
+
+        /**
+         * Hand the connections whose request head has been read to the connection manager.
+         *
+         * @return true if more connections became readable in the meantime
+         */
+        private boolean handOverReadyConnections() throws IOException {
+            if (this.ready.isEmpty()) {
+                return false;
+            }
+            // Deregister the cancelled keys, so that the channels can be made blocking again
+            this.selector.selectNow();
+            for (SelectionKey key : this.ready) {
+                SocketChannel channel = (SocketChannel) key.channel();
+                Head head = (Head) key.attachment();
+                try {
+                    channel.configureBlocking(true);
+                    connmanager.process(new SelectorHttpConnection(channel,
+                            new ByteArrayInputStream(head.bytes, 0, head.length), this, params));
+                } catch (Throwable ex) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn("Unable to process connection from " +
+                                channel.socket().getRemoteSocketAddress(), ex);
+                    }
+                    closeChannel(channel);
+                }
+            }
+            this.ready.clear();
+            return !this.selector.selectedKeys().isEmpty();
+        }
+
+        private void closeIdleConnections() {
+            long now = System.currentTimeMillis();
+            if (this.idleTimeout <= 0 || now - this.lastSweep < SELECT_TIMEOUT) {
+                return;
+            }
+            this.lastSweep = now;
+            for (Iterator<SelectionKey> i = this.selector.keys().iterator(); i.hasNext();) {
+                SelectionKey key = i.next();
+                if (key.isValid() && now - ((Head) key.attachment()).lastActive > this.idleTimeout) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Closing idle connection " + key.channel());
+                    }
+                    key.cancel();
+                    closeChannel((SocketChannel) key.channel());
+                }
+            }
+        }
+
+        private void closeRegistrations() {
+            SocketChannel channel;
+            while ((channel = this.registrations.poll()) != null) {
+                closeChannel(channel);
+            }
+        }
+
+        void closeAll() {
+            try {
+                for (Iterator<SelectionKey> i = this.selector.keys().iterator(); i.hasNext();) {
+                    closeChannel((SocketChannel) i.next().channel());
+                }
+                this.selector.close();
+            } catch (Exception ex) {
+                LOG.debug("I/O error closing selector", ex);
+            }
+            closeRegistrations();
+        }
+
+    }
+
+}
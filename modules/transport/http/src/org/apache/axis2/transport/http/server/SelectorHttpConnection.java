@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.server;
+
+import org.apache.http.params.HttpParams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A connection accepted by a {@link SelectorConnectionListener}. It is handed to the connection
+ * manager once the head of a request has been read, and handed back to the listener's selector
+ * once the request has been served and the connection is idle.
+ */
+class SelectorHttpConnection extends AxisHttpConnectionImpl {
+
+    private final SocketChannel channel;
+
+    private final SelectorConnectionListener.Reactor reactor;
+
+    SelectorHttpConnection(final SocketChannel channel, final InputStream head,
+                           final SelectorConnectionListener.Reactor reactor,
+                           final HttpParams params) throws IOException {
+        super(channel.socket(), head, params);
+        this.channel = channel;
+        this.reactor = reactor;
+    }
+
+    /**
+     * Give the connection back to its selector if no further request has been read from it yet.
+     *
+     * @return true if the connection has been handed back and must no longer be used
+     */
+    boolean handOver() {
+        if (!isOpen() || hasBufferedData()) {
+            return false;
+        }
+        this.reactor.register(this.channel);
+        return true;
+    }
+
+}
@@ -24,53 +24,215 @@ import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.context.ServiceGroupContext;
 import org.apache.axis2.context.SessionContext;
 import org.apache.axis2.engine.DependencyManager;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The transport sessions of a standalone HTTP listener, keyed by the value of their session
+ * cookie.
+ * <p/>
+ * Sessions are spread over a fixed number of stripes, each with its own lock, so that requests
+ * of different sessions rarely contend. A stripe keeps its sessions in least recently used
+ * order: sessions idle for longer than the session timeout are dropped from the head of the
+ * stripe whenever the stripe is used, and when there are more than the maximum number of
+ * sessions, the least recently used session of the stripe getting a new session is evicted.
+ * Eviction is therefore LRU within a stripe, and only approximately LRU overall.
+ */
 public class SessionManager {
 
-    private final Map sessionmap;
+    private static final Log log = LogFactory.getLog(SessionManager.class);
+
+    /**
+     * The default idle timeout of a session in milliseconds, which is the default of
+     * {@link SessionContext}.
+     */
+    public static final long DEFAULT_SESSION_TIMEOUT = 30 * 1000;
+
+    /**
+     * The default maximum number of sessions kept before the least recently used are evicted.
+     */
+    public static final int DEFAULT_MAX_SESSIONS = 10000;
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final long sessionTimeout;
+
+    private final int maxSessions;
+
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    private final AtomicLong evictedCount = new AtomicLong();
 
     public SessionManager() {
-        super();
-        this.sessionmap = new HashMap();
+        this(DEFAULT_SESSION_TIMEOUT, DEFAULT_MAX_SESSIONS);
+    }
+
+    /**
+     * @param sessionTimeout the time in milliseconds after which an unused session expires
+     * @param maxSessions    the maximum number of sessions kept; 0 or less for no limit
+     */
+    public SessionManager(long sessionTimeout, int maxSessions) {
+        this.sessionTimeout = sessionTimeout;
+        this.maxSessions = maxSessions > 0 ? maxSessions : Integer.MAX_VALUE;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
     }
 
-    public synchronized SessionContext getSessionContext(String sessionKey) {
+    /**
+     * Get the session with the given key, or start a new session if there is no such session or
+     * if it has expired.
+     *
+     * @param sessionKey the value of the session cookie of the request, or null
+     * @return the session, touched
+     */
+    public SessionContext getSessionContext(String sessionKey) {
+        List<SessionContext> removed = null;
         SessionContext sessionContext = null;
         if (sessionKey != null && sessionKey.length() != 0) {
-            sessionContext = (SessionContext) this.sessionmap.get(sessionKey);
+            Stripe stripe = stripeFor(sessionKey);
+            synchronized (stripe) {
+                removed = stripe.expire(null);
+                sessionContext = stripe.get(sessionKey);
+                if (sessionContext != null) {
+                    if (isExpired(sessionContext, System.currentTimeMillis())) {
+                        stripe.remove(sessionKey);
+                        sessionCount.decrementAndGet();
+                        expiredCount.incrementAndGet();
+                        removed = add(removed, sessionContext);
+                        sessionContext = null;
+                    } else {
+                        sessionContext.touch();
+                    }
+                }
+            }
         }
         if (sessionContext == null) {
             sessionKey = UUIDGenerator.getUUID();
             sessionContext = new SessionContext(null);
             sessionContext.setCookieID(sessionKey);
-            this.sessionmap.put(sessionKey, sessionContext);
+            sessionContext.sessionContextTimeoutInterval = sessionTimeout;
+            removed = put(sessionKey, sessionContext, removed);
+        }
+        if (removed != null) {
+            for (SessionContext expired : removed) {
+                cleanupServiceGroupContexts(expired);
+            }
         }
-        sessionContext.touch();
-        cleanupServiceGroupContexts();
         return sessionContext;
     }
 
-    private void cleanupServiceGroupContexts() {
-        long currentTime = System.currentTimeMillis();
-        for (Iterator it = this.sessionmap.keySet().iterator(); it.hasNext();) {
-            String cookieID = (String) it.next();
-            SessionContext sessionContext = (SessionContext) this.sessionmap.get(cookieID);
-            if ((currentTime - sessionContext.getLastTouchedTime()) >
-                    sessionContext.sessionContextTimeoutInterval) {
-                it.remove();
-                Iterator serviceGroupContext = sessionContext.getServiceGroupContext();
-                if (serviceGroupContext != null) {
-                    while (serviceGroupContext.hasNext()) {
-                        ServiceGroupContext groupContext =
-                                (ServiceGroupContext) serviceGroupContext.next();
-                        cleanupServiceContexts(groupContext);
-                    }
+    private List<SessionContext> put(String sessionKey, SessionContext sessionContext,
+                                     List<SessionContext> removed) {
+        Stripe stripe = stripeFor(sessionKey);
+        boolean full = sessionCount.incrementAndGet() > maxSessions;
+        synchronized (stripe) {
+            removed = stripe.expire(removed);
+            if (full && sessionCount.get() > maxSessions) {
+                SessionContext eldest = stripe.removeEldest();
+                if (eldest != null) {
+                    removed = evicted(eldest, removed);
+                    full = false;
                 }
             }
+            sessionContext.touch();
+            stripe.put(sessionKey, sessionContext);
+        }
+        if (full && sessionCount.get() > maxSessions) {
+            // the stripe was empty; evict from the next one that isn't
+            int index = indexFor(sessionKey);
+            for (int i = 1; i < STRIPES; i++) {
+                Stripe other = stripes[(index + i) & (STRIPES - 1)];
+                SessionContext eldest;
+                synchronized (other) {
+                    eldest = other.removeEldest();
+                }
+                if (eldest != null) {
+                    removed = evicted(eldest, removed);
+                    break;
+                }
+            }
+        }
+        createdCount.incrementAndGet();
+        return removed;
+    }
+
+    private List<SessionContext> evicted(SessionContext sessionContext,
+                                         List<SessionContext> removed) {
+        sessionCount.decrementAndGet();
+        evictedCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted session " + sessionContext.getCookieID() + ", " + maxSessions
+                    + " sessions reached");
+        }
+        return add(removed, sessionContext);
+    }
+
+    private static List<SessionContext> add(List<SessionContext> list,
+                                            SessionContext sessionContext) {
+        if (list == null) {
+            list = new ArrayList<SessionContext>();
+        }
+        list.add(sessionContext);
+        return list;
+    }
+
+    private static boolean isExpired(SessionContext sessionContext, long now) {
+        return now - sessionContext.getLastTouchedTime()
+                > sessionContext.sessionContextTimeoutInterval;
+    }
+
+    private static int indexFor(String sessionKey) {
+        int h = sessionKey.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return h & (STRIPES - 1);
+    }
+
+    private Stripe stripeFor(String sessionKey) {
+        return stripes[indexFor(sessionKey)];
+    }
+
+    /**
+     * Drop the expired sessions of all stripes. Sessions otherwise expire when their stripe is
+     * next used, so this only matters to release the memory of sessions when the traffic stops.
+     */
+    public void expireSessions() {
+        List<SessionContext> removed = null;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (stripes[i]) {
+                removed = stripes[i].expire(removed);
+            }
+        }
+        if (removed != null) {
+            for (SessionContext expired : removed) {
+                cleanupServiceGroupContexts(expired);
+            }
+        }
+    }
+
+    private void cleanupServiceGroupContexts(SessionContext sessionContext) {
+        Iterator serviceGroupContext = sessionContext.getServiceGroupContext();
+        if (serviceGroupContext != null) {
+            while (serviceGroupContext.hasNext()) {
+                ServiceGroupContext groupContext =
+                        (ServiceGroupContext) serviceGroupContext.next();
+                cleanupServiceContexts(groupContext);
+            }
         }
     }
 
@@ -81,4 +243,81 @@ public class SessionManager {
         }
     }
 
+    /**
+     * @return the idle timeout of new sessions in milliseconds
+     */
+    public long getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * @return the maximum number of sessions, Integer.MAX_VALUE if there is no limit
+     */
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    /**
+     * @return the number of sessions currently kept
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /**
+     * @return the number of sessions started
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * @return the number of sessions dropped because they were idle for too long
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * @return the number of sessions evicted to stay within the maximum number of sessions
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * The sessions of one stripe, in least recently used order. Guarded by its own monitor.
+     */
+    private class Stripe extends LinkedHashMap<String, SessionContext> {
+
+        Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        // Drop the expired sessions at the head of the stripe
+        List<SessionContext> expire(List<SessionContext> removed) {
+            long now = System.currentTimeMillis();
+            for (Iterator<SessionContext> it = values().iterator(); it.hasNext();) {
+                SessionContext sessionContext = it.next();
+                if (!isExpired(sessionContext, now)) {
+                    break;
+                }
+                it.remove();
+                sessionCount.decrementAndGet();
+                expiredCount.incrementAndGet();
+                removed = add(removed, sessionContext);
+            }
+            return removed;
+        }
+
+        SessionContext removeEldest() {
+            Iterator<SessionContext> it = values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            SessionContext eldest = it.next();
+            it.remove();
+            return eldest;
+        }
+    }
 }
@@ -96,8 +96,11 @@ public class SimpleHttpServer {
     }
 
     public void start() {
-        DefaultConnectionListener listener = (DefaultConnectionListener)this.listener;
-        this.listenerExecutor.execute(listener);
+        this.listenerExecutor.execute(this.listener);
+        if (!(this.listener instanceof ConnectionListener)) {
+            return;
+        }
+        ConnectionListener listener = (ConnectionListener)this.listener;
         try {
             listener.awaitSocketOpen();
             if (!listener.isDestroyed()) {
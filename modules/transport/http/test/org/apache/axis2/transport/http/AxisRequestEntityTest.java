@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.junit.Test;
+
+public class AxisRequestEntityTest {
+
+    private static AxisRequestEntity createEntity(int elementCount) throws Exception {
+        MessageContext msgContext = ConfigurationContextFactory.createEmptyConfigurationContext()
+                .createMessageContext();
+        SOAPFactory factory = OMAbstractFactory.getSOAP11Factory();
+        SOAPEnvelope envelope = factory.getDefaultEnvelope();
+        OMElement payload = factory.createOMElement("payload", "urn:test", "t");
+        for (int i = 0; i < elementCount; i++) {
+            factory.createOMElement("value", null, payload).setText("value " + i);
+        }
+        envelope.getBody().addChild(payload);
+        msgContext.setEnvelope(envelope);
+        OMOutputFormat format = new OMOutputFormat();
+        format.setSOAP11(true);
+        return new AxisRequestEntity(new SOAPMessageFormatter(), msgContext, format, "urn:test",
+                false, false);
+    }
+
+    private static void checkEntity(AxisRequestEntity entity) throws Exception {
+        long length = entity.getContentLength();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeRequest(out);
+        assertEquals(length, out.size());
+        assertTrue(new String(out.toByteArray(), "UTF-8").endsWith("</soapenv:Envelope>"));
+
+        // the buffered message can be sent again, e.g. after an authentication challenge
+        ByteArrayOutputStream again = new ByteArrayOutputStream();
+        entity.writeRequest(again);
+        assertArrayEquals(out.toByteArray(), again.toByteArray());
+        entity.release();
+    }
+
+    @Test
+    public void testSmallMessage() throws Exception {
+        checkEntity(createEntity(10));
+    }
+
+    @Test
+    public void testLargeMessage() throws Exception {
+        AxisRequestEntity entity = createEntity(50000);
+        assertTrue(entity.getContentLength() > AxisRequestEntity.BUFFER_CHUNK_SIZE
+                * AxisRequestEntity.BUFFER_CHUNKS);
+        checkEntity(entity);
+    }
+}
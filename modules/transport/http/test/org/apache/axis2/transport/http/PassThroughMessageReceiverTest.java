@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.context.ServiceContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.apache.axis2.transport.TransportSender;
+import org.apache.axis2.transport.TransportUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mortbay.http.HttpContext;
+import org.mortbay.http.HttpException;
+import org.mortbay.http.HttpRequest;
+import org.mortbay.http.HttpResponse;
+import org.mortbay.http.SocketListener;
+import org.mortbay.http.handler.AbstractHttpHandler;
+import org.mortbay.jetty.Server;
+
+public class PassThroughMessageReceiverTest {
+    private static final String CONTENT_TYPE = "text/xml; charset=UTF-8";
+
+    private static final String RESPONSE =
+            "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soapenv:Body><t:echoResponse xmlns:t='urn:test'>1</t:echoResponse></soapenv:Body>"
+            + "</soapenv:Envelope>";
+
+    private static final String FAULT =
+            "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soapenv:Body><soapenv:Fault><faultcode>soapenv:Server</faultcode>"
+            + "<faultstring>failed</faultstring></soapenv:Fault></soapenv:Body>"
+            + "</soapenv:Envelope>";
+
+    private Server server;
+
+    private volatile int backendStatus;
+
+    private volatile String backendResponse;
+
+    private ConfigurationContext configContext;
+
+    private AxisService service;
+
+    private AxisOperation operation;
+
+    private CapturingSender sender;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new Server();
+        SocketListener listener = new SocketListener();
+        server.addListener(listener);
+        HttpContext context = server.getContext("/");
+        context.addHandler(new AbstractHttpHandler() {
+            public void handle(String pathInContext, String pathParams, HttpRequest request,
+                               HttpResponse response) throws HttpException, IOException {
+                InputStream in = request.getInputStream();
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) != -1) {
+                    // consume the request
+                }
+                response.setStatus(backendStatus);
+                if (backendResponse != null) {
+                    response.setContentType(CONTENT_TYPE);
+                    response.getOutputStream().write(backendResponse.getBytes("UTF-8"));
+                }
+                request.setHandled(true);
+            }
+        });
+        server.start();
+
+        configContext = ConfigurationContextFactory.createConfigurationContextFromURIs(
+                PassThroughMessageReceiverTest.class.getResource("axis2.xml"), null);
+        service = new AxisService("Proxy");
+        service.addParameter(HTTPConstants.PASS_THROUGH, "true");
+        service.addParameter(HTTPConstants.PASS_THROUGH_TARGET,
+                             "http://localhost:" + listener.getPort() + "/backend");
+        operation = new InOutAxisOperation(new QName("forward"));
+        operation.setMessageReceiver(new PassThroughMessageReceiver());
+        service.addOperation(operation);
+        configContext.getAxisConfiguration().addService(service);
+        sender = new CapturingSender();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    private void receive() throws Exception {
+        byte[] bytes = ("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                + "<soapenv:Body><t:echo xmlns:t='urn:test'>1</t:echo></soapenv:Body>"
+                + "</soapenv:Envelope>").getBytes("UTF-8");
+        MessageContext inMessage = configContext.createMessageContext();
+        ServiceContext serviceContext = configContext.createServiceGroupContext(
+                service.getAxisServiceGroup()).getServiceContext(service);
+        OperationContext operationContext = serviceContext.createOperationContext(operation);
+        inMessage.setServiceContext(serviceContext);
+        inMessage.setAxisOperation(operation);
+        operationContext.addMessageContext(inMessage);
+        inMessage.setOperationContext(operationContext);
+        inMessage.setServerSide(true);
+        TransportOutDescription transportOut = new TransportOutDescription("capture");
+        transportOut.setSender(sender);
+        inMessage.setTransportOut(transportOut);
+
+        PassThroughMessage request =
+                PassThroughMessage.read(new ByteArrayInputStream(bytes), CONTENT_TYPE);
+        inMessage.setProperty(HTTPConstants.PASS_THROUGH_MESSAGE, request);
+        inMessage.setEnvelope(TransportUtils.createSOAPMessage(inMessage,
+                request.getInputStream(), CONTENT_TYPE));
+        request.setEnvelope(inMessage.getEnvelope());
+
+        operation.getMessageReceiver().receive(inMessage);
+    }
+
+    @Test
+    public void testForward() throws Exception {
+        backendStatus = 200;
+        backendResponse = RESPONSE;
+        receive();
+        assertNotNull(sender.sent);
+        assertFalse(sender.processingFault);
+        assertNull(sender.responseCode);
+        assertArrayEquals(RESPONSE.getBytes("UTF-8"), sender.rawResponse);
+    }
+
+    @Test
+    public void testFault() throws Exception {
+        backendStatus = 500;
+        backendResponse = FAULT;
+        receive();
+        assertNotNull(sender.sent);
+        assertTrue(sender.processingFault);
+        assertEquals(new Integer(500), sender.responseCode);
+        assertArrayEquals(FAULT.getBytes("UTF-8"), sender.rawResponse);
+    }
+
+    @Test
+    public void testNoResponse() throws Exception {
+        backendStatus = 202;
+        backendResponse = null;
+        try {
+            receive();
+            fail("Expected an AxisFault");
+        } catch (AxisFault e) {
+            assertTrue(e.getMessage().indexOf("No response") != -1);
+        }
+        assertNull(sender.sent);
+    }
+
+    @Test
+    public void testResponseTooLarge() throws Exception {
+        service.addParameter(HTTPConstants.PASS_THROUGH_MAX_SIZE, "16");
+        backendStatus = 200;
+        backendResponse = RESPONSE;
+        try {
+            receive();
+            fail("Expected an AxisFault");
+        } catch (AxisFault e) {
+            assertTrue(e.getMessage().indexOf("larger than 16 bytes") != -1);
+        }
+        assertNull(sender.sent);
+    }
+
+    private static class CapturingSender extends AbstractHandler implements TransportSender {
+        MessageContext sent;
+        boolean processingFault;
+        Integer responseCode;
+        byte[] rawResponse;
+
+        public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+            sent = msgContext;
+            processingFault = msgContext.isProcessingFault();
+            responseCode = (Integer) msgContext.getProperty(HTTPConstants.RESPONSE_CODE);
+            PassThroughMessage message = PassThroughMessage.getIntactMessage(msgContext);
+            if (message != null) {
+                try {
+                    rawResponse = message.toByteArray();
+                } catch (IOException e) {
+                    throw AxisFault.makeFault(e);
+                }
+            }
+            return InvocationResponse.CONTINUE;
+        }
+
+        public void init(ConfigurationContext confContext, TransportOutDescription transportOut) {
+        }
+
+        public void cleanup(MessageContext msgContext) {
+        }
+
+        public void stop() {
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.MessageFormatter;
+import org.apache.axis2.transport.TransportUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PassThroughMessageTest {
+    private static final String CONTENT_TYPE = "text/xml; charset=UTF-8";
+
+    private MessageContext msgContext;
+
+    @Before
+    public void setUp() throws Exception {
+        msgContext = ConfigurationContextFactory.createEmptyConfigurationContext()
+                .createMessageContext();
+    }
+
+    private PassThroughMessage receive(String payload) throws Exception {
+        byte[] bytes = ("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                + "<soapenv:Header><h xmlns=\"urn:test\">header</h></soapenv:Header>"
+                + "<soapenv:Body>" + payload + "</soapenv:Body></soapenv:Envelope>").getBytes("UTF-8");
+        PassThroughMessage message =
+                PassThroughMessage.read(new ByteArrayInputStream(bytes), CONTENT_TYPE);
+        SOAPEnvelope envelope = TransportUtils.createSOAPMessage(msgContext,
+                message.getInputStream(), CONTENT_TYPE);
+        msgContext.setEnvelope(envelope);
+        msgContext.setProperty(HTTPConstants.PASS_THROUGH_MESSAGE, message);
+        message.setEnvelope(envelope);
+        return message;
+    }
+
+    @Test
+    public void testBuffers() throws Exception {
+        byte[] bytes = new byte[3 * PassThroughMessage.BUFFER_SIZE + 17];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        PassThroughMessage message =
+                PassThroughMessage.read(new ByteArrayInputStream(bytes), CONTENT_TYPE);
+        assertEquals(bytes.length, message.getLength());
+        assertArrayEquals(bytes, message.toByteArray());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(out);
+        assertArrayEquals(bytes, out.toByteArray());
+
+        InputStream in = message.getInputStream();
+        out.reset();
+        int b;
+        while ((b = in.read()) != -1) {
+            out.write(b);
+        }
+        assertArrayEquals(bytes, out.toByteArray());
+
+        message.release();
+        try {
+            message.getInputStream().read();
+            fail("Expected the released message to be unreadable");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        byte[] bytes = new byte[2 * PassThroughMessage.BUFFER_SIZE + 1];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        PassThroughMessage message = PassThroughMessage.read(new ByteArrayInputStream(bytes),
+                CONTENT_TYPE, bytes.length);
+        assertTrue(message.isComplete());
+        assertArrayEquals(bytes, message.toByteArray());
+
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        message = PassThroughMessage.read(in, CONTENT_TYPE, PassThroughMessage.BUFFER_SIZE);
+        assertFalse(message.isComplete());
+        // no more than the maximum size and the byte telling that the stream goes on is read
+        assertEquals(PassThroughMessage.BUFFER_SIZE + 1, message.getLength());
+        assertEquals(bytes.length - PassThroughMessage.BUFFER_SIZE - 1, in.available());
+        try {
+            message.toByteArray();
+            fail("Expected the incomplete message to be rejected");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // the stream of an incomplete message goes on with the rest of the original stream
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream messageIn = message.getInputStream();
+        byte[] buffer = new byte[1000];
+        int count;
+        while ((count = messageIn.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        assertArrayEquals(bytes, out.toByteArray());
+    }
+
+    @Test
+    public void testIncompleteMessageIsNotIntact() throws Exception {
+        byte[] bytes = ("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                + "<soapenv:Body><t:echo xmlns:t='urn:test'/></soapenv:Body></soapenv:Envelope>")
+                .getBytes("UTF-8");
+        PassThroughMessage message = PassThroughMessage.read(new ByteArrayInputStream(bytes),
+                CONTENT_TYPE, 16);
+        SOAPEnvelope envelope = TransportUtils.createSOAPMessage(msgContext,
+                message.getInputStream(), CONTENT_TYPE);
+        msgContext.setEnvelope(envelope);
+        msgContext.setProperty(HTTPConstants.PASS_THROUGH_MESSAGE, message);
+        message.setEnvelope(envelope);
+        assertNull(PassThroughMessage.getIntactMessage(msgContext));
+        assertEquals("echo", envelope.getBody().getFirstElement().getLocalName());
+    }
+
+    @Test
+    public void testIntactMessageIsSentAsIs() throws Exception {
+        String payload = "<t:echo xmlns:t='urn:test'>  <t:value>1</t:value>  </t:echo>";
+        PassThroughMessage message = receive(payload);
+        assertFalse(msgContext.isFault());
+        assertSame(message, PassThroughMessage.getIntactMessage(msgContext));
+
+        MessageFormatter formatter = PassThroughFormatter.getMessageFormatter(msgContext);
+        assertTrue(formatter instanceof PassThroughFormatter);
+        OMOutputFormat format = new OMOutputFormat();
+        assertEquals(CONTENT_TYPE, formatter.getContentType(msgContext, format, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        formatter.writeTo(msgContext, format, out, false);
+        assertTrue(new String(out.toByteArray(), "UTF-8").indexOf(payload) != -1);
+    }
+
+    @Test
+    public void testTouchedMessageIsSerialized() throws Exception {
+        receive("<t:echo xmlns:t='urn:test'/>");
+        msgContext.getEnvelope().getBody().getFirstElement();
+        assertNull(PassThroughMessage.getIntactMessage(msgContext));
+        assertFalse(PassThroughFormatter.getMessageFormatter(msgContext)
+                instanceof PassThroughFormatter);
+
+        receive("<t:echo xmlns:t='urn:test'/>");
+        msgContext.getEnvelope().getHeader().addHeaderBlock("added",
+                msgContext.getEnvelope().getOMFactory().createOMNamespace("urn:test", "t"));
+        assertNull(PassThroughMessage.getIntactMessage(msgContext));
+
+        receive("<t:echo xmlns:t='urn:test'/>");
+        msgContext.setEnvelope(TransportUtils.createSOAPEnvelope(
+                msgContext.getEnvelope().getOMFactory().createOMElement(new QName("other"))));
+        assertNull(PassThroughMessage.getIntactMessage(msgContext));
+    }
+}
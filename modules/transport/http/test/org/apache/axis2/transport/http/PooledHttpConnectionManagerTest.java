@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnection;
+import org.junit.Test;
+
+public class PooledHttpConnectionManagerTest {
+
+    private static TransportOutDescription createTransportOut() throws Exception {
+        TransportOutDescription transportOut = new TransportOutDescription("http");
+        transportOut.setSender(new CommonsHTTPTransportSender());
+        transportOut.addParameter(new Parameter(
+                HTTPConstants.MAX_TOTAL_CONNECTIONS, "50"));
+        transportOut.addParameter(new Parameter(
+                HTTPConstants.MAX_CONNECTIONS_PER_HOST, "10"));
+        return transportOut;
+    }
+
+    private static MessageContext createMessageContext() throws Exception {
+        ConfigurationContext configContext =
+                ConfigurationContextFactory.createEmptyConfigurationContext();
+        configContext.getAxisConfiguration().addTransportOut(createTransportOut());
+        return configContext.createMessageContext();
+    }
+
+    @Test
+    public void testSettings() throws Exception {
+        MessageContext msgContext = createMessageContext();
+        // the options don't change the pool
+        msgContext.setProperty(HTTPConstants.MAX_CONNECTIONS_PER_HOST, new Integer(5));
+        PooledHttpConnectionManager connManager =
+                PooledHttpConnectionManager.getInstance(msgContext.getConfigurationContext());
+        try {
+            assertEquals(50, connManager.getParams().getMaxTotalConnections());
+            assertEquals(10, connManager.getParams().getDefaultMaxConnectionsPerHost());
+            assertEquals(HTTPConstants.DEFAULT_CONNECTION_POOL_TIMEOUT,
+                    connManager.getHttpClient().getParams().getConnectionManagerTimeout());
+            assertEquals(-1, PooledHttpConnectionManager.getIntSetting(msgContext,
+                    HTTPConstants.CONNECTION_IDLE_TIMEOUT, -1));
+        } finally {
+            connManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testSharedBetweenSenders() throws Exception {
+        ConfigurationContext configContext = createMessageContext().getConfigurationContext();
+        CommonsHTTPTransportSender http = new CommonsHTTPTransportSender();
+        http.init(configContext, createTransportOut());
+        CommonsHTTPTransportSender https = new CommonsHTTPTransportSender();
+        https.init(configContext, new TransportOutDescription("https"));
+        PooledHttpConnectionManager connManager =
+                PooledHttpConnectionManager.getInstance(configContext);
+
+        https.stop();
+        assertSame(connManager, PooledHttpConnectionManager.getInstance(configContext));
+        http.stop();
+        assertNull(configContext.getProperty(HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER));
+        // stopping again does nothing
+        http.stop();
+    }
+
+    @Test
+    public void testSharedHttpClient() throws Exception {
+        MessageContext msgContext = createMessageContext();
+        HTTPSender sender = new HTTPSender();
+        HttpClient httpClient = sender.getHttpClient(msgContext);
+        PooledHttpConnectionManager connManager =
+                PooledHttpConnectionManager.getInstance(msgContext.getConfigurationContext());
+        try {
+            assertSame(connManager.getHttpClient(), httpClient);
+            assertSame(httpClient, sender.getHttpClient(msgContext));
+
+            // a message with credentials gets its own client on the same pool
+            msgContext.setProperty(HTTPConstants.AUTHENTICATE,
+                    new HttpTransportProperties.Authenticator());
+            HttpClient ownClient = sender.getHttpClient(msgContext);
+            assertNotSame(httpClient, ownClient);
+            assertSame(connManager, ownClient.getHttpConnectionManager());
+            assertFalse(ownClient.getParams() == httpClient.getParams());
+        } finally {
+            connManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testLeaseMetrics() throws Exception {
+        TransportOutDescription transportOut = createTransportOut();
+        transportOut.addParameter(new Parameter(HTTPConstants.MAX_CONNECTIONS_PER_HOST, "1"));
+        transportOut.addParameter(new Parameter(HTTPConstants.CONNECTION_IDLE_TIMEOUT, "60000"));
+        PooledHttpConnectionManager connManager = PooledHttpConnectionManager.create(transportOut);
+        try {
+            HostConfiguration host = new HostConfiguration();
+            host.setHost("localhost", 8080);
+            HttpConnection connection = connManager.getConnectionWithTimeout(host, 100);
+            assertEquals(1, connManager.getLeasedConnections());
+            try {
+                connManager.getConnectionWithTimeout(host, 50);
+                fail("Expected the pool to be exhausted");
+            } catch (ConnectionPoolTimeoutException e) {
+                // expected
+            }
+            assertEquals(1, connManager.getLeaseTimeoutCount());
+
+            connection.releaseConnection();
+            assertEquals(0, connManager.getLeasedConnections());
+            connManager.getConnectionWithTimeout(host, 100).releaseConnection();
+            assertEquals(2, connManager.getLeaseCount());
+            assertEquals(1, connManager.getConnectionsInPool());
+        } finally {
+            connManager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.RequestResponseTransport;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the asynchronous completion of held responses by {@link AxisServlet}, using a request
+ * that mimics the Servlet 3.0 asynchronous processing API.
+ */
+public class ServletAsyncSupportTest {
+    /**
+     * The Servlet 3.0 methods of a request.
+     */
+    public interface AsyncRequest {
+        boolean isAsyncSupported();
+
+        AsyncContext startAsync();
+    }
+
+    public interface AsyncContext {
+        void setTimeout(long timeout);
+
+        void addListener(AsyncListener listener);
+
+        void complete();
+    }
+
+    public interface AsyncListener {
+        void onComplete(Object event);
+
+        void onTimeout(Object event);
+    }
+
+    public static class FakeAsyncContext implements AsyncContext {
+        long timeout = -1;
+        AsyncListener listener;
+        int completions;
+
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
+
+        public void addListener(AsyncListener listener) {
+            this.listener = listener;
+        }
+
+        public void complete() {
+            completions++;
+        }
+    }
+
+    private AxisServlet servlet;
+    private FakeAsyncContext asyncContext;
+    private boolean asyncSupported;
+    private List<String> calls;
+    private ByteArrayOutputStream body;
+    private MessageContext msgContext;
+    private AxisServlet.ServletRequestResponseTransport transport;
+    private OutputStream out;
+
+    @Before
+    public void setUp() throws Exception {
+        servlet = new AxisServlet();
+        servlet.asyncSupport = ServletAsyncSupport.create(AsyncRequest.class);
+        servlet.asyncTimeout = 1000;
+        asyncContext = new FakeAsyncContext();
+        asyncSupported = true;
+        calls = new ArrayList<String>();
+        body = new ByteArrayOutputStream();
+        msgContext = ConfigurationContextFactory.createEmptyConfigurationContext()
+                .createMessageContext();
+        transport = servlet.new ServletRequestResponseTransport(createResponse());
+        msgContext.setProperty(RequestResponseTransport.TRANSPORT_CONTROL, transport);
+    }
+
+    private HttpServletRequest createRequest() {
+        return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class, AsyncRequest.class },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("isAsyncSupported")) {
+                            return Boolean.valueOf(asyncSupported);
+                        } else if (method.getName().equals("startAsync")) {
+                            return asyncContext;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private HttpServletResponse createResponse() {
+        final ServletOutputStream out = new ServletOutputStream() {
+            public void write(int b) {
+                body.write(b);
+            }
+        };
+        return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("getOutputStream")) {
+                            return out;
+                        }
+                        calls.add(method.getName() + (args == null ? "" : " " + args[0]));
+                        return null;
+                    }
+                });
+    }
+
+    private boolean startAsync() throws Exception {
+        // the streams and transport info given to the engine by doPost
+        HttpServletResponse response = createResponse();
+        msgContext.setProperty(Constants.OUT_TRANSPORT_INFO,
+                               new ServletBasedOutTransportInfo(response));
+        AsyncResponseOutputStream responseOut =
+                new AsyncResponseOutputStream(response.getOutputStream());
+        out = new BufferedOutputStream(responseOut);
+        return transport.startAsync(createRequest(), msgContext, out, responseOut);
+    }
+
+    @Test
+    public void testServlet2Fallback() {
+        // the Servlet API the transport is built and tested against has no asynchronous processing
+        assertNull(ServletAsyncSupport.getInstance());
+        assertNull(ServletAsyncSupport.create(HttpServletRequest.class));
+        assertNotNull(servlet.asyncSupport);
+    }
+
+    @Test
+    public void testRequestWithoutAsyncSupport() throws Exception {
+        asyncSupported = false;
+        assertFalse(startAsync());
+        assertEquals(-1, asyncContext.timeout);
+    }
+
+    @Test
+    public void testResponseAlreadyReady() throws Exception {
+        transport.signalResponseReady();
+        assertFalse(startAsync());
+        assertEquals(0, asyncContext.completions);
+    }
+
+    @Test
+    public void testCompletion() throws Exception {
+        assertTrue(startAsync());
+        assertEquals(1000, asyncContext.timeout);
+        assertNotNull(asyncContext.listener);
+        assertEquals(0, asyncContext.completions);
+
+        transport.acknowledgeMessage(msgContext);
+        assertEquals(1, asyncContext.completions);
+        assertTrue(calls.contains("setStatus " + HttpServletResponse.SC_ACCEPTED));
+
+        // signalling again doesn't complete the request twice
+        transport.signalResponseReady();
+        assertEquals(1, asyncContext.completions);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        assertTrue(startAsync());
+        asyncContext.listener.onTimeout(null);
+        assertEquals(1, asyncContext.completions);
+        assertTrue(calls.contains("sendError " + HttpServletResponse.SC_INTERNAL_SERVER_ERROR));
+
+        // the late response is dropped
+        calls.clear();
+        transport.signalResponseReady();
+        assertEquals(1, asyncContext.completions);
+        assertTrue(calls.isEmpty());
+        assertEquals(0, body.size());
+    }
+
+    @Test
+    public void testEngineWritesAfterTimeoutAreDropped() throws Exception {
+        assertTrue(startAsync());
+        asyncContext.listener.onTimeout(null);
+        calls.clear();
+
+        // the engine thread goes on writing a response larger than the buffer
+        ServletBasedOutTransportInfo outTransportInfo = (ServletBasedOutTransportInfo)
+                msgContext.getProperty(Constants.OUT_TRANSPORT_INFO);
+        outTransportInfo.setContentType("text/xml");
+        outTransportInfo.setStatus(HttpServletResponse.SC_OK);
+        byte[] chunk = new byte[1024];
+        for (int i = 0; i < 20; i++) {
+            out.write(chunk);
+        }
+        out.flush();
+        out.close();
+        transport.signalResponseReady();
+
+        assertEquals(0, body.size());
+        assertTrue(calls.toString(), calls.isEmpty());
+        assertEquals(1, asyncContext.completions);
+    }
+
+    @Test
+    public void testEngineWritesBeforeTimeoutGoThrough() throws Exception {
+        assertTrue(startAsync());
+        byte[] chunk = new byte[1024];
+        for (int i = 0; i < 20; i++) {
+            out.write(chunk);
+        }
+        out.flush();
+        assertEquals(20 * 1024, body.size());
+    }
+
+    @Test
+    public void testNoTimeout() throws Exception {
+        servlet.asyncTimeout = 0;
+        assertTrue(startAsync());
+        assertEquals(0, asyncContext.timeout);
+    }
+}
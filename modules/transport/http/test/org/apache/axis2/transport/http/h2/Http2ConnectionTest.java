@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.h2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Http2ConnectionTest {
+    private static final int MAX_CONCURRENT_STREAMS = 2;
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService executor;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    private volatile int maxActiveStreams;
+
+    private Http2Connection client;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Http2Connection server = new Http2Connection(socket, new Echo(),
+                            MAX_CONCURRENT_STREAMS, Http2Connection.DEFAULT_WINDOW_SIZE);
+                    server.start();
+                    server.run();
+                } catch (IOException e) {
+                    // the test fails on the client side
+                }
+            }
+        });
+        client = Http2Connection.connect("127.0.0.1", serverSocket.getLocalPort(), 5000, 0,
+                                         Http2Connection.DEFAULT_WINDOW_SIZE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    // Echoes the request body, one thread per stream
+    private class Echo implements Http2Connection.StreamListener {
+        public void streamOpened(final Http2Stream stream) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    int active = activeStreams.incrementAndGet();
+                    if (active > maxActiveStreams) {
+                        maxActiveStreams = active;
+                    }
+                    try {
+                        byte[] body = readFully(stream.getInputStream());
+                        stream.sendHeaders(Arrays.<Header>asList(
+                                new BasicHeader(":status", "200"),
+                                new BasicHeader("x-path", stream.getHeader(":path"))), false);
+                        activeStreams.decrementAndGet();
+                        OutputStream out = stream.getOutputStream();
+                        out.write(body);
+                        out.close();
+                    } catch (IOException e) {
+                        activeStreams.decrementAndGet();
+                        stream.reset(Http2Connection.INTERNAL_ERROR);
+                    }
+                }
+            });
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private Http2Stream newStream(String path) throws IOException {
+        List<Header> headers = new ArrayList<Header>();
+        headers.add(new BasicHeader(":method", "POST"));
+        headers.add(new BasicHeader(":scheme", "http"));
+        headers.add(new BasicHeader(":authority", "localhost"));
+        headers.add(new BasicHeader(":path", path));
+        return client.newStream(headers, false, 10000);
+    }
+
+    private byte[] exchange(String path, byte[] body) throws IOException {
+        Http2Stream stream = newStream(path);
+        stream.setTimeout(10000);
+        OutputStream out = stream.getOutputStream();
+        out.write(body);
+        out.close();
+        stream.awaitHeaders();
+        assertEquals("200", stream.getHeader(":status"));
+        assertEquals(path, stream.getHeader("x-path"));
+        return readFully(stream.getInputStream());
+    }
+
+    @Test
+    public void testHpackRoundTrip() throws Exception {
+        HpackEncoder encoder = new HpackEncoder();
+        HpackDecoder decoder = new HpackDecoder(HpackTable.DEFAULT_MAX_SIZE);
+        List<Header> headers = new ArrayList<Header>();
+        headers.add(new BasicHeader(":method", "POST"));
+        headers.add(new BasicHeader(":path", "/axis2/services/Echo"));
+        headers.add(new BasicHeader("Content-Type", "text/xml; charset=UTF-8"));
+        headers.add(new BasicHeader("cookie", "JSESSIONID=abc"));
+        headers.add(new BasicHeader("x-binary", "caf\u00e9 \u0001"));
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            encoder.encode(headers, out);
+            byte[] block = out.toByteArray();
+            List<Header> decoded = decoder.decode(block, 0, block.length);
+            assertEquals(headers.size(), decoded.size());
+            for (int j = 0; j < headers.size(); j++) {
+                assertEquals(headers.get(j).getName().toLowerCase(), decoded.get(j).getName());
+                assertEquals(headers.get(j).getValue(), decoded.get(j).getValue());
+            }
+            if (i > 0) {
+                // the indexed headers fit in a few bytes once they are in the dynamic table
+                assertTrue(block.length < 40);
+            }
+        }
+    }
+
+    @Test
+    public void testHuffman() throws Exception {
+        // RFC 7541, C.4.1
+        byte[] value = "www.example.com".getBytes("ISO-8859-1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Huffman.encode(value, out);
+        byte[] expected = {(byte) 0xf1, (byte) 0xe3, (byte) 0xc2, (byte) 0xe5, (byte) 0xf2, 0x3a,
+                (byte) 0x6b, (byte) 0xa0, (byte) 0xab, (byte) 0x90, (byte) 0xf4, (byte) 0xff};
+        assertArrayEquals(expected, out.toByteArray());
+        assertEquals(expected.length, Huffman.encodedLength(value));
+        assertArrayEquals(value, Huffman.decode(expected, 0, expected.length));
+    }
+
+    @Test
+    public void testFlowControlledBody() throws Exception {
+        // larger than the initial window of the stream and of the connection
+        byte[] body = new byte[5 * Http2Connection.DEFAULT_WINDOW_SIZE + 123];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i * 31);
+        }
+        assertArrayEquals(body, exchange("/large", body));
+        assertArrayEquals("small".getBytes(), exchange("/small", "small".getBytes()));
+    }
+
+    @Test
+    public void testMultiplexedStreams() throws Exception {
+        List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+        for (int i = 0; i < 8; i++) {
+            final String path = "/stream/" + i;
+            final byte[] body = new byte[20000 * (i + 1)];
+            Arrays.fill(body, (byte) i);
+            results.add(executor.submit(new Callable<byte[]>() {
+                public byte[] call() throws Exception {
+                    byte[] echoed = exchange(path, body);
+                    assertArrayEquals(body, echoed);
+                    return echoed;
+                }
+            }));
+        }
+        for (Future<byte[]> result : results) {
+            result.get();
+        }
+        assertTrue(maxActiveStreams <= MAX_CONCURRENT_STREAMS);
+        assertEquals(0, client.getStreamCount());
+        assertTrue(client.isUsable());
+    }
+
+    @Test
+    public void testClosedConnection() throws Exception {
+        client.close();
+        try {
+            exchange("/closed", new byte[0]);
+            fail("Expected the closed connection to refuse new streams");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHeadersListener() throws Exception {
+        Http2Stream stream = newStream("/listener");
+        stream.setTimeout(10000);
+        final CountDownLatch called = new CountDownLatch(1);
+        stream.setHeadersListener(new Runnable() {
+            public void run() {
+                called.countDown();
+            }
+        });
+        assertEquals(1, called.getCount());
+        OutputStream out = stream.getOutputStream();
+        out.write("listener".getBytes());
+        out.close();
+        assertTrue(called.await(10, TimeUnit.SECONDS));
+        assertEquals("200", stream.getHeader(":status"));
+        assertArrayEquals("listener".getBytes(), readFully(stream.getInputStream()));
+
+        // a listener set once the headers are there runs straight away
+        final CountDownLatch late = new CountDownLatch(1);
+        stream.setHeadersListener(new Runnable() {
+            public void run() {
+                late.countDown();
+            }
+        });
+        assertEquals(0, late.getCount());
+    }
+
+    @Test
+    public void testHeadersListenerOnFailure() throws Exception {
+        Http2Stream stream = newStream("/failed");
+        final CountDownLatch called = new CountDownLatch(1);
+        stream.setHeadersListener(new Runnable() {
+            public void run() {
+                called.countDown();
+            }
+        });
+        client.close();
+        assertTrue(called.await(10, TimeUnit.SECONDS));
+        try {
+            stream.awaitHeaders();
+            fail("Expected the stream to have failed");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCloseWhenIdle() throws Exception {
+        Http2Stream stream = newStream("/idle");
+        stream.setTimeout(10000);
+        client.closeWhenIdle();
+        assertTrue(client.isUsable());
+        OutputStream out = stream.getOutputStream();
+        out.write("idle".getBytes());
+        out.close();
+        stream.awaitHeaders();
+        assertArrayEquals("idle".getBytes(), readFully(stream.getInputStream()));
+        assertEquals(0, client.getStreamCount());
+        assertTrue(!client.isUsable());
+    }
+}
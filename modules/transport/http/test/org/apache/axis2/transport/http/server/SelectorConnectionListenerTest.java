@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.transport.http.SimpleHTTPServer;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.impl.DefaultHttpClientConnection;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SelectorConnectionListenerTest {
+    private SimpleHttpServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        ConfigurationContext configurationContext =
+                ConfigurationContextFactory.createEmptyConfigurationContext();
+        TransportInDescription httpIn = new TransportInDescription("http");
+        httpIn.setReceiver(new SimpleHTTPServer());
+        configurationContext.getAxisConfiguration().addTransportIn(httpIn);
+
+        WorkerFactory workerFactory = new WorkerFactory() {
+            public Worker newWorker() {
+                return new Worker() {
+                    public void service(AxisHttpRequest request, AxisHttpResponse response,
+                                        MessageContext msgContext)
+                            throws HttpException, IOException {
+                        int length = 0;
+                        InputStream in = request.getInputStream();
+                        if (in != null) {
+                            while (in.read() != -1) {
+                                length++;
+                            }
+                        }
+                        response.setContentType("text/plain");
+                        response.getOutputStream().write(
+                                (request.getRequestURI() + ":" + length).getBytes("UTF-8"));
+                    }
+                };
+            }
+        };
+        HttpFactory httpFactory = new HttpFactory(configurationContext, 0, workerFactory);
+        httpFactory.setSelectorListener(true);
+        httpFactory.setSelectorThreadCount(1);
+        httpFactory.setRequestSocketTimeout(1000);
+        server = new SimpleHttpServer(httpFactory, 0);
+        server.init();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.destroy();
+    }
+
+    private static String receive(DefaultHttpClientConnection conn) throws Exception {
+        HttpResponse response = conn.receiveResponseHeader();
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        conn.receiveResponseEntity(response);
+        return EntityUtils.toString(response.getEntity());
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+        Socket socket = new Socket("localhost", server.getPort());
+        try {
+            DefaultHttpClientConnection conn = new DefaultHttpClientConnection();
+            conn.bind(socket, new BasicHttpParams());
+            OutputStream out = socket.getOutputStream();
+
+            // Pipelined requests
+            out.write(("POST /a HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello"
+                    + "GET /b HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes("US-ASCII"));
+            out.flush();
+            assertEquals("/a:5", receive(conn));
+            assertEquals("/b:0", receive(conn));
+
+            // A request head sent in several packets to the idle connection
+            Thread.sleep(200);
+            out.write("GET /c HTTP/1.1\r\nHo".getBytes("US-ASCII"));
+            out.flush();
+            Thread.sleep(200);
+            out.write("st: localhost\r\n\r\n".getBytes("US-ASCII"));
+            out.flush();
+            assertEquals("/c:0", receive(conn));
+
+            // Idle connections are closed after the socket timeout
+            socket.setSoTimeout(10000);
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testConnectionClose() throws Exception {
+        Socket socket = new Socket("localhost", server.getPort());
+        try {
+            DefaultHttpClientConnection conn = new DefaultHttpClientConnection();
+            conn.bind(socket, new BasicHttpParams());
+            socket.getOutputStream().write(
+                    "GET /d HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                            .getBytes("US-ASCII"));
+            assertEquals("/d:0", receive(conn));
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+    }
+}
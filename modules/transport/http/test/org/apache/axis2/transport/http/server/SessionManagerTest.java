@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.http.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.axis2.context.SessionContext;
+import org.junit.Test;
+
+public class SessionManagerTest {
+    @Test
+    public void testSameSession() {
+        SessionManager sessionManager = new SessionManager();
+        SessionContext session = sessionManager.getSessionContext(null);
+        assertNotNull(session.getCookieID());
+        assertSame(session, sessionManager.getSessionContext(session.getCookieID()));
+        assertEquals(1, sessionManager.getSessionCount());
+        assertEquals(1, sessionManager.getCreatedCount());
+    }
+
+    @Test
+    public void testUnknownSession() {
+        SessionManager sessionManager = new SessionManager();
+        SessionContext session = sessionManager.getSessionContext("unknown");
+        assertFalse("unknown".equals(session.getCookieID()));
+        assertSame(session, sessionManager.getSessionContext(session.getCookieID()));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        SessionManager sessionManager = new SessionManager(50, 0);
+        SessionContext session = sessionManager.getSessionContext(null);
+        assertEquals(50, session.sessionContextTimeoutInterval);
+        Thread.sleep(150);
+        SessionContext other = sessionManager.getSessionContext(session.getCookieID());
+        assertTrue(session != other);
+        assertEquals(1, sessionManager.getExpiredCount());
+        assertEquals(1, sessionManager.getSessionCount());
+
+        Thread.sleep(150);
+        sessionManager.expireSessions();
+        assertEquals(2, sessionManager.getExpiredCount());
+        assertEquals(0, sessionManager.getSessionCount());
+    }
+
+    @Test
+    public void testEviction() {
+        SessionManager sessionManager = new SessionManager(60000, 100);
+        List<SessionContext> sessions = new ArrayList<SessionContext>();
+        for (int i = 0; i < 1000; i++) {
+            sessions.add(sessionManager.getSessionContext(null));
+            assertTrue(sessionManager.getSessionCount() <= 100);
+        }
+        assertEquals(100, sessionManager.getSessionCount());
+        assertEquals(900, sessionManager.getEvictedCount());
+        assertEquals(0, sessionManager.getExpiredCount());
+
+        // the most recent session is still there, the first one has been evicted
+        SessionContext last = sessions.get(sessions.size() - 1);
+        assertSame(last, sessionManager.getSessionContext(last.getCookieID()));
+        SessionContext first = sessions.get(0);
+        assertTrue(first != sessionManager.getSessionContext(first.getCookieID()));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final SessionManager sessionManager = new SessionManager(60000, 500);
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 2000; j++) {
+                            SessionContext session = sessionManager.getSessionContext(null);
+                            SessionContext again =
+                                    sessionManager.getSessionContext(session.getCookieID());
+                            assertNotNull(again);
+                        }
+                    } catch (Throwable t) {
+                        synchronized (failures) {
+                            failures.add(t);
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertTrue(sessionManager.getSessionCount() <= 500);
+        assertEquals(sessionManager.getCreatedCount() - sessionManager.getEvictedCount(),
+                sessionManager.getSessionCount());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.local;
+
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.apache.axis2.transport.TransportSender;
+import org.apache.axis2.transport.TransportUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Sends the response to a message handed over by {@link InVMTransportSender}, by giving its
+ * envelope to the message context that waits for it on the sending side.
+ */
+class InVMResponder extends AbstractHandler implements TransportSender {
+    private static final Log log = LogFactory.getLog(InVMResponder.class);
+
+    private final MessageContext requestContext;
+
+    private final boolean copyEnvelope;
+
+    InVMResponder(MessageContext requestContext, boolean copyEnvelope) {
+        this.requestContext = requestContext;
+        this.copyEnvelope = copyEnvelope;
+    }
+
+    public void init(ConfigurationContext confContext, TransportOutDescription transportOut)
+            throws AxisFault {
+    }
+
+    public void stop() {
+    }
+
+    public void cleanup(MessageContext msgContext) throws AxisFault {
+    }
+
+    public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+        MessageContext responseContext =
+                InVMTransportSender.getResponseMessageContext(requestContext);
+        SOAPEnvelope envelope = msgContext.getEnvelope();
+        if (responseContext == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("No response expected, dropping the response to message "
+                        + requestContext.getMessageID());
+            }
+        } else {
+            responseContext.setEnvelope(
+                    copyEnvelope ? InVMTransportSender.copy(envelope) : envelope);
+            responseContext.setProcessingFault(msgContext.isProcessingFault());
+            if (msgContext.isDoingSwA()) {
+                responseContext.setAttachmentMap(msgContext.getAttachmentMap());
+            }
+        }
+        TransportUtils.setResponseWritten(msgContext, true);
+        return InvocationResponse.CONTINUE;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.axis2.transport.local;
+
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.description.Parameter;
+import org.apache.axis2.description.TransportInDescription;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.engine.AxisEngine;
+import org.apache.axis2.handlers.AbstractHandler;
+import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.NonBlockingTransportSender;
+import org.apache.axis2.transport.TransportResponseListener;
+import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.util.JavaUtils;
+import org.apache.axis2.util.MessageContextBuilder;
+import org.apache.axis2.util.threadpool.AsyncTask;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.OutputStream;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A sender for the local transport that hands the SOAP envelope over to the target service
+ * instead of serializing it. Where {@link LocalTransportSender} writes the message to a byte
+ * array and {@link LocalTransportReceiver} parses it again, this sender gives the envelope
+ * itself to AxisEngine.receive, and the response envelope comes back the same way. It uses the
+ * addresses and the "local" transport in of the local transport, and replaces
+ * LocalTransportSender in axis2.xml:
+ * <pre>
+ * &lt;transportSender name="local"
+ *                  class="org.apache.axis2.transport.local.InVMTransportSender"&gt;
+ *     &lt;parameter name="asynchronous"&gt;true&lt;/parameter&gt;
+ *     &lt;parameter name="copyEnvelope"&gt;false&lt;/parameter&gt;
+ * &lt;/transportSender&gt;
+ * </pre>
+ * The target services are looked up in {@link LocalTransportReceiver#CONFIG_CONTEXT} if it is
+ * set, and in the configuration of the sender otherwise, which is where services calling other
+ * services deployed alongside them find their targets.
+ * <p/>
+ * As the receiving side works on the very objects the sender built, the caller must not change
+ * the envelope, or reuse its payload elements in another message, while the target service may
+ * still be processing it. This holds as soon as the call returns, unless the message was handed
+ * off asynchronously. Set copyEnvelope to give the target a copy of each envelope instead,
+ * which still avoids serializing and parsing it.
+ * <p/>
+ * With asynchronous set, non-blocking client calls are handed off as well: the target processes
+ * the request on a thread of its pool and the response listener of the call is notified once
+ * the response has been handed back.
+ */
+public class InVMTransportSender extends AbstractHandler implements NonBlockingTransportSender {
+    protected static final Log log = LogFactory.getLog(InVMTransportSender.class);
+
+    /**
+     * Parameter telling the sender to process messages for which no response is expected on a
+     * thread of the thread pool of the target configuration, and to return at once. Messages
+     * expecting a response, fault included, are processed on the calling thread, unless they
+     * are sent by a non-blocking client call.
+     */
+    public static final String ASYNCHRONOUS = "asynchronous";
+
+    /**
+     * Parameter telling the sender to hand a copy of the request and response envelopes over,
+     * rather than the envelopes themselves.
+     */
+    public static final String COPY_ENVELOPE = "copyEnvelope";
+
+    private boolean asynchronous;
+
+    private boolean copyEnvelope;
+
+    public void init(ConfigurationContext confContext, TransportOutDescription transportOut)
+            throws AxisFault {
+        asynchronous = isTrue(transportOut, ASYNCHRONOUS);
+        copyEnvelope = isTrue(transportOut, COPY_ENVELOPE);
+    }
+
+    private static boolean isTrue(TransportOutDescription transportOut, String name) {
+        Parameter param = transportOut.getParameter(name);
+        return param != null && JavaUtils.isTrueExplicitly(param.getValue());
+    }
+
+    public void stop() {
+    }
+
+    public void cleanup(MessageContext msgContext) throws AxisFault {
+    }
+
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    public boolean isCopyEnvelope() {
+        return copyEnvelope;
+    }
+
+    public void setCopyEnvelope(boolean copyEnvelope) {
+        this.copyEnvelope = copyEnvelope;
+    }
+
+    public boolean isNonBlocking(MessageContext msgContext) {
+        return asynchronous;
+    }
+
+    public InvocationResponse invoke(MessageContext msgContext) throws AxisFault {
+        msgContext.setDoingMTOM(TransportUtils.doWriteMTOM(msgContext));
+        msgContext.setDoingSwA(TransportUtils.doWriteSwA(msgContext));
+
+        EndpointReference epr = msgContext.getTo();
+        if (epr == null) {
+            // A response going back through a stream, as LocalTransportSender does
+            OutputStream out = (OutputStream) msgContext.getProperty(MessageContext.TRANSPORT_OUT);
+            if (out == null) {
+                throw new AxisFault(
+                        "Both the TO and Property MessageContext.TRANSPORT_OUT is Null, No where to send");
+            }
+            TransportUtils.writeMessage(msgContext, out);
+        } else if (!epr.hasNoneAddress()) {
+            send(msgContext, epr);
+        }
+        TransportUtils.setResponseWritten(msgContext, true);
+        return InvocationResponse.CONTINUE;
+    }
+
+    private void send(final MessageContext msgContext, EndpointReference epr) throws AxisFault {
+        ConfigurationContext confContext = LocalTransportReceiver.CONFIG_CONTEXT;
+        if (confContext == null) {
+            confContext = msgContext.getConfigurationContext();
+        }
+        SOAPEnvelope envelope = msgContext.getEnvelope();
+        if (log.isDebugEnabled()) {
+            log.debug("Handing over a message to " + epr.getAddress() + " with action "
+                    + msgContext.getOptions().getAction());
+        }
+
+        boolean responseExpected = getResponseMessageContext(msgContext) != null;
+        final TransportResponseListener listener = (TransportResponseListener)
+                msgContext.getProperty(NonBlockingTransportSender.RESPONSE_LISTENER);
+        boolean handOff = asynchronous && (!responseExpected || listener != null);
+        if (handOff) {
+            // The caller may release what the envelope is built from once it returns
+            envelope.build();
+        }
+        final MessageContext request = confContext.createMessageContext();
+        TransportInDescription tIn = confContext.getAxisConfiguration().getTransportIn(
+                Constants.TRANSPORT_LOCAL);
+        TransportOutDescription tOut = confContext.getAxisConfiguration().getTransportOut(
+                Constants.TRANSPORT_LOCAL);
+        final LocalResponseTransportOutDescription responseOut =
+                new LocalResponseTransportOutDescription(tOut);
+        responseOut.setSender(new InVMResponder(msgContext, copyEnvelope));
+
+        request.setTransportIn(tIn);
+        request.setTransportOut(responseOut);
+        request.setTo(epr);
+        request.setWSAAction(msgContext.getOptions().getAction());
+        request.setSoapAction(msgContext.getSoapAction());
+        request.setServerSide(true);
+        request.setEnvelope(copyEnvelope ? copy(envelope) : envelope);
+        if (msgContext.isDoingSwA()) {
+            request.setAttachmentMap(msgContext.getAttachmentMap());
+        }
+
+        if (handOff) {
+            try {
+                confContext.getThreadPool().execute(new AsyncTask() {
+                    public void run() {
+                        try {
+                            receive(request, responseOut);
+                        } catch (AxisFault e) {
+                            if (listener != null) {
+                                listener.onError(msgContext, e);
+                                return;
+                            }
+                            log.error("Failed to process a message handed off to "
+                                    + request.getTo().getAddress(), e);
+                        }
+                        if (listener != null) {
+                            listener.onResponse(msgContext);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                throw new AxisFault(Messages.getMessage("threadpoolrejected"), e);
+            }
+        } else {
+            receive(request, responseOut);
+        }
+    }
+
+    private static void receive(MessageContext request, TransportOutDescription responseOut)
+            throws AxisFault {
+        try {
+            AxisEngine.receive(request);
+        } catch (AxisFault e) {
+            MessageContext faultContext =
+                    MessageContextBuilder.createFaultMessageContext(request, e);
+            faultContext.setTransportOut(responseOut);
+            AxisEngine.sendFault(faultContext);
+        }
+    }
+
+    /**
+     * Copy an envelope by building a new tree from the events of the original one, without
+     * serializing it. Binary content is shared, not copied.
+     */
+    static SOAPEnvelope copy(SOAPEnvelope envelope) {
+        SOAPEnvelope copy =
+                new StAXSOAPModelBuilder(envelope.getXMLStreamReader()).getSOAPEnvelope();
+        copy.build();
+        return copy;
+    }
+
+    /**
+     * @param msgContext the request message context on the sending side
+     * @return the message context waiting for the response, or null if no response is expected
+     */
+    static MessageContext getResponseMessageContext(MessageContext msgContext)
+            throws AxisFault {
+        OperationContext opContext = msgContext.getOperationContext();
+        return opContext == null
+                ? null : opContext.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+    }
+}